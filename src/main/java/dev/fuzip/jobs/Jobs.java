@@ -1,11 +1,33 @@
 package dev.fuzip.jobs;
 
+import dev.fuzip.jobs.api.JobsService;
 import dev.fuzip.jobs.commands.JobsCommand;
+import dev.fuzip.jobs.entities.ActionType;
 import dev.fuzip.jobs.listeners.BlockBreakListener;
+import dev.fuzip.jobs.listeners.BlockPlaceListener;
+import dev.fuzip.jobs.listeners.CraftListener;
+import dev.fuzip.jobs.listeners.EntityKillListener;
+import dev.fuzip.jobs.listeners.FishListener;
+import dev.fuzip.jobs.listeners.HarvestListener;
 import dev.fuzip.jobs.listeners.OnJoinListener;
+import dev.fuzip.jobs.listeners.OnQuitListener;
+import dev.fuzip.jobs.listeners.PlacedBlockListener;
+import dev.fuzip.jobs.managers.ActionManager;
+import dev.fuzip.jobs.managers.BoostManager;
+import dev.fuzip.jobs.managers.FeedbackManager;
 import dev.fuzip.jobs.managers.JobManager;
+import dev.fuzip.jobs.managers.JobsServiceProvider;
+import dev.fuzip.jobs.managers.LeaderboardManager;
+import dev.fuzip.jobs.managers.LevelManager;
+import dev.fuzip.jobs.managers.MetricsManager;
+import dev.fuzip.jobs.managers.PlacedBlockTracker;
 import dev.fuzip.jobs.managers.PlayerDataManager;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
 import org.bukkit.Bukkit;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.ServicePriority;
 import org.bukkit.plugin.java.JavaPlugin;
 
 /**
@@ -20,9 +42,19 @@ import org.bukkit.plugin.java.JavaPlugin;
  * <p>Core responsibilities: - Initialize plugin configurations and resources such as config.yml and
  * data.yml. - Set up and manage interactions between {@link JobManager}, {@link PlayerDataManager},
  * and plugin commands. - Register relevant event listeners for player interactions and game
- * actions. - Provide the "jobs" command to interact with plugin functionality.
+ * actions. - Provide the "jobs" command to interact with plugin functionality. - Register the
+ * {@link JobsService} used by other plugins.
  */
 public final class Jobs extends JavaPlugin {
+  private final Set<ActionType> listenedActions = EnumSet.noneOf(ActionType.class);
+  private JobManager jobManager;
+  private ActionManager actionManager;
+  private PlayerDataManager playerDataManager;
+  private PlacedBlockTracker placedBlockTracker;
+  private LevelManager levelManager;
+  private BoostManager boostManager;
+  private MetricsManager metricsManager;
+
   @Override
   public void onEnable() {
     this.getLogger().info("[Jobs] Initialising plugin...");
@@ -32,23 +64,117 @@ public final class Jobs extends JavaPlugin {
     this.saveResource("data.yml", false);
 
     // Init managers
-    JobManager jobManager = new JobManager();
-    PlayerDataManager playerDataManager = new PlayerDataManager(this, jobManager.getJobs());
-    JobsCommand jobsCommand = new JobsCommand(jobManager, playerDataManager);
+    this.jobManager = new JobManager();
+    this.metricsManager = new MetricsManager(this);
+    this.playerDataManager = new PlayerDataManager(this, jobManager.getJobs(), metricsManager);
+    this.metricsManager.start(playerDataManager);
+    FeedbackManager feedbackManager = new FeedbackManager(this, jobManager);
+    this.placedBlockTracker = new PlacedBlockTracker(this);
+    LeaderboardManager leaderboardManager =
+        new LeaderboardManager(this, jobManager.getJobs(), playerDataManager);
+    this.boostManager = new BoostManager(this, jobManager.getJobs());
+    this.levelManager =
+        new LevelManager(
+            this, jobManager, feedbackManager, playerDataManager, leaderboardManager, boostManager);
+    this.actionManager =
+        new ActionManager(jobManager, playerDataManager, levelManager, metricsManager);
+    JobsCommand jobsCommand =
+        new JobsCommand(
+            this,
+            jobManager,
+            playerDataManager,
+            metricsManager,
+            leaderboardManager,
+            boostManager);
 
-    // Register Events
-    Bukkit.getPluginManager()
-        .registerEvents(new BlockBreakListener(jobManager, playerDataManager), this);
+    // Register Events, only for the actions rewarded by at least one job
+    this.listenToUsedActions();
     Bukkit.getPluginManager().registerEvents(new OnJoinListener(playerDataManager), this);
+    Bukkit.getPluginManager()
+        .registerEvents(new OnQuitListener(playerDataManager, levelManager), this);
+
+    // Players and chunks already loaded after a reload
+    Bukkit.getOnlinePlayers().forEach(playerDataManager::initDataPlayer);
+    this.placedBlockTracker.loadAll();
+    leaderboardManager.load();
+    this.boostManager.load();
 
     // Commands
     this.getCommand("jobs").setExecutor(jobsCommand);
 
+    // API for other plugins
+    JobsService jobsService =
+        new JobsServiceProvider(jobManager, playerDataManager, levelManager, leaderboardManager);
+    Bukkit.getServicesManager()
+        .register(JobsService.class, jobsService, this, ServicePriority.Normal);
+
     this.getLogger().info("[Jobs] Enabled !");
   }
 
+  /**
+   * Registers the listeners of the actions rewarded by at least one job that are not listened to
+   * yet. Called at startup and after a reload of the jobs, which may reward new actions. Listeners
+   * of actions no longer rewarded stay registered and simply find no XP grant.
+   */
+  public void listenToUsedActions() {
+    for (ActionType actionType : this.jobManager.getUsedActions()) {
+      if (!this.listenedActions.add(actionType)) {
+        continue;
+      }
+
+      for (Listener listener :
+          this.createActionListeners(actionType, this.jobManager, this.actionManager)) {
+        Bukkit.getPluginManager().registerEvents(listener, this);
+      }
+      this.getLogger().info("[Jobs] Listening to action " + actionType.getKey() + ".");
+    }
+  }
+
+  /**
+   * Creates the listeners turning Bukkit events into the given action.
+   *
+   * @param actionType the action rewarded by at least one job
+   * @param jobManager the job manager, used to know which placed blocks must be tracked
+   * @param actionManager the action pipeline receiving the actions
+   * @return the listeners to register for this action
+   */
+  private List<Listener> createActionListeners(
+      ActionType actionType, JobManager jobManager, ActionManager actionManager) {
+    return switch (actionType) {
+      case BREAK ->
+          List.of(
+              new BlockBreakListener(actionManager, this.placedBlockTracker, this.metricsManager),
+              new PlacedBlockListener(jobManager, this.placedBlockTracker));
+      case PLACE -> List.of(new BlockPlaceListener(actionManager));
+      case HARVEST -> List.of(new HarvestListener(actionManager));
+      case CRAFT -> List.of(new CraftListener(actionManager));
+      case FISH -> List.of(new FishListener(actionManager));
+      case KILL -> List.of(new EntityKillListener(actionManager));
+    };
+  }
+
   @Override
   public void onDisable() {
+    Bukkit.getServicesManager().unregisterAll(this);
+
+    // XP queued during the last tick, then final flush of pending player data
+    if (this.levelManager != null) {
+      this.levelManager.flushPendingXp();
+    }
+    if (this.playerDataManager != null) {
+      this.playerDataManager.shutdown();
+    }
+
+    // Boosts still running, with their expiry
+    if (this.boostManager != null) {
+      this.boostManager.save();
+    }
+
+    // Placed blocks of chunks still loaded
+    if (this.placedBlockTracker != null) {
+      this.placedBlockTracker.saveAll();
+    }
+
     this.getLogger().info("[Jobs] Disabled !");
   }
 }
@@ -0,0 +1,85 @@
+package dev.fuzip.jobs.api;
+
+import dev.fuzip.jobs.entities.JobEntity;
+import java.util.UUID;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+/**
+ * Called on the main server thread when an XP gain is about to make a player reach one or more new
+ * levels in a job, before the level-up messages and rewards. Cancelling it keeps the player at
+ * their current level: the XP is still gained and counts towards the next level-up, which is
+ * attempted again on the next gain.
+ *
+ * <p>The event is only created when at least one listener is registered, so it costs nothing to
+ * servers that do not use it.
+ */
+public class JobLevelUpEvent extends Event implements Cancellable {
+  private static final HandlerList HANDLERS = new HandlerList();
+
+  private final UUID playerId;
+  private final Player player;
+  private final JobEntity job;
+  private final int oldLevel;
+  private final int newLevel;
+  private boolean cancelled;
+
+  public JobLevelUpEvent(UUID playerId, Player player, JobEntity job, int oldLevel, int newLevel) {
+    this.playerId = playerId;
+    this.player = player;
+    this.job = job;
+    this.oldLevel = oldLevel;
+    this.newLevel = newLevel;
+  }
+
+  public UUID getPlayerId() {
+    return this.playerId;
+  }
+
+  /**
+   * Returns the player leveling up.
+   *
+   * @return the player, or {@code null} if they left before the XP was applied
+   */
+  public Player getPlayer() {
+    return this.player;
+  }
+
+  public JobEntity getJob() {
+    return this.job;
+  }
+
+  public int getOldLevel() {
+    return this.oldLevel;
+  }
+
+  /**
+   * Returns the level reached. A single gain can pass several levels at once.
+   *
+   * @return the new level
+   */
+  public int getNewLevel() {
+    return this.newLevel;
+  }
+
+  @Override
+  public boolean isCancelled() {
+    return this.cancelled;
+  }
+
+  @Override
+  public void setCancelled(boolean cancelled) {
+    this.cancelled = cancelled;
+  }
+
+  @Override
+  public HandlerList getHandlers() {
+    return HANDLERS;
+  }
+
+  public static HandlerList getHandlerList() {
+    return HANDLERS;
+  }
+}
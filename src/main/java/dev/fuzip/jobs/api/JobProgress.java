@@ -0,0 +1,55 @@
+package dev.fuzip.jobs.api;
+
+/** Snapshot of a player's progress in one job, returned by {@link JobsService}. Immutable. */
+public final class JobProgress {
+  private final String jobId;
+  private final String jobName;
+  private final int level;
+  private final int xp;
+  private final int totalXp;
+  private final long xpToNextLevel;
+
+  public JobProgress(
+      String jobId, String jobName, int level, int xp, int totalXp, long xpToNextLevel) {
+    this.jobId = jobId;
+    this.jobName = jobName;
+    this.level = level;
+    this.xp = xp;
+    this.totalXp = totalXp;
+    this.xpToNextLevel = xpToNextLevel;
+  }
+
+  public String getJobId() {
+    return this.jobId;
+  }
+
+  public String getJobName() {
+    return this.jobName;
+  }
+
+  public int getLevel() {
+    return this.level;
+  }
+
+  /**
+   * Returns the XP earned towards the next level.
+   *
+   * @return the XP earned since the current level was reached
+   */
+  public int getXp() {
+    return this.xp;
+  }
+
+  public int getTotalXp() {
+    return this.totalXp;
+  }
+
+  /**
+   * Returns the XP needed to pass the current level.
+   *
+   * @return the XP of the current level, or 0 at the maximum level
+   */
+  public long getXpToNextLevel() {
+    return this.xpToNextLevel;
+  }
+}
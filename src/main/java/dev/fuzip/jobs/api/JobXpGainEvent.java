@@ -0,0 +1,81 @@
+package dev.fuzip.jobs.api;
+
+import dev.fuzip.jobs.entities.JobEntity;
+import java.util.UUID;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+/**
+ * Called on the main server thread when a player is about to gain XP in a job, after boosts and
+ * before XP caps. Listeners can change the amount or cancel the gain.
+ *
+ * <p>The event is only created when at least one listener is registered, so it costs nothing to
+ * servers that do not use it.
+ */
+public class JobXpGainEvent extends Event implements Cancellable {
+  private static final HandlerList HANDLERS = new HandlerList();
+
+  private final UUID playerId;
+  private final Player player;
+  private final JobEntity job;
+  private int xp;
+  private boolean cancelled;
+
+  public JobXpGainEvent(UUID playerId, Player player, JobEntity job, int xp) {
+    this.playerId = playerId;
+    this.player = player;
+    this.job = job;
+    this.xp = xp;
+  }
+
+  public UUID getPlayerId() {
+    return this.playerId;
+  }
+
+  /**
+   * Returns the player gaining XP.
+   *
+   * @return the player, or {@code null} if they left before the XP was applied
+   */
+  public Player getPlayer() {
+    return this.player;
+  }
+
+  public JobEntity getJob() {
+    return this.job;
+  }
+
+  public int getXp() {
+    return this.xp;
+  }
+
+  /**
+   * Changes the XP gained. A value of 0 or less gives no XP.
+   *
+   * @param xp the new amount
+   */
+  public void setXp(int xp) {
+    this.xp = xp;
+  }
+
+  @Override
+  public boolean isCancelled() {
+    return this.cancelled;
+  }
+
+  @Override
+  public void setCancelled(boolean cancelled) {
+    this.cancelled = cancelled;
+  }
+
+  @Override
+  public HandlerList getHandlers() {
+    return HANDLERS;
+  }
+
+  public static HandlerList getHandlerList() {
+    return HANDLERS;
+  }
+}
@@ -0,0 +1,95 @@
+package dev.fuzip.jobs.api;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Entry point for other plugins, registered in Bukkit's {@link org.bukkit.plugin.ServicesManager}
+ * while Jobs is enabled:
+ *
+ * <pre>{@code
+ * JobsService jobs = Bukkit.getServicesManager().load(JobsService.class);
+ * }</pre>
+ *
+ * <p>Synchronous reads only look at the players held in memory, which are the connected ones, and
+ * never touch the storage. Players who may be offline are read with {@link #loadProgress(UUID)},
+ * which completes off the main thread when the storage must be read. Progress changes can be
+ * followed with {@link JobXpGainEvent} and {@link JobLevelUpEvent}.
+ *
+ * <p>Jobs are identified by their key in config.yml, such as {@code miner}.
+ */
+public interface JobsService {
+
+  /**
+   * Returns the identifiers of the configured jobs, in configuration order.
+   *
+   * @return the job identifiers
+   */
+  Set<String> getJobIds();
+
+  /**
+   * Returns the progress of a player held in memory in one job. Safe to call from any thread.
+   *
+   * @param uuid the UUID of the player
+   * @param jobId the job identifier
+   * @return the progress, or {@code null} if the player is not in memory
+   * @throws IllegalArgumentException if the job does not exist
+   */
+  JobProgress getProgress(UUID uuid, String jobId);
+
+  /**
+   * Returns the progress of a player held in memory in every job. Safe to call from any thread.
+   *
+   * @param uuid the UUID of the player
+   * @return the progress by job identifier, in configuration order, or an empty map if the player
+   *     is not in memory
+   */
+  Map<String, JobProgress> getProgress(UUID uuid);
+
+  /**
+   * Reads the progress of any player in every job. Players in memory or viewed recently are served
+   * right away; others are read from the storage on the plugin's I/O thread, so the future may
+   * complete on that thread.
+   *
+   * @param uuid the UUID of the player
+   * @return a future completed with the progress by job identifier, at level 1 without XP for a
+   *     player who never played
+   */
+  CompletableFuture<Map<String, JobProgress>> loadProgress(UUID uuid);
+
+  /**
+   * Returns the rank of a player in a job leaderboard. Must be called from the main server thread.
+   *
+   * @param uuid the UUID of the player
+   * @param jobId the job identifier
+   * @return the rank, starting at 1, or 0 if the player has no XP in this job
+   * @throws IllegalArgumentException if the job does not exist
+   */
+  int getRank(UUID uuid, String jobId);
+
+  /**
+   * Gives XP to a player who has joined the server. The XP is applied at the end of the tick like
+   * XP earned in game: boosts, XP caps and events apply. Safe to call from any thread.
+   *
+   * @param uuid the UUID of the player
+   * @param jobId the job identifier
+   * @param xp the XP to give, greater than 0
+   * @return {@code true} if the XP was queued, {@code false} if the player has not joined
+   * @throws IllegalArgumentException if the job does not exist or the XP is not positive
+   */
+  boolean giveXp(UUID uuid, String jobId, int xp);
+
+  /**
+   * Gives XP to several players who have joined, for instance the members of a quest party. The XP
+   * of every player is queued in one call and applied at the end of the tick, see {@link
+   * #giveXp(UUID, String, int)}. Safe to call from any thread.
+   *
+   * @param xpByPlayer the XP to give, greater than 0, by player UUID
+   * @param jobId the job identifier
+   * @return the number of players who had joined and received the XP
+   * @throws IllegalArgumentException if the job does not exist or an XP amount is not positive
+   */
+  int giveXp(Map<UUID, Integer> xpByPlayer, String jobId);
+}
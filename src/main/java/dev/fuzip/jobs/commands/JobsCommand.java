@@ -1,9 +1,29 @@
 package dev.fuzip.jobs.commands;
 
+import dev.fuzip.jobs.Jobs;
 import dev.fuzip.jobs.entities.PlayerEntity;
+import dev.fuzip.jobs.entities.JobEntity;
+import dev.fuzip.jobs.managers.BoostManager;
 import dev.fuzip.jobs.managers.JobManager;
-import dev.fuzip.jobs.managers.LevelManager;
+import dev.fuzip.jobs.managers.LeaderboardManager;
+import dev.fuzip.jobs.managers.LeaderboardManager.RankedPlayer;
+import dev.fuzip.jobs.managers.MetricsManager;
 import dev.fuzip.jobs.managers.PlayerDataManager;
+import dev.fuzip.jobs.storage.PlayerDataStore;
+import dev.fuzip.jobs.storage.ProgressReader;
+import dev.fuzip.jobs.storage.ProgressWriter;
+import dev.fuzip.jobs.storage.TransferFormat;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.command.Command;
@@ -14,12 +34,32 @@ import org.jetbrains.annotations.NotNull;
 
 public class JobsCommand implements CommandExecutor {
 
+  private static final int TOP_PAGE_SIZE = 10;
+  private static final Map<Character, TimeUnit> DURATION_UNITS =
+      Map.of('s', TimeUnit.SECONDS, 'm', TimeUnit.MINUTES, 'h', TimeUnit.HOURS, 'd', TimeUnit.DAYS);
+  private static final DateTimeFormatter EXPORT_DATE =
+      DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+  private final Jobs plugin;
   private final JobManager jobManager;
   private final PlayerDataManager playerDataManager;
+  private final MetricsManager metricsManager;
+  private final LeaderboardManager leaderboardManager;
+  private final BoostManager boostManager;
 
-  public JobsCommand(JobManager jobManager, PlayerDataManager playerDataManager) {
+  public JobsCommand(
+      Jobs plugin,
+      JobManager jobManager,
+      PlayerDataManager playerDataManager,
+      MetricsManager metricsManager,
+      LeaderboardManager leaderboardManager,
+      BoostManager boostManager) {
+    this.plugin = plugin;
     this.jobManager = jobManager;
     this.playerDataManager = playerDataManager;
+    this.metricsManager = metricsManager;
+    this.leaderboardManager = leaderboardManager;
+    this.boostManager = boostManager;
   }
 
   @Override
@@ -28,6 +68,57 @@ public class JobsCommand implements CommandExecutor {
       @NotNull Command command,
       @NotNull String label,
       @NotNull String[] args) {
+    // /jobs top <job> [page]
+    if (args.length >= 1 && args[0].equalsIgnoreCase("top")) {
+      handleTop(sender, args);
+      return true;
+    }
+
+    // /jobs reload
+    if (args.length == 1 && args[0].equalsIgnoreCase("reload")) {
+      handleReload(sender);
+      return true;
+    }
+
+    // /jobs boost list|clear & /jobs boost <player|*> <job|*> <multiplier> <duration>
+    if (args.length >= 1 && args[0].equalsIgnoreCase("boost")) {
+      handleBoost(sender, args);
+      return true;
+    }
+
+    // /jobs stats [dump]
+    if (args.length >= 1 && args.length <= 2 && args[0].equalsIgnoreCase("stats")) {
+      handleStats(sender, args.length == 2 && args[1].equalsIgnoreCase("dump"));
+      return true;
+    }
+
+    // /jobs export [jsonl|csv]
+    if (args.length >= 1 && args.length <= 2 && args[0].equalsIgnoreCase("export")) {
+      handleExport(sender, args.length == 2 ? args[1] : TransferFormat.JSONL.getExtension());
+      return true;
+    }
+
+    // /jobs import <file>
+    if (args.length >= 1 && args.length <= 2 && args[0].equalsIgnoreCase("import")) {
+      handleImport(sender, args.length == 2 ? args[1] : null);
+      return true;
+    }
+
+    // /jobs migrate [source] & /jobs verify [source]
+    if (args.length >= 1 && args.length <= 2) {
+      String sourceType = args.length == 2 ? args[1].toLowerCase(Locale.ROOT) : "yaml";
+
+      if (args[0].equalsIgnoreCase("migrate")) {
+        handleMigrate(sender, sourceType);
+        return true;
+      }
+
+      if (args[0].equalsIgnoreCase("verify")) {
+        handleVerify(sender, sourceType);
+        return true;
+      }
+    }
+
     if (!(sender instanceof Player player)) {
       sender.sendMessage("Cette commande doit être exécutée par un joueur.");
       return true;
@@ -50,25 +141,553 @@ public class JobsCommand implements CommandExecutor {
     return true;
   }
 
+  private void handleTop(CommandSender sender, String[] args) {
+    if (args.length < 2 || args.length > 3) {
+      sender.sendMessage(ChatColor.RED + "Usage : /jobs top <métier> [page]");
+      return;
+    }
+
+    JobEntity jobEntity = this.findJob(args[1]);
+    if (jobEntity == null) {
+      sender.sendMessage(ChatColor.RED + "Le métier " + args[1] + " n'existe pas.");
+      return;
+    }
+
+    int pageCount =
+        Math.max(1, Math.ceilDiv(this.leaderboardManager.getSize(jobEntity), TOP_PAGE_SIZE));
+    int page;
+    try {
+      page = args.length == 3 ? Integer.parseInt(args[2]) : 1;
+    } catch (NumberFormatException e) {
+      page = 0;
+    }
+    if (page < 1 || page > pageCount) {
+      sender.sendMessage(ChatColor.RED + "Page invalide, choisissez entre 1 et " + pageCount + ".");
+      return;
+    }
+
+    List<RankedPlayer> top =
+        this.leaderboardManager.getTop(jobEntity, (page - 1) * TOP_PAGE_SIZE + 1, TOP_PAGE_SIZE);
+
+    sender.sendMessage(
+        "Classement " + jobEntity.getName() + " (page " + page + "/" + pageCount + ") :");
+    if (top.isEmpty()) {
+      sender.sendMessage("Personne n'a encore d'XP dans ce métier.");
+    }
+    for (RankedPlayer rankedPlayer : top) {
+      sender.sendMessage(
+          ChatColor.BLUE
+              + "#"
+              + rankedPlayer.getRank()
+              + " "
+              + ChatColor.WHITE
+              + rankedPlayer.getName()
+              + " - "
+              + rankedPlayer.getTotalXp()
+              + " XP");
+    }
+
+    if (sender instanceof Player player) {
+      int rank = this.leaderboardManager.getRank(jobEntity, player.getUniqueId());
+      if (rank > 0) {
+        sender.sendMessage("Votre rang : #" + rank);
+      }
+    }
+  }
+
+  /**
+   * Finds a job by its identifier, ignoring case.
+   *
+   * @param jobId the job identifier typed by the sender
+   * @return the job, or {@code null} if no job has this identifier
+   */
+  private JobEntity findJob(String jobId) {
+    for (JobEntity jobEntity : this.jobManager.getJobs().values()) {
+      if (jobEntity.getId().equalsIgnoreCase(jobId)) {
+        return jobEntity;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Reloads the job definitions from config.yml. Listeners for newly rewarded actions are
+   * registered on the main thread once the new definitions are in place.
+   *
+   * @param sender the command sender
+   */
+  private void handleReload(CommandSender sender) {
+    if (!sender.hasPermission("jobs.admin.reload")) {
+      sender.sendMessage(ChatColor.RED + "Vous n'avez pas la permission.");
+      return;
+    }
+
+    sender.sendMessage("Rechargement des métiers...");
+
+    this.jobManager
+        .reload()
+        .whenComplete(
+            (jobCount, error) -> {
+              if (error != null) {
+                Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                this.plugin.getLogger().severe("[Jobs] Unable to reload jobs: " + cause);
+                this.reply(
+                    sender,
+                    ChatColor.RED + "Configuration invalide, les métiers actuels sont conservés.");
+                return;
+              }
+
+              Bukkit.getScheduler()
+                  .runTask(
+                      this.plugin,
+                      () -> {
+                        this.plugin.listenToUsedActions();
+                        sender.sendMessage(ChatColor.GREEN + "" + jobCount + " métiers rechargés.");
+                      });
+            });
+  }
+
+  private void handleBoost(CommandSender sender, String[] args) {
+    if (!sender.hasPermission("jobs.admin.boost")) {
+      sender.sendMessage(ChatColor.RED + "Vous n'avez pas la permission.");
+      return;
+    }
+
+    if (args.length == 2 && args[1].equalsIgnoreCase("list")) {
+      List<String> boosts = this.boostManager.describeBoosts(this::getPlayerName);
+      sender.sendMessage(ChatColor.BLUE + "Boosts d'XP actifs : " + boosts.size());
+      boosts.forEach(boost -> sender.sendMessage(" - " + boost));
+      return;
+    }
+
+    if (args.length == 2 && args[1].equalsIgnoreCase("clear")) {
+      int count = this.boostManager.clearBoosts();
+      sender.sendMessage(ChatColor.GREEN + "" + count + " boosts d'XP arrêtés.");
+      return;
+    }
+
+    if (args.length != 5) {
+      sender.sendMessage(
+          ChatColor.RED
+              + "Usage : /jobs boost list|clear ou /jobs boost <joueur|*> <métier|*> "
+              + "<multiplicateur> <durée>");
+      return;
+    }
+
+    UUID uuid = null;
+    if (!args[1].equals("*")) {
+      Player target = Bukkit.getPlayerExact(args[1]);
+      uuid =
+          target != null
+              ? target.getUniqueId()
+              : this.playerDataManager.getNameIndex().getUuid(args[1]);
+      if (uuid == null) {
+        sender.sendMessage(ChatColor.RED + "Le joueur " + args[1] + " est inconnu.");
+        return;
+      }
+    }
+
+    JobEntity jobEntity = null;
+    if (!args[2].equals("*")) {
+      jobEntity = this.findJob(args[2]);
+      if (jobEntity == null) {
+        sender.sendMessage(ChatColor.RED + "Le métier " + args[2] + " n'existe pas.");
+        return;
+      }
+    }
+
+    double multiplier;
+    try {
+      multiplier = Double.parseDouble(args[3]);
+    } catch (NumberFormatException e) {
+      multiplier = Double.NaN;
+    }
+    if (!(multiplier > 0) || Double.isInfinite(multiplier)) {
+      sender.sendMessage(ChatColor.RED + "Multiplicateur invalide : " + args[3]);
+      return;
+    }
+
+    long durationMillis = parseDuration(args[4]);
+    if (durationMillis <= 0) {
+      sender.sendMessage(ChatColor.RED + "Durée invalide : " + args[4] + " (ex. 30s, 10m, 2h, 1d)");
+      return;
+    }
+
+    this.boostManager.addBoost(uuid, jobEntity, multiplier, durationMillis);
+    if (uuid != null) {
+      sender.sendMessage(ChatColor.GREEN + "Boost d'XP accordé à " + args[1] + ".");
+    }
+  }
+
+  /**
+   * Parses a duration such as {@code 30s}, {@code 10m}, {@code 2h} or {@code 1d}. A number without
+   * unit is a number of minutes.
+   *
+   * @param duration the duration typed by the sender
+   * @return the duration in milliseconds, or -1 if it is invalid
+   */
+  private static long parseDuration(String duration) {
+    if (duration.isEmpty()) {
+      return -1;
+    }
+
+    char last = Character.toLowerCase(duration.charAt(duration.length() - 1));
+    TimeUnit unit = DURATION_UNITS.get(last);
+    String amount = unit == null ? duration : duration.substring(0, duration.length() - 1);
+
+    try {
+      return (unit == null ? TimeUnit.MINUTES : unit).toMillis(Long.parseLong(amount));
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Returns the last known name of a player, or their UUID if they never joined with this plugin.
+   *
+   * @param uuid the UUID of the player
+   * @return the name to show
+   */
+  private String getPlayerName(UUID uuid) {
+    String name = this.playerDataManager.getNameIndex().getName(uuid);
+    return name != null ? name : uuid.toString();
+  }
+
+  private void handleStats(CommandSender sender, boolean dump) {
+    if (!sender.hasPermission("jobs.admin.stats")) {
+      sender.sendMessage(ChatColor.RED + "Vous n'avez pas la permission.");
+      return;
+    }
+
+    sender.sendMessage(ChatColor.BLUE + "Statistiques de Jobs :");
+    this.metricsManager.formatReport().forEach(sender::sendMessage);
+
+    if (dump) {
+      this.metricsManager
+          .dumpJson()
+          .whenComplete(
+              (file, error) -> {
+                if (error != null) {
+                  this.plugin.getLogger().severe("[Jobs] Unable to write stats: " + error);
+                  this.reply(sender, ChatColor.RED + "Impossible d'écrire les statistiques.");
+                } else {
+                  this.reply(sender, ChatColor.GREEN + "Statistiques écrites dans " + file + ".");
+                }
+              });
+    }
+  }
+
+  private void handleMigrate(CommandSender sender, String sourceType) {
+    if (!Bukkit.getOnlinePlayers().isEmpty()) {
+      sender.sendMessage(ChatColor.RED + "Tous les joueurs doivent être déconnectés.");
+      return;
+    }
+
+    PlayerDataStore source = this.openSourceStore(sender, sourceType);
+    if (source == null) {
+      return;
+    }
+
+    sender.sendMessage(
+        "Migration de " + sourceType + " vers " + this.playerDataManager.getStorageType() + "...");
+
+    this.playerDataManager
+        .migrateFrom(source)
+        .thenCompose(
+            migrated -> {
+              this.reply(sender, ChatColor.GREEN + "" + migrated + " joueurs migrés.");
+              return this.playerDataManager.verifyAgainst(this.openStoreUnchecked(sourceType));
+            })
+        .whenComplete((problems, error) -> this.reportVerification(sender, problems, error));
+  }
+
+  private void handleVerify(CommandSender sender, String sourceType) {
+    PlayerDataStore source = this.openSourceStore(sender, sourceType);
+    if (source == null) {
+      return;
+    }
+
+    sender.sendMessage(
+        "Vérification de "
+            + this.playerDataManager.getStorageType()
+            + " par rapport à "
+            + sourceType
+            + "...");
+
+    this.playerDataManager
+        .verifyAgainst(source)
+        .whenComplete((problems, error) -> this.reportVerification(sender, problems, error));
+  }
+
+  private void handleExport(CommandSender sender, String formatName) {
+    if (!this.checkTransfer(sender)) {
+      return;
+    }
+
+    TransferFormat format = TransferFormat.fromName(formatName);
+    if (format == null) {
+      sender.sendMessage(ChatColor.RED + "Format inconnu, choisissez parmi jsonl ou csv.");
+      return;
+    }
+
+    String fileName =
+        "jobs-" + LocalDateTime.now().format(EXPORT_DATE) + "." + format.getExtension();
+    ProgressWriter writer;
+    try {
+      writer =
+          new ProgressWriter(
+              this.getExportFolder().resolve(fileName),
+              format,
+              this.jobManager.getJobs().values());
+    } catch (IOException e) {
+      this.plugin.getLogger().severe("[Jobs] Unable to create " + fileName + ": " + e);
+      sender.sendMessage(ChatColor.RED + "Impossible de créer le fichier d'export.");
+      return;
+    }
+
+    sender.sendMessage("Export des joueurs vers exports/" + fileName + "...");
+    this.playerDataManager
+        .exportTo(writer, exported -> this.reply(sender, exported + " joueurs exportés..."))
+        .whenComplete(
+            (exported, error) -> {
+              if (error != null) {
+                this.plugin.getLogger().severe("[Jobs] Export failed: " + error.getMessage());
+                this.reply(sender, ChatColor.RED + "L'opération a échoué, voir la console.");
+              } else {
+                this.reply(
+                    sender,
+                    ChatColor.GREEN
+                        + ""
+                        + exported
+                        + " joueurs exportés dans exports/"
+                        + fileName
+                        + ".");
+              }
+            });
+  }
+
+  private void handleImport(CommandSender sender, String fileName) {
+    if (!this.checkTransfer(sender)) {
+      return;
+    }
+
+    if (fileName == null || !fileName.matches("[\\w-][\\w.-]*")) {
+      sender.sendMessage(ChatColor.RED + "Usage : /jobs import <fichier du dossier exports>");
+      return;
+    }
+
+    if (!Bukkit.getOnlinePlayers().isEmpty()) {
+      sender.sendMessage(ChatColor.RED + "Tous les joueurs doivent être déconnectés.");
+      return;
+    }
+
+    TransferFormat format = TransferFormat.fromFileName(fileName);
+    if (format == null) {
+      sender.sendMessage(ChatColor.RED + "Format inconnu, utilisez un fichier .jsonl ou .csv.");
+      return;
+    }
+
+    ProgressReader reader;
+    try {
+      reader =
+          new ProgressReader(
+              this.getExportFolder().resolve(fileName), format, this.jobManager.getJobs());
+    } catch (IOException e) {
+      this.plugin.getLogger().severe("[Jobs] Unable to read " + fileName + ": " + e);
+      sender.sendMessage(ChatColor.RED + "Impossible de lire exports/" + fileName + ".");
+      return;
+    }
+
+    sender.sendMessage("Import des joueurs depuis exports/" + fileName + "...");
+    this.playerDataManager
+        .importFrom(reader, imported -> this.reply(sender, imported + " joueurs importés..."))
+        .whenComplete(
+            (imported, error) -> {
+              if (error != null) {
+                this.plugin.getLogger().severe("[Jobs] Import failed: " + error.getMessage());
+                this.reply(sender, ChatColor.RED + "L'opération a échoué, voir la console.");
+                return;
+              }
+
+              reader
+                  .getProblems()
+                  .forEach(problem -> this.plugin.getLogger().warning("[Jobs] " + problem));
+              this.reply(sender, ChatColor.GREEN + "" + imported + " joueurs importés.");
+              if (reader.getSkipped() > 0) {
+                this.reply(
+                    sender,
+                    ChatColor.RED
+                        + ""
+                        + reader.getSkipped()
+                        + " lignes ignorées, voir la console.");
+              }
+              this.leaderboardManager.load();
+            });
+  }
+
+  /**
+   * Checks that the sender may export or import player data and that no transfer is running.
+   * Sends the reason to the sender otherwise.
+   *
+   * @param sender the command sender
+   * @return {@code true} if a transfer can start
+   */
+  private boolean checkTransfer(CommandSender sender) {
+    if (!sender.hasPermission("jobs.admin.transfer")) {
+      sender.sendMessage(ChatColor.RED + "Vous n'avez pas la permission.");
+      return false;
+    }
+
+    if (this.playerDataManager.isTransferRunning()) {
+      sender.sendMessage(ChatColor.RED + "Un export ou un import est déjà en cours.");
+      return false;
+    }
+    return true;
+  }
+
+  private Path getExportFolder() {
+    return this.plugin.getDataFolder().toPath().resolve("exports");
+  }
+
+  /**
+   * Opens the store a migration or verification reads from, after checking the permission and the
+   * storage type. Sends the reason to the sender when the store cannot be used.
+   *
+   * @param sender the command sender
+   * @param sourceType the storage type of the source
+   * @return the opened store, or {@code null} if it cannot be used
+   */
+  private PlayerDataStore openSourceStore(CommandSender sender, String sourceType) {
+    if (!sender.hasPermission("jobs.admin.migrate")) {
+      sender.sendMessage(ChatColor.RED + "Vous n'avez pas la permission.");
+      return null;
+    }
+
+    if (!PlayerDataManager.STORAGE_TYPES.contains(sourceType)) {
+      sender.sendMessage(
+          ChatColor.RED + "Stockage inconnu, choisissez parmi " + PlayerDataManager.STORAGE_TYPES);
+      return null;
+    }
+
+    if (sourceType.equals(this.playerDataManager.getStorageType())) {
+      sender.sendMessage(ChatColor.RED + "Le stockage actif est déjà " + sourceType + ".");
+      return null;
+    }
+
+    try {
+      return this.playerDataManager.openStore(sourceType);
+    } catch (IOException e) {
+      this.plugin.getLogger().severe("[Jobs] Unable to open " + sourceType + ": " + e);
+      sender.sendMessage(ChatColor.RED + "Impossible d'ouvrir " + sourceType + ".");
+      return null;
+    }
+  }
+
+  private PlayerDataStore openStoreUnchecked(String type) {
+    try {
+      return this.playerDataManager.openStore(type);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void reportVerification(CommandSender sender, List<String> problems, Throwable error) {
+    if (error != null) {
+      this.plugin.getLogger().severe("[Jobs] Storage operation failed: " + error.getMessage());
+      this.reply(sender, ChatColor.RED + "L'opération a échoué, voir la console.");
+      return;
+    }
+
+    problems.forEach(problem -> this.plugin.getLogger().warning("[Jobs] " + problem));
+    if (problems.isEmpty()) {
+      this.reply(sender, ChatColor.GREEN + "Vérification réussie, aucune différence.");
+    } else {
+      this.reply(
+          sender, ChatColor.RED + "" + problems.size() + " différences trouvées, voir la console.");
+    }
+  }
+
+  /**
+   * Sends a message from any thread by posting it to the main thread.
+   *
+   * @param sender the recipient
+   * @param message the message to send
+   */
+  private void reply(CommandSender sender, String message) {
+    Bukkit.getScheduler().runTask(this.plugin, () -> sender.sendMessage(message));
+  }
+
+  /**
+   * Shows the jobs of a player. Connected players are shown right away. Offline players are found
+   * through the name index and loaded off the main thread, then shown from the main thread.
+   *
+   * @param requester the player who asked
+   * @param username the name of the player to show
+   */
   private void handlePlayerJobsInfo(Player requester, String username) {
-    Player target = Bukkit.getPlayer(username);
+    Player target = Bukkit.getPlayerExact(username);
+
+    if (target != null) {
+      PlayerEntity playerData = this.playerDataManager.getPlayerEntity(target);
+      this.sendJobsInfo(requester, target.getName(), playerData);
+      return;
+    }
 
-    if (target == null) {
-      requester.sendMessage(ChatColor.RED + "Le joueur " + username + " n'est pas en ligne.");
+    UUID uuid = this.playerDataManager.getNameIndex().getUuid(username);
+    if (uuid == null) {
+      requester.sendMessage(ChatColor.RED + "Le joueur " + username + " est inconnu.");
       return;
     }
 
-    PlayerEntity playerData = this.playerDataManager.getPlayerEntity(target);
+    String name = this.playerDataManager.getNameIndex().getName(uuid);
+    this.playerDataManager
+        .loadOfflinePlayer(uuid)
+        .whenComplete(
+            (playerData, error) ->
+                Bukkit.getScheduler()
+                    .runTask(
+                        this.plugin,
+                        () -> this.sendOfflineJobsInfo(requester, name, playerData, error)));
+  }
+
+  /**
+   * Sends the jobs of an offline player once loaded, or the reason why they cannot be shown.
+   *
+   * @param requester the player who asked
+   * @param name the last known name of the offline player
+   * @param playerData the loaded progress, or {@code null} if the load failed
+   * @param error the load failure, or {@code null} if the load succeeded
+   */
+  private void sendOfflineJobsInfo(
+      Player requester, String name, PlayerEntity playerData, Throwable error) {
+    if (error != null) {
+      this.plugin.getLogger().severe("[Jobs] Unable to load player data of " + name + ": " + error);
+      requester.sendMessage(ChatColor.RED + "Impossible de charger les métiers de " + name + ".");
+    } else if (playerData.isNew()) {
+      requester.sendMessage(ChatColor.RED + "Le joueur " + name + " n'a pas encore de métier.");
+    } else {
+      this.sendJobsInfo(requester, name, playerData);
+    }
+  }
 
-    requester.sendMessage("Métiers de " + target.getName() + " :");
+  /**
+   * Sends the level, XP and rank of a player in every job.
+   *
+   * @param requester the player who asked
+   * @param name the name of the player shown
+   * @param playerData the progress of the player shown
+   */
+  private void sendJobsInfo(Player requester, String name, PlayerEntity playerData) {
+    requester.sendMessage("Métiers de " + name + " :");
 
     jobManager
         .getJobs()
         .forEach(
             (jobId, jobEntity) -> {
-              int level = playerData.getJobLevel(jobEntity.getId());
-              int currentXp = playerData.getJobXp(jobEntity.getId());
-              int nextLevelXp = LevelManager.getXpForLevel(level + 1);
+              int level = playerData.getJobLevel(jobEntity.getOrdinal());
+              int currentXp = playerData.getJobXp(jobEntity.getOrdinal());
+              long nextLevelXp = jobEntity.getXpCurve().getXpToNextLevel(level);
+              int rank = this.leaderboardManager.getRank(jobEntity, playerData.getUuid());
 
               requester.sendMessage(
                   ChatColor.BLUE
@@ -79,8 +698,9 @@ public class JobsCommand implements CommandExecutor {
                       + " ("
                       + currentXp
                       + "/"
-                      + nextLevelXp
-                      + " XP)");
+                      + (nextLevelXp > 0 ? nextLevelXp : "max")
+                      + " XP)"
+                      + (rank > 0 ? " - #" + rank : ""));
             });
   }
 }
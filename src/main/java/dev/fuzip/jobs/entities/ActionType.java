@@ -0,0 +1,77 @@
+package dev.fuzip.jobs.entities;
+
+import java.util.Locale;
+import org.bukkit.Material;
+import org.bukkit.entity.EntityType;
+
+/**
+ * Define the player actions that can give XP, with the key used for them in config.yml and the
+ * kind of target (block or item material, or entity type) their XP entries refer to.
+ */
+public enum ActionType {
+  BREAK("break", Material.class),
+  PLACE("place", Material.class),
+  HARVEST("harvest", Material.class),
+  CRAFT("craft", Material.class),
+  FISH("fish", Material.class),
+  KILL("kill", EntityType.class);
+
+  private final String key;
+  private final Class<? extends Enum<?>> targetType;
+
+  ActionType(String key, Class<? extends Enum<?>> targetType) {
+    this.key = key;
+    this.targetType = targetType;
+  }
+
+  public String getKey() {
+    return key;
+  }
+
+  /**
+   * Returns the number of possible targets of this action, so that targets can index arrays by
+   * their ordinal.
+   *
+   * @return the number of constants of the target enum
+   */
+  public int getTargetCount() {
+    return this.targetType.getEnumConstants().length;
+  }
+
+  /**
+   * Resolves a target name of config.yml for this action.
+   *
+   * @param name the material or entity type name, case insensitive
+   * @return the matching material or entity type, or {@code null} if the name is unknown
+   */
+  public Enum<?> matchTarget(String name) {
+    String upperName = name.toUpperCase(Locale.ROOT);
+
+    if (this.targetType == Material.class) {
+      return Material.matchMaterial(upperName);
+    }
+
+    for (Enum<?> target : this.targetType.getEnumConstants()) {
+      if (target.name().equals(upperName)) {
+        return target;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the action type matching a key of the {@code xp} section in config.yml.
+   *
+   * @param key the action key, for example {@code break}
+   * @return the matching action type, or {@code null} if the key is unknown
+   */
+  public static ActionType fromKey(String key) {
+    for (ActionType actionType : values()) {
+      if (actionType.key.equals(key.toLowerCase(Locale.ROOT))) {
+        return actionType;
+      }
+    }
+
+    return null;
+  }
+}
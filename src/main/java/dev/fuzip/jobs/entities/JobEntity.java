@@ -1,29 +1,61 @@
 package dev.fuzip.jobs.entities;
 
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import org.bukkit.ChatColor;
 
+/**
+ * Definition of a job, as read from config.yml. Job definitions are immutable, so they can be read
+ * from any thread without synchronization.
+ */
 public class JobEntity {
-  private String id;
-  private String name;
-  private ChatColor color;
-  private Map<String, List<JobXpEntity>> actionsXpMap;
-  private Map<Integer, JobRewardEntity> rewardsMap;
+  private final String id;
+  private final int ordinal;
+  private final String name;
+  private final ChatColor color;
+  private final XpCurve xpCurve;
+  private final XpCaps xpCaps;
+  private final Map<ActionType, List<JobXpEntity>> actionsXpMap;
+  private final RewardSchedule rewardSchedule;
 
-  public JobEntity(String id, String name, String color) {
+  public JobEntity(
+      String id,
+      int ordinal,
+      String name,
+      String color,
+      XpCurve xpCurve,
+      XpCaps xpCaps,
+      Map<ActionType, List<JobXpEntity>> actionsXpMap,
+      RewardSchedule rewardSchedule) {
     this.id = id;
+    this.ordinal = ordinal;
     this.name = name;
     this.color = ChatColor.valueOf(color);
-    this.actionsXpMap = new HashMap<>();
-    this.rewardsMap = new HashMap<>();
+    this.xpCurve = xpCurve;
+    this.xpCaps = xpCaps;
+    this.rewardSchedule = rewardSchedule;
+
+    Map<ActionType, List<JobXpEntity>> actions = new EnumMap<>(ActionType.class);
+    actionsXpMap.forEach((action, xpEntities) -> actions.put(action, List.copyOf(xpEntities)));
+    this.actionsXpMap = Collections.unmodifiableMap(actions);
   }
 
   public String getId() {
     return this.id;
   }
 
+  /**
+   * Returns the dense index of this job, assigned in configuration order when the jobs are loaded.
+   * Player progress is stored in arrays indexed by this value.
+   *
+   * @return the job ordinal, from 0 to the number of jobs minus one
+   */
+  public int getOrdinal() {
+    return this.ordinal;
+  }
+
   public String getName() {
     return this.name;
   }
@@ -32,11 +64,19 @@ public class JobEntity {
     return this.color;
   }
 
-  public Map<String, List<JobXpEntity>> getActionsXpMap() {
+  public XpCurve getXpCurve() {
+    return this.xpCurve;
+  }
+
+  public XpCaps getXpCaps() {
+    return this.xpCaps;
+  }
+
+  public Map<ActionType, List<JobXpEntity>> getActionsXpMap() {
     return this.actionsXpMap;
   }
 
-  public Map<Integer, JobRewardEntity> getRewardsMap() {
-    return rewardsMap;
+  public RewardSchedule getRewardSchedule() {
+    return this.rewardSchedule;
   }
 }
@@ -1,20 +1,18 @@
 package dev.fuzip.jobs.entities;
 
-import org.bukkit.Material;
-
-/** Define the XP given by a Material for a Job. */
+/** Define the XP given for a target (a Material or an EntityType) of an action for a Job. */
 public class JobXpEntity {
 
-  private final Material material;
+  private final Enum<?> target;
   private final int xp;
 
-  public JobXpEntity(Material material, int xp) {
-    this.material = material;
+  public JobXpEntity(Enum<?> target, int xp) {
+    this.target = target;
     this.xp = xp;
   }
 
-  public Material getMaterial() {
-    return material;
+  public Enum<?> getTarget() {
+    return target;
   }
 
   public int getXp() {
@@ -0,0 +1,21 @@
+package dev.fuzip.jobs.entities;
+
+/** Define the XP given to a Job when a player performs an action on a given key. */
+public class JobXpGrant {
+
+  private final JobEntity job;
+  private final int xp;
+
+  public JobXpGrant(JobEntity job, int xp) {
+    this.job = job;
+    this.xp = xp;
+  }
+
+  public JobEntity getJob() {
+    return job;
+  }
+
+  public int getXp() {
+    return xp;
+  }
+}
@@ -0,0 +1,88 @@
+package dev.fuzip.jobs.entities;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.bukkit.ChatColor;
+
+/**
+ * A player message parsed once from config.yml. Placeholders known when the configuration is loaded
+ * (such as the job name) are replaced at parse time, and {@code &} color codes are translated, so
+ * formatting a message only appends the remaining values between precomputed literals.
+ */
+public class MessageTemplate {
+  private final String[] literals;
+  private final int[] slots;
+
+  private MessageTemplate(String[] literals, int[] slots) {
+    this.literals = literals;
+    this.slots = slots;
+  }
+
+  /**
+   * Parses a message template. Placeholders are written {@code {name}}; unknown placeholders are
+   * kept as written.
+   *
+   * @param raw the message from config.yml
+   * @param constants the placeholders replaced once, by name
+   * @param variables the placeholders filled on each {@link #format(long...)} call, in argument
+   *     order
+   * @return the parsed template
+   */
+  public static MessageTemplate parse(
+      String raw, Map<String, String> constants, String... variables) {
+    List<String> literals = new ArrayList<>();
+    List<Integer> slots = new ArrayList<>();
+    StringBuilder literal = new StringBuilder();
+
+    int index = 0;
+    while (index < raw.length()) {
+      int open = raw.indexOf('{', index);
+      int close = open < 0 ? -1 : raw.indexOf('}', open);
+
+      if (close < 0) {
+        literal.append(raw, index, raw.length());
+        break;
+      }
+
+      literal.append(raw, index, open);
+      String name = raw.substring(open + 1, close);
+      int variable = Arrays.asList(variables).indexOf(name);
+
+      if (constants.containsKey(name)) {
+        literal.append(constants.get(name));
+      } else if (variable >= 0) {
+        literals.add(ChatColor.translateAlternateColorCodes('&', literal.toString()));
+        slots.add(variable);
+        literal.setLength(0);
+      } else {
+        literal.append(raw, open, close + 1);
+      }
+      index = close + 1;
+    }
+    literals.add(ChatColor.translateAlternateColorCodes('&', literal.toString()));
+
+    return new MessageTemplate(
+        literals.toArray(new String[0]), slots.stream().mapToInt(Integer::intValue).toArray());
+  }
+
+  /**
+   * Formats the message with the given values.
+   *
+   * @param values the values of the variable placeholders, in the order given to {@link
+   *     #parse(String, Map, String...)}
+   * @return the formatted message
+   */
+  public String format(long... values) {
+    if (this.slots.length == 0) {
+      return this.literals[0];
+    }
+
+    StringBuilder message = new StringBuilder(64);
+    for (int i = 0; i < this.slots.length; i++) {
+      message.append(this.literals[i]).append(values[this.slots[i]]);
+    }
+    return message.append(this.literals[this.slots.length]).toString();
+  }
+}
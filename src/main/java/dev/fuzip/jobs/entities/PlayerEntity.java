@@ -1,67 +1,270 @@
 package dev.fuzip.jobs.entities;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import org.bukkit.entity.Player;
 
+/**
+ * Holds a player's progress in every job. Progress is stored in primitive arrays indexed by the job
+ * ordinal (see {@link JobEntity#getOrdinal()}), so reading or adding XP neither boxes nor hashes.
+ * The arrays grow when a job is added to the configuration after the player's data was created.
+ *
+ * <p>Instances are thread-safe. Progress is guarded by the instance's own monitor, so players never
+ * contend with each other, and {@link #copy()} takes a consistent snapshot of one player without
+ * blocking the others. Updates that read then write several values, such as a level-up, must hold
+ * the monitor with {@code synchronized (playerEntity)} for their whole duration.
+ *
+ * <p>The XP earned recently in each job, used by {@link XpCaps}, is kept in two fixed-size ring
+ * buffers per job: six 10-minute slots for the last hour and eight 3-hour slots for the last day.
+ * Moving to a new slot clears the slots that went out of the window, so recording a gain never
+ * allocates.
+ */
 public class PlayerEntity {
-  private final Player player;
-  private final Map<String, Integer> jobsXpMap;
-  private final Map<String, Integer> jobxTotalXpMap;
-  private final Map<String, Integer> jobsLevelMap;
 
-  public PlayerEntity(Player player) {
-    this.player = player;
-    this.jobsXpMap = new HashMap<>();
-    this.jobxTotalXpMap = new HashMap<>();
-    this.jobsLevelMap = new HashMap<>();
+  /** Duration of a slot of the hourly window. */
+  public static final long XP_WINDOW_SLOT_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+  private static final int HOUR_SLOTS = 6;
+  private static final int DAY_SLOTS = 8;
+  private static final int SLOTS_PER_DAY_SLOT = 18;
+
+  /**
+   * Number of ints of the XP window of one job: the index of the last 10-minute slot written,
+   * followed by the hourly then the daily counters.
+   */
+  public static final int XP_WINDOW_SIZE = 1 + HOUR_SLOTS + DAY_SLOTS;
+
+  private final UUID uuid;
+  private volatile Player player;
+  private volatile boolean isNew;
+  private int[] jobsXp;
+  private int[] jobsTotalXp;
+  private int[] jobsLevel;
+  private int[] xpWindows;
+
+  public PlayerEntity(UUID uuid, int jobCount) {
+    this.uuid = uuid;
+    this.jobsXp = new int[jobCount];
+    this.jobsTotalXp = new int[jobCount];
+    this.jobsLevel = new int[jobCount];
+    this.xpWindows = new int[jobCount * XP_WINDOW_SIZE];
+    Arrays.fill(this.jobsLevel, 1);
+  }
+
+  /**
+   * Creates a detached copy of this player's progress, safe to hand to another thread while this
+   * instance keeps being updated.
+   *
+   * @return a new {@code PlayerEntity} with the same UUID and job data, without the player
+   */
+  public synchronized PlayerEntity copy() {
+    PlayerEntity copy = new PlayerEntity(this.uuid, 0);
+    copy.jobsXp = this.jobsXp.clone();
+    copy.jobsTotalXp = this.jobsTotalXp.clone();
+    copy.jobsLevel = this.jobsLevel.clone();
+    copy.xpWindows = this.xpWindows.clone();
+    return copy;
+  }
+
+  public UUID getUuid() {
+    return uuid;
   }
 
   public Player getPlayer() {
     return player;
   }
 
-  public int getJobXp(String jobId) {
-    return this.jobsXpMap.getOrDefault(jobId, 0);
+  public void setPlayer(Player player) {
+    this.player = player;
+  }
+
+  public boolean isNew() {
+    return isNew;
+  }
+
+  public void setNew(boolean isNew) {
+    this.isNew = isNew;
+  }
+
+  public synchronized int getJobXp(int job) {
+    return job < this.jobsXp.length ? this.jobsXp[job] : 0;
   }
 
-  public void setJobXp(String jobId, int xp) {
-    this.jobsXpMap.put(jobId, xp);
+  public synchronized void setJobXp(int job, int xp) {
+    this.ensureCapacity(job);
+    this.jobsXp[job] = xp;
   }
 
-  public void addJobXp(String jobId, int xp) {
-    this.jobsXpMap.replace(jobId, this.jobsXpMap.get(jobId) + xp);
+  /**
+   * Adds to the XP in the current level of a job, saturating at {@link Integer#MAX_VALUE} instead
+   * of overflowing since stores keep XP as ints.
+   *
+   * @param job the job ordinal
+   * @param xp the XP to add
+   */
+  public synchronized void addJobXp(int job, int xp) {
+    this.ensureCapacity(job);
+    this.jobsXp[job] = (int) Math.min((long) this.jobsXp[job] + xp, Integer.MAX_VALUE);
   }
 
-  public int getJobTotalXp(String jobId) {
-    return this.jobxTotalXpMap.getOrDefault(jobId, 0);
+  public synchronized int getJobTotalXp(int job) {
+    return job < this.jobsTotalXp.length ? this.jobsTotalXp[job] : 0;
   }
 
-  public void addJobTotalXp(String jobId, int xp) {
-    this.jobxTotalXpMap.replace(jobId, this.jobxTotalXpMap.get(jobId) + xp);
+  public synchronized void setJobTotalXp(int job, int xp) {
+    this.ensureCapacity(job);
+    this.jobsTotalXp[job] = xp;
   }
 
-  public void setJobTotalXp(String jobId, int xp) {
-    this.jobxTotalXpMap.put(jobId, xp);
+  /**
+   * Adds to the total XP of a job, saturating at {@link Integer#MAX_VALUE} instead of overflowing
+   * since stores keep XP as ints.
+   *
+   * @param job the job ordinal
+   * @param xp the XP to add
+   */
+  public synchronized void addJobTotalXp(int job, int xp) {
+    this.ensureCapacity(job);
+    this.jobsTotalXp[job] = (int) Math.min((long) this.jobsTotalXp[job] + xp, Integer.MAX_VALUE);
   }
 
-  public int getJobLevel(String jobId) {
-    return this.jobsLevelMap.getOrDefault(jobId, 1);
+  public synchronized int getJobLevel(int job) {
+    return job < this.jobsLevel.length ? this.jobsLevel[job] : 1;
   }
 
-  public void setJobLevel(String job, int level) {
-    this.jobsLevelMap.put(job, level);
+  public synchronized void setJobLevel(int job, int level) {
+    this.ensureCapacity(job);
+    this.jobsLevel[job] = level;
   }
 
-  public Map<String, Integer> getAllJobsXp() {
-    return new HashMap<>(jobsXpMap);
+  /**
+   * Returns the XP earned in a job over the last hour, from 50 to 60 minutes depending on the
+   * current slot.
+   *
+   * @param job the job ordinal
+   * @param now the current time in milliseconds
+   * @return the XP earned in the last hour
+   */
+  public synchronized int getHourlyXp(int job, long now) {
+    int start = this.advanceXpWindow(job, now) + 1;
+    return sum(this.xpWindows, start, start + HOUR_SLOTS);
   }
 
-  public Map<String, Integer> getJobxTotalXpMap() {
-    return new HashMap<>(jobxTotalXpMap);
+  /**
+   * Returns the XP earned in a job over the last day, from 21 to 24 hours depending on the current
+   * slot.
+   *
+   * @param job the job ordinal
+   * @param now the current time in milliseconds
+   * @return the XP earned in the last day
+   */
+  public synchronized int getDailyXp(int job, long now) {
+    int start = this.advanceXpWindow(job, now) + 1 + HOUR_SLOTS;
+    return sum(this.xpWindows, start, start + DAY_SLOTS);
   }
 
-  public Map<String, Integer> getAllJobsLevels() {
-    return new HashMap<>(jobsLevelMap);
+  /**
+   * Records XP earned in a job in the hourly and daily windows.
+   *
+   * @param job the job ordinal
+   * @param now the current time in milliseconds
+   * @param xp the XP earned
+   */
+  public synchronized void addWindowXp(int job, long now, int xp) {
+    int base = this.advanceXpWindow(job, now);
+    int slot = this.xpWindows[base];
+    this.xpWindows[base + 1 + slot % HOUR_SLOTS] += xp;
+    this.xpWindows[base + 1 + HOUR_SLOTS + slot / SLOTS_PER_DAY_SLOT % DAY_SLOTS] += xp;
+  }
+
+  /**
+   * Returns a copy of the XP window of a job, to be stored with the player's progress.
+   *
+   * @param job the job ordinal
+   * @return the {@link #XP_WINDOW_SIZE} ints of the window, or {@code null} if the player earned
+   *     no XP in this job for a day
+   */
+  public synchronized int[] getXpWindow(int job) {
+    if (job >= this.jobsXp.length) {
+      return null;
+    }
+
+    int base = job * XP_WINDOW_SIZE;
+    long currentSlot = System.currentTimeMillis() / XP_WINDOW_SLOT_MILLIS;
+    if (this.xpWindows[base] == 0
+        || currentSlot - this.xpWindows[base] >= (long) DAY_SLOTS * SLOTS_PER_DAY_SLOT) {
+      return null;
+    }
+    return Arrays.copyOfRange(this.xpWindows, base, base + XP_WINDOW_SIZE);
+  }
+
+  /**
+   * Restores the XP window of a job read from the storage.
+   *
+   * @param job the job ordinal
+   * @param window the {@link #XP_WINDOW_SIZE} ints of the window
+   */
+  public synchronized void setXpWindow(int job, int[] window) {
+    this.ensureCapacity(job);
+    System.arraycopy(window, 0, this.xpWindows, job * XP_WINDOW_SIZE, XP_WINDOW_SIZE);
+  }
+
+  /**
+   * Moves the XP window of a job to the current slot, clearing the hourly and daily slots that
+   * left the window since the last gain. A clock going backwards keeps the last slot.
+   *
+   * @param job the job ordinal
+   * @param now the current time in milliseconds
+   * @return the index of the job's window in {@link #xpWindows}
+   */
+  private int advanceXpWindow(int job, long now) {
+    this.ensureCapacity(job);
+    int base = job * XP_WINDOW_SIZE;
+    int last = this.xpWindows[base];
+    int slot = (int) (now / XP_WINDOW_SLOT_MILLIS);
+
+    if (slot > last) {
+      for (int s = Math.max(last + 1, slot - HOUR_SLOTS + 1); s <= slot; s++) {
+        this.xpWindows[base + 1 + s % HOUR_SLOTS] = 0;
+      }
+
+      int lastDaySlot = last / SLOTS_PER_DAY_SLOT;
+      int daySlot = slot / SLOTS_PER_DAY_SLOT;
+      for (int d = Math.max(lastDaySlot + 1, daySlot - DAY_SLOTS + 1); d <= daySlot; d++) {
+        this.xpWindows[base + 1 + HOUR_SLOTS + d % DAY_SLOTS] = 0;
+      }
+
+      this.xpWindows[base] = slot;
+    }
+
+    return base;
+  }
+
+  private static int sum(int[] values, int from, int to) {
+    long sum = 0;
+    for (int i = from; i < to; i++) {
+      sum += values[i];
+    }
+    return (int) Math.min(sum, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Grows the progress arrays so that they hold the given job. New jobs start at level 1 with no
+   * XP.
+   *
+   * @param job the job ordinal that must fit in the arrays
+   */
+  private void ensureCapacity(int job) {
+    int length = this.jobsXp.length;
+    if (job < length) {
+      return;
+    }
+
+    this.jobsXp = Arrays.copyOf(this.jobsXp, job + 1);
+    this.jobsTotalXp = Arrays.copyOf(this.jobsTotalXp, job + 1);
+    this.jobsLevel = Arrays.copyOf(this.jobsLevel, job + 1);
+    this.xpWindows = Arrays.copyOf(this.xpWindows, (job + 1) * XP_WINDOW_SIZE);
+    Arrays.fill(this.jobsLevel, length, job + 1, 1);
   }
 }
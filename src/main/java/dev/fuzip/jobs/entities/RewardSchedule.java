@@ -0,0 +1,99 @@
+package dev.fuzip.jobs.entities;
+
+import java.util.Arrays;
+import java.util.Map;
+import org.bukkit.Material;
+
+/**
+ * Rewards of a job, compiled per level when the configuration is loaded. Each level holds the items
+ * it gives, already merged by material, so a level-up reads one array slot instead of testing every
+ * reward rule. Schedules are immutable once built by a {@link Builder}, so they can be read from
+ * any thread.
+ */
+public class RewardSchedule {
+  private static final JobRewardEntity[] NO_REWARDS = new JobRewardEntity[0];
+
+  private final JobRewardEntity[][] rewardsByLevel;
+
+  private RewardSchedule(JobRewardEntity[][] rewardsByLevel) {
+    this.rewardsByLevel = rewardsByLevel;
+  }
+
+  /**
+   * Adds up the rewards of a range of levels by material.
+   *
+   * @param fromLevel the first level of the range
+   * @param toLevel the last level of the range
+   * @param quantities the quantities to add to, by material
+   */
+  public void collect(int fromLevel, int toLevel, Map<Material, Integer> quantities) {
+    int lastLevel = Math.min(toLevel, this.rewardsByLevel.length - 1);
+
+    for (int level = Math.max(1, fromLevel); level <= lastLevel; level++) {
+      for (JobRewardEntity reward : this.rewardsByLevel[level]) {
+        quantities.merge(reward.getMaterial(), reward.getQuantity(), Integer::sum);
+      }
+    }
+  }
+
+  /**
+   * Returns the rewards of a level with another reward added, merging quantities when the level
+   * already gives the same material.
+   *
+   * @param rewards the current rewards of the level
+   * @param reward the reward to add
+   * @return the new rewards of the level
+   */
+  private static JobRewardEntity[] merge(JobRewardEntity[] rewards, JobRewardEntity reward) {
+    for (int i = 0; i < rewards.length; i++) {
+      if (rewards[i].getMaterial() == reward.getMaterial()) {
+        JobRewardEntity[] merged = rewards.clone();
+        int quantity = rewards[i].getQuantity() + reward.getQuantity();
+        merged[i] = new JobRewardEntity(reward.getMaterial(), quantity);
+        return merged;
+      }
+    }
+
+    JobRewardEntity[] added = Arrays.copyOf(rewards, rewards.length + 1);
+    added[rewards.length] = reward;
+    return added;
+  }
+
+  /** Collects the rewards of a job while its configuration is read. */
+  public static final class Builder {
+    private final JobRewardEntity[][] rewardsByLevel;
+
+    /**
+     * Creates a builder for an empty schedule.
+     *
+     * @param maxLevel the highest level that can hold rewards
+     */
+    public Builder(int maxLevel) {
+      this.rewardsByLevel = new JobRewardEntity[maxLevel + 1][];
+      Arrays.fill(this.rewardsByLevel, NO_REWARDS);
+    }
+
+    /**
+     * Adds a reward to every {@code step} levels from {@code fromLevel} to {@code toLevel}. Levels
+     * beyond the max level of the schedule are ignored.
+     *
+     * @param fromLevel the first rewarded level
+     * @param toLevel the last level that may be rewarded
+     * @param step the number of levels between two rewarded levels, 1 to reward every level
+     * @param reward the item and quantity given at each rewarded level
+     * @return this builder
+     */
+    public Builder add(int fromLevel, int toLevel, int step, JobRewardEntity reward) {
+      int lastLevel = Math.min(toLevel, this.rewardsByLevel.length - 1);
+
+      for (int level = Math.max(1, fromLevel); level <= lastLevel; level += step) {
+        this.rewardsByLevel[level] = merge(this.rewardsByLevel[level], reward);
+      }
+      return this;
+    }
+
+    public RewardSchedule build() {
+      return new RewardSchedule(this.rewardsByLevel.clone());
+    }
+  }
+}
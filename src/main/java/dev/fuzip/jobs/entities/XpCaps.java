@@ -0,0 +1,109 @@
+package dev.fuzip.jobs.entities;
+
+/**
+ * XP limits of a job, as read from config.yml, applied to the XP a player earned in the job over
+ * the last hour and the last day.
+ *
+ * <p>Diminishing returns multiply a gain by {@code factor} once the player earned {@code
+ * threshold} XP in the last hour, by {@code factor^2} from twice the threshold, and so on. The
+ * hourly and daily caps then cut what is left so that the totals never go past them. A value of 0
+ * disables a limit.
+ */
+public class XpCaps {
+
+  /** Limits of a job without an {@code xp-caps} section: none. */
+  public static final XpCaps NONE = new XpCaps(0, 0, 0, 1);
+
+  private final int hourly;
+  private final int daily;
+  private final int diminishingThreshold;
+  private final double diminishingFactor;
+
+  /**
+   * Creates the limits of a job.
+   *
+   * @param hourly the most XP earned in the last hour, or 0 for no limit
+   * @param daily the most XP earned in the last day, or 0 for no limit
+   * @param diminishingThreshold the XP earned in the last hour from which gains are reduced, or 0
+   *     for no diminishing returns
+   * @param diminishingFactor the multiplier applied per threshold reached, from 0 excluded to 1
+   * @throws IllegalArgumentException if a limit is negative or the factor is out of range
+   */
+  public XpCaps(int hourly, int daily, int diminishingThreshold, double diminishingFactor) {
+    if (hourly < 0 || daily < 0 || diminishingThreshold < 0) {
+      throw new IllegalArgumentException("XP limits cannot be negative");
+    }
+    if (!(diminishingFactor > 0 && diminishingFactor <= 1)) {
+      throw new IllegalArgumentException(
+          "Diminishing factor must be above 0 and at most 1, got " + diminishingFactor);
+    }
+
+    this.hourly = hourly;
+    this.daily = daily;
+    this.diminishingThreshold = diminishingThreshold;
+    this.diminishingFactor = diminishingFactor;
+  }
+
+  /**
+   * Tells whether any limit is set. Players' recent XP is only tracked for jobs with limits.
+   *
+   * @return {@code true} if at least one limit is set
+   */
+  public boolean isEnabled() {
+    return this.hourly > 0
+        || this.daily > 0
+        || (this.diminishingThreshold > 0 && this.diminishingFactor < 1);
+  }
+
+  /**
+   * Computes the part of a gain a player may earn.
+   *
+   * @param xp the XP gained
+   * @param hourXp the XP the player earned in the job over the last hour
+   * @param dayXp the XP the player earned in the job over the last day
+   * @return the XP granted, from 0 to {@code xp}
+   */
+  public int limit(int xp, int hourXp, int dayXp) {
+    long granted = xp;
+
+    if (this.diminishingThreshold > 0 && hourXp >= this.diminishingThreshold) {
+      int steps = hourXp / this.diminishingThreshold;
+      granted = Math.round(xp * Math.pow(this.diminishingFactor, steps));
+    }
+    if (this.hourly > 0) {
+      granted = Math.min(granted, Math.max(0, this.hourly - hourXp));
+    }
+    if (this.daily > 0) {
+      granted = Math.min(granted, Math.max(0, this.daily - dayXp));
+    }
+
+    return (int) granted;
+  }
+
+  /**
+   * Tells whether a player reached the hourly or the daily cap.
+   *
+   * @param hourXp the XP the player earned in the job over the last hour
+   * @param dayXp the XP the player earned in the job over the last day
+   * @return {@code true} if no more XP can be earned for now
+   */
+  public boolean isReached(int hourXp, int dayXp) {
+    return (this.hourly > 0 && hourXp >= this.hourly) || (this.daily > 0 && dayXp >= this.daily);
+  }
+
+  public int getHourly() {
+    return this.hourly;
+  }
+
+  public int getDaily() {
+    return this.daily;
+  }
+
+  public int getDiminishingThreshold() {
+    return this.diminishingThreshold;
+  }
+
+  public double getDiminishingFactor() {
+    return this.diminishingFactor;
+  }
+}
@@ -0,0 +1,127 @@
+package dev.fuzip.jobs.entities;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Precomputed XP curve of a job. The XP needed to pass each level is computed once when the
+ * configuration is loaded and stored as a cumulative prefix array of longs, so finding the XP of a
+ * level is an array read and finding the level reached with some XP is a binary search.
+ *
+ * <p>The XP needed to pass a level is {@code a * level^2 + b * level + c}, using the coefficients
+ * of the segment with the highest starting level not above that level. Each level costs at least 1
+ * XP so the prefix array is strictly increasing.
+ *
+ * <p>Player progress is stored as ints, so the XP needed to reach the max level may not exceed
+ * {@link Integer#MAX_VALUE}.
+ */
+public class XpCurve {
+
+  /** Default number of levels of a curve. */
+  public static final int DEFAULT_MAX_LEVEL = 1000;
+
+  /** Curve used when config.yml does not define one, matching the vanilla experience formula. */
+  public static final XpCurve DEFAULT =
+      new XpCurve(
+          DEFAULT_MAX_LEVEL,
+          new TreeMap<>(
+              Map.of(
+                  1, new double[] {1, 6, 0},
+                  17, new double[] {2.5, -40.5, 360},
+                  32, new double[] {4.5, -162.5, 2220})));
+
+  private final long[] cumulativeXp;
+
+  /**
+   * Builds the curve table for levels 1 to {@code maxLevel}.
+   *
+   * @param maxLevel the highest reachable level, at least 1
+   * @param segments the {@code {a, b, c}} coefficients keyed by the first level they apply to. The
+   *     first segment applies to every level below its key as well.
+   * @throws IllegalArgumentException if the max level is below 1, no segment is given, or the XP
+   *     needed to reach the max level exceeds {@link Integer#MAX_VALUE}
+   * @throws ArithmeticException if the cumulative XP overflows a long
+   */
+  public XpCurve(int maxLevel, NavigableMap<Integer, double[]> segments) {
+    if (maxLevel < 1) {
+      throw new IllegalArgumentException("Max level must be at least 1, got " + maxLevel);
+    }
+    if (segments.isEmpty()) {
+      throw new IllegalArgumentException("At least one curve segment is required");
+    }
+
+    this.cumulativeXp = new long[maxLevel + 1];
+
+    for (int level = 1; level < maxLevel; level++) {
+      Map.Entry<Integer, double[]> segment = segments.floorEntry(level);
+      double[] coefficients =
+          segment == null ? segments.firstEntry().getValue() : segment.getValue();
+      long levelXp =
+          (long) (coefficients[0] * level * level + coefficients[1] * level + coefficients[2]);
+
+      this.cumulativeXp[level + 1] =
+          Math.addExact(this.cumulativeXp[level], Math.max(1, levelXp));
+    }
+
+    if (this.cumulativeXp[maxLevel] > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException(
+          "Reaching level "
+              + maxLevel
+              + " needs "
+              + this.cumulativeXp[maxLevel]
+              + " XP, more than the limit of "
+              + Integer.MAX_VALUE);
+    }
+  }
+
+  public int getMaxLevel() {
+    return this.cumulativeXp.length - 1;
+  }
+
+  /**
+   * Returns the XP needed to reach a level starting from level 1.
+   *
+   * @param level the level, clamped between 1 and the max level
+   * @return the cumulative XP of the level
+   */
+  public long getXpForLevel(int level) {
+    return this.cumulativeXp[Math.max(1, Math.min(level, this.getMaxLevel()))];
+  }
+
+  /**
+   * Returns the XP needed to pass the given level.
+   *
+   * @param level the current level
+   * @return the XP between this level and the next one, or 0 if the level is the max level or above
+   */
+  public long getXpToNextLevel(int level) {
+    if (level >= this.getMaxLevel()) {
+      return 0;
+    }
+    return this.getXpForLevel(level + 1) - this.getXpForLevel(level);
+  }
+
+  /**
+   * Finds the level reached with the given XP counted from level 1, in O(log n).
+   *
+   * @param xp the cumulative XP
+   * @return the highest level whose cumulative XP is not above {@code xp}, between 1 and the max
+   *     level
+   */
+  public int getLevel(long xp) {
+    int low = 1;
+    int high = this.getMaxLevel();
+
+    while (low < high) {
+      int middle = (low + high + 1) >>> 1;
+      if (this.cumulativeXp[middle] <= xp) {
+        low = middle;
+      } else {
+        high = middle - 1;
+      }
+    }
+
+    return low;
+  }
+}
@@ -1,38 +1,76 @@
 package dev.fuzip.jobs.listeners;
 
-import dev.fuzip.jobs.entities.JobEntity;
-import dev.fuzip.jobs.entities.PlayerEntity;
-import dev.fuzip.jobs.managers.JobManager;
-import dev.fuzip.jobs.managers.LevelManager;
-import dev.fuzip.jobs.managers.PlayerDataManager;
-import org.bukkit.Material;
+import dev.fuzip.jobs.entities.ActionType;
+import dev.fuzip.jobs.managers.ActionManager;
+import dev.fuzip.jobs.managers.MetricsManager;
+import dev.fuzip.jobs.managers.PlacedBlockTracker;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.bukkit.entity.TNTPrimed;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
 
+/**
+ * Rewards the blocks broken by players, directly or with TNT they ignited. Blocks placed by players
+ * give no XP. Every block of an explosion goes through the action pipeline, which adds them up and
+ * applies them once at the end of the tick.
+ */
 public class BlockBreakListener implements Listener {
 
-  private final JobManager jobManager;
-  private final PlayerDataManager playerDataManager;
-  private final LevelManager levelManager;
+  private final ActionManager actionManager;
+  private final PlacedBlockTracker placedBlockTracker;
+  private final MetricsManager metricsManager;
 
-  public BlockBreakListener(JobManager jobManager, PlayerDataManager playerDataManager) {
-    this.jobManager = jobManager;
-    this.playerDataManager = playerDataManager;
-    this.levelManager = new LevelManager(jobManager);
+  public BlockBreakListener(
+      ActionManager actionManager,
+      PlacedBlockTracker placedBlockTracker,
+      MetricsManager metricsManager) {
+    this.actionManager = actionManager;
+    this.placedBlockTracker = placedBlockTracker;
+    this.metricsManager = metricsManager;
   }
 
-  @EventHandler
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
   public void onBlockBreak(BlockBreakEvent event) {
-    PlayerEntity playerEntity = playerDataManager.getPlayerEntity(event.getPlayer());
-    Material blockType = event.getBlock().getType();
-
-    for (JobEntity jobEntity : this.jobManager.getJobs().values()) {
-      int xp = jobManager.getXpForAction(jobEntity.getId(), "break", blockType);
-      if (xp > 0) {
-        levelManager.addXpToPlayer(jobEntity, xp, playerEntity);
-        playerDataManager.savePlayerEntity(playerEntity);
-      }
+    long start = System.nanoTime();
+    this.breakBlock(event.getPlayer(), event.getBlock());
+    this.metricsManager.recordBlockBreak(System.nanoTime() - start);
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onEntityExplode(EntityExplodeEvent event) {
+    Player player = null;
+    if (event.getEntity() instanceof TNTPrimed tnt && tnt.getSource() instanceof Player source) {
+      player = source;
+    }
+
+    for (Block block : event.blockList()) {
+      this.breakBlock(player, block);
     }
   }
+
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onBlockExplode(BlockExplodeEvent event) {
+    for (Block block : event.blockList()) {
+      this.breakBlock(null, block);
+    }
+  }
+
+  /**
+   * Forgets a broken block if it was placed by a player, otherwise rewards the player who broke it.
+   *
+   * @param player the player who broke the block, or null if nobody is credited
+   * @param block the broken block
+   */
+  private void breakBlock(Player player, Block block) {
+    if (placedBlockTracker.unmark(block) || player == null) {
+      return;
+    }
+
+    actionManager.handleAction(player, ActionType.BREAK, block.getType(), 1);
+  }
 }
@@ -0,0 +1,23 @@
+package dev.fuzip.jobs.listeners;
+
+import dev.fuzip.jobs.entities.ActionType;
+import dev.fuzip.jobs.managers.ActionManager;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockPlaceEvent;
+
+public class BlockPlaceListener implements Listener {
+
+  private final ActionManager actionManager;
+
+  public BlockPlaceListener(ActionManager actionManager) {
+    this.actionManager = actionManager;
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onBlockPlace(BlockPlaceEvent event) {
+    actionManager.handleAction(
+        event.getPlayer(), ActionType.PLACE, event.getBlockPlaced().getType(), 1);
+  }
+}
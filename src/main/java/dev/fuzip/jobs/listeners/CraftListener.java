@@ -0,0 +1,72 @@
+package dev.fuzip.jobs.listeners;
+
+import dev.fuzip.jobs.entities.ActionType;
+import dev.fuzip.jobs.managers.ActionManager;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.inventory.CraftItemEvent;
+import org.bukkit.inventory.CraftingInventory;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Rewards crafted items, by material and per item of the recipe result, counting every craft of a
+ * shift-click.
+ */
+public class CraftListener implements Listener {
+
+  private final ActionManager actionManager;
+
+  public CraftListener(ActionManager actionManager) {
+    this.actionManager = actionManager;
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onCraft(CraftItemEvent event) {
+    if (!(event.getWhoClicked() instanceof Player player)) {
+      return;
+    }
+
+    ItemStack result = event.getRecipe().getResult();
+    int amount =
+        event.isShiftClick()
+            ? getShiftCraftedAmount(event.getInventory(), player, result)
+            : result.getAmount();
+
+    if (amount > 0) {
+      actionManager.handleAction(player, ActionType.CRAFT, result.getType(), amount);
+    }
+  }
+
+  /**
+   * Computes the number of items crafted by a shift-click, which fires a single event for every
+   * craft. The recipe is repeated until an ingredient runs out or the result no longer fits in
+   * the inventory of the player.
+   *
+   * @param inventory the crafting inventory, before the crafts
+   * @param player the crafting player
+   * @param result the result of one craft
+   * @return the number of items crafted
+   */
+  private static int getShiftCraftedAmount(
+      CraftingInventory inventory, Player player, ItemStack result) {
+    int crafts = Integer.MAX_VALUE;
+    for (ItemStack ingredient : inventory.getMatrix()) {
+      if (ingredient != null && !ingredient.getType().isAir()) {
+        crafts = Math.min(crafts, ingredient.getAmount());
+      }
+    }
+
+    int space = 0;
+    for (ItemStack item : player.getInventory().getStorageContents()) {
+      if (item == null || item.getType().isAir()) {
+        space += result.getMaxStackSize();
+      } else if (item.isSimilar(result)) {
+        space += Math.max(0, result.getMaxStackSize() - item.getAmount());
+      }
+    }
+
+    return Math.min(crafts, space / result.getAmount()) * result.getAmount();
+  }
+}
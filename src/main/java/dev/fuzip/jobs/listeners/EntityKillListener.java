@@ -0,0 +1,27 @@
+package dev.fuzip.jobs.listeners;
+
+import dev.fuzip.jobs.entities.ActionType;
+import dev.fuzip.jobs.managers.ActionManager;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityDeathEvent;
+
+/** Rewards the player who killed an entity. */
+public class EntityKillListener implements Listener {
+
+  private final ActionManager actionManager;
+
+  public EntityKillListener(ActionManager actionManager) {
+    this.actionManager = actionManager;
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR)
+  public void onEntityDeath(EntityDeathEvent event) {
+    Player killer = event.getEntity().getKiller();
+    if (killer != null) {
+      actionManager.handleAction(killer, ActionType.KILL, event.getEntityType(), 1);
+    }
+  }
+}
@@ -0,0 +1,28 @@
+package dev.fuzip.jobs.listeners;
+
+import dev.fuzip.jobs.entities.ActionType;
+import dev.fuzip.jobs.managers.ActionManager;
+import org.bukkit.entity.Item;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerFishEvent;
+
+/** Rewards the items caught by fishing, by material. */
+public class FishListener implements Listener {
+
+  private final ActionManager actionManager;
+
+  public FishListener(ActionManager actionManager) {
+    this.actionManager = actionManager;
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onFish(PlayerFishEvent event) {
+    if (event.getState() == PlayerFishEvent.State.CAUGHT_FISH
+        && event.getCaught() instanceof Item item) {
+      actionManager.handleAction(
+          event.getPlayer(), ActionType.FISH, item.getItemStack().getType(), 1);
+    }
+  }
+}
@@ -0,0 +1,32 @@
+package dev.fuzip.jobs.listeners;
+
+import dev.fuzip.jobs.entities.ActionType;
+import dev.fuzip.jobs.managers.ActionManager;
+import org.bukkit.block.Block;
+import org.bukkit.block.data.Ageable;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+
+/** Rewards the harvest of crops, only when they are fully grown. */
+public class HarvestListener implements Listener {
+
+  private final ActionManager actionManager;
+
+  public HarvestListener(ActionManager actionManager) {
+    this.actionManager = actionManager;
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onHarvest(BlockBreakEvent event) {
+    Block block = event.getBlock();
+    if (!actionManager.isRewarded(ActionType.HARVEST, block.getType())) {
+      return;
+    }
+
+    if (block.getBlockData() instanceof Ageable crop && crop.getAge() == crop.getMaximumAge()) {
+      actionManager.handleAction(event.getPlayer(), ActionType.HARVEST, block.getType(), 1);
+    }
+  }
+}
@@ -2,8 +2,11 @@ package dev.fuzip.jobs.listeners;
 
 import dev.fuzip.jobs.managers.PlayerDataManager;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerLoginEvent;
 
 public class OnJoinListener implements Listener {
 
@@ -13,6 +16,33 @@ public class OnJoinListener implements Listener {
     this.playerDataManager = playerDataManager;
   }
 
+  @EventHandler(priority = EventPriority.MONITOR)
+  public void onPreLogin(AsyncPlayerPreLoginEvent event) {
+    if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+      return;
+    }
+
+    if (playerDataManager.isImportRunning()) {
+      event.disallow(
+          AsyncPlayerPreLoginEvent.Result.KICK_OTHER,
+          "Import des données de métiers en cours, réessayez dans quelques minutes.");
+      return;
+    }
+
+    if (!playerDataManager.preloadPlayerEntity(event.getUniqueId())) {
+      event.disallow(
+          AsyncPlayerPreLoginEvent.Result.KICK_OTHER,
+          "Impossible de charger vos métiers, veuillez réessayer plus tard.");
+    }
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR)
+  public void onLogin(PlayerLoginEvent event) {
+    if (event.getResult() != PlayerLoginEvent.Result.ALLOWED) {
+      playerDataManager.discardPreload(event.getPlayer().getUniqueId());
+    }
+  }
+
   @EventHandler
   public void onJoin(PlayerJoinEvent event) {
     playerDataManager.initDataPlayer(event.getPlayer());
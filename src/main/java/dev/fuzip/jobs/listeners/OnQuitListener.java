@@ -0,0 +1,24 @@
+package dev.fuzip.jobs.listeners;
+
+import dev.fuzip.jobs.managers.LevelManager;
+import dev.fuzip.jobs.managers.PlayerDataManager;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+public class OnQuitListener implements Listener {
+
+  private final PlayerDataManager playerDataManager;
+  private final LevelManager levelManager;
+
+  public OnQuitListener(PlayerDataManager playerDataManager, LevelManager levelManager) {
+    this.playerDataManager = playerDataManager;
+    this.levelManager = levelManager;
+  }
+
+  @EventHandler
+  public void onQuit(PlayerQuitEvent event) {
+    levelManager.flushPendingXp(event.getPlayer().getUniqueId());
+    playerDataManager.unloadPlayer(event.getPlayer().getUniqueId());
+  }
+}
@@ -0,0 +1,67 @@
+package dev.fuzip.jobs.listeners;
+
+import dev.fuzip.jobs.entities.ActionType;
+import dev.fuzip.jobs.managers.JobManager;
+import dev.fuzip.jobs.managers.PlacedBlockTracker;
+import org.bukkit.block.Block;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.bukkit.event.block.BlockPistonRetractEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldSaveEvent;
+
+/**
+ * Keeps the {@link PlacedBlockTracker} up to date: records the blocks placed by players that some
+ * job rewards, follows them when pistons move them, and loads or saves them with their chunk.
+ * Broken and exploded blocks are forgotten by {@link BlockBreakListener}.
+ */
+public class PlacedBlockListener implements Listener {
+
+  private final JobManager jobManager;
+  private final PlacedBlockTracker placedBlockTracker;
+
+  public PlacedBlockListener(JobManager jobManager, PlacedBlockTracker placedBlockTracker) {
+    this.jobManager = jobManager;
+    this.placedBlockTracker = placedBlockTracker;
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onBlockPlace(BlockPlaceEvent event) {
+    Block block = event.getBlockPlaced();
+
+    if (jobManager.getXpGrants(ActionType.BREAK, block.getType()).length > 0) {
+      placedBlockTracker.markPlaced(block);
+    }
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onPistonExtend(BlockPistonExtendEvent event) {
+    placedBlockTracker.moveBlocks(event.getBlocks(), event.getDirection());
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onPistonRetract(BlockPistonRetractEvent event) {
+    placedBlockTracker.moveBlocks(event.getBlocks(), event.getDirection());
+  }
+
+  @EventHandler
+  public void onChunkLoad(ChunkLoadEvent event) {
+    if (!event.isNewChunk()) {
+      placedBlockTracker.loadChunk(event.getChunk());
+    }
+  }
+
+  @EventHandler
+  public void onChunkUnload(ChunkUnloadEvent event) {
+    placedBlockTracker.unloadChunk(event.getChunk());
+  }
+
+  @EventHandler
+  public void onWorldSave(WorldSaveEvent event) {
+    placedBlockTracker.saveWorld(event.getWorld());
+  }
+}
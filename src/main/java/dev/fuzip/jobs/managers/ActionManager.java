@@ -0,0 +1,66 @@
+package dev.fuzip.jobs.managers;
+
+import dev.fuzip.jobs.entities.ActionType;
+import dev.fuzip.jobs.entities.JobXpGrant;
+import dev.fuzip.jobs.entities.PlayerEntity;
+import org.bukkit.entity.Player;
+
+/**
+ * Single entry point of the action pipeline. Event listeners translate Bukkit events into an action
+ * type and a target, and this manager resolves the XP of every job rewarding it through the action
+ * index and queues it in the {@link LevelManager}, which applies and saves it at the end of the
+ * tick. Actions can be handled from any thread, for instance from asynchronous events.
+ */
+public class ActionManager {
+  private final JobManager jobManager;
+  private final PlayerDataManager playerDataManager;
+  private final LevelManager levelManager;
+  private final MetricsManager metricsManager;
+
+  public ActionManager(
+      JobManager jobManager,
+      PlayerDataManager playerDataManager,
+      LevelManager levelManager,
+      MetricsManager metricsManager) {
+    this.jobManager = jobManager;
+    this.playerDataManager = playerDataManager;
+    this.levelManager = levelManager;
+    this.metricsManager = metricsManager;
+  }
+
+  /**
+   * Tells whether at least one job rewards the given action on the given target.
+   *
+   * @param action the action type
+   * @param target the material or entity type of the action
+   * @return true if the action gives XP
+   */
+  public boolean isRewarded(ActionType action, Enum<?> target) {
+    return this.jobManager.getXpGrants(action, target).length > 0;
+  }
+
+  /**
+   * Gives a player the XP of every job rewarding an action. The XP is applied at the end of the
+   * tick, together with the player's other actions of the tick.
+   *
+   * @param player the player who performed the action
+   * @param action the action type
+   * @param target the material or entity type of the action
+   * @param count the number of times the action was performed, for example the number of items
+   *     crafted at once
+   */
+  public void handleAction(Player player, ActionType action, Enum<?> target, int count) {
+    long start = System.nanoTime();
+    JobXpGrant[] grants = this.jobManager.getXpGrants(action, target);
+    this.metricsManager.recordXpLookup(System.nanoTime() - start);
+    if (grants.length == 0 || count <= 0) {
+      return;
+    }
+
+    PlayerEntity playerEntity = this.playerDataManager.getPlayerEntity(player);
+
+    for (JobXpGrant grant : grants) {
+      this.levelManager.queueXp(grant.getJob(), grant.getXp() * count, playerEntity);
+    }
+  }
+}
@@ -0,0 +1,312 @@
+package dev.fuzip.jobs.managers;
+
+import dev.fuzip.jobs.Jobs;
+import dev.fuzip.jobs.entities.JobEntity;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+
+/**
+ * Manages timed XP boosts. A boost multiplies the XP of one player or of every player, in one job
+ * or in all of them, until it expires. Boosts stack by multiplication.
+ *
+ * <p>The effective multiplier of every player in every job is computed when a boost starts or
+ * ends, never when XP is gained: {@link #apply} reads one array, from a small map holding only
+ * the players with a boost of their own. Expirations are driven by a {@link TimingWheel} advanced
+ * once per second by a single scheduler task, so no boost is ever checked against the clock.
+ *
+ * <p>Active boosts are saved to {@code boosts.yml} whenever they change and restored at startup,
+ * minus the ones that expired while the server was down. Boosts change on the main server thread;
+ * {@link #apply} can be called from any thread.
+ */
+public class BoostManager {
+  private static final int WHEEL_SIZE = 512;
+
+  private final Jobs plugin;
+  private final Map<String, JobEntity> jobs;
+  private final File boostsFile;
+  private final List<Boost> boosts = new ArrayList<>();
+  private final TimingWheel<Boost> wheel = new TimingWheel<>(WHEEL_SIZE);
+  private volatile Multipliers multipliers;
+  private long wheelStart;
+  private long wheelSteps;
+
+  public BoostManager(Jobs plugin, Map<String, JobEntity> jobs) {
+    this.plugin = plugin;
+    this.jobs = jobs;
+    this.boostsFile = new File(plugin.getDataFolder(), "boosts.yml");
+    this.multipliers = this.computeMultipliers();
+  }
+
+  /** Restores the boosts saved in {@code boosts.yml} and starts the expiry task. */
+  public void load() {
+    YamlConfiguration config = YamlConfiguration.loadConfiguration(this.boostsFile);
+    long now = System.currentTimeMillis();
+    this.wheelStart = now;
+
+    for (Map<?, ?> entry : config.getMapList("boosts")) {
+      try {
+        Object player = entry.get("player");
+        Object job = entry.get("job");
+        Boost boost =
+            new Boost(
+                player == null ? null : UUID.fromString(String.valueOf(player)),
+                job == null ? null : String.valueOf(job),
+                ((Number) entry.get("multiplier")).doubleValue(),
+                ((Number) entry.get("expires-at")).longValue());
+
+        if (boost.expiresAt > now && (boost.jobId == null || this.jobs.containsKey(boost.jobId))) {
+          this.schedule(boost);
+        }
+      } catch (RuntimeException e) {
+        this.plugin.getLogger().warning("[Jobs] Ignoring invalid boost " + entry + ": " + e);
+      }
+    }
+
+    this.multipliers = this.computeMultipliers();
+    Bukkit.getScheduler().runTaskTimer(this.plugin, this::tick, 20, 20);
+
+    if (!this.boosts.isEmpty()) {
+      this.plugin.getLogger().info("[Jobs] Restored " + this.boosts.size() + " XP boosts.");
+    }
+  }
+
+  /**
+   * Applies the active boosts to an XP gain.
+   *
+   * @param uuid the UUID of the player gaining XP
+   * @param jobEntity the job in which the XP is gained
+   * @param xp the XP gained
+   * @return the boosted XP
+   */
+  public int apply(UUID uuid, JobEntity jobEntity, int xp) {
+    Multipliers current = this.multipliers;
+    double multiplier = current.players.getOrDefault(uuid, current.global)[jobEntity.getOrdinal()];
+
+    if (multiplier == 1) {
+      return xp;
+    }
+    return (int) Math.min(Integer.MAX_VALUE, Math.round(xp * multiplier));
+  }
+
+  /**
+   * Starts a boost. Must be called from the main server thread.
+   *
+   * @param uuid the UUID of the boosted player, or {@code null} to boost every player
+   * @param jobEntity the boosted job, or {@code null} to boost every job
+   * @param multiplier the XP multiplier, greater than 0
+   * @param durationMillis the duration of the boost in milliseconds
+   */
+  public void addBoost(UUID uuid, JobEntity jobEntity, double multiplier, long durationMillis) {
+    long now = System.currentTimeMillis();
+    Boost boost =
+        new Boost(
+            uuid, jobEntity == null ? null : jobEntity.getId(), multiplier, now + durationMillis);
+
+    this.schedule(boost);
+    this.multipliers = this.computeMultipliers();
+    this.save();
+    this.announce(boost, ChatColor.GREEN + "Boost d'XP activé : " + this.describe(boost) + ".");
+  }
+
+  /**
+   * Ends every boost right away. Must be called from the main server thread.
+   *
+   * @return the number of boosts ended
+   */
+  public int clearBoosts() {
+    int count = this.boosts.size();
+
+    this.boosts.clear();
+    this.wheel.clear();
+    this.multipliers = this.computeMultipliers();
+    this.save();
+    return count;
+  }
+
+  /**
+   * Describes the active boosts for {@code /jobs boost list}.
+   *
+   * @param names resolves the name of a boosted player
+   * @return one line per boost, in French
+   */
+  public List<String> describeBoosts(Function<UUID, String> names) {
+    long now = System.currentTimeMillis();
+    List<String> lines = new ArrayList<>(this.boosts.size());
+
+    for (Boost boost : this.boosts) {
+      String target = boost.uuid == null ? "tous les joueurs" : names.apply(boost.uuid);
+      long minutesLeft = Math.max(1, TimeUnit.MILLISECONDS.toMinutes(boost.expiresAt - now));
+      lines.add(this.describe(boost) + " pour " + target + ", encore " + minutesLeft + " min");
+    }
+
+    return lines;
+  }
+
+  /** Writes the active boosts to {@code boosts.yml}. The file only holds a few lines. */
+  public void save() {
+    List<Map<String, Object>> entries = new ArrayList<>(this.boosts.size());
+    for (Boost boost : this.boosts) {
+      Map<String, Object> entry = new LinkedHashMap<>();
+      if (boost.uuid != null) {
+        entry.put("player", boost.uuid.toString());
+      }
+      if (boost.jobId != null) {
+        entry.put("job", boost.jobId);
+      }
+      entry.put("multiplier", boost.multiplier);
+      entry.put("expires-at", boost.expiresAt);
+      entries.add(entry);
+    }
+
+    YamlConfiguration config = new YamlConfiguration();
+    config.set("boosts", entries);
+    try {
+      config.save(this.boostsFile);
+    } catch (IOException e) {
+      this.plugin.getLogger().severe("[Jobs] Unable to save XP boosts: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Adds a boost to the active ones and schedules its expiry on the wheel, which moves one step
+   * per second since the boosts were loaded.
+   *
+   * @param boost the boost
+   */
+  private void schedule(Boost boost) {
+    this.boosts.add(boost);
+    long dueStep = Math.ceilDiv(boost.expiresAt - this.wheelStart, 1000);
+    this.wheel.schedule(boost, dueStep - this.wheelSteps);
+  }
+
+  /**
+   * Advances the timing wheel to the current second and ends the boosts that expired. Runs every
+   * second; when the server lags, the wheel catches up on the seconds it missed.
+   */
+  private void tick() {
+    List<Boost> expired = new ArrayList<>();
+    long dueSteps = (System.currentTimeMillis() - this.wheelStart) / 1000;
+    while (this.wheelSteps < dueSteps) {
+      this.wheel.advance(expired::add);
+      this.wheelSteps++;
+    }
+
+    if (expired.isEmpty()) {
+      return;
+    }
+
+    this.boosts.removeAll(expired);
+    this.multipliers = this.computeMultipliers();
+    this.save();
+    for (Boost boost : expired) {
+      this.announce(
+          boost, ChatColor.YELLOW + "Boost d'XP terminé : " + this.describe(boost) + ".");
+    }
+  }
+
+  /**
+   * Computes the effective multiplier of every job for every player, from the active boosts.
+   *
+   * @return the multipliers of the players without a boost of their own, and of each boosted
+   *     player
+   */
+  private Multipliers computeMultipliers() {
+    double[] global = new double[this.jobs.size()];
+    Arrays.fill(global, 1);
+
+    for (Boost boost : this.boosts) {
+      if (boost.uuid == null) {
+        this.multiply(global, boost);
+      }
+    }
+
+    Map<UUID, double[]> players = new HashMap<>();
+    for (Boost boost : this.boosts) {
+      if (boost.uuid != null) {
+        this.multiply(players.computeIfAbsent(boost.uuid, k -> global.clone()), boost);
+      }
+    }
+
+    return new Multipliers(global, Collections.unmodifiableMap(players));
+  }
+
+  private void multiply(double[] multipliers, Boost boost) {
+    if (boost.jobId == null) {
+      for (int job = 0; job < multipliers.length; job++) {
+        multipliers[job] *= boost.multiplier;
+      }
+      return;
+    }
+
+    JobEntity jobEntity = this.jobs.get(boost.jobId);
+    if (jobEntity != null) {
+      multipliers[jobEntity.getOrdinal()] *= boost.multiplier;
+    }
+  }
+
+  private String describe(Boost boost) {
+    JobEntity jobEntity = boost.jobId == null ? null : this.jobs.get(boost.jobId);
+    String jobName = jobEntity == null ? "tous les métiers" : jobEntity.getName();
+    String multiplier = BigDecimal.valueOf(boost.multiplier).stripTrailingZeros().toPlainString();
+    return "x" + multiplier + " en " + jobName;
+  }
+
+  /**
+   * Tells the boosted player, or every player for a global boost, that a boost started or ended.
+   *
+   * @param boost the boost
+   * @param message the message to send
+   */
+  private void announce(Boost boost, String message) {
+    if (boost.uuid == null) {
+      Bukkit.broadcastMessage(message);
+      return;
+    }
+
+    Player player = Bukkit.getPlayer(boost.uuid);
+    if (player != null) {
+      player.sendMessage(message);
+    }
+  }
+
+  /** An active boost. */
+  private static final class Boost {
+    private final UUID uuid;
+    private final String jobId;
+    private final double multiplier;
+    private final long expiresAt;
+
+    private Boost(UUID uuid, String jobId, double multiplier, long expiresAt) {
+      this.uuid = uuid;
+      this.jobId = jobId;
+      this.multiplier = multiplier;
+      this.expiresAt = expiresAt;
+    }
+  }
+
+  /** Effective multipliers per job ordinal, published as a whole when boosts change. */
+  private static final class Multipliers {
+    private final double[] global;
+    private final Map<UUID, double[]> players;
+
+    private Multipliers(double[] global, Map<UUID, double[]> players) {
+      this.global = global;
+      this.players = players;
+    }
+  }
+}
@@ -0,0 +1,167 @@
+package dev.fuzip.jobs.managers;
+
+/**
+ * Open-addressing hash table mapping the packed coordinates of a chunk to its placed blocks. Keys
+ * live in a primitive array, so lookups neither box nor allocate. Deletions use backward shifting,
+ * so no tombstones accumulate.
+ */
+final class ChunkTable {
+
+  private long[] keys;
+  private PackedBlockSet[] values;
+  private int mask;
+  private int size;
+
+  ChunkTable() {
+    this.allocate(64);
+  }
+
+  /**
+   * Packs chunk coordinates into a table key.
+   *
+   * @param chunkX the X coordinate of the chunk
+   * @param chunkZ the Z coordinate of the chunk
+   * @return the packed key
+   */
+  static long pack(int chunkX, int chunkZ) {
+    return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Returns the placed blocks of a chunk.
+   *
+   * @param key the packed chunk
+   * @return the placed blocks, or null if the chunk holds none
+   */
+  PackedBlockSet get(long key) {
+    int i = hash(key) & this.mask;
+
+    while (this.values[i] != null) {
+      if (this.keys[i] == key) {
+        return this.values[i];
+      }
+      i = (i + 1) & this.mask;
+    }
+
+    return null;
+  }
+
+  /**
+   * Associates a chunk with its placed blocks, replacing any previous set.
+   *
+   * @param key the packed chunk
+   * @param blocks the placed blocks of the chunk
+   */
+  void put(long key, PackedBlockSet blocks) {
+    if ((this.size + 1) * 2 > this.keys.length) {
+      this.resize();
+    }
+
+    int i = hash(key) & this.mask;
+
+    while (this.values[i] != null) {
+      if (this.keys[i] == key) {
+        this.values[i] = blocks;
+        return;
+      }
+      i = (i + 1) & this.mask;
+    }
+
+    this.keys[i] = key;
+    this.values[i] = blocks;
+    this.size++;
+  }
+
+  /**
+   * Removes a chunk from the table.
+   *
+   * @param key the packed chunk
+   * @return the removed placed blocks, or null if the chunk was not in the table
+   */
+  PackedBlockSet remove(long key) {
+    int i = hash(key) & this.mask;
+
+    while (this.values[i] != null) {
+      if (this.keys[i] == key) {
+        PackedBlockSet removed = this.values[i];
+        this.shiftBack(i);
+        this.size--;
+        return removed;
+      }
+      i = (i + 1) & this.mask;
+    }
+
+    return null;
+  }
+
+  /**
+   * Calls the consumer for every chunk of the table.
+   *
+   * @param consumer the consumer receiving the packed chunk and its placed blocks
+   */
+  void forEach(ChunkConsumer consumer) {
+    for (int i = 0; i < this.keys.length; i++) {
+      if (this.values[i] != null) {
+        consumer.accept(this.keys[i], this.values[i]);
+      }
+    }
+  }
+
+  /**
+   * Empties the bucket at {@code gap} and moves back the following entries of the probe sequence
+   * that would no longer be reachable.
+   *
+   * @param gap the bucket to empty
+   */
+  private void shiftBack(int gap) {
+    int i = gap;
+
+    while (true) {
+      i = (i + 1) & this.mask;
+      if (this.values[i] == null) {
+        break;
+      }
+
+      int home = hash(this.keys[i]) & this.mask;
+      boolean reachable = gap <= i ? gap < home && home <= i : gap < home || home <= i;
+      if (!reachable) {
+        this.keys[gap] = this.keys[i];
+        this.values[gap] = this.values[i];
+        gap = i;
+      }
+    }
+
+    this.values[gap] = null;
+  }
+
+  private void resize() {
+    long[] oldKeys = this.keys;
+    PackedBlockSet[] oldValues = this.values;
+
+    this.allocate(oldKeys.length * 2);
+    this.size = 0;
+
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldValues[i] != null) {
+        this.put(oldKeys[i], oldValues[i]);
+      }
+    }
+  }
+
+  private void allocate(int capacity) {
+    this.keys = new long[capacity];
+    this.values = new PackedBlockSet[capacity];
+    this.mask = capacity - 1;
+  }
+
+  private static int hash(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+
+  /** Receives the entries of a {@link ChunkTable}. */
+  @FunctionalInterface
+  interface ChunkConsumer {
+    void accept(long key, PackedBlockSet blocks);
+  }
+}
@@ -0,0 +1,153 @@
+package dev.fuzip.jobs.managers;
+
+import dev.fuzip.jobs.Jobs;
+import dev.fuzip.jobs.entities.JobEntity;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import net.md_5.bungee.api.ChatMessageType;
+import net.md_5.bungee.api.chat.TextComponent;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+
+/**
+ * Sends job feedback to players. XP gains are added up per player and per job during a configurable
+ * window, then a single summary is sent in the action bar or the chat, instead of one message per
+ * block. Level-up messages are sent right away. Reaching an XP cap is announced in the chat, at
+ * most once per cooldown for each player and job.
+ *
+ * <p>Settings are read from the {@code feedback} section of config.yml and can be overridden per
+ * job with a {@code feedback} section under the job. They are compiled with the job definitions,
+ * so {@link JobManager#reload()} replaces them too. All methods must be called from the main server
+ * thread.
+ */
+public class FeedbackManager {
+  private final Jobs plugin;
+  private final JobManager jobManager;
+  private final int jobCount;
+  private final Map<UUID, long[]> pendingXp = new HashMap<>();
+  private final Map<UUID, long[]> capNotifications = new HashMap<>();
+
+  public FeedbackManager(Jobs plugin, JobManager jobManager) {
+    this.plugin = plugin;
+    this.jobManager = jobManager;
+    this.jobCount = jobManager.getJobs().size();
+  }
+
+  /**
+   * Records XP gained by a player in a job. The first gain of a window schedules the summary; the
+   * following ones only add to it.
+   *
+   * @param jobEntity the job in which the XP was gained
+   * @param player the player who gained the XP
+   * @param xp the amount of XP gained
+   */
+  public void sendXp(JobEntity jobEntity, Player player, int xp) {
+    JobFeedback feedback = this.jobManager.getFeedback(jobEntity.getOrdinal());
+
+    if (feedback.getChannel() == JobFeedback.Channel.NONE) {
+      return;
+    }
+
+    if (feedback.getWindow() <= 0) {
+      this.send(player, feedback.getChannel(), feedback.getXpMessage().format(xp));
+      return;
+    }
+
+    UUID uuid = player.getUniqueId();
+    long[] pending = this.pendingXp.computeIfAbsent(uuid, k -> new long[this.jobCount]);
+    int job = jobEntity.getOrdinal();
+
+    if (pending[job] == 0) {
+      Bukkit.getScheduler()
+          .runTaskLater(this.plugin, () -> this.flush(uuid, job), feedback.getWindow());
+    }
+    pending[job] += xp;
+  }
+
+  /**
+   * Tells a player they reached a new level. The message is sent in the chat right away, without
+   * waiting for the XP window.
+   *
+   * @param jobEntity the job in which the level was reached
+   * @param player the player who leveled up
+   * @param level the level reached
+   */
+  public void sendLevelUp(JobEntity jobEntity, Player player, int level) {
+    JobFeedback feedback = this.jobManager.getFeedback(jobEntity.getOrdinal());
+    player.sendMessage(feedback.getLevelUpMessage().format(level));
+  }
+
+  /**
+   * Tells a player they reached the hourly or daily XP cap of a job, unless they were already told
+   * during the cooldown. Players who left are forgotten whenever a message is sent, so the
+   * cooldowns only cover connected players.
+   *
+   * @param jobEntity the job whose cap was reached
+   * @param player the player who reached the cap, may be null if they are offline
+   */
+  public void sendCapReached(JobEntity jobEntity, Player player) {
+    if (player == null) {
+      return;
+    }
+
+    JobFeedback feedback = this.jobManager.getFeedback(jobEntity.getOrdinal());
+    long now = System.currentTimeMillis();
+    long[] notified =
+        this.capNotifications.computeIfAbsent(player.getUniqueId(), k -> new long[this.jobCount]);
+
+    if (notified[jobEntity.getOrdinal()] != 0
+        && now - notified[jobEntity.getOrdinal()] < feedback.getCapCooldown()) {
+      return;
+    }
+
+    notified[jobEntity.getOrdinal()] = now;
+    this.capNotifications.keySet().removeIf(uuid -> Bukkit.getPlayer(uuid) == null);
+    player.sendMessage(feedback.getCapMessage().format());
+  }
+
+  /**
+   * Sends the XP summary of a player for a job and resets it. Summaries of players who left the
+   * server are dropped.
+   *
+   * @param uuid the UUID of the player
+   * @param job the ordinal of the job
+   */
+  private void flush(UUID uuid, int job) {
+    long[] pending = this.pendingXp.get(uuid);
+    if (pending == null) {
+      return;
+    }
+
+    long xp = pending[job];
+    pending[job] = 0;
+    if (isEmpty(pending)) {
+      this.pendingXp.remove(uuid);
+    }
+
+    Player player = Bukkit.getPlayer(uuid);
+    if (player != null && xp > 0) {
+      JobFeedback feedback = this.jobManager.getFeedback(job);
+      this.send(player, feedback.getChannel(), feedback.getXpMessage().format(xp));
+    }
+  }
+
+  private void send(Player player, JobFeedback.Channel channel, String message) {
+    if (channel == JobFeedback.Channel.ACTIONBAR) {
+      player
+          .spigot()
+          .sendMessage(ChatMessageType.ACTION_BAR, TextComponent.fromLegacyText(message));
+    } else {
+      player.sendMessage(message);
+    }
+  }
+
+  private static boolean isEmpty(long[] values) {
+    for (long value : values) {
+      if (value != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
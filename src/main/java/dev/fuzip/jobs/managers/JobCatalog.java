@@ -0,0 +1,520 @@
+package dev.fuzip.jobs.managers;
+
+import dev.fuzip.jobs.entities.ActionType;
+import dev.fuzip.jobs.entities.JobEntity;
+import dev.fuzip.jobs.entities.JobRewardEntity;
+import dev.fuzip.jobs.entities.JobXpEntity;
+import dev.fuzip.jobs.entities.JobXpGrant;
+import dev.fuzip.jobs.entities.MessageTemplate;
+import dev.fuzip.jobs.entities.RewardSchedule;
+import dev.fuzip.jobs.entities.XpCaps;
+import dev.fuzip.jobs.entities.XpCurve;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.bukkit.Color;
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+
+/**
+ * Compiled job configuration: the job definitions with their XP curves and reward schedules, the
+ * action index built from them, and the feedback settings of each job. A catalog is immutable
+ * once compiled, so the {@link JobManager} can replace it with a single reference swap while
+ * events keep reading the previous one.
+ */
+final class JobCatalog {
+  static final JobCatalog EMPTY = new JobCatalog(Map.of(), Map.of(), new JobFeedback[0]);
+
+  private static final JobXpGrant[] NO_GRANTS = new JobXpGrant[0];
+  private static final String DEFAULT_XP_MESSAGE = "{color}[{job}] &fVous avez gagné {xp} XP !";
+  private static final String DEFAULT_LEVEL_UP_MESSAGE =
+      "{color}[{job}] &fVous êtes passé au niveau {level} !";
+  private static final String DEFAULT_CAP_MESSAGE =
+      "{color}[{job}] &fVous avez atteint la limite d'XP, revenez plus tard !";
+  private static final Pattern EVERY_LEVELS = Pattern.compile("every_(\\d+)_levels");
+  private static final Pattern SINGLE_LEVEL = Pattern.compile("level_(\\d+)");
+  private static final Pattern LEVEL_RANGE = Pattern.compile("levels_(\\d+)_to_(\\d+)");
+
+  private final Map<String, JobEntity> jobs;
+  private final Map<ActionType, JobXpGrant[][]> actionIndex;
+  private final JobFeedback[] feedbacks;
+
+  private JobCatalog(
+      Map<String, JobEntity> jobs,
+      Map<ActionType, JobXpGrant[][]> actionIndex,
+      JobFeedback[] feedbacks) {
+    this.jobs = Collections.unmodifiableMap(jobs);
+    this.actionIndex = actionIndex;
+    this.feedbacks = feedbacks;
+  }
+
+  /**
+   * Compiles the jobs defined in a configuration. Unknown actions, targets and reward items are
+   * skipped with a warning; other mistakes make the whole configuration invalid.
+   *
+   * <p>When a previous catalog is given, the configuration must define the same jobs, which keep
+   * their ordinals: stored progress is indexed by job, so jobs can only be added or removed with a
+   * restart.
+   *
+   * @param config the root of the configuration, holding the {@code jobs}, {@code xp-curve},
+   *     {@code xp-caps} and {@code feedback} sections
+   * @param logger the logger receiving the warnings
+   * @param previous the catalog being replaced, or {@code null} when the plugin starts
+   * @return the compiled catalog
+   * @throws InvalidConfigurationException if the configuration cannot be used
+   */
+  static JobCatalog compile(ConfigurationSection config, Logger logger, JobCatalog previous)
+      throws InvalidConfigurationException {
+    return new Compiler(logger, previous).compile(config);
+  }
+
+  Map<String, JobEntity> getJobs() {
+    return this.jobs;
+  }
+
+  JobXpGrant[] getXpGrants(ActionType action, Enum<?> target) {
+    JobXpGrant[][] targetIndex = this.actionIndex.get(action);
+
+    if (targetIndex == null) {
+      return NO_GRANTS;
+    }
+
+    JobXpGrant[] grants = targetIndex[target.ordinal()];
+    return grants == null ? NO_GRANTS : grants;
+  }
+
+  Set<ActionType> getUsedActions() {
+    return Collections.unmodifiableSet(this.actionIndex.keySet());
+  }
+
+  JobFeedback getFeedback(int job) {
+    return this.feedbacks[job];
+  }
+
+  /** Reads one configuration into a catalog, collecting the errors that make it invalid. */
+  private static final class Compiler {
+    private final Logger logger;
+    private final JobCatalog previous;
+    private final List<String> errors = new ArrayList<>();
+
+    private Compiler(Logger logger, JobCatalog previous) {
+      this.logger = logger;
+      this.previous = previous;
+    }
+
+    private JobCatalog compile(ConfigurationSection config) throws InvalidConfigurationException {
+      ConfigurationSection jobsSection = config.getConfigurationSection("jobs");
+      ConfigurationSection curveSection = config.getConfigurationSection("xp-curve");
+      XpCurve defaultCurve = this.loadXpCurve("default", curveSection, XpCurve.DEFAULT);
+      XpCaps defaultCaps =
+          this.loadXpCaps("default", config.getConfigurationSection("xp-caps"), XpCaps.NONE);
+
+      if (jobsSection == null) {
+        throw new InvalidConfigurationException("No jobs found in config.yml");
+      }
+
+      JobEntity[] jobsByOrdinal = new JobEntity[jobsSection.getKeys(false).size()];
+
+      for (String jobId : jobsSection.getKeys(false)) {
+        int ordinal = this.getOrdinal(jobId, jobsByOrdinal);
+        if (ordinal < 0) {
+          continue;
+        }
+
+        XpCurve xpCurve =
+            this.loadXpCurve(
+                jobId, jobsSection.getConfigurationSection(jobId + ".xp-curve"), defaultCurve);
+        XpCaps xpCaps =
+            this.loadXpCaps(
+                jobId, jobsSection.getConfigurationSection(jobId + ".xp-caps"), defaultCaps);
+
+        ConfigurationSection actionsSection = jobsSection.getConfigurationSection(jobId + ".xp");
+        Map<ActionType, List<JobXpEntity>> actions =
+            actionsSection != null ? this.loadJobActions(jobId, actionsSection) : Map.of();
+
+        RewardSchedule.Builder rewards = new RewardSchedule.Builder(xpCurve.getMaxLevel());
+        ConfigurationSection rewardsSection =
+            jobsSection.getConfigurationSection(jobId + ".rewards");
+        if (rewardsSection != null) {
+          this.loadJobRewards(jobId, rewardsSection, rewards);
+        }
+
+        try {
+          jobsByOrdinal[ordinal] =
+              new JobEntity(
+                  jobId,
+                  ordinal,
+                  jobsSection.getString(jobId + ".name"),
+                  jobsSection.getString(jobId + ".color"),
+                  xpCurve,
+                  xpCaps,
+                  actions,
+                  rewards.build());
+        } catch (IllegalArgumentException | NullPointerException e) {
+          this.errors.add("Invalid color for job " + jobId);
+        }
+      }
+
+      if (this.previous != null && jobsByOrdinal.length != this.previous.jobs.size()) {
+        this.errors.add("Jobs cannot be added or removed without a restart");
+      }
+      if (!this.errors.isEmpty()) {
+        throw new InvalidConfigurationException(String.join(", ", this.errors));
+      }
+
+      Map<String, JobEntity> jobs = new LinkedHashMap<>();
+      ConfigurationSection feedbackSection = config.getConfigurationSection("feedback");
+      JobFeedback[] feedbacks = new JobFeedback[jobsByOrdinal.length];
+      for (JobEntity jobEntity : jobsByOrdinal) {
+        jobs.put(jobEntity.getId(), jobEntity);
+        feedbacks[jobEntity.getOrdinal()] =
+            this.loadFeedback(
+                jobEntity,
+                feedbackSection,
+                jobsSection.getConfigurationSection(jobEntity.getId() + ".feedback"));
+      }
+      return new JobCatalog(jobs, buildActionIndex(jobs), feedbacks);
+    }
+
+    /**
+     * Returns the ordinal of a job: its position in the configuration when the plugin starts, or
+     * its ordinal in the previous catalog when reloading.
+     *
+     * @param jobId the job ID
+     * @param jobsByOrdinal the jobs compiled so far
+     * @return the ordinal, or -1 if the job did not exist in the previous catalog
+     */
+    private int getOrdinal(String jobId, JobEntity[] jobsByOrdinal) {
+      if (this.previous == null) {
+        int ordinal = 0;
+        while (jobsByOrdinal[ordinal] != null) {
+          ordinal++;
+        }
+        return ordinal;
+      }
+
+      JobEntity previousJob = this.previous.jobs.get(jobId);
+      if (previousJob == null || previousJob.getOrdinal() >= jobsByOrdinal.length) {
+        this.errors.add("Job " + jobId + " cannot be added without a restart");
+        return -1;
+      }
+      return previousJob.getOrdinal();
+    }
+
+    /**
+     * Builds the action index from the loaded jobs: for each action type, the list of jobs and XP
+     * rewarded for each target, in an array indexed by the target's ordinal. Entries giving no XP
+     * are left out so that the lookup alone tells whether a target is worth anything, and actions
+     * that no job rewards get no array at all.
+     *
+     * @param jobs the loaded jobs
+     * @return the action index
+     */
+    private static Map<ActionType, JobXpGrant[][]> buildActionIndex(Map<String, JobEntity> jobs) {
+      Map<ActionType, Map<Enum<?>, List<JobXpGrant>>> grants = new EnumMap<>(ActionType.class);
+
+      for (JobEntity jobEntity : jobs.values()) {
+        for (Map.Entry<ActionType, List<JobXpEntity>> entry :
+            jobEntity.getActionsXpMap().entrySet()) {
+          for (JobXpEntity jobXpEntity : entry.getValue()) {
+            if (jobXpEntity.getXp() <= 0) {
+              continue;
+            }
+
+            grants
+                .computeIfAbsent(entry.getKey(), k -> new HashMap<>())
+                .computeIfAbsent(jobXpEntity.getTarget(), k -> new ArrayList<>())
+                .add(new JobXpGrant(jobEntity, jobXpEntity.getXp()));
+          }
+        }
+      }
+
+      Map<ActionType, JobXpGrant[][]> actionIndex = new EnumMap<>(ActionType.class);
+      grants.forEach(
+          (actionType, targets) -> {
+            JobXpGrant[][] targetIndex = new JobXpGrant[actionType.getTargetCount()][];
+            targets.forEach(
+                (target, list) -> targetIndex[target.ordinal()] = list.toArray(NO_GRANTS));
+            actionIndex.put(actionType, targetIndex);
+          });
+      return actionIndex;
+    }
+
+    /**
+     * Loads job action XP mappings from the given configuration section. This method processes
+     * the actions and their associated XP values for a specific job based on the data provided in
+     * the configuration section. Unknown actions and targets are skipped with a warning.
+     *
+     * @param job the job ID for which actions are being loaded
+     * @param actionsSection the configuration section containing the action definitions and XP
+     *     values
+     * @return a map where each key is an action type, and the value is the list of JobXpEntity
+     *     representing each target (material or entity type) and associated XP
+     */
+    private Map<ActionType, List<JobXpEntity>> loadJobActions(
+        String job, ConfigurationSection actionsSection) {
+      Map<ActionType, List<JobXpEntity>> jobXpMap = new EnumMap<>(ActionType.class);
+
+      for (String action : actionsSection.getKeys(false)) {
+        ActionType actionType = ActionType.fromKey(action);
+
+        if (actionType == null) {
+          this.logger.info(
+              Color.YELLOW
+                  + "[Jobs] Unknown action "
+                  + action
+                  + " for job "
+                  + job
+                  + " in config.yml!");
+          continue;
+        }
+
+        ConfigurationSection targetSection = actionsSection.getConfigurationSection(action);
+
+        if (targetSection == null) {
+          this.logger.info(
+              Color.YELLOW
+                  + "[Jobs] No materials found for job "
+                  + job
+                  + " action "
+                  + action
+                  + " in config.yml!");
+          continue;
+        }
+
+        List<JobXpEntity> jobXpEntities = new ArrayList<>();
+
+        for (String targetKey : targetSection.getKeys(false)) {
+          Enum<?> target = actionType.matchTarget(targetKey);
+          int targetXp = targetSection.getInt(targetKey);
+
+          if (target == null) {
+            this.logger.info(
+                Color.YELLOW
+                    + "[Jobs] Unknown target "
+                    + targetKey
+                    + " for job "
+                    + job
+                    + " action "
+                    + action
+                    + " in config.yml!");
+            continue;
+          }
+
+          jobXpEntities.add(new JobXpEntity(target, targetXp));
+        }
+
+        jobXpMap.put(actionType, jobXpEntities);
+      }
+
+      return jobXpMap;
+    }
+
+    /**
+     * Loads and precomputes an XP curve from the given configuration section. The section holds a
+     * {@code max-level} and a {@code segments} section whose keys are the first level of each
+     * segment and whose values hold the {@code a}, {@code b} and {@code c} coefficients. Missing
+     * values are taken from the fallback curve's defaults.
+     *
+     * @param job the job ID using the curve, or {@code "default"} for the shared curve
+     * @param curveSection the configuration section of the curve, may be null
+     * @param fallback the curve used when the section is missing or invalid
+     * @return the loaded curve, or the fallback
+     */
+    private XpCurve loadXpCurve(String job, ConfigurationSection curveSection, XpCurve fallback) {
+      if (curveSection == null) {
+        return fallback;
+      }
+
+      ConfigurationSection segmentsSection = curveSection.getConfigurationSection("segments");
+      if (segmentsSection == null) {
+        this.logger.info(
+            Color.YELLOW + "[Jobs] No segments found in the XP curve of " + job + "!");
+        return fallback;
+      }
+
+      try {
+        NavigableMap<Integer, double[]> segments = new TreeMap<>();
+        for (String levelKey : segmentsSection.getKeys(false)) {
+          ConfigurationSection segment = segmentsSection.getConfigurationSection(levelKey);
+          if (segment == null) {
+            continue;
+          }
+
+          segments.put(
+              Integer.parseInt(levelKey),
+              new double[] {
+                segment.getDouble("a", 0), segment.getDouble("b", 0), segment.getDouble("c", 0)
+              });
+        }
+
+        return new XpCurve(curveSection.getInt("max-level", fallback.getMaxLevel()), segments);
+      } catch (IllegalArgumentException | ArithmeticException e) {
+        this.logger.info(
+            Color.RED + "[Jobs] Invalid XP curve for " + job + ": " + e.getMessage() + "!");
+        return fallback;
+      }
+    }
+
+    /**
+     * Loads XP limits from the given configuration section: {@code hourly}, {@code daily} and a
+     * {@code diminishing-returns} section holding a {@code threshold} and a {@code factor}. Each
+     * missing value is taken from the fallback limits, so a job only overrides what it sets.
+     *
+     * @param job the job ID using the limits, or {@code "default"} for the shared limits
+     * @param capsSection the configuration section of the limits, may be null
+     * @param fallback the limits providing the missing values
+     * @return the loaded limits, or the fallback if the section is missing or invalid
+     */
+    private XpCaps loadXpCaps(String job, ConfigurationSection capsSection, XpCaps fallback) {
+      if (capsSection == null) {
+        return fallback;
+      }
+
+      try {
+        return new XpCaps(
+            capsSection.getInt("hourly", fallback.getHourly()),
+            capsSection.getInt("daily", fallback.getDaily()),
+            capsSection.getInt(
+                "diminishing-returns.threshold", fallback.getDiminishingThreshold()),
+            capsSection.getDouble(
+                "diminishing-returns.factor", fallback.getDiminishingFactor()));
+      } catch (IllegalArgumentException e) {
+        this.errors.add("Invalid XP caps for " + job + ": " + e.getMessage());
+        return fallback;
+      }
+    }
+
+    /**
+     * Reads the feedback settings of a job, each missing value falling back to the shared {@code
+     * feedback} section, then to the built-in defaults. The job's name and color are written into
+     * the messages once here.
+     *
+     * @param jobEntity the job whose settings are loaded
+     * @param defaults the shared {@code feedback} section, may be null
+     * @param jobSection the job's own {@code feedback} section, may be null
+     * @return the parsed settings
+     */
+    private JobFeedback loadFeedback(
+        JobEntity jobEntity, ConfigurationSection defaults, ConfigurationSection jobSection) {
+      long window = 40;
+      String channel = "actionbar";
+      String xpMessage = DEFAULT_XP_MESSAGE;
+      String levelUpMessage = DEFAULT_LEVEL_UP_MESSAGE;
+      String capMessage = DEFAULT_CAP_MESSAGE;
+      long capCooldown = 600;
+
+      for (ConfigurationSection section : new ConfigurationSection[] {defaults, jobSection}) {
+        if (section != null) {
+          window = section.getLong("window", window);
+          channel = section.getString("channel", channel);
+          xpMessage = section.getString("xp-message", xpMessage);
+          levelUpMessage = section.getString("level-up-message", levelUpMessage);
+          capMessage = section.getString("cap-message", capMessage);
+          capCooldown = section.getLong("cap-cooldown", capCooldown);
+        }
+      }
+
+      JobFeedback.Channel parsedChannel;
+      try {
+        parsedChannel = JobFeedback.Channel.valueOf(channel.toUpperCase());
+      } catch (IllegalArgumentException e) {
+        this.logger.info(
+            Color.YELLOW
+                + "[Jobs] Unknown feedback channel "
+                + channel
+                + " for job "
+                + jobEntity.getId()
+                + ", using actionbar.");
+        parsedChannel = JobFeedback.Channel.ACTIONBAR;
+      }
+
+      Map<String, String> constants =
+          Map.of("job", jobEntity.getName(), "color", jobEntity.getColor().toString());
+      return new JobFeedback(
+          window,
+          parsedChannel,
+          MessageTemplate.parse(xpMessage, constants, "xp"),
+          MessageTemplate.parse(levelUpMessage, constants, "level"),
+          MessageTemplate.parse(capMessage, constants),
+          TimeUnit.SECONDS.toMillis(capCooldown));
+    }
+
+    /**
+     * Compiles the rewards of a job into its reward schedule. Each key of the section selects the
+     * rewarded levels and holds an {@code item} list of {@code name} and {@code quantity} entries.
+     * Supported keys are {@code every_<n>_levels} (optionally bounded by {@code from} and {@code
+     * to} values), {@code level_<n>} and {@code levels_<from>_to_<to>}.
+     *
+     * @param jobId the job ID for which rewards are being loaded
+     * @param rewardsSection the configuration section containing the reward definitions
+     * @param schedule the schedule receiving the rewards
+     */
+    private void loadJobRewards(
+        String jobId, ConfigurationSection rewardsSection, RewardSchedule.Builder schedule) {
+      for (String levelKey : rewardsSection.getKeys(false)) {
+        int fromLevel;
+        int toLevel;
+        int step;
+
+        Matcher every = EVERY_LEVELS.matcher(levelKey);
+        Matcher single = SINGLE_LEVEL.matcher(levelKey);
+        Matcher range = LEVEL_RANGE.matcher(levelKey);
+
+        if (every.matches()) {
+          step = Integer.parseInt(every.group(1));
+          fromLevel = rewardsSection.getInt(levelKey + ".from", step);
+          toLevel = rewardsSection.getInt(levelKey + ".to", Integer.MAX_VALUE);
+        } else if (single.matches()) {
+          fromLevel = Integer.parseInt(single.group(1));
+          toLevel = fromLevel;
+          step = 1;
+        } else if (range.matches()) {
+          fromLevel = Integer.parseInt(range.group(1));
+          toLevel = Integer.parseInt(range.group(2));
+          step = 1;
+        } else {
+          fromLevel = 0;
+          toLevel = 0;
+          step = 0;
+        }
+
+        if (step <= 0) {
+          this.errors.add("Invalid level format in rewards for job " + jobId + ": " + levelKey);
+          continue;
+        }
+
+        for (Map<?, ?> item : rewardsSection.getMapList(levelKey + ".item")) {
+          Material material =
+              Material.matchMaterial(String.valueOf(item.get("name")).toUpperCase());
+          int quantity = item.get("quantity") instanceof Number number ? number.intValue() : 1;
+
+          if (material == null || quantity <= 0) {
+            this.logger.info(
+                Color.YELLOW
+                    + "[Jobs] Invalid reward item "
+                    + item
+                    + " for job "
+                    + jobId
+                    + " in config.yml!");
+            continue;
+          }
+
+          schedule.add(fromLevel, toLevel, step, new JobRewardEntity(material, quantity));
+        }
+      }
+    }
+  }
+}
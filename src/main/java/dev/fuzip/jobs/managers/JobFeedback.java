@@ -0,0 +1,64 @@
+package dev.fuzip.jobs.managers;
+
+import dev.fuzip.jobs.entities.MessageTemplate;
+
+/**
+ * Feedback settings of one job, compiled from config.yml with the rest of the {@link JobCatalog}
+ * so that a reload replaces them together with the job names and colors they embed.
+ */
+final class JobFeedback {
+  private final long window;
+  private final Channel channel;
+  private final MessageTemplate xpMessage;
+  private final MessageTemplate levelUpMessage;
+  private final MessageTemplate capMessage;
+  private final long capCooldown;
+
+  JobFeedback(
+      long window,
+      Channel channel,
+      MessageTemplate xpMessage,
+      MessageTemplate levelUpMessage,
+      MessageTemplate capMessage,
+      long capCooldown) {
+    this.window = window;
+    this.channel = channel;
+    this.xpMessage = xpMessage;
+    this.levelUpMessage = levelUpMessage;
+    this.capMessage = capMessage;
+    this.capCooldown = capCooldown;
+  }
+
+  /** Ticks during which XP gains are added up, 0 to send every gain. */
+  long getWindow() {
+    return this.window;
+  }
+
+  Channel getChannel() {
+    return this.channel;
+  }
+
+  MessageTemplate getXpMessage() {
+    return this.xpMessage;
+  }
+
+  MessageTemplate getLevelUpMessage() {
+    return this.levelUpMessage;
+  }
+
+  MessageTemplate getCapMessage() {
+    return this.capMessage;
+  }
+
+  /** Milliseconds during which a player is not told again about the same cap. */
+  long getCapCooldown() {
+    return this.capCooldown;
+  }
+
+  /** Where XP summaries are shown. */
+  enum Channel {
+    ACTIONBAR,
+    CHAT,
+    NONE
+  }
+}
@@ -1,255 +1,213 @@
 package dev.fuzip.jobs.managers;
 
 import dev.fuzip.jobs.Jobs;
+import dev.fuzip.jobs.entities.ActionType;
 import dev.fuzip.jobs.entities.JobEntity;
-import dev.fuzip.jobs.entities.JobRewardEntity;
-import dev.fuzip.jobs.entities.JobXpEntity;
+import dev.fuzip.jobs.entities.JobXpGrant;
 import dev.fuzip.jobs.entities.PlayerEntity;
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Color;
 import org.bukkit.Material;
-import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 
 /**
  * Manages jobs, including their configurations, actions, rewards, and associated processing logic.
  * This class facilitates interaction between the plugin, the job definitions, and the players
  * performing job-related actions.
+ *
+ * <p>The job definitions live in a compiled {@link JobCatalog}. {@link #reload()} compiles a new
+ * catalog from config.yml off the main thread and publishes it with a single reference swap, so
+ * an event reads either the old definitions or the new ones, never a mix of both.
  */
 public class JobManager {
   private final Jobs plugin;
-  private final Map<String, JobEntity> jobs;
+  private final AtomicReference<JobCatalog> catalog = new AtomicReference<>(JobCatalog.EMPTY);
+  private final Map<String, JobEntity> jobsView = new JobsView();
 
   public JobManager() {
     this.plugin = (Jobs) Bukkit.getPluginManager().getPlugin("Jobs");
-    this.jobs = new HashMap<>();
 
     if (this.plugin == null) {
       throw new RuntimeException("Plugin Jobs not found!");
     }
 
-    this.loadJobsConfig();
-    this.plugin.getLogger().info("[Jobs] Loaded " + jobs.size() + " jobs.");
+    try {
+      this.catalog.set(
+          JobCatalog.compile(this.plugin.getConfig(), this.plugin.getLogger(), null));
+    } catch (InvalidConfigurationException e) {
+      this.plugin
+          .getLogger()
+          .info(Color.RED + "[Jobs] " + e.getMessage() + " in config.yml! Disabling plugin...");
+      Bukkit.getPluginManager().disablePlugin(plugin);
+      return;
+    }
+
+    this.plugin.getLogger().info("[Jobs] Loaded " + this.jobsView.size() + " jobs.");
   }
 
   /**
    * Retrieves the mapping of job identifiers to their corresponding {@link JobEntity} objects.
    *
    * @return a map where the key is the job ID (as a {@code String}) and the value is the {@link
-   *     JobEntity} representing the details of the job, including actions and rewards.
+   *     JobEntity} representing the details of the job, including actions and rewards. The map
+   *     is a read-only view of the current definitions: it keeps the same jobs, in the same
+   *     order, but returns the reloaded entities after a {@link #reload()}.
    */
   public Map<String, JobEntity> getJobs() {
-    return jobs;
+    return jobsView;
   }
 
   /**
-   * Retrieves the XP value associated with a specific action for a specified job and material. If
-   * the job is not found or no matching action and material combination exists, returns 0.
+   * Retrieves every job rewarding the given action on the given target, with the XP each one gives.
+   * This is a single array read in the action index compiled when the configuration is loaded.
    *
-   * @param job the name of the job for which the XP is being retrieved
-   * @param action the action performed within the specified job
-   * @param material the material associated with the action
-   * @return the XP associated with the given job, action, and material combination, or 0 if no
-   *     matching entry is found
+   * @param action the action performed by the player
+   * @param target the material or entity type associated with the action, matching the action's
+   *     target type
+   * @return the XP grants for this action and target, or an empty array if no job rewards it. The
+   *     returned array is shared and must not be modified.
    */
-  public int getXpForAction(String job, String action, Material material) {
-    JobEntity jobEntity = this.jobs.get(job);
-
-    if (jobEntity == null) {
-      return 0;
-    }
-
-    for (Map.Entry<String, List<JobXpEntity>> entry : jobEntity.getActionsXpMap().entrySet()) {
-      if (!Objects.equals(entry.getKey(), action)) {
-        continue;
-      }
-
-      for (JobXpEntity jobXpEntity : entry.getValue()) {
-        if (jobXpEntity.getMaterial() == material) {
-          return jobXpEntity.getXp();
-        }
-      }
-    }
-
-    return 0;
+  public JobXpGrant[] getXpGrants(ActionType action, Enum<?> target) {
+    return this.catalog.get().getXpGrants(action, target);
   }
 
   /**
-   * Gives job rewards to a player based on their current job level. Checks reward milestones (e.g.,
-   * every 10 levels, every 50 levels) and provides the corresponding rewards if the player's level
-   * matches these milestones.
+   * Returns the actions rewarded by at least one job, so that only their event adapters are
+   * registered.
    *
-   * @param jobEntity the job entity for which to check rewards
-   * @param playerEntity the player entity containing the job level information
+   * @return the rewarded action types
    */
-  public void giveRewards(JobEntity jobEntity, PlayerEntity playerEntity) {
-    int currentLevel = playerEntity.getJobLevel(jobEntity.getId());
-    List<JobRewardEntity> playerRewards = new ArrayList<>();
-
-    for (Map.Entry<Integer, JobRewardEntity> entry : jobEntity.getRewardsMap().entrySet()) {
-      int rewardLevel = entry.getKey();
-      if (currentLevel % rewardLevel == 0) {
-        playerRewards.add(entry.getValue());
-      }
-    }
-
-    for (JobRewardEntity reward : playerRewards) {
-      ItemStack rewardItem = new ItemStack(reward.getMaterial(), reward.getQuantity());
-      playerEntity.getPlayer().getInventory().addItem(rewardItem);
-      playerEntity
-          .getPlayer()
-          .sendMessage(
-              jobEntity.getColor()
-                  + "["
-                  + jobEntity.getName()
-                  + "]"
-                  + ChatColor.WHITE
-                  + " Vous avez reçu x"
-                  + rewardItem.getAmount()
-                  + " "
-                  + rewardItem.getType().name()
-                  + " !");
-    }
+  public Set<ActionType> getUsedActions() {
+    return this.catalog.get().getUsedActions();
   }
 
   /**
-   * Loads the job configuration from the plugin's config.yml file into memory.
-   *
-   * <p>This method reads job definitions under the "jobs" section in the configuration file and
-   * initializes `JobEntity` objects for each job, mapping their actions and rewards accordingly.
+   * Returns the feedback settings of a job in the current catalog.
    *
-   * <p>Actions and rewards for each job are loaded using the helper methods `loadJobActions` and
-   * `loadJobRewards`. If no job configuration is found, the method disables the plugin and logs an
-   * appropriate message.
+   * @param job the ordinal of the job
+   * @return the settings, replaced along with the job definitions by a {@link #reload()}
+   */
+  JobFeedback getFeedback(int job) {
+    return this.catalog.get().getFeedback(job);
+  }
+
+  /**
+   * Reloads the job definitions from config.yml. The file is read and compiled on an asynchronous
+   * task; the new definitions then replace the current ones at once. If the file is invalid, the
+   * current definitions are kept.
    *
-   * <p>Key steps performed by this method: - Retrieve the "jobs" configuration section. - For each
-   * job ID, create a `JobEntity` object with its ID and name. - Populate the `actionsXpMap` of the
-   * `JobEntity` using `loadJobActions`. - Populate the `rewardsMap` of the `JobEntity` using
-   * `loadJobRewards`. - Store the initialized `JobEntity` in the internal `jobs` map.
+   * <p>Jobs cannot be added or removed by a reload, since the progress of every player is indexed
+   * by job. Their names, colors, XP, curves, rewards and feedback settings can change.
    *
-   * <p>This method ensures that jobs are properly registered in memory for further use and
-   * validates the presence of required configuration sections.
+   * @return a future completed with the number of reloaded jobs, or completed exceptionally with
+   *     an {@link InvalidConfigurationException} if the file is invalid
    */
-  private void loadJobsConfig() {
-    ConfigurationSection jobsSection = this.plugin.getConfig().getConfigurationSection("jobs");
-
-    if (jobsSection == null) {
-      this.plugin
-          .getLogger()
-          .info(Color.RED + "[Jobs] No jobs found in config.yml! Disabling plugin...");
-      Bukkit.getPluginManager().disablePlugin(plugin);
-      return;
-    }
-
-    for (String jobId : jobsSection.getKeys(false)) {
-      JobEntity jobEntity =
-          new JobEntity(
-              jobId,
-              jobsSection.getString(jobId + ".name"),
-              jobsSection.getString(jobId + ".color"));
-
-      ConfigurationSection actionsSection = jobsSection.getConfigurationSection(jobId + ".xp");
-
-      if (actionsSection != null) {
-        jobEntity.getActionsXpMap().putAll(this.loadJobActions(jobId, actionsSection));
-      }
-
-      ConfigurationSection rewardsSection = jobsSection.getConfigurationSection(jobId + ".rewards");
-      if (rewardsSection != null) {
-        jobEntity.getRewardsMap().putAll(this.loadJobRewards(jobId, rewardsSection));
-      }
-
-      this.jobs.put(jobId, jobEntity);
-    }
+  public CompletableFuture<Integer> reload() {
+    File file = new File(this.plugin.getDataFolder(), "config.yml");
+
+    return CompletableFuture.supplyAsync(
+        () -> {
+          try {
+            YamlConfiguration config = new YamlConfiguration();
+            config.load(file);
+
+            JobCatalog previous = this.catalog.get();
+            JobCatalog compiled = JobCatalog.compile(config, this.plugin.getLogger(), previous);
+            if (!this.catalog.compareAndSet(previous, compiled)) {
+              throw new InvalidConfigurationException("Another reload is in progress");
+            }
+
+            this.plugin.getLogger().info("[Jobs] Reloaded " + compiled.getJobs().size() + " jobs.");
+            return compiled.getJobs().size();
+          } catch (IOException | InvalidConfigurationException e) {
+            throw new CompletionException(e);
+          }
+        },
+        task -> Bukkit.getScheduler().runTaskAsynchronously(this.plugin, task));
   }
 
   /**
-   * Loads job action XP mappings from the given configuration section. This method processes the
-   * actions and their associated XP values for a specific job based on the data provided in the
-   * configuration section.
+   * Gives a player the job rewards of a range of levels, typically the levels gained by one XP
+   * grant. Items are merged by material across all the levels and inserted in the inventory in a
+   * single call; whatever does not fit is dropped at the player's feet. The player receives one
+   * message listing every item.
    *
-   * @param job the job ID for which actions are being loaded
-   * @param actionsSection the configuration section containing the action definitions and XP values
-   * @return a map where each key is an action name, and the value is a JobXpEntity representing the
-   *     material and associated XP
+   * @param jobEntity the job entity for which to give rewards
+   * @param playerEntity the player entity receiving the rewards
+   * @param fromLevel the first level reached
+   * @param toLevel the last level reached
    */
-  private Map<String, List<JobXpEntity>> loadJobActions(
-      String job, ConfigurationSection actionsSection) {
-    Map<String, List<JobXpEntity>> jobXpMap = new HashMap<>();
-
-    for (String action : actionsSection.getKeys(false)) {
-      ConfigurationSection materialSection = actionsSection.getConfigurationSection(action);
-
-      if (materialSection == null) {
-        this.plugin
-            .getLogger()
-            .info(
-                Color.YELLOW
-                    + "[Jobs] No materials found for job "
-                    + job
-                    + " action "
-                    + action
-                    + " in config.yml!");
-        continue;
-      }
-
-      List<JobXpEntity> jobXpEntities = new ArrayList<>();
+  public void giveRewards(
+      JobEntity jobEntity, PlayerEntity playerEntity, int fromLevel, int toLevel) {
+    Map<Material, Integer> quantities = new EnumMap<>(Material.class);
+    jobEntity.getRewardSchedule().collect(fromLevel, toLevel, quantities);
 
-      for (String materialKey : materialSection.getKeys(false)) {
-        Material material = Material.matchMaterial(materialKey.toUpperCase());
-        int materialXp = materialSection.getInt(materialKey);
+    if (quantities.isEmpty()) {
+      return;
+    }
 
-        jobXpEntities.add(new JobXpEntity(material, materialXp));
+    Player player = playerEntity.getPlayer();
+    List<ItemStack> items = new ArrayList<>();
+    StringBuilder message =
+        new StringBuilder()
+            .append(jobEntity.getColor())
+            .append("[")
+            .append(jobEntity.getName())
+            .append("]")
+            .append(ChatColor.WHITE)
+            .append(" Vous avez reçu");
+
+    quantities.forEach(
+        (material, quantity) -> {
+          for (int left = quantity; left > 0; left -= material.getMaxStackSize()) {
+            items.add(new ItemStack(material, Math.min(left, material.getMaxStackSize())));
+          }
+          message.append(" x").append(quantity).append(" ").append(material.name()).append(",");
+        });
+    message.setLength(message.length() - 1);
+    player.sendMessage(message.append(" !").toString());
+
+    Map<Integer, ItemStack> overflow =
+        player.getInventory().addItem(items.toArray(new ItemStack[0]));
+    if (!overflow.isEmpty()) {
+      for (ItemStack item : overflow.values()) {
+        player.getWorld().dropItemNaturally(player.getLocation(), item);
       }
-
-      jobXpMap.put(action, jobXpEntities);
+      player.sendMessage(
+          ChatColor.YELLOW + "Votre inventaire est plein, le reste a été déposé à vos pieds.");
     }
-
-    return jobXpMap;
   }
 
-  /**
-   * Loads job reward mappings from the given configuration section. This method processes the
-   * reward definitions for a specific job based on the data provided under the configuration
-   * section and returns a map of rewards corresponding to specific levels.
-   *
-   * @param job the job ID for which rewards are being loaded
-   * @param rewardsSection the configuration section containing the reward definitions, where keys
-   *     represent levels and values represent reward data
-   * @return a map where each key is a job level (as an Integer), and the value is a JobRewardEntity
-   *     containing the material and quantity for the reward
-   */
-  private Map<Integer, JobRewardEntity> loadJobRewards(
-      String job, ConfigurationSection rewardsSection) {
-    Map<Integer, JobRewardEntity> rewardsMap = new HashMap<>();
-
-    for (String levelKey : rewardsSection.getKeys(false)) {
-      int level;
-      try {
-        level = Integer.parseInt(levelKey.replace("every_", "").replace("_levels", ""));
-      } catch (NumberFormatException e) {
-        this.plugin
-            .getLogger()
-            .info(
-                Color.RED
-                    + "[Jobs] Invalid level format in rewards for job "
-                    + job
-                    + ": "
-                    + levelKey);
-        Bukkit.getPluginManager().disablePlugin(this.plugin);
-        continue;
-      }
+  /** Read-only view of the jobs of the current catalog. */
+  private final class JobsView extends AbstractMap<String, JobEntity> {
+    @Override
+    public JobEntity get(Object key) {
+      return catalog.get().getJobs().get(key);
+    }
 
-      for (Map<?, ?> item : rewardsSection.getMapList(levelKey + ".item")) {
-        Material material = Material.matchMaterial(((String) item.get("name")).toUpperCase());
-        int quantity = (int) item.get("quantity");
+    @Override
+    public boolean containsKey(Object key) {
+      return catalog.get().getJobs().containsKey(key);
+    }
 
-        rewardsMap.put(level, new JobRewardEntity(material, quantity));
-      }
+    @Override
+    public int size() {
+      return catalog.get().getJobs().size();
     }
 
-    return rewardsMap;
+    @Override
+    public Set<Entry<String, JobEntity>> entrySet() {
+      return catalog.get().getJobs().entrySet();
+    }
   }
 }
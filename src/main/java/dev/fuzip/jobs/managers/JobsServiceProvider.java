@@ -0,0 +1,127 @@
+package dev.fuzip.jobs.managers;
+
+import dev.fuzip.jobs.api.JobProgress;
+import dev.fuzip.jobs.api.JobsService;
+import dev.fuzip.jobs.entities.JobEntity;
+import dev.fuzip.jobs.entities.PlayerEntity;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Implementation of the {@link JobsService} registered for other plugins. Reads go through the
+ * session cache of the {@link PlayerDataManager} and grants through the XP queue of the {@link
+ * LevelManager}, so the API shares the code paths of the plugin itself.
+ */
+public class JobsServiceProvider implements JobsService {
+
+  private final JobManager jobManager;
+  private final PlayerDataManager playerDataManager;
+  private final LevelManager levelManager;
+  private final LeaderboardManager leaderboardManager;
+
+  public JobsServiceProvider(
+      JobManager jobManager,
+      PlayerDataManager playerDataManager,
+      LevelManager levelManager,
+      LeaderboardManager leaderboardManager) {
+    this.jobManager = jobManager;
+    this.playerDataManager = playerDataManager;
+    this.levelManager = levelManager;
+    this.leaderboardManager = leaderboardManager;
+  }
+
+  @Override
+  public Set<String> getJobIds() {
+    return Collections.unmodifiableSet(this.jobManager.getJobs().keySet());
+  }
+
+  @Override
+  public JobProgress getProgress(UUID uuid, String jobId) {
+    JobEntity jobEntity = this.getJob(jobId);
+    PlayerEntity playerEntity = this.playerDataManager.getLoadedPlayer(uuid);
+    return playerEntity == null ? null : toProgress(jobEntity, playerEntity.copy());
+  }
+
+  @Override
+  public Map<String, JobProgress> getProgress(UUID uuid) {
+    PlayerEntity playerEntity = this.playerDataManager.getLoadedPlayer(uuid);
+    return playerEntity == null ? Map.of() : this.toProgress(playerEntity);
+  }
+
+  @Override
+  public CompletableFuture<Map<String, JobProgress>> loadProgress(UUID uuid) {
+    return this.playerDataManager.loadOfflinePlayer(uuid).thenApply(this::toProgress);
+  }
+
+  @Override
+  public int getRank(UUID uuid, String jobId) {
+    return this.leaderboardManager.getRank(this.getJob(jobId), uuid);
+  }
+
+  @Override
+  public boolean giveXp(UUID uuid, String jobId, int xp) {
+    return this.giveXp(Map.of(uuid, xp), jobId) == 1;
+  }
+
+  @Override
+  public int giveXp(Map<UUID, Integer> xpByPlayer, String jobId) {
+    JobEntity jobEntity = this.getJob(jobId);
+    for (int xp : xpByPlayer.values()) {
+      if (xp <= 0) {
+        throw new IllegalArgumentException("XP must be positive, got " + xp);
+      }
+    }
+
+    int granted = 0;
+    for (Map.Entry<UUID, Integer> entry : xpByPlayer.entrySet()) {
+      // Players preloaded at login only get their Bukkit player when they join
+      PlayerEntity playerEntity = this.playerDataManager.getLoadedPlayer(entry.getKey());
+      if (playerEntity != null && playerEntity.getPlayer() != null) {
+        this.levelManager.queueXp(jobEntity, entry.getValue(), playerEntity);
+        granted++;
+      }
+    }
+    return granted;
+  }
+
+  private JobEntity getJob(String jobId) {
+    JobEntity jobEntity = this.jobManager.getJobs().get(jobId);
+    if (jobEntity == null) {
+      throw new IllegalArgumentException("Unknown job " + jobId);
+    }
+    return jobEntity;
+  }
+
+  /**
+   * Takes a snapshot of a player's progress in every job.
+   *
+   * @param playerEntity the player, possibly updated by another thread
+   * @return the progress by job identifier, in configuration order
+   */
+  private Map<String, JobProgress> toProgress(PlayerEntity playerEntity) {
+    PlayerEntity snapshot = playerEntity.copy();
+    Map<String, JobProgress> progress = new LinkedHashMap<>();
+
+    for (JobEntity jobEntity : this.jobManager.getJobs().values()) {
+      progress.put(jobEntity.getId(), toProgress(jobEntity, snapshot));
+    }
+    return Collections.unmodifiableMap(progress);
+  }
+
+  private static JobProgress toProgress(JobEntity jobEntity, PlayerEntity snapshot) {
+    int job = jobEntity.getOrdinal();
+    int level = snapshot.getJobLevel(job);
+
+    return new JobProgress(
+        jobEntity.getId(),
+        jobEntity.getName(),
+        level,
+        snapshot.getJobXp(job),
+        snapshot.getJobTotalXp(job),
+        jobEntity.getXpCurve().getXpToNextLevel(level));
+  }
+}
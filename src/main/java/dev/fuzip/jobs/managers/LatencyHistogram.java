@@ -0,0 +1,141 @@
+package dev.fuzip.jobs.managers;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear latency histogram in the style of HdrHistogram. Each power of two of nanoseconds is
+ * split into 16 linear buckets, so every recorded value is known within about 6%, from a few
+ * nanoseconds up to about 36 minutes. Recording only increments counters in preallocated arrays: it
+ * neither allocates nor locks, and can be done from any thread.
+ */
+final class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 4;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int MAX_EXPONENT = 40;
+  private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+  private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong totalNanos = new AtomicLong();
+  private final AtomicLong maxNanos = new AtomicLong();
+
+  /**
+   * Records one measured duration.
+   *
+   * @param nanos the duration in nanoseconds, clamped to the range of the histogram
+   */
+  void record(long nanos) {
+    long value = Math.min(Math.max(0, nanos), MAX_VALUE);
+
+    this.counts.incrementAndGet(index(value));
+    this.count.incrementAndGet();
+    this.totalNanos.addAndGet(value);
+    this.maxNanos.accumulateAndGet(value, Math::max);
+  }
+
+  /**
+   * Copies the current counts, so that percentiles are computed on consistent data while
+   * recording goes on.
+   *
+   * @return the summary of every duration recorded so far
+   */
+  Snapshot snapshot() {
+    long[] buckets = new long[BUCKETS];
+    long total = 0;
+
+    for (int i = 0; i < BUCKETS; i++) {
+      buckets[i] = this.counts.get(i);
+      total += buckets[i];
+    }
+
+    return new Snapshot(buckets, total, this.totalNanos.get(), this.maxNanos.get());
+  }
+
+  /**
+   * Returns the bucket holding a value: values below 16 have their own bucket, larger values share
+   * a bucket with the values having the same 5 most significant bits.
+   *
+   * @param value the value, between 0 and {@link #MAX_VALUE}
+   * @return the bucket index
+   */
+  private static int index(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  /**
+   * Returns the highest value stored in a bucket, reported for percentiles so that they are never
+   * underestimated.
+   *
+   * @param index the bucket index
+   * @return the upper bound of the bucket, in nanoseconds
+   */
+  private static long highestValue(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+
+    int shift = index / SUB_BUCKETS - 1;
+    long lowest = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+    return lowest + (1L << shift) - 1;
+  }
+
+  /** Immutable summary of a {@link LatencyHistogram} at a point in time. */
+  static final class Snapshot {
+    private final long[] buckets;
+    private final long count;
+    private final long totalNanos;
+    private final long maxNanos;
+
+    private Snapshot(long[] buckets, long count, long totalNanos, long maxNanos) {
+      this.buckets = buckets;
+      this.count = count;
+      this.totalNanos = totalNanos;
+      this.maxNanos = maxNanos;
+    }
+
+    long getCount() {
+      return this.count;
+    }
+
+    long getMeanNanos() {
+      return this.count == 0 ? 0 : this.totalNanos / this.count;
+    }
+
+    long getMaxNanos() {
+      return this.maxNanos;
+    }
+
+    /**
+     * Returns the duration below which the given share of the recorded durations fall.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the duration in nanoseconds, or 0 if nothing was recorded
+     */
+    long getPercentileNanos(double percentile) {
+      if (this.count == 0) {
+        return 0;
+      }
+
+      long rank = Math.max(1, (long) Math.ceil(this.count * percentile / 100));
+      long seen = 0;
+
+      for (int i = 0; i < this.buckets.length; i++) {
+        seen += this.buckets[i];
+        if (seen >= rank) {
+          return Math.min(highestValue(i), this.maxNanos);
+        }
+      }
+
+      return this.maxNanos;
+    }
+  }
+}
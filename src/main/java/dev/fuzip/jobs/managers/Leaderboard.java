@@ -0,0 +1,222 @@
+package dev.fuzip.jobs.managers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Ranking of the players of one job by total XP, kept as an indexed skip list. Every forward link
+ * records how many players it skips, so updating a score, finding a player's rank and reading the
+ * players at a given rank all take O(log n). Players are ordered by descending total XP, then by
+ * UUID so that ties keep a stable order.
+ *
+ * <p>Not thread-safe: an instance must only be used by one thread at a time.
+ */
+final class Leaderboard {
+
+  private static final int MAX_HEIGHT = 32;
+
+  private final Entry head = new Entry(null, Long.MAX_VALUE, MAX_HEIGHT);
+  private final Map<UUID, Entry> entries = new HashMap<>();
+  private final Entry[] predecessors = new Entry[MAX_HEIGHT];
+  private final int[] predecessorRanks = new int[MAX_HEIGHT];
+  private int height = 1;
+
+  int size() {
+    return this.entries.size();
+  }
+
+  /**
+   * Sets the total XP of a player, moving them to their new rank. Players without XP are not
+   * ranked.
+   *
+   * @param uuid the UUID of the player
+   * @param score the total XP of the player in the job
+   */
+  void update(UUID uuid, long score) {
+    Entry entry = this.entries.get(uuid);
+    if (entry != null) {
+      if (entry.score == score) {
+        return;
+      }
+      this.unlink(entry);
+    }
+
+    if (score > 0) {
+      this.insert(uuid, score);
+    }
+  }
+
+  /**
+   * Returns the rank of a player.
+   *
+   * @param uuid the UUID of the player
+   * @return the rank of the player, starting at 1, or 0 if the player is not ranked
+   */
+  int rank(UUID uuid) {
+    Entry entry = this.entries.get(uuid);
+    if (entry == null) {
+      return 0;
+    }
+
+    Entry x = this.head;
+    int rank = 0;
+
+    for (int i = this.height - 1; i >= 0; i--) {
+      while (x.next[i] != null && !entry.precedes(x.next[i])) {
+        rank += x.span[i];
+        x = x.next[i];
+      }
+      if (x == entry) {
+        return rank;
+      }
+    }
+
+    return rank;
+  }
+
+  /**
+   * Returns the players ranked from {@code fromRank}, in order.
+   *
+   * @param fromRank the first rank, starting at 1
+   * @param count the maximum number of players
+   * @return the players, empty if {@code fromRank} is beyond the last rank
+   */
+  List<Entry> range(int fromRank, int count) {
+    List<Entry> range = new ArrayList<>(count);
+    if (fromRank < 1 || fromRank > this.size()) {
+      return range;
+    }
+
+    Entry x = this.head;
+    int traversed = 0;
+
+    for (int i = this.height - 1; i >= 0; i--) {
+      while (x.next[i] != null && traversed + x.span[i] <= fromRank) {
+        traversed += x.span[i];
+        x = x.next[i];
+      }
+    }
+
+    while (x != null && range.size() < count) {
+      range.add(x);
+      x = x.next[0];
+    }
+
+    return range;
+  }
+
+  private void insert(UUID uuid, long score) {
+    Entry entry = new Entry(uuid, score, randomHeight());
+    this.findPredecessors(entry);
+
+    if (entry.next.length > this.height) {
+      for (int i = this.height; i < entry.next.length; i++) {
+        this.predecessors[i] = this.head;
+        this.predecessorRanks[i] = 0;
+        this.head.span[i] = this.size();
+      }
+      this.height = entry.next.length;
+    }
+
+    int rank = this.predecessorRanks[0];
+    for (int i = 0; i < entry.next.length; i++) {
+      Entry predecessor = this.predecessors[i];
+      entry.next[i] = predecessor.next[i];
+      predecessor.next[i] = entry;
+      entry.span[i] = predecessor.span[i] - (rank - this.predecessorRanks[i]);
+      predecessor.span[i] = rank - this.predecessorRanks[i] + 1;
+    }
+    for (int i = entry.next.length; i < this.height; i++) {
+      this.predecessors[i].span[i]++;
+    }
+
+    this.entries.put(uuid, entry);
+  }
+
+  private void unlink(Entry entry) {
+    this.findPredecessors(entry);
+
+    for (int i = 0; i < this.height; i++) {
+      Entry predecessor = this.predecessors[i];
+      if (predecessor.next[i] == entry) {
+        predecessor.span[i] += entry.span[i] - 1;
+        predecessor.next[i] = entry.next[i];
+      } else {
+        predecessor.span[i]--;
+      }
+    }
+    while (this.height > 1 && this.head.next[this.height - 1] == null) {
+      this.height--;
+    }
+
+    this.entries.remove(entry.uuid);
+  }
+
+  /**
+   * Finds, at every level, the last entry ranked before the given one, and the rank of that entry.
+   *
+   * @param entry the entry being inserted or removed
+   */
+  private void findPredecessors(Entry entry) {
+    Entry x = this.head;
+
+    for (int i = this.height - 1; i >= 0; i--) {
+      this.predecessorRanks[i] = i == this.height - 1 ? 0 : this.predecessorRanks[i + 1];
+      while (x.next[i] != null && x.next[i].precedes(entry)) {
+        this.predecessorRanks[i] += x.span[i];
+        x = x.next[i];
+      }
+      this.predecessors[i] = x;
+    }
+  }
+
+  private static int randomHeight() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int height = 1;
+
+    while (height < MAX_HEIGHT && (random.nextInt() & 3) == 0) {
+      height++;
+    }
+    return height;
+  }
+
+  /** A ranked player and their total XP. */
+  static final class Entry {
+    private final UUID uuid;
+    private final long score;
+    private final Entry[] next;
+    private final int[] span;
+
+    private Entry(UUID uuid, long score, int height) {
+      this.uuid = uuid;
+      this.score = score;
+      this.next = new Entry[height];
+      this.span = new int[height];
+    }
+
+    UUID getUuid() {
+      return this.uuid;
+    }
+
+    long getScore() {
+      return this.score;
+    }
+
+    /**
+     * Tells whether this entry is ranked before another one.
+     *
+     * @param other the other entry
+     * @return true if this entry has more XP, or as much XP and a smaller UUID
+     */
+    private boolean precedes(Entry other) {
+      if (this.score != other.score) {
+        return this.score > other.score;
+      }
+      return this.uuid.compareTo(other.uuid) < 0;
+    }
+  }
+}
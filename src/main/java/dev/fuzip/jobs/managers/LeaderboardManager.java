@@ -0,0 +1,173 @@
+package dev.fuzip.jobs.managers;
+
+import dev.fuzip.jobs.Jobs;
+import dev.fuzip.jobs.entities.JobEntity;
+import dev.fuzip.jobs.entities.PlayerEntity;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.bukkit.Bukkit;
+
+/**
+ * Keeps one {@link Leaderboard} per job, ranking players by total XP. The leaderboards are built
+ * once at startup by streaming the store on the I/O thread, then updated in O(log n) every time a
+ * player gains XP, so {@code /jobs top} never scans the stored players.
+ *
+ * <p>Player names come from the persisted {@link dev.fuzip.jobs.storage.PlayerNameIndex}. The name
+ * of a player missing from the index is resolved once, the first time it is displayed, then cached.
+ * All methods must be called from the main server thread.
+ */
+public class LeaderboardManager {
+
+  private final Jobs plugin;
+  private final Map<String, JobEntity> jobs;
+  private final PlayerDataManager playerDataManager;
+  private final Map<UUID, String> names = new HashMap<>();
+  private Leaderboard[] leaderboards;
+
+  public LeaderboardManager(
+      Jobs plugin, Map<String, JobEntity> jobs, PlayerDataManager playerDataManager) {
+    this.plugin = plugin;
+    this.jobs = jobs;
+    this.playerDataManager = playerDataManager;
+    this.leaderboards = createLeaderboards(jobs.size());
+  }
+
+  /**
+   * Builds the leaderboards from every stored player, on the I/O thread. Once built, they replace
+   * the current ones on the main thread and the players in memory are ranked again, so that the
+   * XP gained during the build is not lost.
+   */
+  public void load() {
+    Leaderboard[] loaded = createLeaderboards(this.jobs.size());
+
+    this.playerDataManager
+        .forEachStored(playerEntity -> rank(loaded, playerEntity))
+        .whenComplete(
+            (ignored, error) -> {
+              if (error != null) {
+                this.plugin.getLogger().severe("[Jobs] Unable to build leaderboards: " + error);
+                return;
+              }
+
+              Bukkit.getScheduler().runTask(this.plugin, () -> this.replace(loaded));
+            });
+  }
+
+  /**
+   * Moves a player to their new rank in a job, after their total XP changed.
+   *
+   * @param jobEntity the job
+   * @param playerEntity the player
+   */
+  public void update(JobEntity jobEntity, PlayerEntity playerEntity) {
+    int job = jobEntity.getOrdinal();
+    this.leaderboards[job].update(playerEntity.getUuid(), playerEntity.getJobTotalXp(job));
+  }
+
+  /**
+   * Returns the rank of a player in a job.
+   *
+   * @param jobEntity the job
+   * @param uuid the UUID of the player
+   * @return the rank, starting at 1, or 0 if the player has no XP in this job
+   */
+  public int getRank(JobEntity jobEntity, UUID uuid) {
+    return this.leaderboards[jobEntity.getOrdinal()].rank(uuid);
+  }
+
+  /**
+   * Returns the number of players ranked in a job.
+   *
+   * @param jobEntity the job
+   * @return the number of players with XP in this job
+   */
+  public int getSize(JobEntity jobEntity) {
+    return this.leaderboards[jobEntity.getOrdinal()].size();
+  }
+
+  /**
+   * Returns the players ranked from {@code fromRank} in a job.
+   *
+   * @param jobEntity the job
+   * @param fromRank the first rank, starting at 1
+   * @param count the maximum number of players
+   * @return the players, in order
+   */
+  public List<RankedPlayer> getTop(JobEntity jobEntity, int fromRank, int count) {
+    Leaderboard leaderboard = this.leaderboards[jobEntity.getOrdinal()];
+    List<RankedPlayer> top = new ArrayList<>(count);
+    int rank = fromRank;
+
+    for (Leaderboard.Entry entry : leaderboard.range(fromRank, count)) {
+      top.add(new RankedPlayer(rank++, this.getName(entry.getUuid()), entry.getScore()));
+    }
+
+    return top;
+  }
+
+  private void replace(Leaderboard[] loaded) {
+    this.leaderboards = loaded;
+
+    for (PlayerEntity playerEntity : this.playerDataManager.getLoadedPlayers()) {
+      rank(loaded, playerEntity);
+    }
+
+    this.plugin.getLogger().info("[Jobs] Leaderboards built for " + this.jobs.size() + " jobs.");
+  }
+
+  private String getName(UUID uuid) {
+    String indexedName = this.playerDataManager.getNameIndex().getName(uuid);
+    if (indexedName != null) {
+      return indexedName;
+    }
+
+    return this.names.computeIfAbsent(
+        uuid,
+        k -> {
+          String name = Bukkit.getOfflinePlayer(k).getName();
+          return name != null ? name : k.toString().substring(0, 8);
+        });
+  }
+
+  private static void rank(Leaderboard[] leaderboards, PlayerEntity playerEntity) {
+    for (int job = 0; job < leaderboards.length; job++) {
+      leaderboards[job].update(playerEntity.getUuid(), playerEntity.getJobTotalXp(job));
+    }
+  }
+
+  private static Leaderboard[] createLeaderboards(int jobCount) {
+    Leaderboard[] leaderboards = new Leaderboard[jobCount];
+    for (int job = 0; job < jobCount; job++) {
+      leaderboards[job] = new Leaderboard();
+    }
+    return leaderboards;
+  }
+
+  /** A ranked player, as displayed by {@code /jobs top}. */
+  public static final class RankedPlayer {
+    private final int rank;
+    private final String name;
+    private final long totalXp;
+
+    private RankedPlayer(int rank, String name, long totalXp) {
+      this.rank = rank;
+      this.name = name;
+      this.totalXp = totalXp;
+    }
+
+    public int getRank() {
+      return this.rank;
+    }
+
+    public String getName() {
+      return this.name;
+    }
+
+    public long getTotalXp() {
+      return this.totalXp;
+    }
+  }
+}
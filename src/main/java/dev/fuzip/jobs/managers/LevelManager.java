@@ -1,116 +1,332 @@
 package dev.fuzip.jobs.managers;
 
+import dev.fuzip.jobs.Jobs;
+import dev.fuzip.jobs.api.JobLevelUpEvent;
+import dev.fuzip.jobs.api.JobXpGainEvent;
 import dev.fuzip.jobs.entities.JobEntity;
 import dev.fuzip.jobs.entities.PlayerEntity;
-import org.bukkit.ChatColor;
+import dev.fuzip.jobs.entities.XpCaps;
+import dev.fuzip.jobs.entities.XpCurve;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
 
 /**
- * The LevelManager class provides utility methods for calculating experience points (XP) related to
- * player levels. This is primarily used to determine the total XP required to reach a specified
- * level based on predefined formulas.
+ * The LevelManager class applies XP gains to players' jobs. Levels are resolved against the
+ * precomputed {@link XpCurve} of each job, so a gain of any size is applied in a single binary
+ * search instead of one level at a time.
+ *
+ * <p>Gains from game actions are queued with {@link #queueXp} and added up per player and per job
+ * until the end of the tick. Level-ups, rewards, feedback and saving then run once per player, even
+ * when an explosion or another plugin breaks hundreds of blocks in the same tick.
+ *
+ * <p>{@link #queueXp} can be called from any thread: gains are added up inside the concurrent map
+ * of pending XP, which only locks the bucket of the player. Gains are always applied on the main
+ * server thread, where rewards, messages and leaderboards are handled.
+ *
+ * <p>Each gain is multiplied by the player's boosts, then limited by the {@link XpCaps} of the job
+ * against the XP the player earned in the job over the last hour and day.
+ *
+ * <p>A {@link JobXpGainEvent} is called before each gain and a {@link JobLevelUpEvent} before each
+ * level-up, both only when another plugin listens to them. Progress only changes on the main
+ * thread, so the level reached can be computed before the event and applied after it.
  */
 public class LevelManager {
+  private final Jobs plugin;
   private final JobManager jobManager;
+  private final FeedbackManager feedbackManager;
+  private final PlayerDataManager playerDataManager;
+  private final LeaderboardManager leaderboardManager;
+  private final BoostManager boostManager;
+  private final Map<UUID, PendingXp> pendingXp = new ConcurrentHashMap<>();
+  private final AtomicBoolean flushScheduled = new AtomicBoolean();
 
-  public LevelManager(JobManager jobManager) {
+  public LevelManager(
+      Jobs plugin,
+      JobManager jobManager,
+      FeedbackManager feedbackManager,
+      PlayerDataManager playerDataManager,
+      LeaderboardManager leaderboardManager,
+      BoostManager boostManager) {
+    this.plugin = plugin;
     this.jobManager = jobManager;
+    this.feedbackManager = feedbackManager;
+    this.playerDataManager = playerDataManager;
+    this.leaderboardManager = leaderboardManager;
+    this.boostManager = boostManager;
   }
 
   /**
-   * Calculates the total experience points (XP) required to reach a specific level.
+   * Queues XP for a player's job. The XP is added to the other gains of the player in this tick
+   * and applied at the end of the tick. Safe to call from any thread.
    *
-   * @param level the level for which the required XP is to be calculated. Should be a positive
-   *     integer.
-   * @return the total XP required to reach the specified level, or 0 if the level is less than 1.
+   * @param jobEntity the job to which the XP should be added
+   * @param xpToAdd the amount of XP to be added to the player's job
+   * @param playerEntity the player to whom the XP is added
    */
-  public static int getXpForLevel(int level) {
-    if (level >= 1 && level <= 16) {
-      return (int) (Math.pow(level, 2) + 6 * level);
-    }
+  public void queueXp(JobEntity jobEntity, int xpToAdd, PlayerEntity playerEntity) {
+    this.pendingXp.compute(
+        playerEntity.getUuid(),
+        (uuid, pending) -> {
+          if (pending == null) {
+            pending = new PendingXp(playerEntity, this.jobManager.getJobs().size());
+          }
+          pending.xp[jobEntity.getOrdinal()] += xpToAdd;
+          return pending;
+        });
 
-    if (level >= 17 && level <= 31) {
-      return (int) (2.5 * Math.pow(level, 2) - 40.5 * level + 360);
+    if (this.flushScheduled.compareAndSet(false, true)) {
+      Bukkit.getScheduler().runTask(this.plugin, this::flushPendingXp);
     }
+  }
 
-    if (level >= 32) {
-      return (int) (4.5 * Math.pow(level, 2) - 162.5 * level + 2220);
+  /**
+   * Applies the XP queued for every player, then saves each of them once. Must be called from the
+   * main server thread. XP queued while the flush runs is applied by the next one.
+   */
+  public void flushPendingXp() {
+    this.flushScheduled.set(false);
+
+    for (UUID uuid : this.pendingXp.keySet()) {
+      this.flushPendingXp(uuid);
     }
+  }
 
-    return 0;
+  /**
+   * Applies the XP queued for one player right away, for instance when they leave the server. Must
+   * be called from the main server thread.
+   *
+   * @param uuid the UUID of the player
+   */
+  public void flushPendingXp(UUID uuid) {
+    PendingXp pending = this.pendingXp.remove(uuid);
+    if (pending != null) {
+      this.applyPending(pending);
+    }
   }
 
   /**
    * Adds experience points (XP) to a player for a specified job and checks if the player levels up.
-   * Updates both the job-specific XP and total XP for the player. Sends a message to the player
-   * indicating the amount of XP gained for the job.
+   * The XP is first multiplied by the player's active boosts in the job, then passed to the
+   * {@link JobXpGainEvent} listeners and limited by the job's XP caps. Updates both the
+   * job-specific XP and total XP for the player, and the player's rank in the job's leaderboard.
+   * The gain is reported to the player through the {@link FeedbackManager}, which groups close
+   * gains into a single message. The player is not saved; see {@link #queueXp} for gains coming
+   * from game actions.
    *
    * @param jobEntity the job to which the XP should be added
-   * @param xpToAdd the amount of XP to be added to the player's job
+   * @param xpToAdd the amount of XP to be added to the player's job, before boosts and caps
    * @param playerEntity the player to whom the XP is added
+   * @return the XP added, after boosts, listeners and caps
    */
-  public void addXpToPlayer(JobEntity jobEntity, int xpToAdd, PlayerEntity playerEntity) {
-    playerEntity.addJobXp(jobEntity.getId(), xpToAdd);
-    playerEntity.addJobTotalXp(jobEntity.getId(), xpToAdd);
-    playerEntity
-        .getPlayer()
-        .sendMessage(
-            jobEntity.getColor()
-                + "["
-                + jobEntity.getName()
-                + "] "
-                + ChatColor.WHITE
-                + "Vous avez gagné "
-                + xpToAdd
-                + " XP !");
-
-    this.checkLevelUp(jobEntity, playerEntity);
+  public int addXpToPlayer(JobEntity jobEntity, int xpToAdd, PlayerEntity playerEntity) {
+    int boostedXp = this.boostManager.apply(playerEntity.getUuid(), jobEntity, xpToAdd);
+    int eventXp = this.callXpGain(jobEntity, boostedXp, playerEntity);
+    int xp = this.limitXp(jobEntity, eventXp, playerEntity);
+    if (xp <= 0) {
+      return 0;
+    }
+
+    playerEntity.addJobTotalXp(jobEntity.getOrdinal(), xp);
+    this.leaderboardManager.update(jobEntity, playerEntity);
+    Player player = playerEntity.getPlayer();
+    if (player != null) {
+      this.feedbackManager.sendXp(jobEntity, player, xp);
+    }
+    this.applyXp(jobEntity, xp, playerEntity);
+    return xp;
   }
 
   /**
-   * Checks if the player has accumulated enough experience points (XP) in a specific job to level
-   * up. If the player's XP meets or exceeds the threshold required for the next level, the player
-   * levels up, reducing their current XP accordingly and calling {@code onLevelUp} to handle any
-   * level-up logic (e.g., notifying the player, granting rewards).
+   * Lets the {@link JobXpGainEvent} listeners change or cancel a gain. The event is not created
+   * when nothing listens to it.
    *
-   * @param jobEntity the job associated with the experience points, containing job-specific
-   *     information
-   * @param playerEntity the player for whom the level-up check is performed, containing their XP
-   *     and level details
+   * @param jobEntity the job in which the XP is gained
+   * @param xp the XP gained, after boosts
+   * @param playerEntity the player gaining the XP
+   * @return the XP to give, 0 if the gain was cancelled
    */
-  private void checkLevelUp(JobEntity jobEntity, PlayerEntity playerEntity) {
-    int maxXpLevel = LevelManager.getXpForLevel(playerEntity.getJobLevel(jobEntity.getId()));
+  private int callXpGain(JobEntity jobEntity, int xp, PlayerEntity playerEntity) {
+    if (JobXpGainEvent.getHandlerList().getRegisteredListeners().length == 0) {
+      return xp;
+    }
+
+    JobXpGainEvent event =
+        new JobXpGainEvent(playerEntity.getUuid(), playerEntity.getPlayer(), jobEntity, xp);
+    Bukkit.getPluginManager().callEvent(event);
+    return event.isCancelled() ? 0 : Math.max(0, event.getXp());
+  }
+
+  /**
+   * Applies the XP caps and diminishing returns of a job to a gain, and records the XP granted in
+   * the player's recent XP. The player is told when the gain reaches a cap. Jobs without caps skip
+   * the bookkeeping entirely.
+   *
+   * @param jobEntity the job in which the XP is gained
+   * @param xp the XP gained, after boosts
+   * @param playerEntity the player gaining the XP
+   * @return the XP granted
+   */
+  private int limitXp(JobEntity jobEntity, int xp, PlayerEntity playerEntity) {
+    XpCaps caps = jobEntity.getXpCaps();
+    if (xp == 0 || !caps.isEnabled()) {
+      return xp;
+    }
 
-    while (playerEntity.getJobXp(jobEntity.getId()) >= maxXpLevel) {
-      playerEntity.setJobXp(
-          jobEntity.getId(), playerEntity.getJobXp(jobEntity.getId()) - maxXpLevel);
-      playerEntity.setJobLevel(jobEntity.getId(), playerEntity.getJobLevel(jobEntity.getId()) + 1);
-      this.onLevelUp(jobEntity, playerEntity);
+    int job = jobEntity.getOrdinal();
+    long now = System.currentTimeMillis();
+    int granted;
+    boolean reached;
+
+    synchronized (playerEntity) {
+      int hourXp = playerEntity.getHourlyXp(job, now);
+      int dayXp = playerEntity.getDailyXp(job, now);
+      granted = caps.limit(xp, hourXp, dayXp);
+      playerEntity.addWindowXp(job, now, granted);
+      reached = caps.isReached(hourXp + granted, dayXp + granted);
+    }
+
+    Player player = reached ? playerEntity.getPlayer() : null;
+    if (player != null) {
+      this.feedbackManager.sendCapReached(jobEntity, player);
     }
+    return granted;
+  }
+
+  /**
+   * Applies the XP queued for a player, job by job, and saves the player once. The XP granted
+   * after boosts and caps is then written to the XP journal; journaling after marking the player as
+   * modified ensures that a save which misses the player's new progress also keeps the journal
+   * segment holding it.
+   *
+   * @param pending the queued XP of the player
+   */
+  private void applyPending(PendingXp pending) {
+    Collection<JobEntity> jobs = this.jobManager.getJobs().values();
+
+    for (JobEntity jobEntity : jobs) {
+      int job = jobEntity.getOrdinal();
+      if (pending.xp[job] > 0) {
+        int xp = (int) Math.min(pending.xp[job], Integer.MAX_VALUE);
+        pending.xp[job] = this.addXpToPlayer(jobEntity, xp, pending.playerEntity);
+      }
+    }
+
+    this.playerDataManager.savePlayerEntity(pending.playerEntity);
+
+    for (JobEntity jobEntity : jobs) {
+      long xp = pending.xp[jobEntity.getOrdinal()];
+      if (xp > 0) {
+        this.playerDataManager.journalXp(pending.playerEntity, jobEntity, (int) xp);
+      }
+    }
+  }
+
+  /**
+   * Adds XP to the player's current level progress and resolves the level reached from the job's
+   * curve. The XP left after the last level gained is kept as progress towards the next one, and
+   * {@code onLevelUp} is called once with every level gained. When a {@link JobLevelUpEvent}
+   * listener cancels the level-up, the XP is kept as progress at the current level. The level and
+   * XP are updated together under the player's monitor; the event and the level-up itself are
+   * handled outside of it.
+   *
+   * @param jobEntity the job associated with the experience points, containing its XP curve
+   * @param xpToAdd the amount of XP added to the job
+   * @param playerEntity the player whose XP and level are updated
+   */
+  private void applyXp(JobEntity jobEntity, int xpToAdd, PlayerEntity playerEntity) {
+    int job = jobEntity.getOrdinal();
+    int level = playerEntity.getJobLevel(job);
+    int maxLevel = Integer.MAX_VALUE;
+
+    if (JobLevelUpEvent.getHandlerList().getRegisteredListeners().length > 0) {
+      XpCurve curve = jobEntity.getXpCurve();
+      long xp = curve.getXpForLevel(level) + playerEntity.getJobXp(job) + xpToAdd;
+      int reachedLevel = curve.getLevel(xp);
+
+      if (reachedLevel > level) {
+        JobLevelUpEvent event =
+            new JobLevelUpEvent(
+                playerEntity.getUuid(), playerEntity.getPlayer(), jobEntity, level, reachedLevel);
+        Bukkit.getPluginManager().callEvent(event);
+        if (event.isCancelled()) {
+          maxLevel = level;
+        }
+      }
+    }
+
+    int newLevel;
+    synchronized (playerEntity) {
+      newLevel = addProgress(jobEntity, xpToAdd, playerEntity, maxLevel);
+    }
+
+    if (newLevel > level) {
+      this.onLevelUp(jobEntity, playerEntity, level + 1, newLevel);
+    }
+  }
+
+  /**
+   * Adds XP to the player's current level progress and sets the level reached on the job's curve,
+   * up to a maximum. Total XP is left unchanged. The caller must hold the player's monitor.
+   *
+   * @param jobEntity the job, containing its XP curve
+   * @param xpToAdd the amount of XP added to the job
+   * @param playerEntity the player whose XP and level are updated
+   * @param maxLevel the highest level the player may reach, the XP above it being kept as progress
+   * @return the level reached
+   */
+  static int addProgress(
+      JobEntity jobEntity, long xpToAdd, PlayerEntity playerEntity, int maxLevel) {
+    int job = jobEntity.getOrdinal();
+    XpCurve curve = jobEntity.getXpCurve();
+    int level = playerEntity.getJobLevel(job);
+
+    long xp = curve.getXpForLevel(level) + playerEntity.getJobXp(job) + xpToAdd;
+    int newLevel = Math.max(level, Math.min(maxLevel, curve.getLevel(xp)));
+    long progress = xp - curve.getXpForLevel(newLevel);
+
+    playerEntity.setJobLevel(job, newLevel);
+    playerEntity.setJobXp(job, (int) Math.min(progress, Integer.MAX_VALUE));
+    return newLevel;
   }
 
   /**
    * Handles the logic for a player's level-up event in a specific job. Sends a message to the
-   * player notifying them of their new level and grants rewards based on their current level.
+   * player for each new level and grants the rewards of all these levels at once. Nothing is sent
+   * or given to a player who is not connected; the levels are still kept.
    *
    * @param jobEntity the job entity associated with the level-up event, containing job-specific
    *     details
-   * @param playerEntity the player entity who leveled up, containing their current level and other
-   *     job-related data
+   * @param playerEntity the player entity who leveled up
+   * @param fromLevel the first level reached
+   * @param toLevel the last level reached
    */
-  private void onLevelUp(JobEntity jobEntity, PlayerEntity playerEntity) {
-    int currentLevel = playerEntity.getJobLevel(jobEntity.getId());
-    playerEntity
-        .getPlayer()
-        .sendMessage(
-            jobEntity.getColor()
-                + "["
-                + jobEntity.getName()
-                + "] "
-                + ChatColor.WHITE
-                + "Vous êtes passé au niveau "
-                + currentLevel
-                + " !");
-
-    this.jobManager.giveRewards(jobEntity, playerEntity);
+  private void onLevelUp(
+      JobEntity jobEntity, PlayerEntity playerEntity, int fromLevel, int toLevel) {
+    Player player = playerEntity.getPlayer();
+    if (player == null) {
+      return;
+    }
+
+    for (int level = fromLevel; level <= toLevel; level++) {
+      this.feedbackManager.sendLevelUp(jobEntity, player, level);
+    }
+
+    this.jobManager.giveRewards(jobEntity, playerEntity, fromLevel, toLevel);
+  }
+
+  /** XP queued for one player during the current tick, per job ordinal. */
+  private static final class PendingXp {
+    private final PlayerEntity playerEntity;
+    private final long[] xp;
+
+    private PendingXp(PlayerEntity playerEntity, int jobCount) {
+      this.playerEntity = playerEntity;
+      this.xp = new long[jobCount];
+    }
   }
 }
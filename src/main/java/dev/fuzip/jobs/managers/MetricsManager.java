@@ -0,0 +1,288 @@
+package dev.fuzip.jobs.managers;
+
+import dev.fuzip.jobs.Jobs;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import org.bukkit.Bukkit;
+
+/**
+ * Measures what the plugin costs on the hot paths: block break handling, XP lookups, player data
+ * loads and saves, and the number of actions handled per second. Measures are recorded into
+ * preallocated counters and {@link LatencyHistogram}s, so recording never allocates.
+ *
+ * <p>The measures are shown by {@code /jobs stats}, can be dumped to {@code stats.json}, and are
+ * logged every {@code metrics.log-interval} seconds when that setting is positive.
+ */
+public class MetricsManager {
+  private static final int RATE_WINDOW = 60;
+
+  private final Jobs plugin;
+  private final long startMillis = System.currentTimeMillis();
+
+  private final LatencyHistogram blockBreak = new LatencyHistogram();
+  private final LatencyHistogram xpLookup = new LatencyHistogram();
+  private final LatencyHistogram playerLoad = new LatencyHistogram();
+  private final LatencyHistogram playerSave = new LatencyHistogram();
+  private final LongAdder actions = new LongAdder();
+
+  private final long[] actionsPerSecond = new long[RATE_WINDOW];
+  private int rateCursor;
+  private int rateSamples;
+  private long lastActionTotal;
+
+  private PlayerDataManager playerDataManager;
+
+  public MetricsManager(Jobs plugin) {
+    this.plugin = plugin;
+  }
+
+  /**
+   * Starts sampling the action rate every second and, if configured, logging the measures. Called
+   * once the player data manager, whose cache and queue are reported, exists.
+   *
+   * @param playerDataManager the player data manager
+   */
+  public void start(PlayerDataManager playerDataManager) {
+    this.playerDataManager = playerDataManager;
+    Bukkit.getScheduler().runTaskTimer(this.plugin, this::sampleRate, 20, 20);
+
+    long logInterval = this.plugin.getConfig().getLong("metrics.log-interval", 0);
+    if (logInterval > 0) {
+      Bukkit.getScheduler()
+          .runTaskTimer(
+              this.plugin,
+              () -> this.plugin.getLogger().info("[Jobs] " + this.formatLogLine()),
+              logInterval * 20,
+              logInterval * 20);
+    }
+  }
+
+  /**
+   * Records the time spent handling one block break event.
+   *
+   * @param nanos the handling time in nanoseconds
+   */
+  public void recordBlockBreak(long nanos) {
+    this.blockBreak.record(nanos);
+  }
+
+  /**
+   * Counts one action entering the action pipeline and records the time spent looking up its XP.
+   *
+   * @param nanos the lookup time in nanoseconds
+   */
+  public void recordXpLookup(long nanos) {
+    this.actions.increment();
+    this.xpLookup.record(nanos);
+  }
+
+  /**
+   * Records the time spent reading one player from the store. Safe to call from any thread.
+   *
+   * @param nanos the load time in nanoseconds
+   */
+  public void recordPlayerLoad(long nanos) {
+    this.playerLoad.record(nanos);
+  }
+
+  /**
+   * Records the time spent writing one batch of players to the store. Safe to call from any
+   * thread.
+   *
+   * @param nanos the save time in nanoseconds
+   */
+  public void recordPlayerSave(long nanos) {
+    this.playerSave.record(nanos);
+  }
+
+  /**
+   * Describes the measures for {@code /jobs stats}.
+   *
+   * @return the lines to send, in French
+   */
+  public List<String> formatReport() {
+    PlayerDataManager players = this.playerDataManager;
+    List<String> lines = new ArrayList<>();
+
+    lines.add(
+        String.format(
+            Locale.ROOT,
+            "Actions : %d/s (moyenne %d/s sur %d s, %d au total)",
+            this.getLastSecondRate(),
+            this.getAverageRate(),
+            this.rateSamples,
+            this.actions.sum()));
+    lines.add("Cassage de bloc : " + format(this.blockBreak.snapshot()));
+    lines.add("Recherche d'XP : " + format(this.xpLookup.snapshot()));
+    lines.add("Chargement joueur : " + format(this.playerLoad.snapshot()));
+    lines.add("Sauvegarde (lot) : " + format(this.playerSave.snapshot()));
+    lines.add(
+        String.format(
+            Locale.ROOT,
+            "Cache joueurs : %.1f%% de réussite (%d trouvés, %d chargés)",
+            this.getHitRate() * 100,
+            players.getCacheHits(),
+            players.getCacheMisses()));
+    lines.add(
+        String.format(
+            Locale.ROOT,
+            "File d'écriture : %d joueurs, dernier flush %d ms (moyenne %d ms)",
+            players.getQueueDepth(),
+            players.getLastFlushMillis(),
+            players.getAverageFlushMillis()));
+
+    return lines;
+  }
+
+  /**
+   * Writes the measures to {@code stats.json} in the plugin folder. The document is built on the
+   * calling thread and written asynchronously.
+   *
+   * @return a future completed with the written file
+   */
+  public CompletableFuture<File> dumpJson() {
+    String json = this.toJson();
+    File file = new File(this.plugin.getDataFolder(), "stats.json");
+
+    return CompletableFuture.supplyAsync(
+        () -> {
+          try {
+            Files.writeString(file.toPath(), json, StandardCharsets.UTF_8);
+            return file;
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        },
+        task -> Bukkit.getScheduler().runTaskAsynchronously(this.plugin, task));
+  }
+
+  /** Stores the number of actions handled during the last second. Runs every second. */
+  private void sampleRate() {
+    long total = this.actions.sum();
+
+    this.actionsPerSecond[this.rateCursor] = total - this.lastActionTotal;
+    this.rateCursor = (this.rateCursor + 1) % RATE_WINDOW;
+    this.rateSamples = Math.min(this.rateSamples + 1, RATE_WINDOW);
+    this.lastActionTotal = total;
+  }
+
+  private long getLastSecondRate() {
+    return this.rateSamples == 0
+        ? 0
+        : this.actionsPerSecond[(this.rateCursor + RATE_WINDOW - 1) % RATE_WINDOW];
+  }
+
+  private long getAverageRate() {
+    if (this.rateSamples == 0) {
+      return 0;
+    }
+
+    long sum = 0;
+    for (long rate : this.actionsPerSecond) {
+      sum += rate;
+    }
+    return sum / this.rateSamples;
+  }
+
+  private double getHitRate() {
+    long hits = this.playerDataManager.getCacheHits();
+    long total = hits + this.playerDataManager.getCacheMisses();
+    return total == 0 ? 1 : (double) hits / total;
+  }
+
+  private String formatLogLine() {
+    return String.format(
+        Locale.ROOT,
+        "Stats: %d actions/s, break p99 %s, lookup p99 %s, load p99 %s, save p99 %s,"
+            + " cache %.1f%%, queue %d.",
+        this.getLastSecondRate(),
+        formatNanos(this.blockBreak.snapshot().getPercentileNanos(99)),
+        formatNanos(this.xpLookup.snapshot().getPercentileNanos(99)),
+        formatNanos(this.playerLoad.snapshot().getPercentileNanos(99)),
+        formatNanos(this.playerSave.snapshot().getPercentileNanos(99)),
+        this.getHitRate() * 100,
+        this.playerDataManager.getQueueDepth());
+  }
+
+  private String toJson() {
+    PlayerDataManager players = this.playerDataManager;
+
+    return String.format(
+        Locale.ROOT,
+        """
+        {
+          "time": "%s",
+          "uptimeSeconds": %d,
+          "actions": {"total": %d, "lastSecond": %d, "average": %d},
+          "blockBreak": %s,
+          "xpLookup": %s,
+          "playerLoad": %s,
+          "playerSave": %s,
+          "cache": {"hits": %d, "misses": %d, "hitRate": %.4f},
+          "writeQueue": {"size": %d, "lastFlushMillis": %d, "averageFlushMillis": %d}
+        }
+        """,
+        Instant.now(),
+        (System.currentTimeMillis() - this.startMillis) / 1000,
+        this.actions.sum(),
+        this.getLastSecondRate(),
+        this.getAverageRate(),
+        toJson(this.blockBreak.snapshot()),
+        toJson(this.xpLookup.snapshot()),
+        toJson(this.playerLoad.snapshot()),
+        toJson(this.playerSave.snapshot()),
+        players.getCacheHits(),
+        players.getCacheMisses(),
+        this.getHitRate(),
+        players.getQueueDepth(),
+        players.getLastFlushMillis(),
+        players.getAverageFlushMillis());
+  }
+
+  private static String toJson(LatencyHistogram.Snapshot snapshot) {
+    return String.format(
+        Locale.ROOT,
+        "{\"count\": %d, \"meanNanos\": %d, \"p50Nanos\": %d, \"p90Nanos\": %d,"
+            + " \"p99Nanos\": %d, \"p999Nanos\": %d, \"maxNanos\": %d}",
+        snapshot.getCount(),
+        snapshot.getMeanNanos(),
+        snapshot.getPercentileNanos(50),
+        snapshot.getPercentileNanos(90),
+        snapshot.getPercentileNanos(99),
+        snapshot.getPercentileNanos(99.9),
+        snapshot.getMaxNanos());
+  }
+
+  private static String format(LatencyHistogram.Snapshot snapshot) {
+    if (snapshot.getCount() == 0) {
+      return "aucune mesure";
+    }
+
+    return String.format(
+        Locale.ROOT,
+        "p50 %s, p99 %s, max %s (%d mesures)",
+        formatNanos(snapshot.getPercentileNanos(50)),
+        formatNanos(snapshot.getPercentileNanos(99)),
+        formatNanos(snapshot.getMaxNanos()),
+        snapshot.getCount());
+  }
+
+  private static String formatNanos(long nanos) {
+    if (nanos < 1_000) {
+      return nanos + " ns";
+    }
+    if (nanos < 1_000_000) {
+      return String.format(Locale.ROOT, "%.1f µs", nanos / 1_000.0);
+    }
+    return String.format(Locale.ROOT, "%.1f ms", nanos / 1_000_000.0);
+  }
+}
@@ -0,0 +1,176 @@
+package dev.fuzip.jobs.managers;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash set of the blocks placed by players in one chunk. Each block is packed into
+ * a single int holding its Y coordinate and its X and Z coordinates within the chunk, so lookups
+ * neither box nor allocate. Deletions use backward shifting, so no tombstones accumulate.
+ */
+final class PackedBlockSet {
+
+  private static final int EMPTY = Integer.MIN_VALUE;
+
+  private int[] keys;
+  private int mask;
+  private int size;
+  private boolean dirty;
+
+  PackedBlockSet(int expectedSize) {
+    int capacity = Integer.highestOneBit(Math.max(8, expectedSize * 2) - 1) << 1;
+    this.allocate(capacity);
+  }
+
+  /**
+   * Packs block coordinates into a set key.
+   *
+   * @param x the world X coordinate of the block
+   * @param y the Y coordinate of the block
+   * @param z the world Z coordinate of the block
+   * @return the packed key
+   */
+  static int pack(int x, int y, int z) {
+    return (y << 8) | ((z & 15) << 4) | (x & 15);
+  }
+
+  int size() {
+    return this.size;
+  }
+
+  boolean isDirty() {
+    return this.dirty;
+  }
+
+  void setDirty(boolean dirty) {
+    this.dirty = dirty;
+  }
+
+  boolean contains(int key) {
+    int i = hash(key) & this.mask;
+
+    while (this.keys[i] != EMPTY) {
+      if (this.keys[i] == key) {
+        return true;
+      }
+      i = (i + 1) & this.mask;
+    }
+
+    return false;
+  }
+
+  /**
+   * Adds a block to the set.
+   *
+   * @param key the packed block
+   * @return true if the block was not in the set
+   */
+  boolean add(int key) {
+    if ((this.size + 1) * 2 > this.keys.length) {
+      this.resize();
+    }
+
+    int i = hash(key) & this.mask;
+
+    while (this.keys[i] != EMPTY) {
+      if (this.keys[i] == key) {
+        return false;
+      }
+      i = (i + 1) & this.mask;
+    }
+
+    this.keys[i] = key;
+    this.size++;
+    this.dirty = true;
+    return true;
+  }
+
+  /**
+   * Removes a block from the set.
+   *
+   * @param key the packed block
+   * @return true if the block was in the set
+   */
+  boolean remove(int key) {
+    int i = hash(key) & this.mask;
+
+    while (this.keys[i] != EMPTY) {
+      if (this.keys[i] == key) {
+        this.shiftBack(i);
+        this.size--;
+        this.dirty = true;
+        return true;
+      }
+      i = (i + 1) & this.mask;
+    }
+
+    return false;
+  }
+
+  /**
+   * Returns the packed blocks of the set, in no particular order.
+   *
+   * @return a new array holding every key
+   */
+  int[] toArray() {
+    int[] values = new int[this.size];
+    int index = 0;
+
+    for (int key : this.keys) {
+      if (key != EMPTY) {
+        values[index++] = key;
+      }
+    }
+
+    return values;
+  }
+
+  /**
+   * Empties the bucket at {@code gap} and moves back the following entries of the probe sequence
+   * that would no longer be reachable.
+   *
+   * @param gap the bucket to empty
+   */
+  private void shiftBack(int gap) {
+    int i = gap;
+
+    while (true) {
+      i = (i + 1) & this.mask;
+      if (this.keys[i] == EMPTY) {
+        break;
+      }
+
+      int home = hash(this.keys[i]) & this.mask;
+      boolean reachable = gap <= i ? gap < home && home <= i : gap < home || home <= i;
+      if (!reachable) {
+        this.keys[gap] = this.keys[i];
+        gap = i;
+      }
+    }
+
+    this.keys[gap] = EMPTY;
+  }
+
+  private void resize() {
+    int[] oldKeys = this.keys;
+
+    this.allocate(oldKeys.length * 2);
+    this.size = 0;
+
+    for (int key : oldKeys) {
+      if (key != EMPTY) {
+        this.add(key);
+      }
+    }
+  }
+
+  private void allocate(int capacity) {
+    this.keys = new int[capacity];
+    this.mask = capacity - 1;
+    Arrays.fill(this.keys, EMPTY);
+  }
+
+  private static int hash(int key) {
+    int h = key * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+}
@@ -0,0 +1,197 @@
+package dev.fuzip.jobs.managers;
+
+import dev.fuzip.jobs.Jobs;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.NamespacedKey;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+
+/**
+ * Remembers which blocks were placed by players, so that breaking them again gives no XP.
+ *
+ * <p>Placed blocks are kept per loaded chunk in primitive hash sets, looked up by world and chunk
+ * coordinates without boxing or allocating. Each chunk's set is stored in the chunk's persistent
+ * data container as an int array: it is read when the chunk loads, and written back when the
+ * chunk unloads, when its world is saved and when the plugin stops. All methods must be called
+ * from the main server thread.
+ */
+public class PlacedBlockTracker {
+  private final NamespacedKey key;
+  private final Map<UUID, ChunkTable> worlds = new HashMap<>();
+
+  public PlacedBlockTracker(Jobs plugin) {
+    this.key = new NamespacedKey(plugin, "placed_blocks");
+  }
+
+  /**
+   * Tells whether a block was placed by a player.
+   *
+   * @param block the block to check
+   * @return true if the block was placed by a player
+   */
+  public boolean isPlaced(Block block) {
+    PackedBlockSet blocks = this.getBlocks(block);
+    return blocks != null && blocks.contains(pack(block));
+  }
+
+  /**
+   * Records a block as placed by a player.
+   *
+   * @param block the placed block
+   */
+  public void markPlaced(Block block) {
+    ChunkTable chunks =
+        this.worlds.computeIfAbsent(block.getWorld().getUID(), k -> new ChunkTable());
+    long chunkKey = ChunkTable.pack(block.getX() >> 4, block.getZ() >> 4);
+    PackedBlockSet blocks = chunks.get(chunkKey);
+
+    if (blocks == null) {
+      blocks = new PackedBlockSet(8);
+      chunks.put(chunkKey, blocks);
+    }
+
+    blocks.add(pack(block));
+  }
+
+  /**
+   * Forgets a block, typically because it was broken or destroyed.
+   *
+   * @param block the removed block
+   * @return true if the block was placed by a player
+   */
+  public boolean unmark(Block block) {
+    PackedBlockSet blocks = this.getBlocks(block);
+    return blocks != null && blocks.remove(pack(block));
+  }
+
+  /**
+   * Moves the placed blocks among the given blocks by one block in the given direction, as a
+   * piston does.
+   *
+   * @param blocks the blocks moved by the piston
+   * @param direction the direction in which the blocks move
+   */
+  public void moveBlocks(List<Block> blocks, BlockFace direction) {
+    List<Block> placed = new ArrayList<>();
+
+    for (Block block : blocks) {
+      if (this.unmark(block)) {
+        placed.add(block);
+      }
+    }
+
+    for (Block block : placed) {
+      this.markPlaced(block.getRelative(direction));
+    }
+  }
+
+  /**
+   * Reads the placed blocks stored in a chunk that was just loaded.
+   *
+   * @param chunk the loaded chunk
+   */
+  public void loadChunk(Chunk chunk) {
+    int[] stored =
+        chunk.getPersistentDataContainer().get(this.key, PersistentDataType.INTEGER_ARRAY);
+    if (stored == null || stored.length == 0) {
+      return;
+    }
+
+    PackedBlockSet blocks = new PackedBlockSet(stored.length);
+    for (int block : stored) {
+      blocks.add(block);
+    }
+    blocks.setDirty(false);
+
+    this.worlds
+        .computeIfAbsent(chunk.getWorld().getUID(), k -> new ChunkTable())
+        .put(ChunkTable.pack(chunk.getX(), chunk.getZ()), blocks);
+  }
+
+  /**
+   * Writes the placed blocks of a chunk that is about to unload and forgets them.
+   *
+   * @param chunk the unloading chunk
+   */
+  public void unloadChunk(Chunk chunk) {
+    ChunkTable chunks = this.worlds.get(chunk.getWorld().getUID());
+    if (chunks == null) {
+      return;
+    }
+
+    PackedBlockSet blocks = chunks.remove(ChunkTable.pack(chunk.getX(), chunk.getZ()));
+    if (blocks != null && blocks.isDirty()) {
+      this.write(chunk, blocks);
+    }
+  }
+
+  /**
+   * Writes the placed blocks of every modified chunk of a world to the chunks.
+   *
+   * @param world the world being saved
+   */
+  public void saveWorld(World world) {
+    ChunkTable chunks = this.worlds.get(world.getUID());
+    if (chunks == null) {
+      return;
+    }
+
+    chunks.forEach(
+        (chunkKey, blocks) -> {
+          int chunkX = (int) (chunkKey >> 32);
+          int chunkZ = (int) chunkKey;
+
+          if (blocks.isDirty() && world.isChunkLoaded(chunkX, chunkZ)) {
+            this.write(world.getChunkAt(chunkX, chunkZ), blocks);
+          }
+        });
+  }
+
+  /** Reads the placed blocks of every chunk already loaded, for instance after a reload. */
+  public void loadAll() {
+    for (World world : Bukkit.getWorlds()) {
+      for (Chunk chunk : world.getLoadedChunks()) {
+        this.loadChunk(chunk);
+      }
+    }
+  }
+
+  /** Writes the placed blocks of every modified chunk, when the plugin stops. */
+  public void saveAll() {
+    for (World world : Bukkit.getWorlds()) {
+      this.saveWorld(world);
+    }
+  }
+
+  private PackedBlockSet getBlocks(Block block) {
+    ChunkTable chunks = this.worlds.get(block.getWorld().getUID());
+    if (chunks == null) {
+      return null;
+    }
+    return chunks.get(ChunkTable.pack(block.getX() >> 4, block.getZ() >> 4));
+  }
+
+  private void write(Chunk chunk, PackedBlockSet blocks) {
+    PersistentDataContainer container = chunk.getPersistentDataContainer();
+
+    if (blocks.size() == 0) {
+      container.remove(this.key);
+    } else {
+      container.set(this.key, PersistentDataType.INTEGER_ARRAY, blocks.toArray());
+    }
+    blocks.setDirty(false);
+  }
+
+  private static int pack(Block block) {
+    return PackedBlockSet.pack(block.getX(), block.getY(), block.getZ());
+  }
+}
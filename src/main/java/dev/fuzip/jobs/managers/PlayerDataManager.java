@@ -3,131 +3,1122 @@ package dev.fuzip.jobs.managers;
 import dev.fuzip.jobs.Jobs;
 import dev.fuzip.jobs.entities.JobEntity;
 import dev.fuzip.jobs.entities.PlayerEntity;
+import dev.fuzip.jobs.storage.BinaryPlayerDataStore;
+import dev.fuzip.jobs.storage.PlayerDataStore;
+import dev.fuzip.jobs.storage.PlayerNameIndex;
+import dev.fuzip.jobs.storage.ProgressReader;
+import dev.fuzip.jobs.storage.ProgressWriter;
+import dev.fuzip.jobs.storage.ShardedYamlPlayerDataStore;
+import dev.fuzip.jobs.storage.SharedSqlPlayerDataStore;
+import dev.fuzip.jobs.storage.SqlPlayerDataStore;
+import dev.fuzip.jobs.storage.XpJournal;
+import dev.fuzip.jobs.storage.YamlPlayerDataStore;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 import org.bukkit.Bukkit;
-import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
 
 /**
  * The PlayerDataManager class is responsible for managing player-related data in the "Jobs" plugin.
- * It handles the initialization, loading, saving, and updating of player data stored in a YAML
- * file. Each player's data includes information about jobs, XP, and levels.
+ * It handles the initialization, loading, saving, and updating of player data through a {@link
+ * PlayerDataStore} selected by {@code storage.type} in config.yml. Each player's data includes
+ * information about jobs, XP, and levels.
  *
  * <p>Core Responsibilities: - Initialize new player data if not already present. - Load player data
- * from the stored data file. - Save updated player data back to the file. - Manage data for
- * multiple jobs per player, including XP and levels.
+ * from the store. - Save updated player data back to the store. - Manage data for multiple jobs per
+ * player, including XP and levels.
  *
- * <p>Dependencies: - Uses the Bukkit API for player management. - Relies on the YamlConfiguration
- * and FileConfiguration classes to handle YAML-based data storage.
+ * <p>Saving is write-behind: {@link #savePlayerEntity(PlayerEntity)} only marks the player as
+ * dirty. Dirty players are snapshotted in one batch by {@link #flush()}, which runs every {@code
+ * storage.flush-interval} ticks or as soon as {@code storage.flush-threshold} players are dirty.
+ * The snapshots are then written to the store by a dedicated I/O thread. Each player is copied
+ * under its own monitor, so snapshots are consistent per player and no global lock is taken while
+ * the game keeps updating other players.
+ *
+ * <p>Every XP gain is also appended to an {@link XpJournal} unless {@code storage.journal.enabled}
+ * is false. Gains journaled since the last save are replayed into the store at startup, so a crash
+ * between two flushes loses nothing. Each flush that finds the current journal segment full starts
+ * a new one, and the old segments are deleted once the batch snapshotted after it is written.
+ *
+ * <p>Players can be read, loaded and marked as modified from any thread.
+ *
+ * <p>Connected players are kept in a session cache: their data is loaded off the main thread when
+ * they log in and evicted, after a final flush, when they quit. Event handlers therefore never read
+ * the store.
+ *
+ * <p>With a storage shared by several servers ({@code shared}), dirty players are only written at
+ * the flush interval, never early, so each player costs at most one write per interval. A player
+ * who quits is handed off: their data is written on its own, without waiting for the next flush,
+ * so that the server they join next loads their latest progress.
+ *
+ * <p>Transfers run on their own thread, at a limited rate, so that flushes and hand-offs keep
+ * running on the I/O thread. Exports stream every stored player to a file, a page at a time.
+ * Imports read a file and hand the players to the I/O thread through the same pending writes as
+ * flushes, in batches. The reader waits while a batch is still being written, so neither holds more
+ * than one batch in memory. Logins are refused while an import runs, and the XP journal is emptied
+ * once it is done, so that a replay never brings back the progress the import replaced.
+ *
+ * <p>Players looked up while offline are found by name through a {@link PlayerNameIndex} updated
+ * when they join, loaded on the I/O thread and kept for a short time in a small LRU cache, so that
+ * staff viewing the same players again do not read the store each time.
  */
 public class PlayerDataManager {
 
+  /** Storage types accepted by {@code storage.type} and {@link #openStore(String)}. */
+  public static final List<String> STORAGE_TYPES =
+      List.of("yaml", "sharded", "sqlite", "binary", "shared");
+
+  private static final int MIGRATION_BATCH_SIZE = 500;
+  private static final int OFFLINE_CACHE_SIZE = 64;
+  private static final long OFFLINE_CACHE_TTL_NANOS = TimeUnit.SECONDS.toNanos(60);
+  private static final long NAME_INDEX_SAVE_INTERVAL = 6000;
+  private static final int TRANSFER_BATCH_SIZE = 500;
+  private static final int TRANSFER_PROGRESS_INTERVAL = 10000;
+  private static final long TRANSFER_MIN_SLEEP_MILLIS = 10;
+
   private final Jobs plugin;
   private final Map<String, JobEntity> jobs;
-  private final File dataFile;
-  private final FileConfiguration dataConfig;
+  private final MetricsManager metricsManager;
+  private final String storageType;
+  private final PlayerDataStore store;
+
+  private final Map<UUID, PlayerEntity> cache;
+  private final Set<UUID> preloaded = ConcurrentHashMap.newKeySet();
+  private final LongAdder cacheHits = new LongAdder();
+  private final LongAdder cacheMisses = new LongAdder();
+  private final Map<UUID, OfflineEntry> offlineCache;
+  private final PlayerNameIndex nameIndex;
+  private final XpJournal journal;
+  private volatile long journalCheckpoint;
+
+  private final Map<UUID, PlayerEntity> dirtyPlayers;
+  private final Map<UUID, PlayerEntity> pendingWrites;
+  private final AtomicBoolean writeScheduled;
+  private volatile boolean writeFailed;
+  private final int flushThreshold;
+  private final ExecutorService ioExecutor;
+  private final ExecutorService transferExecutor;
+  private final AtomicBoolean transferRunning = new AtomicBoolean();
+  private volatile boolean importRunning;
+  private final int transferRate;
+  private final BukkitTask flushTask;
+  private final BukkitTask nameIndexTask;
+
+  private final AtomicLong flushCount = new AtomicLong();
+  private final AtomicLong totalFlushNanos = new AtomicLong();
+  private final AtomicLong lastFlushNanos = new AtomicLong();
+  private final AtomicLong maxFlushNanos = new AtomicLong();
 
-  public PlayerDataManager(Jobs plugin, Map<String, JobEntity> jobs) {
+  public PlayerDataManager(
+      Jobs plugin, Map<String, JobEntity> jobs, MetricsManager metricsManager) {
     this.plugin = plugin;
     this.jobs = jobs;
-    this.dataFile = new File(plugin.getDataFolder(), "data.yml");
-    this.dataConfig = YamlConfiguration.loadConfiguration(dataFile);
+    this.metricsManager = metricsManager;
+    String type = plugin.getConfig().getString("storage.type", "yaml").toLowerCase(Locale.ROOT);
+    if (!STORAGE_TYPES.contains(type)) {
+      plugin.getLogger().warning("[Jobs] Unknown storage type " + type + ", using yaml.");
+      type = "yaml";
+    }
+    this.storageType = type;
+
+    Runtime runtime = Runtime.getRuntime();
+    long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+    long openStart = System.nanoTime();
+    try {
+      this.store = this.openStore(this.storageType);
+    } catch (IOException e) {
+      throw new RuntimeException("Unable to open " + this.storageType + " player storage", e);
+    }
+    plugin
+        .getLogger()
+        .info(
+            String.format(
+                Locale.ROOT,
+                "[Jobs] Using %s player storage, opened in %d ms (heap %+d MB, %d MB used).",
+                this.storageType,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - openStart),
+                (runtime.totalMemory() - runtime.freeMemory() - heapBefore) >> 20,
+                (runtime.totalMemory() - runtime.freeMemory()) >> 20));
+
+    try {
+      this.nameIndex = new PlayerNameIndex(new File(plugin.getDataFolder(), "names.txt").toPath());
+    } catch (IOException e) {
+      throw new RuntimeException("Unable to read the player name index", e);
+    }
+
+    try {
+      this.journal = this.openJournal();
+    } catch (IOException e) {
+      throw new RuntimeException("Unable to replay the XP journal", e);
+    }
+
+    this.cache = new ConcurrentHashMap<>();
+    this.offlineCache =
+        Collections.synchronizedMap(
+            new LinkedHashMap<>(OFFLINE_CACHE_SIZE, 0.75f, true) {
+              @Override
+              protected boolean removeEldestEntry(Map.Entry<UUID, OfflineEntry> eldest) {
+                return this.size() > OFFLINE_CACHE_SIZE;
+              }
+            });
+    this.dirtyPlayers = new ConcurrentHashMap<>();
+    this.pendingWrites = new ConcurrentHashMap<>();
+    this.writeScheduled = new AtomicBoolean();
+    this.flushThreshold = Math.max(1, plugin.getConfig().getInt("storage.flush-threshold", 50));
+    this.ioExecutor = Executors.newSingleThreadExecutor(r -> new Thread(r, "Jobs-Storage"));
+    this.transferExecutor =
+        Executors.newSingleThreadExecutor(r -> new Thread(r, "Jobs-Transfer"));
+    this.transferRate = Math.max(0, plugin.getConfig().getInt("storage.transfer.rate", 2000));
+
+    long flushInterval = Math.max(1, plugin.getConfig().getLong("storage.flush-interval", 100));
+    this.flushTask =
+        Bukkit.getScheduler().runTaskTimer(plugin, this::flush, flushInterval, flushInterval);
+    this.nameIndexTask =
+        Bukkit.getScheduler()
+            .runTaskTimer(
+                plugin,
+                () -> this.ioExecutor.execute(this::saveNameIndex),
+                NAME_INDEX_SAVE_INTERVAL,
+                NAME_INDEX_SAVE_INTERVAL);
+  }
+
+  /**
+   * Returns the storage type selected in config.yml, as used to create the store.
+   *
+   * @return the lowercase storage type: {@code yaml}, {@code sharded}, {@code sqlite}, {@code
+   *     binary} or {@code shared}
+   */
+  public String getStorageType() {
+    return this.storageType;
   }
 
   /**
-   * Retrieves the player data for the given player by loading it from persistent storage.
+   * Retrieves the player data for the given player from the session cache. If the player is not
+   * cached yet, the data is loaded from the store and cached until the player quits.
    *
    * @param player the {@code Player} object representing the player whose data is being retrieved
    * @return a {@code PlayerEntity} object containing the player's data, including job XP and levels
    */
   public PlayerEntity getPlayerEntity(Player player) {
-    return this.loadPlayerEntity(player);
+    PlayerEntity playerData = this.cache.get(player.getUniqueId());
+    if (playerData != null) {
+      this.cacheHits.increment();
+      return playerData;
+    }
+
+    this.cacheMisses.increment();
+    try {
+      playerData = this.loadPlayerEntity(player.getUniqueId(), true);
+    } catch (IOException e) {
+      plugin
+          .getLogger()
+          .severe("[Jobs] Unable to load player data for " + player.getName() + ": " + e);
+      playerData = new PlayerEntity(player.getUniqueId(), this.jobs.size());
+    }
+
+    playerData.setPlayer(player);
+    PlayerEntity loaded = this.cache.putIfAbsent(player.getUniqueId(), playerData);
+    return loaded != null ? loaded : playerData;
+  }
+
+  /**
+   * Returns the data of a player from the session cache, without loading it.
+   *
+   * @param uuid the UUID of the player
+   * @return the player's data, or {@code null} if the player is not in memory
+   */
+  public PlayerEntity getLoadedPlayer(UUID uuid) {
+    return this.cache.get(uuid);
+  }
+
+  /**
+   * Loads the data of a player who is logging in and puts it in the session cache. Called from the
+   * asynchronous pre-login event so the main thread never waits on storage. A player still
+   * connected from another session keeps their data in memory, which is newer than the stored one.
+   * Only data inserted here is removed by {@link #discardPreload(UUID)} if the login is refused.
+   *
+   * @param uuid the UUID of the player who is logging in
+   * @return {@code true} if the data was loaded, {@code false} if the store could not be read
+   */
+  public boolean preloadPlayerEntity(UUID uuid) {
+    this.offlineCache.remove(uuid);
+    if (this.cache.containsKey(uuid)) {
+      return true;
+    }
+
+    try {
+      if (this.cache.putIfAbsent(uuid, this.loadPlayerEntity(uuid, true)) == null) {
+        this.preloaded.add(uuid);
+      }
+      return true;
+    } catch (IOException e) {
+      plugin.getLogger().severe("[Jobs] Unable to preload player data for " + uuid + ": " + e);
+      return false;
+    }
+  }
+
+  /**
+   * Evicts the data preloaded for a login that was refused. Data kept in memory for a session that
+   * is still connected was not inserted by the preload and stays in the session cache.
+   *
+   * @param uuid the UUID of the player whose login was refused
+   */
+  public void discardPreload(UUID uuid) {
+    if (this.preloaded.remove(uuid)) {
+      this.unloadPlayer(uuid);
+    }
+  }
+
+  /**
+   * Returns the index of player names, updated when players join.
+   *
+   * @return the player name index
+   */
+  public PlayerNameIndex getNameIndex() {
+    return this.nameIndex;
+  }
+
+  /**
+   * Loads the data of a player who may be offline, without blocking the main thread. Connected
+   * players are served from the session cache. Others are served from the offline cache if they
+   * were viewed recently, or read from the store on the I/O thread.
+   *
+   * @param uuid the UUID of the player
+   * @return a future completed with the data of the player, flagged with {@link
+   *     PlayerEntity#isNew()} if the player has no stored data. The entity must not be modified.
+   */
+  public CompletableFuture<PlayerEntity> loadOfflinePlayer(UUID uuid) {
+    PlayerEntity online = this.cache.get(uuid);
+    if (online != null) {
+      return CompletableFuture.completedFuture(online);
+    }
+
+    OfflineEntry cached = this.offlineCache.get(uuid);
+    if (cached != null && System.nanoTime() - cached.loadedAt < OFFLINE_CACHE_TTL_NANOS) {
+      return CompletableFuture.completedFuture(cached.playerData);
+    }
+
+    return CompletableFuture.supplyAsync(
+        () -> {
+          try {
+            PlayerEntity playerData = this.loadPlayerEntity(uuid, false);
+            this.offlineCache.put(uuid, new OfflineEntry(playerData, System.nanoTime()));
+            return playerData;
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        },
+        this.ioExecutor);
+  }
+
+  /**
+   * Removes a player from the session cache after writing their pending data. Called when the
+   * player quits or when their login is refused after the data was preloaded. With a shared
+   * storage only this player is written, see {@link #handOff(PlayerEntity)}.
+   *
+   * @param uuid the UUID of the player to evict
+   */
+  public void unloadPlayer(UUID uuid) {
+    PlayerEntity playerData = this.cache.remove(uuid);
+
+    if (playerData != null && this.store.isShared()) {
+      this.handOff(playerData);
+    } else if (playerData != null && this.dirtyPlayers.containsKey(uuid)) {
+      this.flush();
+    }
   }
 
   /**
-   * Saves the player data, including job XP and levels, to persistent storage.
+   * Returns the players currently held in the session cache. The collection is a live view.
+   *
+   * @return the players in memory
+   */
+  public Collection<PlayerEntity> getLoadedPlayers() {
+    return this.cache.values();
+  }
+
+  /**
+   * Returns the number of {@link #getPlayerEntity(Player)} calls served from the session cache.
+   *
+   * @return the cache hit count
+   */
+  public long getCacheHits() {
+    return this.cacheHits.sum();
+  }
+
+  /**
+   * Returns the number of {@link #getPlayerEntity(Player)} calls that had to load from storage.
+   *
+   * @return the cache miss count
+   */
+  public long getCacheMisses() {
+    return this.cacheMisses.sum();
+  }
+
+  /**
+   * Marks the player data as modified. The data is written to the store by the next {@link
+   * #flush()}, which happens at the configured interval or once enough players are dirty.
    *
    * @param playerData the {@code PlayerEntity} object representing the player whose data needs to
    *     be saved
    */
   public void savePlayerEntity(PlayerEntity playerData) {
-    UUID uuid = playerData.getPlayer().getUniqueId();
-    ConfigurationSection playerSection = dataConfig.createSection("players." + uuid);
+    this.dirtyPlayers.put(playerData.getUuid(), playerData);
 
-    Map<String, Integer> jobsXp = playerData.getAllJobsXp();
-    Map<String, Integer> jobsTotalXp = playerData.getJobxTotalXpMap();
-    Map<String, Integer> jobsLevels = playerData.getAllJobsLevels();
+    if (this.dirtyPlayers.size() >= this.flushThreshold && !this.store.isShared()) {
+      this.flush();
+    }
+  }
 
-    for (JobEntity jobEntity : this.jobs.values()) {
-      ConfigurationSection jobSection = playerSection.createSection(jobEntity.getId());
+  /**
+   * Records an XP gain in the journal, so that it survives a crash before the next save. Must be
+   * called after the player was marked as modified with {@link #savePlayerEntity(PlayerEntity)}.
+   *
+   * @param playerData the player who gained XP
+   * @param jobEntity the job in which the XP was gained
+   * @param xp the XP gained
+   */
+  public void journalXp(PlayerEntity playerData, JobEntity jobEntity, int xp) {
+    if (this.journal != null) {
+      int job = jobEntity.getOrdinal();
+      this.journal.append(playerData.getUuid(), job, xp, playerData.getJobTotalXp(job));
+    }
+  }
+
+  /**
+   * Snapshots every dirty player and hands the batch to the I/O thread. Snapshots still waiting to
+   * be written are replaced by newer ones, so a player is written at most once per batch. Flushes
+   * are serialized, so an older snapshot never replaces a newer one.
+   */
+  public synchronized void flush() {
+    if (this.dirtyPlayers.isEmpty() && !this.writeFailed) {
+      return;
+    }
+
+    long start = System.nanoTime();
+    long sealedSegment = this.journal != null ? this.journal.rotateIfFull() : 0;
+    this.snapshotDirtyPlayers();
+
+    // Every gain of the sealed segments is now in a pending snapshot or already stored
+    this.journalCheckpoint = sealedSegment;
+    this.scheduleWrite(start);
+  }
+
+  /** Moves the dirty players to the pending writes, as snapshots. */
+  private void snapshotDirtyPlayers() {
+    for (UUID uuid : this.dirtyPlayers.keySet()) {
+      PlayerEntity playerData = this.dirtyPlayers.remove(uuid);
+      if (playerData != null) {
+        this.pendingWrites.put(uuid, playerData.copy());
+      }
+    }
+  }
+
+  /**
+   * Hands the pending snapshots to the I/O thread, unless a write is already waiting to start.
+   *
+   * @param start the {@link System#nanoTime()} at which the flush started, used for metrics
+   */
+  private void scheduleWrite(long start) {
+    if (this.writeScheduled.compareAndSet(false, true)) {
+      this.ioExecutor.execute(() -> this.writePending(start));
+    }
+  }
+
+  /**
+   * Snapshots a player who quits a shared storage and writes the snapshot on its own on the I/O
+   * thread, without waiting for the next flush or for the other dirty players.
+   *
+   * @param playerData the player who quit
+   */
+  private synchronized void handOff(PlayerEntity playerData) {
+    UUID uuid = playerData.getUuid();
+
+    if (this.dirtyPlayers.remove(uuid) != null) {
+      this.pendingWrites.put(uuid, playerData.copy());
+    }
+    this.ioExecutor.execute(() -> this.writeHandOff(uuid));
+  }
+
+  /**
+   * Flushes all pending data, waits for the I/O thread to finish writing it and closes the store.
+   * Called when the plugin is disabled so no progress is lost.
+   */
+  public void shutdown() {
+    this.flushTask.cancel();
+    this.nameIndexTask.cancel();
+    this.transferExecutor.shutdownNow();
+    this.flush();
+    this.ioExecutor.execute(this::saveNameIndex);
+    this.ioExecutor.shutdown();
+
+    try {
+      if (!this.ioExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+        plugin.getLogger().severe("[Jobs] Timed out while saving player data!");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    try {
+      this.store.close();
+    } catch (IOException e) {
+      plugin.getLogger().severe("[Jobs] Unable to close player storage: " + e.getMessage());
+    }
+
+    if (this.journal != null) {
+      try {
+        this.journal.close(this.pendingWrites.isEmpty() && !this.writeFailed);
+      } catch (IOException e) {
+        plugin.getLogger().severe("[Jobs] Unable to close the XP journal: " + e.getMessage());
+      }
+    }
+
+    plugin
+        .getLogger()
+        .info(
+            "[Jobs] Player data saved ("
+                + this.flushCount.get()
+                + " flushes, avg "
+                + this.getAverageFlushMillis()
+                + " ms, max "
+                + TimeUnit.NANOSECONDS.toMillis(this.maxFlushNanos.get())
+                + " ms).");
+  }
+
+  /**
+   * Copies every player of the given store into the active store, in batches, on the I/O thread.
+   * The source store is closed once the copy is done.
+   *
+   * @param source the store to read players from
+   * @return a future completed with the number of migrated players
+   */
+  public CompletableFuture<Integer> migrateFrom(PlayerDataStore source) {
+    return CompletableFuture.supplyAsync(
+        () -> {
+          List<PlayerEntity> batch = new ArrayList<>(MIGRATION_BATCH_SIZE);
+          int[] migrated = {0};
+
+          try (source) {
+            source.forEach(
+                playerData -> {
+                  batch.add(playerData);
+                  if (batch.size() >= MIGRATION_BATCH_SIZE) {
+                    migrated[0] += this.saveBatch(batch);
+                  }
+                });
+            migrated[0] += this.saveBatch(batch);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+
+          return migrated[0];
+        },
+        this.ioExecutor);
+  }
+
+  /**
+   * Tells whether an export or an import is running.
+   *
+   * @return {@code true} if a transfer is running
+   */
+  public boolean isTransferRunning() {
+    return this.transferRunning.get();
+  }
+
+  /**
+   * Tells whether an import is running. Players may not log in meanwhile, since the progress they
+   * would load could be replaced by the import.
+   *
+   * @return {@code true} if an import is running
+   */
+  public boolean isImportRunning() {
+    return this.importRunning;
+  }
 
-      jobSection.set("xp", jobsXp.getOrDefault(jobEntity.getId(), 0));
-      jobSection.set("totalXp", jobsTotalXp.getOrDefault(jobEntity.getId(), 0));
-      jobSection.set("level", jobsLevels.getOrDefault(jobEntity.getId(), 1));
+  /**
+   * Writes every stored player to an export file on the transfer thread, at most {@code
+   * storage.transfer.rate} players per second, after flushing the dirty players so that the file is
+   * up to date. The writer is closed once done.
+   *
+   * @param writer the export file
+   * @param progress called on the transfer thread with the number of players written so far, every
+   *     {@value #TRANSFER_PROGRESS_INTERVAL} players
+   * @return a future completed with the number of exported players
+   */
+  public CompletableFuture<Integer> exportTo(ProgressWriter writer, IntConsumer progress) {
+    if (!this.transferRunning.compareAndSet(false, true)) {
+      return CompletableFuture.failedFuture(new IllegalStateException("A transfer is running"));
     }
 
+    this.flush();
+    return CompletableFuture.supplyAsync(
+            () -> {
+              long start = System.nanoTime();
+              int[] exported = {0};
+
+              try (writer) {
+                this.awaitPendingWrites();
+                this.store.forEach(
+                    playerData -> {
+                      try {
+                        writer.write(playerData, this.nameIndex.getName(playerData.getUuid()));
+                        if (++exported[0] % TRANSFER_BATCH_SIZE == 0) {
+                          this.throttle(exported[0], start);
+                        }
+                      } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                      }
+
+                      if (exported[0] % TRANSFER_PROGRESS_INTERVAL == 0) {
+                        progress.accept(exported[0]);
+                      }
+                    });
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              }
+
+              return exported[0];
+            },
+            this.transferExecutor)
+        .whenComplete((exported, error) -> this.transferRunning.set(false));
+  }
+
+  /**
+   * Imports the players of an export file on the transfer thread, replacing their stored progress
+   * in the jobs the file lists. Players are queued as pending writes and written by the I/O thread
+   * in batches of {@value #TRANSFER_BATCH_SIZE}, at most {@code storage.transfer.rate} players per
+   * second. Players connected to this server are skipped, since their progress in memory would
+   * overwrite the imported one. Once every player is written, the XP journal is emptied: its
+   * records hold totals from before the import, which a replay would otherwise restore. The reader
+   * is closed once done.
+   *
+   * @param reader the export file
+   * @param progress called on the transfer thread with the number of players read so far, every
+   *     {@value #TRANSFER_PROGRESS_INTERVAL} players
+   * @return a future completed with the number of imported players once they are all written
+   */
+  public CompletableFuture<Integer> importFrom(ProgressReader reader, IntConsumer progress) {
+    if (!this.transferRunning.compareAndSet(false, true)) {
+      return CompletableFuture.failedFuture(new IllegalStateException("A transfer is running"));
+    }
+
+    this.importRunning = true;
+    return CompletableFuture.supplyAsync(
+            () -> {
+              try (reader) {
+                long start = System.nanoTime();
+                int imported = 0;
+                PlayerEntity playerData;
+
+                while ((playerData = reader.next(uuid -> this.loadPlayerEntity(uuid, false)))
+                    != null) {
+                  UUID uuid = playerData.getUuid();
+                  if (this.cache.containsKey(uuid)) {
+                    plugin
+                        .getLogger()
+                        .warning("[Jobs] Player " + uuid + " is connected, not imported.");
+                    continue;
+                  }
+
+                  this.offlineCache.remove(uuid);
+                  this.pendingWrites.put(uuid, playerData);
+
+                  if (++imported % TRANSFER_BATCH_SIZE == 0) {
+                    this.awaitPendingWrites();
+                    this.throttle(imported, start);
+                  }
+                  if (imported % TRANSFER_PROGRESS_INTERVAL == 0) {
+                    progress.accept(imported);
+                  }
+                }
+
+                if (this.journal == null) {
+                  this.awaitPendingWrites();
+                } else {
+                  long sealedSegment = this.sealJournal();
+                  this.awaitPendingWrites();
+                  this.journal.deleteThrough(sealedSegment);
+                }
+                return imported;
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              }
+            },
+            this.transferExecutor)
+        .whenComplete(
+            (imported, error) -> {
+              this.importRunning = false;
+              this.transferRunning.set(false);
+            });
+  }
+
+  /**
+   * Ends the current journal segment and queues every dirty player, like a flush. Once the pending
+   * writes are done, the store holds every gain of the ended segments, which can then be deleted.
+   *
+   * @return the number of the newest ended segment
+   */
+  private synchronized long sealJournal() {
+    long sealedSegment = this.journal.rotate();
+    this.snapshotDirtyPlayers();
+    this.journalCheckpoint = sealedSegment;
+    return sealedSegment;
+  }
+
+  /**
+   * Writes the pending snapshots and waits until the I/O thread is done with them. Called from the
+   * transfer thread, so that an import never queues more than one batch and an export reads the
+   * latest progress.
+   *
+   * @throws IOException if the snapshots could not be written or the wait was interrupted
+   */
+  private void awaitPendingWrites() throws IOException {
+    this.scheduleWrite(System.nanoTime());
+
     try {
-      dataConfig.save(dataFile);
+      // Runs after the write scheduled above, or after the one already waiting to start
+      CompletableFuture.runAsync(() -> {}, this.ioExecutor).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Transfer interrupted", e);
+    } catch (ExecutionException e) {
+      throw new IOException("Transfer interrupted", e.getCause());
+    }
+
+    if (this.writeFailed) {
+      throw new IOException("Unable to write pending players, they are retried by the next flush");
+    }
+  }
+
+  /**
+   * Sleeps as long as the transfer is ahead of {@code storage.transfer.rate}.
+   *
+   * @param transferred the number of players transferred so far
+   * @param start the {@link System#nanoTime()} at which the transfer started
+   * @throws IOException if the sleep was interrupted
+   */
+  private void throttle(int transferred, long start) throws IOException {
+    if (this.transferRate == 0) {
+      return;
+    }
+
+    long elapsed = System.nanoTime() - start;
+    long ahead = TimeUnit.SECONDS.toNanos(transferred) / this.transferRate - elapsed;
+    if (ahead > TimeUnit.MILLISECONDS.toNanos(TRANSFER_MIN_SLEEP_MILLIS)) {
+      try {
+        TimeUnit.NANOSECONDS.sleep(ahead);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Transfer interrupted", e);
+      }
+    }
+  }
+
+  /**
+   * Streams every player of the active store to the consumer, on the I/O thread. Players that are
+   * being written are read as they are in the store, not as they are in memory.
+   *
+   * @param consumer the consumer receiving each stored player, called on the I/O thread
+   * @return a future completed once every player was read
+   */
+  public CompletableFuture<Void> forEachStored(Consumer<PlayerEntity> consumer) {
+    return CompletableFuture.runAsync(
+        () -> {
+          try {
+            this.store.forEach(consumer);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        },
+        this.ioExecutor);
+  }
+
+  /**
+   * Compares every player of the given store with the active store, on the I/O thread, and runs
+   * the integrity checks of the active store. Used after a migration to make sure nothing was lost.
+   * The source store is closed once the comparison is done.
+   *
+   * @param source the store holding the expected data
+   * @return a future completed with a description of each difference or problem found
+   */
+  public CompletableFuture<List<String>> verifyAgainst(PlayerDataStore source) {
+    return CompletableFuture.supplyAsync(
+        () -> {
+          try (source) {
+            List<String> problems = new ArrayList<>(this.store.checkIntegrity());
+            source.forEach(expected -> this.compare(expected, problems));
+            return problems;
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        },
+        this.ioExecutor);
+  }
+
+  /**
+   * Returns the number of players waiting to be written, either dirty on the main thread or
+   * snapshotted for the I/O thread.
+   *
+   * @return the number of players with unsaved changes
+   */
+  public int getQueueDepth() {
+    return this.dirtyPlayers.size() + this.pendingWrites.size();
+  }
+
+  /**
+   * Returns the duration of the last completed flush, from the snapshot until the data was written
+   * to the store.
+   *
+   * @return the last flush latency in milliseconds
+   */
+  public long getLastFlushMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(this.lastFlushNanos.get());
+  }
+
+  /**
+   * Returns the average duration of all completed flushes.
+   *
+   * @return the average flush latency in milliseconds, or 0 if nothing was flushed yet
+   */
+  public long getAverageFlushMillis() {
+    long count = this.flushCount.get();
+    return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(this.totalFlushNanos.get() / count);
+  }
+
+  /**
+   * Writes the pending snapshots to the store. Runs on the I/O thread. Snapshots are only removed
+   * once written, so loads keep seeing them in the meantime and a failed write is retried by the
+   * next flush.
+   *
+   * @param start the {@link System#nanoTime()} at which the flush started, used for metrics
+   */
+  private void writePending(long start) {
+    this.writeScheduled.set(false);
+    long checkpoint = this.journalCheckpoint;
+
+    List<PlayerEntity> batch = new ArrayList<>(this.pendingWrites.values());
+    if (batch.isEmpty()) {
+      return;
+    }
+
+    try {
+      long saveStart = System.nanoTime();
+      this.store.saveAll(batch);
+      this.metricsManager.recordPlayerSave(System.nanoTime() - saveStart);
+      this.writeFailed = false;
     } catch (IOException e) {
+      this.writeFailed = true;
+      plugin.getLogger().severe("[Jobs] Unable to save player data: " + e.getMessage());
+      return;
+    }
+
+    for (PlayerEntity playerData : batch) {
+      this.pendingWrites.remove(playerData.getUuid(), playerData);
+      this.releaseIfGone(playerData.getUuid());
+    }
+    if (this.journal != null) {
+      this.journal.deleteThrough(checkpoint);
+    }
+
+    long elapsed = System.nanoTime() - start;
+    this.flushCount.incrementAndGet();
+    this.totalFlushNanos.addAndGet(elapsed);
+    this.lastFlushNanos.set(elapsed);
+    this.maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+  }
+
+  /**
+   * Writes the snapshot of a player handed off to the next server. Runs on the I/O thread. A
+   * failed write is retried by the next flush.
+   *
+   * @param uuid the UUID of the player who quit
+   */
+  private void writeHandOff(UUID uuid) {
+    PlayerEntity snapshot = this.pendingWrites.get(uuid);
+
+    if (snapshot != null) {
+      try {
+        long saveStart = System.nanoTime();
+        this.store.saveAll(List.of(snapshot));
+        this.metricsManager.recordPlayerSave(System.nanoTime() - saveStart);
+      } catch (IOException e) {
+        this.writeFailed = true;
+        plugin.getLogger().severe("[Jobs] Unable to hand off player " + uuid + ": " + e);
+        return;
+      }
+      this.pendingWrites.remove(uuid, snapshot);
+    }
+
+    this.releaseIfGone(uuid);
+  }
+
+  /**
+   * Lets a shared store forget a player once they left and all their data was written.
+   *
+   * @param uuid the UUID of the player
+   */
+  private void releaseIfGone(UUID uuid) {
+    if (this.store.isShared()
+        && !this.cache.containsKey(uuid)
+        && !this.dirtyPlayers.containsKey(uuid)
+        && !this.pendingWrites.containsKey(uuid)) {
+      this.store.release(uuid);
+    }
+  }
+
+  /**
+   * Opens the XP journal if it is enabled, then replays into the store the gains journaled by the
+   * previous run that the store is missing, and deletes the replayed segments. A shared store never
+   * gets a journal: other servers also raise the stored totals, so comparing them with the totals
+   * journaled here would drop or duplicate XP.
+   *
+   * @return the opened journal, or {@code null} if it is disabled
+   * @throws IOException if the journal could not be read or the replayed players saved
+   */
+  private XpJournal openJournal() throws IOException {
+    if (!plugin.getConfig().getBoolean("storage.journal.enabled", true)) {
+      return null;
+    }
+    if (this.store.isShared()) {
       plugin
           .getLogger()
-          .severe("[Jobs] Unable to save player data for " + uuid + ": " + e.getMessage());
+          .info("[Jobs] XP journal disabled: the shared storage is also written by other servers.");
+      return null;
     }
+
+    XpJournal opened =
+        new XpJournal(
+            new File(plugin.getDataFolder(), "journal").toPath(),
+            List.copyOf(this.jobs.keySet()),
+            plugin.getConfig().getBoolean("storage.journal.fsync", false),
+            plugin.getConfig().getLong("storage.journal.segment-size", 1024) * 1024,
+            e -> plugin.getLogger().severe("[Jobs] Unable to write the XP journal: " + e));
+
+    List<PlayerEntity> replayed = new ArrayList<>();
+    for (Map.Entry<UUID, int[]> entry : opened.readLatestTotals().entrySet()) {
+      PlayerEntity playerData = this.store.load(entry.getKey());
+      if (this.replayTotals(playerData, entry.getValue())) {
+        replayed.add(playerData);
+      }
+    }
+
+    if (!replayed.isEmpty()) {
+      this.store.saveAll(replayed);
+      plugin
+          .getLogger()
+          .info("[Jobs] Restored XP from the journal for " + replayed.size() + " players.");
+    }
+    opened.deleteThrough(opened.rotateIfFull());
+    return opened;
   }
 
   /**
-   * Loads the player data from a configuration section, including the job XP and levels, and
-   * initializes a {@code PlayerEntity} object for the specified player.
+   * Adds to a stored player the XP journaled after its last save. Total XP only grows, so the XP
+   * missing in each job is the difference between the journaled and the stored totals.
    *
-   * @param player the {@code Player} object representing the player whose data is being loaded
-   * @return a {@code PlayerEntity} object containing the loaded player data, including their job XP
-   *     and levels
+   * @param playerData the stored player
+   * @param totals the highest journaled total XP per job ordinal
+   * @return {@code true} if the player was missing XP in at least one job
    */
-  private PlayerEntity loadPlayerEntity(Player player) {
-    UUID uuid = player.getUniqueId();
-    ConfigurationSection playerSection = dataConfig.getConfigurationSection("players." + uuid);
+  private boolean replayTotals(PlayerEntity playerData, int[] totals) {
+    boolean changed = false;
 
-    PlayerEntity playerData = new PlayerEntity(player);
+    synchronized (playerData) {
+      for (JobEntity jobEntity : this.jobs.values()) {
+        int job = jobEntity.getOrdinal();
+        int missingXp = totals[job] - playerData.getJobTotalXp(job);
 
-    if (playerSection == null) {
-      return playerData;
+        if (missingXp > 0) {
+          playerData.addJobTotalXp(job, missingXp);
+          LevelManager.addProgress(jobEntity, missingXp, playerData, Integer.MAX_VALUE);
+          changed = true;
+        }
+      }
+    }
+
+    return changed;
+  }
+
+  /** Writes the player name index if it changed. Runs on the I/O thread. */
+  private void saveNameIndex() {
+    try {
+      this.nameIndex.save();
+    } catch (IOException e) {
+      plugin.getLogger().severe("[Jobs] Unable to save player names: " + e.getMessage());
     }
+  }
 
-    for (String jobId : playerSection.getKeys(false)) {
-      ConfigurationSection jobSection = playerSection.getConfigurationSection(jobId);
-      if (jobSection != null) {
-        int xp = jobSection.getInt("xp", 0);
-        int totalXp = jobSection.getInt("totalXp", 0);
-        int level = jobSection.getInt("level", 1);
-        playerData.setJobXp(jobId, xp);
-        playerData.setJobTotalXp(jobId, totalXp);
-        playerData.setJobLevel(jobId, level);
+  /**
+   * Writes a migration batch to the active store and clears it.
+   *
+   * @param batch the players to write
+   * @return the number of players written
+   */
+  private int saveBatch(List<PlayerEntity> batch) {
+    int size = batch.size();
+
+    try {
+      this.store.saveAll(batch);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    batch.clear();
+    return size;
+  }
+
+  /**
+   * Compares the stored progress of a player with the expected progress, for every configured job.
+   *
+   * @param expected the expected progress
+   * @param problems the list receiving a description of each difference
+   */
+  private void compare(PlayerEntity expected, List<String> problems) {
+    PlayerEntity actual;
+    try {
+      actual = this.store.load(expected.getUuid());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    if (actual.isNew()) {
+      problems.add("Missing player " + expected.getUuid());
+      return;
+    }
+
+    for (JobEntity jobEntity : this.jobs.values()) {
+      int job = jobEntity.getOrdinal();
+      if (actual.getJobXp(job) != expected.getJobXp(job)
+          || actual.getJobTotalXp(job) != expected.getJobTotalXp(job)
+          || actual.getJobLevel(job) != expected.getJobLevel(job)) {
+        problems.add("Different " + jobEntity.getId() + " progress for " + expected.getUuid());
       }
     }
+  }
+
+  /**
+   * Loads the player data, preferring a snapshot that is still waiting to be written over the
+   * stored data. Safe to call from any thread.
+   *
+   * @param uuid the UUID of the player whose data is being loaded
+   * @param session {@code true} if the player is joining and will stay in the session cache, so
+   *     that a shared store keeps track of them until they are released
+   * @return a {@code PlayerEntity} object containing the loaded player data, including their job XP
+   *     and levels
+   * @throws IOException if the store could not be read
+   */
+  private PlayerEntity loadPlayerEntity(UUID uuid, boolean session) throws IOException {
+    PlayerEntity pending = this.pendingWrites.get(uuid);
+    if (pending != null) {
+      return pending.copy();
+    }
 
+    long start = System.nanoTime();
+    PlayerEntity playerData = session ? this.store.loadSession(uuid) : this.store.load(uuid);
+    this.metricsManager.recordPlayerLoad(System.nanoTime() - start);
     return playerData;
   }
 
   /**
-   * Initializes player data by checking if existing data is available and creating new data if
-   * necessary. If the player's data does not exist in the configuration, it initializes and saves
-   * it.
+   * Opens the store for the given storage type, using the file locations from config.yml. Besides
+   * the active store, used to open the source of a migration.
+   *
+   * @param type the storage type, as in {@code storage.type}
+   * @return the opened store
+   * @throws IOException if the store could not be opened
+   */
+  public PlayerDataStore openStore(String type) throws IOException {
+    File dataFolder = plugin.getDataFolder();
+
+    return switch (type) {
+      case "sqlite" -> {
+        String fileName = plugin.getConfig().getString("storage.sqlite.file", "data.db");
+        String url = "jdbc:sqlite:" + new File(dataFolder, fileName).getAbsolutePath();
+        yield new SqlPlayerDataStore(url, this.jobs);
+      }
+      case "sharded" -> {
+        String folderName = plugin.getConfig().getString("storage.sharded.folder", "players");
+        Path folder = new File(dataFolder, folderName).toPath();
+        yield new ShardedYamlPlayerDataStore(folder, this.jobs);
+      }
+      case "binary" -> {
+        String fileName = plugin.getConfig().getString("storage.binary.file", "progress.dat");
+        Path file = new File(dataFolder, fileName).toPath();
+        yield new BinaryPlayerDataStore(file, this.jobs);
+      }
+      case "shared" -> {
+        String driver = plugin.getConfig().getString("storage.shared.driver", "");
+        if (!driver.isEmpty()) {
+          try {
+            Class.forName(driver);
+          } catch (ClassNotFoundException e) {
+            throw new IOException("JDBC driver " + driver + " not found", e);
+          }
+        }
+        yield new SharedSqlPlayerDataStore(
+            plugin.getConfig().getString("storage.shared.url", ""),
+            plugin.getConfig().getString("storage.shared.user", ""),
+            plugin.getConfig().getString("storage.shared.password", ""),
+            this.jobs);
+      }
+      case "yaml" -> new YamlPlayerDataStore(new File(dataFolder, "data.yml"), this.jobs);
+      default -> throw new IOException("Unknown storage type " + type);
+    };
+  }
+
+  /**
+   * Initializes player data when the player joins. The data preloaded at login is attached to the
+   * player, or loaded now if the preload did not happen. If the player has no stored data yet, it
+   * initializes and saves it.
    *
    * @param player the {@code Player} object representing the player whose data needs to be
    *     initialized
    */
   public void initDataPlayer(Player player) {
-    UUID uuid = player.getUniqueId();
-    ConfigurationSection playerSection = dataConfig.getConfigurationSection("players." + uuid);
+    this.preloaded.remove(player.getUniqueId());
+    PlayerEntity playerData = this.getPlayerEntity(player);
+    playerData.setPlayer(player);
+    this.nameIndex.update(player.getUniqueId(), player.getName());
 
-    if (playerSection == null) {
+    if (playerData.isNew()) {
       Bukkit.getLogger().info("[Jobs] Initialize data for " + player.getName());
-      savePlayerEntity(new PlayerEntity(player));
+      playerData.setNew(false);
+      savePlayerEntity(playerData);
+    }
+  }
+
+  /** A player loaded while offline, with the time at which it was read. */
+  private static final class OfflineEntry {
+    private final PlayerEntity playerData;
+    private final long loadedAt;
+
+    private OfflineEntry(PlayerEntity playerData, long loadedAt) {
+      this.playerData = playerData;
+      this.loadedAt = loadedAt;
     }
   }
 }
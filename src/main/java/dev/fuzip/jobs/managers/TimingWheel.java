@@ -0,0 +1,91 @@
+package dev.fuzip.jobs.managers;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel: a ring of buckets advanced one step at a time. An item due in {@code d}
+ * steps goes into the bucket {@code d} steps ahead, with the number of full turns left before it
+ * is due. Scheduling is O(1) and each step only visits the items of one bucket, whatever the
+ * number of scheduled items and however far ahead they are due.
+ *
+ * <p>Not thread-safe: an instance must only be used by one thread at a time.
+ *
+ * @param <T> the type of the scheduled items
+ */
+final class TimingWheel<T> {
+
+  private final List<Entry<T>>[] buckets;
+  private final int mask;
+  private long step;
+
+  /**
+   * Creates a wheel with the given number of buckets, rounded up to a power of two.
+   *
+   * @param size the number of buckets, i.e. the number of steps of one turn
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  TimingWheel(int size) {
+    int capacity = Integer.highestOneBit(Math.max(2, size) - 1) << 1;
+    this.buckets = new List[capacity];
+    for (int i = 0; i < capacity; i++) {
+      this.buckets[i] = new ArrayList<>();
+    }
+    this.mask = capacity - 1;
+  }
+
+  /**
+   * Schedules an item.
+   *
+   * @param item the item
+   * @param delay the number of steps after which the item is due, at least 1
+   */
+  void schedule(T item, long delay) {
+    long steps = Math.max(1, delay);
+    int bucket = (int) ((this.step + steps) & this.mask);
+    this.buckets[bucket].add(new Entry<>(item, (steps - 1) / this.buckets.length));
+  }
+
+  /**
+   * Moves the wheel one step forward and hands every item now due to the consumer.
+   *
+   * @param expired the consumer receiving the due items
+   */
+  void advance(Consumer<T> expired) {
+    this.step++;
+    List<T> due = new ArrayList<>();
+
+    Iterator<Entry<T>> entries = this.buckets[(int) (this.step & this.mask)].iterator();
+    while (entries.hasNext()) {
+      Entry<T> entry = entries.next();
+      if (entry.rounds == 0) {
+        entries.remove();
+        due.add(entry.item);
+      } else {
+        entry.rounds--;
+      }
+    }
+
+    due.forEach(expired);
+  }
+
+  /** Removes every scheduled item. */
+  void clear() {
+    for (List<Entry<T>> bucket : this.buckets) {
+      bucket.clear();
+    }
+  }
+
+  /** A scheduled item and the number of full turns left before it is due. */
+  private static final class Entry<T> {
+    private final T item;
+    private long rounds;
+
+    private Entry(T item, long rounds) {
+      this.item = item;
+      this.rounds = rounds;
+    }
+  }
+}
@@ -0,0 +1,567 @@
+package dev.fuzip.jobs.storage;
+
+import dev.fuzip.jobs.entities.JobEntity;
+import dev.fuzip.jobs.entities.PlayerEntity;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Stores player progress as fixed-size binary records in a memory-mapped file. Saving a player
+ * writes its integers in place, with no serialization step and no rewrite of other players.
+ *
+ * <p>The file starts with a header holding a magic number, the schema version, the number of
+ * records and the list of job IDs, each with a flag telling whether its column holds an XP window.
+ * Each record then contains the player's UUID followed by one (xp, totalXp, level) int triple per
+ * job, in header order. Only jobs with XP caps follow their triple with the job's XP window (see
+ * {@link PlayerEntity#getXpWindow(int)}), so records without caps stay at 12 bytes per job.
+ *
+ * <p>When config.yml gains jobs that are not in the header, a job gains or loses its XP caps, or
+ * the file uses an older schema version, the file is rewritten once with the new layout at
+ * startup; caps enabled by {@code /jobs reload} are therefore stored after the next restart.
+ * Columns of removed jobs are kept untouched, so their progress comes back if the job is
+ * re-added. Each column is resolved to its job ordinal and record offset once, so records are
+ * copied straight into the player's progress arrays.
+ *
+ * <p>The UUID-to-slot index is rebuilt from the records when the file is opened. Deleting a player
+ * moves the last record into the freed slot so records stay contiguous. The mapping doubles when
+ * the slots run out, up to the 2 GB a single mapping can hold; past that, saving a new player
+ * fails with an error asking to use another storage type.
+ */
+public class BinaryPlayerDataStore implements PlayerDataStore {
+
+  /** Version of the binary layout written by this class. */
+  public static final int SCHEMA_VERSION = 3;
+
+  private static final int MAGIC = 0x4A4F4253; // "JOBS"
+  private static final int RECORD_COUNT_OFFSET = 12;
+  private static final int UUID_BYTES = 16;
+  private static final int PROGRESS_BYTES = 12;
+  private static final int WINDOW_BYTES = PlayerEntity.XP_WINDOW_SIZE * 4;
+  private static final int INITIAL_CAPACITY = 1024;
+  private static final int PAGE_SIZE = 500;
+
+  private final Path file;
+  private final List<String> jobIds;
+  private final int[] columnOrdinals;
+  private final boolean[] columnWindows;
+  private final int[] columnOffsets;
+  private final int jobCount;
+  private final int headerSize;
+  private final int recordSize;
+
+  private FileChannel channel;
+  private MappedByteBuffer buffer;
+  private UuidSlotIndex index;
+  private int capacity;
+  private int recordCount;
+  private final List<String> integrityProblems = new ArrayList<>();
+
+  public BinaryPlayerDataStore(Path file, Map<String, JobEntity> jobs) throws IOException {
+    this.file = file;
+    this.jobCount = jobs.size();
+
+    Header stored = Files.exists(file) ? readHeader(file) : null;
+    Set<String> allJobs = new LinkedHashSet<>(stored == null ? List.of() : stored.jobIds);
+    allJobs.addAll(jobs.keySet());
+    this.jobIds = List.copyOf(allJobs);
+    this.columnOrdinals = new int[this.jobIds.size()];
+    this.columnWindows = new boolean[this.jobIds.size()];
+    this.columnOffsets = new int[this.jobIds.size()];
+
+    int offset = UUID_BYTES;
+    for (int column = 0; column < this.columnOrdinals.length; column++) {
+      JobEntity jobEntity = jobs.get(this.jobIds.get(column));
+      this.columnOrdinals[column] = jobEntity == null ? -1 : jobEntity.getOrdinal();
+      // Removed jobs keep their stored layout, so that their column is copied as it is
+      this.columnWindows[column] =
+          jobEntity == null ? stored.hasWindow(column) : jobEntity.getXpCaps().isEnabled();
+      this.columnOffsets[column] = offset;
+      offset += jobBytes(this.columnWindows[column]);
+    }
+    this.headerSize = headerSize(this.jobIds);
+    this.recordSize = offset;
+
+    if (stored == null) {
+      Files.createDirectories(file.getParent());
+      this.create(file, 0);
+    } else if (!stored.matches(this.jobIds, this.columnWindows)) {
+      this.upgrade(stored);
+    }
+
+    this.open();
+  }
+
+  @Override
+  public synchronized PlayerEntity load(UUID uuid) {
+    int slot = this.index.get(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+
+    if (slot < 0) {
+      PlayerEntity playerData = new PlayerEntity(uuid, this.jobCount);
+      playerData.setNew(true);
+      return playerData;
+    }
+
+    return this.readRecord(slot);
+  }
+
+  @Override
+  public void save(PlayerEntity playerData) throws IOException {
+    this.saveAll(List.of(playerData));
+  }
+
+  @Override
+  public synchronized void saveAll(Collection<PlayerEntity> players) throws IOException {
+    for (PlayerEntity playerData : players) {
+      long msb = playerData.getUuid().getMostSignificantBits();
+      long lsb = playerData.getUuid().getLeastSignificantBits();
+      int slot = this.index.get(msb, lsb);
+      boolean created = slot < 0;
+
+      if (created) {
+        if (this.recordCount == this.capacity) {
+          this.grow();
+        }
+
+        slot = this.recordCount++;
+        this.index.put(msb, lsb, slot);
+        this.buffer.putLong(this.recordOffset(slot), msb);
+        this.buffer.putLong(this.recordOffset(slot) + 8, lsb);
+      }
+
+      int record = this.recordOffset(slot);
+      for (int column = 0; column < this.columnOrdinals.length; column++) {
+        int ordinal = this.columnOrdinals[column];
+        int offset = record + this.columnOffsets[column];
+
+        if (ordinal >= 0) {
+          this.buffer.putInt(offset, playerData.getJobXp(ordinal));
+          this.buffer.putInt(offset + 4, playerData.getJobTotalXp(ordinal));
+          this.buffer.putInt(offset + 8, playerData.getJobLevel(ordinal));
+          if (this.columnWindows[column]) {
+            this.putXpWindow(offset + PROGRESS_BYTES, playerData.getXpWindow(ordinal));
+          }
+        } else if (created) {
+          this.buffer.putInt(offset, 0);
+          this.buffer.putInt(offset + 4, 0);
+          this.buffer.putInt(offset + 8, 1);
+          if (this.columnWindows[column]) {
+            this.putXpWindow(offset + PROGRESS_BYTES, null);
+          }
+        }
+      }
+    }
+
+    this.buffer.putInt(RECORD_COUNT_OFFSET, this.recordCount);
+    this.buffer.force();
+  }
+
+  @Override
+  public synchronized void delete(UUID uuid) {
+    int slot = this.index.remove(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    if (slot < 0) {
+      return;
+    }
+
+    int last = --this.recordCount;
+    if (slot != last) {
+      byte[] record = new byte[this.recordSize];
+      this.buffer.get(this.recordOffset(last), record);
+
+      int offset = this.recordOffset(slot);
+      this.buffer.put(offset, record);
+      this.index.put(this.buffer.getLong(offset), this.buffer.getLong(offset + 8), slot);
+    }
+
+    this.buffer.putInt(RECORD_COUNT_OFFSET, this.recordCount);
+    this.buffer.force();
+  }
+
+  /**
+   * Streams the stored players in slot order, {@value #PAGE_SIZE} records per lock. New players
+   * always take the next slot, so they are streamed too. A {@link #delete(UUID)} during the
+   * iteration moves the last record into the freed slot, which may then be skipped.
+   */
+  @Override
+  public void forEach(Consumer<PlayerEntity> consumer) {
+    List<PlayerEntity> page = new ArrayList<>(PAGE_SIZE);
+
+    for (int slot = 0; ; slot += PAGE_SIZE) {
+      synchronized (this) {
+        int end = Math.min(this.recordCount, slot + PAGE_SIZE);
+        for (int i = slot; i < end; i++) {
+          page.add(this.readRecord(i));
+        }
+      }
+
+      if (page.isEmpty()) {
+        return;
+      }
+      page.forEach(consumer);
+      page.clear();
+    }
+  }
+
+  @Override
+  public synchronized List<String> checkIntegrity() {
+    List<String> problems = new ArrayList<>(this.integrityProblems);
+
+    for (int slot = 0; slot < this.recordCount; slot++) {
+      int record = this.recordOffset(slot);
+
+      for (int column = 0; column < this.jobIds.size(); column++) {
+        int offset = record + this.columnOffsets[column];
+        int xp = this.buffer.getInt(offset);
+        int totalXp = this.buffer.getInt(offset + 4);
+        int level = this.buffer.getInt(offset + 8);
+
+        if (xp < 0 || totalXp < 0 || level < 1) {
+          problems.add("Invalid values for job " + this.jobIds.get(column) + " in slot " + slot);
+        }
+      }
+    }
+
+    return problems;
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    this.buffer.force();
+    this.channel.close();
+  }
+
+  /**
+   * Maps the file and rebuilds the UUID index from its records. Duplicate UUIDs are reported by
+   * {@link #checkIntegrity()}, the first record winning.
+   *
+   * @throws IOException if the file is not a valid progress file
+   */
+  private void open() throws IOException {
+    this.channel = FileChannel.open(this.file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+    long dataSize = this.channel.size() - this.headerSize;
+    this.map((int) Math.max(INITIAL_CAPACITY, dataSize / this.recordSize));
+
+    this.recordCount = this.buffer.getInt(RECORD_COUNT_OFFSET);
+    if (this.recordCount < 0 || this.recordCount > this.capacity) {
+      throw new IOException("Invalid record count " + this.recordCount + " in " + this.file);
+    }
+
+    this.index = new UuidSlotIndex(this.recordCount);
+    for (int slot = 0; slot < this.recordCount; slot++) {
+      long msb = this.buffer.getLong(this.recordOffset(slot));
+      long lsb = this.buffer.getLong(this.recordOffset(slot) + 8);
+
+      if (this.index.get(msb, lsb) >= 0) {
+        this.integrityProblems.add(
+            "Duplicate record for " + new UUID(msb, lsb) + " in slot " + slot);
+        continue;
+      }
+      this.index.put(msb, lsb, slot);
+    }
+  }
+
+  /**
+   * Doubles the number of mapped record slots, up to the most a single mapping can hold.
+   *
+   * @throws IOException if the file already holds as many records as can be mapped
+   */
+  private void grow() throws IOException {
+    int maxCapacity = (Integer.MAX_VALUE - this.headerSize) / this.recordSize;
+    if (this.capacity >= maxCapacity) {
+      throw new IOException(
+          "Progress file "
+              + this.file
+              + " is full: "
+              + this.capacity
+              + " players of "
+              + this.recordSize
+              + " bytes reach the 2 GB mapping limit, use another storage type");
+    }
+
+    this.map((int) Math.min(this.capacity * 2L, maxCapacity));
+  }
+
+  /**
+   * Maps the header and the given number of record slots, growing the file if needed.
+   *
+   * @param newCapacity the number of record slots to map
+   * @throws IOException if the file could not be mapped
+   */
+  private void map(int newCapacity) throws IOException {
+    long size = (long) this.headerSize + (long) newCapacity * this.recordSize;
+    if (size > Integer.MAX_VALUE) {
+      throw new IOException("Progress file " + this.file + " cannot grow past 2 GB");
+    }
+
+    this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    this.capacity = newCapacity;
+  }
+
+  private int recordOffset(int slot) {
+    return this.headerSize + slot * this.recordSize;
+  }
+
+  private PlayerEntity readRecord(int slot) {
+    int offset = this.recordOffset(slot);
+    UUID uuid = new UUID(this.buffer.getLong(offset), this.buffer.getLong(offset + 8));
+    PlayerEntity playerData = new PlayerEntity(uuid, this.jobCount);
+
+    int record = offset;
+    for (int column = 0; column < this.columnOrdinals.length; column++) {
+      int ordinal = this.columnOrdinals[column];
+      if (ordinal < 0) {
+        continue;
+      }
+
+      offset = record + this.columnOffsets[column];
+      playerData.setJobXp(ordinal, this.buffer.getInt(offset));
+      playerData.setJobTotalXp(ordinal, this.buffer.getInt(offset + 4));
+      playerData.setJobLevel(ordinal, this.buffer.getInt(offset + 8));
+
+      if (this.columnWindows[column] && this.buffer.getInt(offset + PROGRESS_BYTES) != 0) {
+        int[] window = new int[PlayerEntity.XP_WINDOW_SIZE];
+        for (int i = 0; i < window.length; i++) {
+          window[i] = this.buffer.getInt(offset + PROGRESS_BYTES + i * 4);
+        }
+        playerData.setXpWindow(ordinal, window);
+      }
+    }
+
+    return playerData;
+  }
+
+  /**
+   * Writes the XP window of a job into a record.
+   *
+   * @param offset the position of the window in the buffer
+   * @param window the window, or {@code null} to clear it
+   */
+  private void putXpWindow(int offset, int[] window) {
+    for (int i = 0; i < PlayerEntity.XP_WINDOW_SIZE; i++) {
+      this.buffer.putInt(offset + i * 4, window == null ? 0 : window[i]);
+    }
+  }
+
+  /**
+   * Writes an empty progress file with the current header and the given number of records
+   * reserved.
+   *
+   * @param target the file to create
+   * @param records the record count to write in the header
+   * @throws IOException if the file could not be written
+   */
+  private void create(Path target, int records) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(this.headerSize);
+    header.putInt(MAGIC);
+    header.putInt(SCHEMA_VERSION);
+    header.putInt(this.jobIds.size());
+    header.putInt(records);
+    header.putInt(this.headerSize);
+
+    for (int column = 0; column < this.jobIds.size(); column++) {
+      byte[] bytes = this.jobIds.get(column).getBytes(StandardCharsets.UTF_8);
+      header.putShort((short) bytes.length);
+      header.put(bytes);
+      header.put((byte) (this.columnWindows[column] ? 1 : 0));
+    }
+    header.rewind();
+
+    try (FileChannel out =
+        FileChannel.open(
+            target,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE)) {
+      while (header.hasRemaining()) {
+        out.write(header);
+      }
+      out.force(true);
+    }
+  }
+
+  /**
+   * Rewrites the file with the current job columns and layout, copying the stored values of each
+   * job to its new column. XP windows are copied when both layouts hold them for the job; they
+   * start empty when the job gained caps and are dropped when it lost them. The new file is
+   * written next to the old one and atomically moved over it.
+   *
+   * @param stored the header of the existing file
+   * @throws IOException if the file could not be rewritten
+   */
+  private void upgrade(Header stored) throws IOException {
+    Path temp = this.file.resolveSibling(this.file.getFileName() + ".upgrade");
+
+    Map<String, Integer> oldColumns = new HashMap<>();
+    int[] oldOffsets = new int[stored.jobIds.size()];
+    int oldRecordSize = UUID_BYTES;
+    for (int column = 0; column < stored.jobIds.size(); column++) {
+      oldColumns.put(stored.jobIds.get(column), column);
+      oldOffsets[column] = oldRecordSize;
+      oldRecordSize += jobBytes(stored.hasWindow(column));
+    }
+
+    try (FileChannel in = FileChannel.open(this.file, StandardOpenOption.READ)) {
+      MappedByteBuffer source = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+      int records = source.getInt(RECORD_COUNT_OFFSET);
+
+      this.create(temp, records);
+      try (FileChannel out =
+          FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+        MappedByteBuffer target =
+            out.map(
+                FileChannel.MapMode.READ_WRITE,
+                0,
+                (long) this.headerSize + (long) records * this.recordSize);
+
+        for (int slot = 0; slot < records; slot++) {
+          int from = stored.size + slot * oldRecordSize;
+          int to = this.headerSize + slot * this.recordSize;
+
+          target.putLong(to, source.getLong(from));
+          target.putLong(to + 8, source.getLong(from + 8));
+
+          for (int column = 0; column < this.jobIds.size(); column++) {
+            Integer oldColumn = oldColumns.get(this.jobIds.get(column));
+            int toJob = to + this.columnOffsets[column];
+            int toBytes = jobBytes(this.columnWindows[column]);
+
+            if (oldColumn == null) {
+              target.putInt(toJob, 0);
+              target.putInt(toJob + 4, 0);
+              target.putInt(toJob + 8, 1);
+              for (int i = PROGRESS_BYTES; i < toBytes; i += 4) {
+                target.putInt(toJob + i, 0);
+              }
+            } else {
+              int fromJob = from + oldOffsets[oldColumn];
+              int fromBytes = jobBytes(stored.hasWindow(oldColumn));
+              for (int i = 0; i < toBytes; i += 4) {
+                target.putInt(toJob + i, i < fromBytes ? source.getInt(fromJob + i) : 0);
+              }
+            }
+          }
+        }
+
+        target.force();
+      }
+    }
+
+    try {
+      Files.move(
+          temp, this.file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(temp, this.file, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /**
+   * Reads and validates the header of an existing progress file.
+   *
+   * @param file the progress file
+   * @return the stored header
+   * @throws IOException if the file is not a progress file or uses an unknown schema version
+   */
+  private static Header readHeader(Path file) throws IOException {
+    try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+      ByteBuffer fixed = ByteBuffer.allocate(20);
+      in.read(fixed, 0);
+      fixed.flip();
+
+      if (fixed.remaining() < 20 || fixed.getInt() != MAGIC) {
+        throw new IOException(file + " is not a Jobs progress file");
+      }
+
+      int version = fixed.getInt();
+      if (version < 1 || version > SCHEMA_VERSION) {
+        throw new IOException("Unsupported schema version " + version + " in " + file);
+      }
+
+      int jobCount = fixed.getInt();
+      fixed.getInt();
+      int headerSize = fixed.getInt();
+
+      ByteBuffer header = ByteBuffer.allocate(headerSize - 20);
+      in.read(header, 20);
+      header.flip();
+
+      List<String> jobIds = new ArrayList<>(jobCount);
+      boolean[] windows = new boolean[jobCount];
+      for (int column = 0; column < jobCount; column++) {
+        byte[] bytes = new byte[header.getShort()];
+        header.get(bytes);
+        jobIds.add(new String(bytes, StandardCharsets.UTF_8));
+        // Version 1 had no XP windows and version 2 had one in every column
+        windows[column] = version == 2 || (version > 2 && header.get() != 0);
+      }
+      return new Header(version, jobIds, windows, headerSize);
+    }
+  }
+
+  /**
+   * Computes the header size for the given jobs, rounded up to 64 bytes so records stay aligned.
+   *
+   * @param jobIds the job IDs written in the header
+   * @return the header size in bytes
+   */
+  private static int headerSize(List<String> jobIds) {
+    int size = 20;
+    for (String jobId : jobIds) {
+      size += 3 + jobId.getBytes(StandardCharsets.UTF_8).length;
+    }
+    return (size + 63) & ~63;
+  }
+
+  private static int jobBytes(boolean window) {
+    return window ? PROGRESS_BYTES + WINDOW_BYTES : PROGRESS_BYTES;
+  }
+
+  /** Header of an existing progress file. */
+  private static final class Header {
+    private final int version;
+    private final List<String> jobIds;
+    private final boolean[] windows;
+    private final int size;
+
+    private Header(int version, List<String> jobIds, boolean[] windows, int size) {
+      this.version = version;
+      this.jobIds = jobIds;
+      this.windows = windows;
+      this.size = size;
+    }
+
+    private boolean hasWindow(int column) {
+      return column < this.windows.length && this.windows[column];
+    }
+
+    /**
+     * Tells whether the file already has the given layout.
+     *
+     * @param jobIds the job IDs of the layout, in column order
+     * @param windows whether each column holds an XP window
+     * @return true if the file needs no upgrade
+     */
+    private boolean matches(List<String> jobIds, boolean[] windows) {
+      return this.version == SCHEMA_VERSION
+          && this.jobIds.equals(jobIds)
+          && Arrays.equals(this.windows, windows);
+    }
+  }
+}
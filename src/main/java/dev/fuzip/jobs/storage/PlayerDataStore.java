@@ -0,0 +1,117 @@
+package dev.fuzip.jobs.storage;
+
+import dev.fuzip.jobs.entities.PlayerEntity;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Persistent storage for player job progress. The {@link
+ * dev.fuzip.jobs.managers.PlayerDataManager} keeps players in memory and only talks to the store to
+ * load a player or to write a batch of modified players.
+ *
+ * <p>Implementations must be thread-safe: loads happen on the login thread and writes on the
+ * storage I/O thread. Entities passed to the save methods are snapshots that are not modified
+ * afterwards.
+ */
+public interface PlayerDataStore extends Closeable {
+
+  /**
+   * Loads the progress of a player. If the player has no stored data, the returned entity is
+   * flagged with {@link PlayerEntity#isNew()}.
+   *
+   * @param uuid the UUID of the player to load
+   * @return the stored progress of the player, never {@code null}
+   * @throws IOException if the storage could not be read
+   */
+  PlayerEntity load(UUID uuid) throws IOException;
+
+  /**
+   * Loads the progress of a player who is joining this server and stays in memory until they leave
+   * and their data is written, when {@link #release(UUID)} is called. Shared stores remember the
+   * loaded rows of such players only; other loads, such as lookups of offline players, are not
+   * remembered.
+   *
+   * @param uuid the UUID of the player to load
+   * @return the stored progress of the player, never {@code null}
+   * @throws IOException if the storage could not be read
+   */
+  default PlayerEntity loadSession(UUID uuid) throws IOException {
+    return this.load(uuid);
+  }
+
+  /**
+   * Writes the progress of a single player, replacing any stored data for this player.
+   *
+   * @param playerData the player progress to write
+   * @throws IOException if the storage could not be written
+   */
+  void save(PlayerEntity playerData) throws IOException;
+
+  /**
+   * Writes the progress of several players in a single batch.
+   *
+   * @param players the player progress to write
+   * @throws IOException if the storage could not be written
+   */
+  void saveAll(Collection<PlayerEntity> players) throws IOException;
+
+  /**
+   * Removes all stored data of a player.
+   *
+   * @param uuid the UUID of the player to delete
+   * @throws IOException if the storage could not be written
+   */
+  void delete(UUID uuid) throws IOException;
+
+  /**
+   * Streams the progress of every stored player to the given consumer, one player at a time.
+   * Players are read in pages and the consumer is called outside of the store's lock, so saves run
+   * between two pages and a slow consumer, such as a throttled export, does not hold them back. A
+   * player saved during the iteration may be streamed as it was before or after the save.
+   *
+   * @param consumer the consumer receiving each stored player
+   * @throws IOException if the storage could not be read
+   */
+  void forEach(Consumer<PlayerEntity> consumer) throws IOException;
+
+  /**
+   * Checks the stored data for inconsistencies that the store can detect on its own, such as
+   * duplicate or out-of-range records.
+   *
+   * @return a description of each problem found, empty if the data is consistent
+   * @throws IOException if the storage could not be read
+   */
+  default List<String> checkIntegrity() throws IOException {
+    return List.of();
+  }
+
+  /**
+   * Tells whether other servers read and write the same storage. The data of a player who quits is
+   * then written right away, so that the next server they join loads their latest progress.
+   *
+   * @return {@code true} if the storage is shared between servers
+   */
+  default boolean isShared() {
+    return false;
+  }
+
+  /**
+   * Forgets what the store remembers about a player who left this server and whose data was
+   * written. Only shared stores keep such state.
+   *
+   * @param uuid the UUID of the player
+   */
+  default void release(UUID uuid) {}
+
+  /**
+   * Releases the resources held by the store. Called once all pending writes are done.
+   *
+   * @throws IOException if the storage could not be closed cleanly
+   */
+  @Override
+  void close() throws IOException;
+}
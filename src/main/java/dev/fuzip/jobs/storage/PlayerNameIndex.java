@@ -0,0 +1,148 @@
+package dev.fuzip.jobs.storage;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Index of the last known name of every player who joined, used to find offline players by name.
+ * Names are looked up in lowercase. The index is kept in memory and persisted to a text file
+ * holding one {@code <uuid> <name>} line per player, read once at startup.
+ *
+ * <p>Thread-safe: the index is updated on the main thread when players join and saved from any
+ * thread.
+ */
+public class PlayerNameIndex {
+
+  private final Path file;
+  private final Map<String, UUID> uuidsByName = new ConcurrentHashMap<>();
+  private final Map<UUID, String> namesByUuid = new ConcurrentHashMap<>();
+  private final AtomicBoolean dirty = new AtomicBoolean();
+
+  /**
+   * Opens the index, reading the file if it exists.
+   *
+   * @param file the file holding the index
+   * @throws IOException if the file exists but could not be read
+   */
+  public PlayerNameIndex(Path file) throws IOException {
+    this.file = file;
+
+    try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        int separator = line.indexOf(' ');
+        if (separator > 0) {
+          this.put(UUID.fromString(line.substring(0, separator)), line.substring(separator + 1));
+        }
+      }
+    } catch (NoSuchFileException e) {
+      // No player joined yet
+    } catch (IllegalArgumentException e) {
+      throw new IOException("Invalid player name index " + file, e);
+    }
+  }
+
+  public int size() {
+    return this.namesByUuid.size();
+  }
+
+  public boolean isDirty() {
+    return this.dirty.get();
+  }
+
+  /**
+   * Records the current name of a player. The previous name of the player, and the previous owner
+   * of the name, are forgotten.
+   *
+   * @param uuid the UUID of the player
+   * @param name the current name of the player
+   */
+  public void update(UUID uuid, String name) {
+    if (name.equals(this.namesByUuid.get(uuid))) {
+      return;
+    }
+
+    this.put(uuid, name);
+    this.dirty.set(true);
+  }
+
+  /**
+   * Finds a player by name, ignoring case.
+   *
+   * @param name the name of the player
+   * @return the UUID of the last player known with this name, or {@code null} if none
+   */
+  public UUID getUuid(String name) {
+    return this.uuidsByName.get(name.toLowerCase(Locale.ROOT));
+  }
+
+  /**
+   * Returns the last known name of a player.
+   *
+   * @param uuid the UUID of the player
+   * @return the name of the player, or {@code null} if the player never joined
+   */
+  public String getName(UUID uuid) {
+    return this.namesByUuid.get(uuid);
+  }
+
+  /**
+   * Writes the index to its file if it changed since the last save. The file is replaced
+   * atomically.
+   *
+   * @throws IOException if the file could not be written
+   */
+  public synchronized void save() throws IOException {
+    if (!this.dirty.getAndSet(false)) {
+      return;
+    }
+
+    Path temp = this.file.resolveSibling(this.file.getFileName() + ".tmp");
+
+    try {
+      try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+        for (Map.Entry<UUID, String> entry : this.namesByUuid.entrySet()) {
+          writer.write(entry.getKey() + " " + entry.getValue());
+          writer.newLine();
+        }
+      }
+
+      try {
+        Files.move(
+            temp, this.file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, this.file, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException e) {
+      this.dirty.set(true);
+      throw e;
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  private void put(UUID uuid, String name) {
+    String previousName = this.namesByUuid.put(uuid, name);
+    if (previousName != null) {
+      this.uuidsByName.remove(previousName.toLowerCase(Locale.ROOT), uuid);
+    }
+
+    UUID previousOwner = this.uuidsByName.put(name.toLowerCase(Locale.ROOT), uuid);
+    if (previousOwner != null && !previousOwner.equals(uuid)) {
+      this.namesByUuid.computeIfPresent(
+          previousOwner, (k, ownerName) -> ownerName.equalsIgnoreCase(name) ? null : ownerName);
+    }
+  }
+}
@@ -0,0 +1,367 @@
+package dev.fuzip.jobs.storage;
+
+import dev.fuzip.jobs.entities.JobEntity;
+import dev.fuzip.jobs.entities.PlayerEntity;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Reads player progress from a file written by {@link ProgressWriter}, one player at a time, so
+ * that memory does not depend on the size of the file.
+ *
+ * <p>Consecutive lines with the same UUID form one group, as exports write them. Each group is
+ * applied to the current progress of its player, given by a {@link Loader}: the jobs it lists are
+ * replaced and the others are kept. A player whose lines are not consecutive is therefore read as
+ * several groups that add up, rather than each one wiping the jobs of the others. Invalid lines
+ * and lines of jobs that are no longer configured are skipped and counted, and the first ones are
+ * kept to be reported.
+ */
+public class ProgressReader implements Closeable {
+
+  private static final int MAX_PROBLEMS = 20;
+
+  private final TransferFormat format;
+  private final Map<String, JobEntity> jobs;
+  private final BufferedReader reader;
+  private final Map<String, Integer> columns = new HashMap<>();
+  private final List<String> problems = new ArrayList<>();
+  private int lineNumber;
+  private int skipped;
+  private Row pending;
+
+  /**
+   * Opens an export file. The header of CSV files is read right away.
+   *
+   * @param file the file to read
+   * @param format the format of the file
+   * @param jobs the configured jobs, by id
+   * @throws IOException if the file could not be read or has no valid CSV header
+   */
+  public ProgressReader(Path file, TransferFormat format, Map<String, JobEntity> jobs)
+      throws IOException {
+    this.format = format;
+    this.jobs = jobs;
+    this.reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+
+    if (format == TransferFormat.CSV) {
+      String header = this.reader.readLine();
+      this.lineNumber++;
+      List<String> names = header == null ? List.of() : splitCsv(header);
+      for (int i = 0; i < names.size(); i++) {
+        this.columns.put(names.get(i).trim(), i);
+      }
+
+      for (String column : List.of("uuid", "job", "level", "xp", "total_xp")) {
+        if (!this.columns.containsKey(column)) {
+          this.reader.close();
+          throw new IOException("Missing column " + column + " in " + file);
+        }
+      }
+    }
+  }
+
+  /**
+   * Reads the next group of lines of a player and applies it to the player's current progress.
+   *
+   * @param loader gives the current progress of a player, which this method modifies
+   * @return the progress of the player with the group applied, or {@code null} at the end of the
+   *     file
+   * @throws IOException if the file or the current progress could not be read
+   */
+  public PlayerEntity next(Loader loader) throws IOException {
+    PlayerEntity playerData = null;
+
+    while (true) {
+      Row row = this.pending != null ? this.pending : this.readRow();
+      this.pending = null;
+      if (row == null) {
+        return playerData;
+      }
+
+      if (playerData == null) {
+        playerData = loader.load(row.uuid);
+        playerData.setNew(false);
+      } else if (!playerData.getUuid().equals(row.uuid)) {
+        this.pending = row;
+        return playerData;
+      }
+
+      int job = row.jobEntity.getOrdinal();
+      playerData.setJobLevel(job, row.level);
+      playerData.setJobXp(job, row.xp);
+      playerData.setJobTotalXp(job, row.totalXp);
+    }
+  }
+
+  /**
+   * Returns the number of lines skipped so far.
+   *
+   * @return the skipped line count
+   */
+  public int getSkipped() {
+    return this.skipped;
+  }
+
+  /**
+   * Returns a description of the first skipped lines.
+   *
+   * @return up to {@value #MAX_PROBLEMS} problems, with their line number
+   */
+  public List<String> getProblems() {
+    return this.problems;
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.reader.close();
+  }
+
+  /**
+   * Reads the next valid line, skipping blank and invalid ones.
+   *
+   * @return the next row, or {@code null} at the end of the file
+   * @throws IOException if the file could not be read
+   */
+  private Row readRow() throws IOException {
+    String line;
+
+    while ((line = this.reader.readLine()) != null) {
+      this.lineNumber++;
+      if (line.isBlank()) {
+        continue;
+      }
+
+      try {
+        Map<String, String> fields =
+            this.format == TransferFormat.CSV ? this.parseCsv(line) : parseJson(line);
+        Row row = this.toRow(fields);
+        if (row != null) {
+          return row;
+        }
+      } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+        this.skip("invalid line (" + e.getMessage() + ")");
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Checks the fields of a line and resolves its job.
+   *
+   * @param fields the fields of the line, by name
+   * @return the row, or {@code null} if its job is no longer configured
+   * @throws IllegalArgumentException if a field is missing or invalid
+   */
+  private Row toRow(Map<String, String> fields) {
+    UUID uuid = UUID.fromString(require(fields, "uuid"));
+    String jobId = require(fields, "job");
+    int level = Integer.parseInt(require(fields, "level"));
+    int xp = Integer.parseInt(require(fields, "xp"));
+    int totalXp = Integer.parseInt(require(fields, "total_xp"));
+
+    JobEntity jobEntity = this.jobs.get(jobId);
+    if (jobEntity == null) {
+      this.skip("unknown job " + jobId);
+      return null;
+    }
+    if (level < 1 || level > jobEntity.getXpCurve().getMaxLevel() || xp < 0 || totalXp < 0) {
+      throw new IllegalArgumentException("progress out of range");
+    }
+
+    return new Row(uuid, jobEntity, level, xp, totalXp);
+  }
+
+  private void skip(String reason) {
+    this.skipped++;
+    if (this.problems.size() < MAX_PROBLEMS) {
+      this.problems.add("Line " + this.lineNumber + ": " + reason);
+    }
+  }
+
+  private Map<String, String> parseCsv(String line) {
+    List<String> values = splitCsv(line);
+    Map<String, String> fields = new HashMap<>();
+    this.columns.forEach(
+        (name, index) -> {
+          if (index < values.size()) {
+            fields.put(name, values.get(index));
+          }
+        });
+    return fields;
+  }
+
+  private static String require(Map<String, String> fields, String name) {
+    String value = fields.get(name);
+    if (value == null) {
+      throw new IllegalArgumentException("missing " + name);
+    }
+    return value.trim();
+  }
+
+  /**
+   * Splits a CSV line on commas, honoring double-quoted values.
+   *
+   * @param line the line to split
+   * @return the values of the line, unquoted
+   */
+  private static List<String> splitCsv(String line) {
+    List<String> values = new ArrayList<>();
+    StringBuilder value = new StringBuilder();
+    boolean quoted = false;
+
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (quoted) {
+        if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+          value.append('"');
+          i++;
+        } else if (c == '"') {
+          quoted = false;
+        } else {
+          value.append(c);
+        }
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == ',') {
+        values.add(value.toString());
+        value.setLength(0);
+      } else {
+        value.append(c);
+      }
+    }
+
+    values.add(value.toString());
+    return values;
+  }
+
+  /**
+   * Parses a JSON object whose values are strings, numbers, booleans or null. Nested objects and
+   * arrays are not supported.
+   *
+   * @param line the line holding the object
+   * @return the values of the object, by key, numbers and booleans as written
+   * @throws IllegalArgumentException if the line is not such an object
+   */
+  private static Map<String, String> parseJson(String line) {
+    Map<String, String> fields = new HashMap<>();
+    int[] position = {skipSpaces(line, 0)};
+    expect(line, position, '{');
+
+    if (line.charAt(skipSpaces(line, position[0])) == '}') {
+      return fields;
+    }
+
+    while (true) {
+      position[0] = skipSpaces(line, position[0]);
+      String key = readString(line, position);
+      position[0] = skipSpaces(line, position[0]);
+      expect(line, position, ':');
+      position[0] = skipSpaces(line, position[0]);
+
+      if (line.charAt(position[0]) == '"') {
+        fields.put(key, readString(line, position));
+      } else {
+        int end = position[0];
+        while (end < line.length() && ",} \t".indexOf(line.charAt(end)) < 0) {
+          end++;
+        }
+        String value = line.substring(position[0], end);
+        if (!value.equals("null")) {
+          fields.put(key, value);
+        }
+        position[0] = end;
+      }
+
+      position[0] = skipSpaces(line, position[0]);
+      if (line.charAt(position[0]) == '}') {
+        return fields;
+      }
+      expect(line, position, ',');
+    }
+  }
+
+  private static String readString(String line, int[] position) {
+    expect(line, position, '"');
+    StringBuilder value = new StringBuilder();
+
+    while (true) {
+      char c = line.charAt(position[0]++);
+      if (c == '"') {
+        return value.toString();
+      }
+      if (c != '\\') {
+        value.append(c);
+        continue;
+      }
+
+      char escaped = line.charAt(position[0]++);
+      switch (escaped) {
+        case 'n' -> value.append('\n');
+        case 't' -> value.append('\t');
+        case 'r' -> value.append('\r');
+        case 'b' -> value.append('\b');
+        case 'f' -> value.append('\f');
+        case 'u' -> {
+          value.append((char) Integer.parseInt(line.substring(position[0], position[0] + 4), 16));
+          position[0] += 4;
+        }
+        default -> value.append(escaped);
+      }
+    }
+  }
+
+  private static void expect(String line, int[] position, char expected) {
+    if (line.charAt(position[0]) != expected) {
+      throw new IllegalArgumentException("expected " + expected + " at column " + position[0]);
+    }
+    position[0]++;
+  }
+
+  private static int skipSpaces(String line, int position) {
+    while (position < line.length() && Character.isWhitespace(line.charAt(position))) {
+      position++;
+    }
+    return position;
+  }
+
+  /** Gives the progress an imported group of lines applies to. */
+  @FunctionalInterface
+  public interface Loader {
+
+    /**
+     * Returns the current progress of a player.
+     *
+     * @param uuid the UUID of the player
+     * @return a progress the reader may modify, never {@code null}
+     * @throws IOException if the progress could not be read
+     */
+    PlayerEntity load(UUID uuid) throws IOException;
+  }
+
+  /** A valid line of the file. */
+  private static final class Row {
+    private final UUID uuid;
+    private final JobEntity jobEntity;
+    private final int level;
+    private final int xp;
+    private final int totalXp;
+
+    private Row(UUID uuid, JobEntity jobEntity, int level, int xp, int totalXp) {
+      this.uuid = uuid;
+      this.jobEntity = jobEntity;
+      this.level = level;
+      this.xp = xp;
+      this.totalXp = totalXp;
+    }
+  }
+}
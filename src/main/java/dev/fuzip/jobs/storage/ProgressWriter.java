@@ -0,0 +1,126 @@
+package dev.fuzip.jobs.storage;
+
+import dev.fuzip.jobs.entities.JobEntity;
+import dev.fuzip.jobs.entities.PlayerEntity;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+
+/**
+ * Writes player progress to an export file, one line per player and job, streamed through a
+ * buffered writer so that memory does not depend on the number of players. Jobs a player never
+ * earned XP in are left out.
+ *
+ * <p>CSV files start with the header {@value #CSV_HEADER}. JSON lines files hold one object per
+ * line with the same keys. The name is the last name known by the server, empty if unknown, and
+ * is ignored by imports.
+ */
+public class ProgressWriter implements Closeable {
+
+  static final String CSV_HEADER = "uuid,name,job,level,xp,total_xp";
+
+  private final TransferFormat format;
+  private final Collection<JobEntity> jobs;
+  private final BufferedWriter writer;
+
+  /**
+   * Creates the export file, replacing any file with the same name.
+   *
+   * @param file the file to write
+   * @param format the format of the file
+   * @param jobs the configured jobs
+   * @throws IOException if the file could not be created
+   */
+  public ProgressWriter(Path file, TransferFormat format, Collection<JobEntity> jobs)
+      throws IOException {
+    this.format = format;
+    this.jobs = jobs;
+    Files.createDirectories(file.toAbsolutePath().getParent());
+    this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+
+    if (format == TransferFormat.CSV) {
+      this.writer.write(CSV_HEADER);
+      this.writer.newLine();
+    }
+  }
+
+  /**
+   * Writes the progress of a player.
+   *
+   * @param playerData the player to write
+   * @param name the last known name of the player, or {@code null} if unknown
+   * @throws IOException if the file could not be written
+   */
+  public void write(PlayerEntity playerData, String name) throws IOException {
+    String uuid = playerData.getUuid().toString();
+    String playerName = name == null ? "" : name;
+
+    for (JobEntity jobEntity : this.jobs) {
+      int job = jobEntity.getOrdinal();
+      if (playerData.getJobTotalXp(job) == 0 && playerData.getJobXp(job) == 0) {
+        continue;
+      }
+
+      if (this.format == TransferFormat.CSV) {
+        this.writer.write(
+            String.join(
+                ",",
+                uuid,
+                csv(playerName),
+                csv(jobEntity.getId()),
+                String.valueOf(playerData.getJobLevel(job)),
+                String.valueOf(playerData.getJobXp(job)),
+                String.valueOf(playerData.getJobTotalXp(job))));
+      } else {
+        this.writer.write(
+            "{\"uuid\":\""
+                + uuid
+                + "\",\"name\":"
+                + json(playerName)
+                + ",\"job\":"
+                + json(jobEntity.getId())
+                + ",\"level\":"
+                + playerData.getJobLevel(job)
+                + ",\"xp\":"
+                + playerData.getJobXp(job)
+                + ",\"total_xp\":"
+                + playerData.getJobTotalXp(job)
+                + "}");
+      }
+      this.writer.newLine();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.writer.close();
+  }
+
+  private static String csv(String value) {
+    if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+      return value;
+    }
+    return '"' + value.replace("\"", "\"\"") + '"';
+  }
+
+  private static String json(String value) {
+    StringBuilder builder = new StringBuilder(value.length() + 2).append('"');
+
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\') {
+        builder.append('\\').append(c);
+      } else if (c < 0x20) {
+        builder.append(String.format("\\u%04x", (int) c));
+      } else {
+        builder.append(c);
+      }
+    }
+
+    return builder.append('"').toString();
+  }
+}
@@ -0,0 +1,188 @@
+package dev.fuzip.jobs.storage;
+
+import dev.fuzip.jobs.entities.JobEntity;
+import dev.fuzip.jobs.entities.PlayerEntity;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+/**
+ * Stores each player in its own small YAML file, spread across 256 hashed subdirectories: {@code
+ * players/<hash>/<uuid>.yml}. Saving a player only rewrites that player's file, and nothing is read
+ * at startup.
+ *
+ * <p>Each file is written to a temporary file in the same directory, synced, then atomically moved
+ * over the previous version, so a crash during a save leaves either the old or the new file.
+ */
+public class ShardedYamlPlayerDataStore implements PlayerDataStore {
+
+  private static final String EXTENSION = ".yml";
+
+  private final Path folder;
+  private final Map<String, JobEntity> jobs;
+
+  public ShardedYamlPlayerDataStore(Path folder, Map<String, JobEntity> jobs) throws IOException {
+    this.folder = folder;
+    this.jobs = jobs;
+    Files.createDirectories(folder);
+  }
+
+  @Override
+  public PlayerEntity load(UUID uuid) throws IOException {
+    return this.read(uuid, this.getPlayerFile(uuid));
+  }
+
+  @Override
+  public void save(PlayerEntity playerData) throws IOException {
+    YamlConfiguration playerConfig = new YamlConfiguration();
+
+    for (JobEntity jobEntity : this.jobs.values()) {
+      ConfigurationSection jobSection = playerConfig.createSection(jobEntity.getId());
+
+      jobSection.set("xp", playerData.getJobXp(jobEntity.getOrdinal()));
+      jobSection.set("totalXp", playerData.getJobTotalXp(jobEntity.getOrdinal()));
+      jobSection.set("level", playerData.getJobLevel(jobEntity.getOrdinal()));
+
+      int[] window = playerData.getXpWindow(jobEntity.getOrdinal());
+      if (window != null) {
+        jobSection.set("window", XpWindowFormat.format(window));
+      }
+    }
+
+    Path playerFile = this.getPlayerFile(playerData.getUuid());
+    Files.createDirectories(playerFile.getParent());
+    this.writeAtomically(playerFile, playerConfig.saveToString());
+  }
+
+  @Override
+  public void saveAll(Collection<PlayerEntity> players) throws IOException {
+    for (PlayerEntity playerData : players) {
+      this.save(playerData);
+    }
+  }
+
+  @Override
+  public void delete(UUID uuid) throws IOException {
+    Files.deleteIfExists(this.getPlayerFile(uuid));
+  }
+
+  @Override
+  public void forEach(Consumer<PlayerEntity> consumer) throws IOException {
+    try (DirectoryStream<Path> shards = Files.newDirectoryStream(this.folder, Files::isDirectory)) {
+      for (Path shard : shards) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(shard, "*" + EXTENSION)) {
+          for (Path playerFile : files) {
+            String fileName = playerFile.getFileName().toString();
+            UUID uuid;
+            try {
+              uuid = UUID.fromString(fileName.substring(0, fileName.length() - EXTENSION.length()));
+            } catch (IllegalArgumentException e) {
+              continue;
+            }
+            consumer.accept(this.read(uuid, playerFile));
+          }
+        }
+      }
+    }
+  }
+
+  @Override
+  public void close() {}
+
+  /**
+   * Returns the file holding the given player's data. The shard directory is derived from the UUID
+   * hash so that players are spread evenly across 256 directories.
+   *
+   * @param uuid the UUID of the player
+   * @return the path of the player's data file
+   */
+  private Path getPlayerFile(UUID uuid) {
+    String shard = String.format("%02x", uuid.hashCode() & 0xFF);
+    return this.folder.resolve(shard).resolve(uuid + EXTENSION);
+  }
+
+  /**
+   * Reads a player's data file.
+   *
+   * @param uuid the UUID of the player
+   * @param playerFile the player's data file
+   * @return the stored progress, flagged as new if the file does not exist
+   * @throws IOException if the file exists but could not be read or parsed
+   */
+  private PlayerEntity read(UUID uuid, Path playerFile) throws IOException {
+    PlayerEntity playerData = new PlayerEntity(uuid, this.jobs.size());
+
+    if (!Files.exists(playerFile)) {
+      playerData.setNew(true);
+      return playerData;
+    }
+
+    YamlConfiguration playerConfig = new YamlConfiguration();
+    try {
+      playerConfig.loadFromString(Files.readString(playerFile, StandardCharsets.UTF_8));
+    } catch (InvalidConfigurationException e) {
+      throw new IOException("Corrupted player file " + playerFile, e);
+    }
+
+    for (JobEntity jobEntity : this.jobs.values()) {
+      ConfigurationSection jobSection = playerConfig.getConfigurationSection(jobEntity.getId());
+      if (jobSection != null) {
+        playerData.setJobXp(jobEntity.getOrdinal(), jobSection.getInt("xp", 0));
+        playerData.setJobTotalXp(jobEntity.getOrdinal(), jobSection.getInt("totalXp", 0));
+        playerData.setJobLevel(jobEntity.getOrdinal(), jobSection.getInt("level", 1));
+
+        int[] window = XpWindowFormat.parse(jobSection.getString("window"));
+        if (window != null) {
+          playerData.setXpWindow(jobEntity.getOrdinal(), window);
+        }
+      }
+    }
+
+    return playerData;
+  }
+
+  /**
+   * Writes the content to a temporary file next to the target, syncs it and moves it over the
+   * target in a single atomic rename.
+   *
+   * @param target the file to replace
+   * @param content the new content of the file
+   * @throws IOException if the file could not be written or moved
+   */
+  private void writeAtomically(Path target, String content) throws IOException {
+    Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+
+    try {
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+        ByteBuffer buffer = ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+        channel.force(true);
+      }
+
+      try {
+        Files.move(
+            temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+}
@@ -0,0 +1,607 @@
+package dev.fuzip.jobs.storage;
+
+import dev.fuzip.jobs.entities.JobEntity;
+import dev.fuzip.jobs.entities.PlayerEntity;
+import dev.fuzip.jobs.entities.XpCurve;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Stores player progress in a SQL database shared by several servers, one row per player and job.
+ * Each row carries a version that every write increments, and a row is only written if its version
+ * is still the one this server last read or wrote: a compare-and-set that never blocks the other
+ * servers.
+ *
+ * <p>For every player loaded with {@link #loadSession(UUID)}, the store remembers the stored rows
+ * and the progress it last wrote, until the player is released. A save only sends the rows that
+ * are missing or whose progress changed since then. When another server wrote a row in the
+ * meantime, the row is read again and the XP this server added since its last write is added to
+ * it, so the gains of both servers are kept. A row still conflicting after {@value #MAX_ATTEMPTS}
+ * attempts fails the save, which the {@link dev.fuzip.jobs.managers.PlayerDataManager} retries
+ * with the next flush.
+ *
+ * <p>A save of several players costs two batched statements and a commit, plus two round trips per
+ * conflicting row. Players saved without a session, as during a migration, replace the stored rows
+ * and are forgotten once released. Plain {@link #load(UUID)} calls, used for offline players, are
+ * not remembered.
+ *
+ * <p>The JDBC driver must report update counts, which is the default of the MySQL, MariaDB, H2 and
+ * PostgreSQL drivers.
+ */
+public class SharedSqlPlayerDataStore implements PlayerDataStore {
+
+  private static final int PAGE_SIZE = 500;
+  private static final int MAX_ATTEMPTS = 3;
+  private static final int VALIDATION_TIMEOUT = 5;
+
+  private static final String CREATE_TABLE =
+      "CREATE TABLE IF NOT EXISTS jobs_shared_progress ("
+          + "uuid CHAR(36) NOT NULL, "
+          + "job VARCHAR(64) NOT NULL, "
+          + "xp INTEGER NOT NULL, "
+          + "total_xp INTEGER NOT NULL, "
+          + "level INTEGER NOT NULL, "
+          + "xp_window VARCHAR(255), "
+          + "version BIGINT NOT NULL, "
+          + "PRIMARY KEY (uuid, job))";
+  private static final String SELECT_PLAYER =
+      "SELECT job, xp, total_xp, level, xp_window, version FROM jobs_shared_progress "
+          + "WHERE uuid = ?";
+  private static final String SELECT_ROW =
+      "SELECT job, xp, total_xp, level, xp_window, version FROM jobs_shared_progress "
+          + "WHERE uuid = ? AND job = ?";
+  private static final String SELECT_PAGE_END =
+      "SELECT MAX(uuid) FROM (SELECT DISTINCT uuid FROM jobs_shared_progress WHERE uuid > ? "
+          + "ORDER BY uuid LIMIT ?) page";
+  private static final String SELECT_PAGE =
+      "SELECT uuid, job, xp, total_xp, level, xp_window FROM jobs_shared_progress "
+          + "WHERE uuid > ? AND uuid <= ? ORDER BY uuid";
+  private static final String UPDATE =
+      "UPDATE jobs_shared_progress SET xp = ?, total_xp = ?, level = ?, xp_window = ?, "
+          + "version = version + 1 WHERE uuid = ? AND job = ? AND version = ?";
+  private static final String INSERT =
+      "INSERT INTO jobs_shared_progress (uuid, job, xp, total_xp, level, xp_window, version) "
+          + "SELECT ?, ?, ?, ?, ?, ?, 1 FROM (SELECT 1 AS seed) seed WHERE NOT EXISTS "
+          + "(SELECT 1 FROM jobs_shared_progress WHERE uuid = ? AND job = ?)";
+  private static final String DELETE_PLAYER = "DELETE FROM jobs_shared_progress WHERE uuid = ?";
+
+  private final String url;
+  private final String user;
+  private final String password;
+  private final Map<String, JobEntity> jobs;
+  private final Map<UUID, Tracked> tracked = new HashMap<>();
+  private Connection connection;
+
+  /**
+   * Connects to the shared database and creates the progress table if needed.
+   *
+   * @param url the JDBC URL of the database
+   * @param user the database user, or an empty string to use the URL only
+   * @param password the password of the user
+   * @param jobs the configured jobs, by id
+   * @throws IOException if the database could not be reached
+   */
+  public SharedSqlPlayerDataStore(
+      String url, String user, String password, Map<String, JobEntity> jobs) throws IOException {
+    this.url = url;
+    this.user = user;
+    this.password = password;
+    this.jobs = jobs;
+
+    try (Statement statement = this.connection().createStatement()) {
+      statement.execute(CREATE_TABLE);
+    } catch (SQLException e) {
+      throw new IOException("Unable to open database " + url, e);
+    }
+  }
+
+  @Override
+  public synchronized PlayerEntity load(UUID uuid) throws IOException {
+    return this.read(uuid, new long[this.jobs.size()]);
+  }
+
+  @Override
+  public synchronized PlayerEntity loadSession(UUID uuid) throws IOException {
+    long[] versions = new long[this.jobs.size()];
+    PlayerEntity playerData = this.read(uuid, versions);
+    this.tracked.put(uuid, new Tracked(playerData, versions));
+    return playerData;
+  }
+
+  @Override
+  public void save(PlayerEntity playerData) throws IOException {
+    this.saveAll(List.of(playerData));
+  }
+
+  @Override
+  public synchronized void saveAll(Collection<PlayerEntity> players) throws IOException {
+    List<RowWrite> writes = new ArrayList<>();
+
+    try {
+      for (PlayerEntity playerData : players) {
+        Tracked state = this.tracked.get(playerData.getUuid());
+        if (state == null) {
+          state = this.track(playerData);
+        }
+
+        for (JobEntity jobEntity : this.jobs.values()) {
+          if (state.isChanged(playerData, jobEntity.getOrdinal())) {
+            writes.add(new RowWrite(state, playerData, jobEntity));
+          }
+        }
+      }
+
+      if (!writes.isEmpty()) {
+        this.writeBatch(writes);
+      }
+    } catch (SQLException e) {
+      throw new IOException("Unable to save " + players.size() + " players", e);
+    }
+  }
+
+  @Override
+  public synchronized void delete(UUID uuid) throws IOException {
+    try (PreparedStatement statement = this.connection().prepareStatement(DELETE_PLAYER)) {
+      statement.setString(1, uuid.toString());
+      statement.executeUpdate();
+      this.tracked.remove(uuid);
+    } catch (SQLException e) {
+      throw new IOException("Unable to delete player " + uuid, e);
+    }
+  }
+
+  /**
+   * Streams the stored players by UUID order, {@value #PAGE_SIZE} players per query. Each page
+   * starts after the last UUID of the previous one, so saves between two pages never make the
+   * iteration skip or repeat a player.
+   */
+  @Override
+  public void forEach(Consumer<PlayerEntity> consumer) throws IOException {
+    List<PlayerEntity> page = new ArrayList<>(PAGE_SIZE);
+    String last = "";
+
+    while (true) {
+      synchronized (this) {
+        this.readPage(last, page);
+      }
+
+      if (page.isEmpty()) {
+        return;
+      }
+      page.forEach(consumer);
+      last = page.get(page.size() - 1).getUuid().toString();
+      page.clear();
+    }
+  }
+
+  @Override
+  public boolean isShared() {
+    return true;
+  }
+
+  @Override
+  public synchronized void release(UUID uuid) {
+    this.tracked.remove(uuid);
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    this.tracked.clear();
+
+    try {
+      if (this.connection != null) {
+        this.connection.close();
+      }
+    } catch (SQLException e) {
+      throw new IOException("Unable to close database", e);
+    }
+  }
+
+  /**
+   * Returns the connection to the database, opening a new one if the previous one was closed or
+   * timed out on the server side.
+   *
+   * @return an open connection
+   * @throws SQLException if the database could not be reached
+   */
+  private Connection connection() throws SQLException {
+    if (this.connection == null || !this.connection.isValid(VALIDATION_TIMEOUT)) {
+      if (this.connection != null) {
+        try {
+          this.connection.close();
+        } catch (SQLException ignored) {
+          // The connection is already unusable
+        }
+      }
+
+      this.connection =
+          this.user.isEmpty()
+              ? DriverManager.getConnection(this.url)
+              : DriverManager.getConnection(this.url, this.user, this.password);
+    }
+    return this.connection;
+  }
+
+  /**
+   * Sends the changed rows of a save in one transaction: existing rows are updated if their
+   * version did not change, missing rows are inserted if they are still missing. Rows that another
+   * server wrote first are then merged and written one by one.
+   *
+   * @param writes the changed rows
+   * @throws SQLException if the database could not be written, or a row kept conflicting
+   */
+  private void writeBatch(List<RowWrite> writes) throws SQLException {
+    Connection connection = this.connection();
+    List<RowWrite> updates = new ArrayList<>();
+    List<RowWrite> inserts = new ArrayList<>();
+    for (RowWrite write : writes) {
+      (write.expectedVersion() == 0 ? inserts : updates).add(write);
+    }
+
+    int[] updateCounts;
+    int[] insertCounts;
+    connection.setAutoCommit(false);
+    try (PreparedStatement update = connection.prepareStatement(UPDATE);
+        PreparedStatement insert = connection.prepareStatement(INSERT)) {
+      for (RowWrite write : updates) {
+        write.bindUpdate(update);
+        update.addBatch();
+      }
+      for (RowWrite write : inserts) {
+        write.bindInsert(insert);
+        insert.addBatch();
+      }
+
+      updateCounts = updates.isEmpty() ? new int[0] : update.executeBatch();
+      insertCounts = inserts.isEmpty() ? new int[0] : insert.executeBatch();
+      connection.commit();
+    } catch (SQLException e) {
+      connection.rollback();
+      throw e;
+    } finally {
+      connection.setAutoCommit(true);
+    }
+
+    List<RowWrite> conflicts = new ArrayList<>();
+    this.applyCounts(updates, updateCounts, conflicts);
+    this.applyCounts(inserts, insertCounts, conflicts);
+
+    for (RowWrite conflict : conflicts) {
+      this.resolve(conflict);
+    }
+  }
+
+  /**
+   * Records the rows that were written and collects the ones another server wrote first.
+   *
+   * @param writes the rows sent in a batch
+   * @param counts the update count of each row
+   * @param conflicts the list receiving the conflicting rows
+   * @throws SQLException if the driver did not report an update count
+   */
+  private void applyCounts(List<RowWrite> writes, int[] counts, List<RowWrite> conflicts)
+      throws SQLException {
+    for (int i = 0; i < writes.size(); i++) {
+      if (counts[i] == Statement.SUCCESS_NO_INFO) {
+        throw new SQLException("The JDBC driver must report update counts");
+      }
+
+      if (counts[i] > 0) {
+        writes.get(i).written();
+      } else {
+        conflicts.add(writes.get(i));
+      }
+    }
+  }
+
+  /**
+   * Reads again a row another server wrote first, adds to it the progress of this server and
+   * writes it, until the write succeeds or the attempts are exhausted.
+   *
+   * @param write the conflicting row
+   * @throws SQLException if the database could not be reached, or the row kept conflicting
+   */
+  private void resolve(RowWrite write) throws SQLException {
+    Connection connection = this.connection();
+
+    for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+      this.refresh(write);
+      write.merge();
+
+      String sql = write.expectedVersion() == 0 ? INSERT : UPDATE;
+      try (PreparedStatement statement = connection.prepareStatement(sql)) {
+        if (write.expectedVersion() == 0) {
+          write.bindInsert(statement);
+        } else {
+          write.bindUpdate(statement);
+        }
+
+        if (statement.executeUpdate() > 0) {
+          write.written();
+          return;
+        }
+      }
+    }
+
+    throw new SQLException(
+        "Player "
+            + write.playerData.getUuid()
+            + " keeps being modified by another server in job "
+            + write.jobEntity.getId());
+  }
+
+  /**
+   * Replaces what the store knows about a conflicting row with the row currently stored.
+   *
+   * @param write the conflicting row
+   * @throws SQLException if the row could not be read
+   */
+  private void refresh(RowWrite write) throws SQLException {
+    int job = write.jobEntity.getOrdinal();
+    Tracked state = write.state;
+
+    try (PreparedStatement statement = this.connection().prepareStatement(SELECT_ROW)) {
+      statement.setString(1, write.playerData.getUuid().toString());
+      statement.setString(2, write.jobEntity.getId());
+
+      try (ResultSet result = statement.executeQuery()) {
+        if (result.next()) {
+          this.readJob(result, state.stored);
+          state.versions[job] = result.getLong("version");
+        } else {
+          state.stored.setJobXp(job, 0);
+          state.stored.setJobTotalXp(job, 0);
+          state.stored.setJobLevel(job, 0);
+          state.versions[job] = 0;
+        }
+      }
+    }
+  }
+
+  /**
+   * Reads the rows of a player.
+   *
+   * @param uuid the UUID of the player
+   * @param versions the array receiving the version of each row, by job ordinal
+   * @return the stored progress of the player
+   * @throws IOException if the rows could not be read
+   */
+  private PlayerEntity read(UUID uuid, long[] versions) throws IOException {
+    PlayerEntity playerData = new PlayerEntity(uuid, this.jobs.size());
+    playerData.setNew(true);
+
+    try (PreparedStatement statement = this.connection().prepareStatement(SELECT_PLAYER)) {
+      statement.setString(1, uuid.toString());
+
+      try (ResultSet result = statement.executeQuery()) {
+        while (result.next()) {
+          playerData.setNew(false);
+          JobEntity jobEntity = this.readJob(result, playerData);
+          if (jobEntity != null) {
+            versions[jobEntity.getOrdinal()] = result.getLong("version");
+          }
+        }
+      }
+    } catch (SQLException e) {
+      throw new IOException("Unable to load player " + uuid, e);
+    }
+
+    return playerData;
+  }
+
+  /**
+   * Starts tracking a player saved without a session. The stored rows are read so that the save
+   * replaces them, unless another server writes them first.
+   *
+   * @param playerData the player being saved
+   * @return the tracked state of the player
+   * @throws IOException if the stored rows could not be read
+   */
+  private Tracked track(PlayerEntity playerData) throws IOException {
+    long[] versions = new long[this.jobs.size()];
+    Tracked state = new Tracked(this.read(playerData.getUuid(), versions), versions);
+    this.tracked.put(playerData.getUuid(), state);
+    return state;
+  }
+
+  /**
+   * Reads the players whose UUID follows the given one, up to {@value #PAGE_SIZE}. The caller
+   * must hold the store's monitor.
+   *
+   * @param after the last UUID streamed, or an empty string to start with the first player
+   * @param page the list receiving the players read, left empty once every player was read
+   * @throws IOException if the database could not be read
+   */
+  private void readPage(String after, List<PlayerEntity> page) throws IOException {
+    try (PreparedStatement end = this.connection().prepareStatement(SELECT_PAGE_END);
+        PreparedStatement rows = this.connection().prepareStatement(SELECT_PAGE)) {
+      end.setString(1, after);
+      end.setInt(2, PAGE_SIZE);
+      String last;
+      try (ResultSet result = end.executeQuery()) {
+        last = result.next() ? result.getString(1) : null;
+      }
+      if (last == null) {
+        return;
+      }
+
+      rows.setString(1, after);
+      rows.setString(2, last);
+      try (ResultSet result = rows.executeQuery()) {
+        PlayerEntity playerData = null;
+
+        while (result.next()) {
+          UUID uuid = UUID.fromString(result.getString("uuid"));
+          if (playerData == null || !playerData.getUuid().equals(uuid)) {
+            playerData = new PlayerEntity(uuid, this.jobs.size());
+            page.add(playerData);
+          }
+          this.readJob(result, playerData);
+        }
+      }
+    } catch (SQLException e) {
+      throw new IOException("Unable to read players", e);
+    }
+  }
+
+  /**
+   * Copies the job progress of the current row into the given player. Rows of jobs that are no
+   * longer configured are ignored.
+   *
+   * @param result the result set positioned on a job row
+   * @param playerData the player receiving the progress
+   * @return the job of the row, or {@code null} if it is no longer configured
+   * @throws SQLException if the row could not be read
+   */
+  private JobEntity readJob(ResultSet result, PlayerEntity playerData) throws SQLException {
+    JobEntity jobEntity = this.jobs.get(result.getString("job"));
+    if (jobEntity == null) {
+      return null;
+    }
+
+    playerData.setJobXp(jobEntity.getOrdinal(), result.getInt("xp"));
+    playerData.setJobTotalXp(jobEntity.getOrdinal(), result.getInt("total_xp"));
+    playerData.setJobLevel(jobEntity.getOrdinal(), result.getInt("level"));
+
+    int[] window = XpWindowFormat.parse(result.getString("xp_window"));
+    if (window != null) {
+      playerData.setXpWindow(jobEntity.getOrdinal(), window);
+    }
+    return jobEntity;
+  }
+
+  /**
+   * What the store knows about a player: the rows as last read or written, with their versions,
+   * and the progress of this server at its last successful write. The two only differ once the
+   * gains of another server were merged in.
+   */
+  private static final class Tracked {
+    private final PlayerEntity stored;
+    private final long[] versions;
+    private final PlayerEntity written;
+
+    private Tracked(PlayerEntity loaded, long[] versions) {
+      this.stored = loaded.copy();
+      this.versions = versions;
+      this.written = loaded.copy();
+    }
+
+    private boolean isChanged(PlayerEntity playerData, int job) {
+      return this.versions[job] == 0
+          || playerData.getJobTotalXp(job) != this.written.getJobTotalXp(job)
+          || playerData.getJobXp(job) != this.written.getJobXp(job)
+          || playerData.getJobLevel(job) != this.written.getJobLevel(job);
+    }
+  }
+
+  /** A changed row of a save, with the progress to write computed from the tracked state. */
+  private static final class RowWrite {
+    private final Tracked state;
+    private final PlayerEntity playerData;
+    private final JobEntity jobEntity;
+    private int xp;
+    private int totalXp;
+    private int level;
+
+    private RowWrite(Tracked state, PlayerEntity playerData, JobEntity jobEntity) {
+      this.state = state;
+      this.playerData = playerData;
+      this.jobEntity = jobEntity;
+      this.merge();
+    }
+
+    private long expectedVersion() {
+      return this.state.versions[this.jobEntity.getOrdinal()];
+    }
+
+    /**
+     * Computes the progress to write: the stored row plus what this server added since its last
+     * write. Without gains from another server, this is the progress of the player as is.
+     */
+    private void merge() {
+      int job = this.jobEntity.getOrdinal();
+      PlayerEntity stored = this.state.stored;
+      PlayerEntity written = this.state.written;
+
+      if (sameProgress(stored, written, job)) {
+        this.xp = this.playerData.getJobXp(job);
+        this.totalXp = this.playerData.getJobTotalXp(job);
+        this.level = this.playerData.getJobLevel(job);
+        return;
+      }
+
+      XpCurve curve = this.jobEntity.getXpCurve();
+      long added = position(curve, this.playerData, job) - position(curve, written, job);
+      long xp = Math.max(0, position(curve, stored, job) + added);
+      long totalXp =
+          (long) stored.getJobTotalXp(job)
+              + this.playerData.getJobTotalXp(job)
+              - written.getJobTotalXp(job);
+
+      this.level = Math.max(stored.getJobLevel(job), curve.getLevel(xp));
+      this.xp = (int) Math.min(xp - curve.getXpForLevel(this.level), Integer.MAX_VALUE);
+      this.totalXp = (int) Math.max(0, Math.min(totalXp, Integer.MAX_VALUE));
+    }
+
+    private void bindUpdate(PreparedStatement statement) throws SQLException {
+      statement.setInt(1, this.xp);
+      statement.setInt(2, this.totalXp);
+      statement.setInt(3, this.level);
+      statement.setString(4, this.window());
+      statement.setString(5, this.playerData.getUuid().toString());
+      statement.setString(6, this.jobEntity.getId());
+      statement.setLong(7, this.expectedVersion());
+    }
+
+    private void bindInsert(PreparedStatement statement) throws SQLException {
+      statement.setString(1, this.playerData.getUuid().toString());
+      statement.setString(2, this.jobEntity.getId());
+      statement.setInt(3, this.xp);
+      statement.setInt(4, this.totalXp);
+      statement.setInt(5, this.level);
+      statement.setString(6, this.window());
+      statement.setString(7, this.playerData.getUuid().toString());
+      statement.setString(8, this.jobEntity.getId());
+    }
+
+    private String window() {
+      int[] window = this.playerData.getXpWindow(this.jobEntity.getOrdinal());
+      return window == null ? null : XpWindowFormat.format(window);
+    }
+
+    /** Records a successful write in the tracked state. */
+    private void written() {
+      int job = this.jobEntity.getOrdinal();
+      this.state.stored.setJobXp(job, this.xp);
+      this.state.stored.setJobTotalXp(job, this.totalXp);
+      this.state.stored.setJobLevel(job, this.level);
+      this.state.versions[job]++;
+
+      this.state.written.setJobXp(job, this.playerData.getJobXp(job));
+      this.state.written.setJobTotalXp(job, this.playerData.getJobTotalXp(job));
+      this.state.written.setJobLevel(job, this.playerData.getJobLevel(job));
+    }
+
+    private static boolean sameProgress(PlayerEntity a, PlayerEntity b, int job) {
+      return a.getJobXp(job) == b.getJobXp(job)
+          && a.getJobTotalXp(job) == b.getJobTotalXp(job)
+          && a.getJobLevel(job) == b.getJobLevel(job);
+    }
+
+    private static long position(XpCurve curve, PlayerEntity playerData, int job) {
+      return curve.getXpForLevel(playerData.getJobLevel(job)) + playerData.getJobXp(job);
+    }
+  }
+}
@@ -0,0 +1,262 @@
+package dev.fuzip.jobs.storage;
+
+import dev.fuzip.jobs.entities.JobEntity;
+import dev.fuzip.jobs.entities.PlayerEntity;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Stores player progress in an embedded SQLite database, one row per player and job. Saves are
+ * row-level upserts sent as a single prepared-statement batch inside one transaction, so writing a
+ * player no longer depends on how many players are stored.
+ *
+ * <p>The recent XP of each job, used by the XP caps, is kept as text in the {@code xp_window}
+ * column, added to databases created before it existed when the store opens.
+ *
+ * <p>The SQLite JDBC driver is bundled with Spigot, so no extra dependency is needed.
+ */
+public class SqlPlayerDataStore implements PlayerDataStore {
+
+  private static final int PAGE_SIZE = 500;
+
+  private static final String CREATE_TABLE =
+      "CREATE TABLE IF NOT EXISTS jobs_progress ("
+          + "uuid CHAR(36) NOT NULL, "
+          + "job VARCHAR(64) NOT NULL, "
+          + "xp INTEGER NOT NULL, "
+          + "total_xp INTEGER NOT NULL, "
+          + "level INTEGER NOT NULL, "
+          + "xp_window TEXT, "
+          + "PRIMARY KEY (uuid, job))";
+  private static final String ADD_WINDOW_COLUMN =
+      "ALTER TABLE jobs_progress ADD COLUMN xp_window TEXT";
+  private static final String SELECT_PLAYER =
+      "SELECT job, xp, total_xp, level, xp_window FROM jobs_progress WHERE uuid = ?";
+  private static final String SELECT_PAGE_END =
+      "SELECT MAX(uuid) FROM (SELECT DISTINCT uuid FROM jobs_progress WHERE uuid > ? "
+          + "ORDER BY uuid LIMIT ?) page";
+  private static final String SELECT_PAGE =
+      "SELECT uuid, job, xp, total_xp, level, xp_window FROM jobs_progress "
+          + "WHERE uuid > ? AND uuid <= ? ORDER BY uuid";
+  private static final String UPSERT =
+      "INSERT INTO jobs_progress (uuid, job, xp, total_xp, level, xp_window) "
+          + "VALUES (?, ?, ?, ?, ?, ?) "
+          + "ON CONFLICT (uuid, job) DO UPDATE SET "
+          + "xp = excluded.xp, total_xp = excluded.total_xp, level = excluded.level, "
+          + "xp_window = excluded.xp_window";
+  private static final String DELETE_PLAYER = "DELETE FROM jobs_progress WHERE uuid = ?";
+
+  private final Map<String, JobEntity> jobs;
+  private final Connection connection;
+
+  public SqlPlayerDataStore(String url, Map<String, JobEntity> jobs) throws IOException {
+    this.jobs = jobs;
+
+    try {
+      Class.forName("org.sqlite.JDBC");
+    } catch (ClassNotFoundException ignored) {
+      // Let DriverManager find another driver for the given URL
+    }
+
+    try {
+      this.connection = DriverManager.getConnection(url);
+      try (Statement statement = this.connection.createStatement()) {
+        statement.execute(CREATE_TABLE);
+        if (!this.hasWindowColumn(statement)) {
+          statement.execute(ADD_WINDOW_COLUMN);
+        }
+      }
+    } catch (SQLException e) {
+      throw new IOException("Unable to open database " + url, e);
+    }
+  }
+
+  @Override
+  public synchronized PlayerEntity load(UUID uuid) throws IOException {
+    PlayerEntity playerData = new PlayerEntity(uuid, this.jobs.size());
+    playerData.setNew(true);
+
+    try (PreparedStatement statement = this.connection.prepareStatement(SELECT_PLAYER)) {
+      statement.setString(1, uuid.toString());
+
+      try (ResultSet result = statement.executeQuery()) {
+        while (result.next()) {
+          playerData.setNew(false);
+          this.readJob(result, playerData);
+        }
+      }
+    } catch (SQLException e) {
+      throw new IOException("Unable to load player " + uuid, e);
+    }
+
+    return playerData;
+  }
+
+  @Override
+  public void save(PlayerEntity playerData) throws IOException {
+    this.saveAll(List.of(playerData));
+  }
+
+  @Override
+  public synchronized void saveAll(Collection<PlayerEntity> players) throws IOException {
+    try {
+      this.connection.setAutoCommit(false);
+
+      try (PreparedStatement statement = this.connection.prepareStatement(UPSERT)) {
+        for (PlayerEntity playerData : players) {
+          String uuid = playerData.getUuid().toString();
+
+          for (JobEntity jobEntity : this.jobs.values()) {
+            statement.setString(1, uuid);
+            statement.setString(2, jobEntity.getId());
+            statement.setInt(3, playerData.getJobXp(jobEntity.getOrdinal()));
+            statement.setInt(4, playerData.getJobTotalXp(jobEntity.getOrdinal()));
+            statement.setInt(5, playerData.getJobLevel(jobEntity.getOrdinal()));
+            int[] window = playerData.getXpWindow(jobEntity.getOrdinal());
+            statement.setString(6, window == null ? null : XpWindowFormat.format(window));
+            statement.addBatch();
+          }
+        }
+
+        statement.executeBatch();
+        this.connection.commit();
+      } catch (SQLException e) {
+        this.connection.rollback();
+        throw e;
+      } finally {
+        this.connection.setAutoCommit(true);
+      }
+    } catch (SQLException e) {
+      throw new IOException("Unable to save " + players.size() + " players", e);
+    }
+  }
+
+  @Override
+  public synchronized void delete(UUID uuid) throws IOException {
+    try (PreparedStatement statement = this.connection.prepareStatement(DELETE_PLAYER)) {
+      statement.setString(1, uuid.toString());
+      statement.executeUpdate();
+    } catch (SQLException e) {
+      throw new IOException("Unable to delete player " + uuid, e);
+    }
+  }
+
+  /**
+   * Streams the stored players by UUID order, {@value #PAGE_SIZE} players per query. Each page
+   * starts after the last UUID of the previous one, so saves between two pages never make the
+   * iteration skip or repeat a player.
+   */
+  @Override
+  public void forEach(Consumer<PlayerEntity> consumer) throws IOException {
+    List<PlayerEntity> page = new ArrayList<>(PAGE_SIZE);
+    String last = "";
+
+    while (true) {
+      synchronized (this) {
+        this.readPage(last, page);
+      }
+
+      if (page.isEmpty()) {
+        return;
+      }
+      page.forEach(consumer);
+      last = page.get(page.size() - 1).getUuid().toString();
+      page.clear();
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    try {
+      this.connection.close();
+    } catch (SQLException e) {
+      throw new IOException("Unable to close database", e);
+    }
+  }
+
+  /**
+   * Reads the players whose UUID follows the given one, up to {@value #PAGE_SIZE}. The caller
+   * must hold the store's monitor.
+   *
+   * @param after the last UUID streamed, or an empty string to start with the first player
+   * @param page the list receiving the players read, left empty once every player was read
+   * @throws IOException if the database could not be read
+   */
+  private void readPage(String after, List<PlayerEntity> page) throws IOException {
+    try (PreparedStatement end = this.connection.prepareStatement(SELECT_PAGE_END);
+        PreparedStatement rows = this.connection.prepareStatement(SELECT_PAGE)) {
+      end.setString(1, after);
+      end.setInt(2, PAGE_SIZE);
+      String last;
+      try (ResultSet result = end.executeQuery()) {
+        last = result.next() ? result.getString(1) : null;
+      }
+      if (last == null) {
+        return;
+      }
+
+      rows.setString(1, after);
+      rows.setString(2, last);
+      try (ResultSet result = rows.executeQuery()) {
+        PlayerEntity playerData = null;
+
+        while (result.next()) {
+          UUID uuid = UUID.fromString(result.getString("uuid"));
+          if (playerData == null || !playerData.getUuid().equals(uuid)) {
+            playerData = new PlayerEntity(uuid, this.jobs.size());
+            page.add(playerData);
+          }
+          this.readJob(result, playerData);
+        }
+      }
+    } catch (SQLException e) {
+      throw new IOException("Unable to read players", e);
+    }
+  }
+
+  /**
+   * Copies the job progress of the current row into the given player. Rows of jobs that are no
+   * longer configured are ignored.
+   *
+   * @param result the result set positioned on a job row
+   * @param playerData the player receiving the progress
+   * @throws SQLException if the row could not be read
+   */
+  private void readJob(ResultSet result, PlayerEntity playerData) throws SQLException {
+    JobEntity jobEntity = this.jobs.get(result.getString("job"));
+    if (jobEntity == null) {
+      return;
+    }
+
+    playerData.setJobXp(jobEntity.getOrdinal(), result.getInt("xp"));
+    playerData.setJobTotalXp(jobEntity.getOrdinal(), result.getInt("total_xp"));
+    playerData.setJobLevel(jobEntity.getOrdinal(), result.getInt("level"));
+
+    int[] window = XpWindowFormat.parse(result.getString("xp_window"));
+    if (window != null) {
+      playerData.setXpWindow(jobEntity.getOrdinal(), window);
+    }
+  }
+
+  private boolean hasWindowColumn(Statement statement) throws SQLException {
+    try (ResultSet columns = statement.executeQuery("PRAGMA table_info(jobs_progress)")) {
+      while (columns.next()) {
+        if (columns.getString("name").equalsIgnoreCase("xp_window")) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+}
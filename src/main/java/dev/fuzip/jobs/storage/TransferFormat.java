@@ -0,0 +1,49 @@
+package dev.fuzip.jobs.storage;
+
+import java.util.Locale;
+
+/**
+ * Define the file formats of {@code /jobs export} and {@code /jobs import}, recognized by the
+ * extension of the file. Both hold one line per player and job.
+ */
+public enum TransferFormat {
+  JSONL("jsonl"),
+  CSV("csv");
+
+  private final String extension;
+
+  TransferFormat(String extension) {
+    this.extension = extension;
+  }
+
+  public String getExtension() {
+    return this.extension;
+  }
+
+  /**
+   * Returns the format matching a name, as typed after {@code /jobs export}.
+   *
+   * @param name the format name, for example {@code csv}
+   * @return the matching format, or {@code null} if the name is unknown
+   */
+  public static TransferFormat fromName(String name) {
+    for (TransferFormat format : values()) {
+      if (format.extension.equals(name.toLowerCase(Locale.ROOT))) {
+        return format;
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Returns the format of a file from its extension.
+   *
+   * @param fileName the name of the file
+   * @return the matching format, or {@code null} if the extension is unknown
+   */
+  public static TransferFormat fromFileName(String fileName) {
+    int dot = fileName.lastIndexOf('.');
+    return dot < 0 ? null : fromName(fileName.substring(dot + 1));
+  }
+}
@@ -0,0 +1,161 @@
+package dev.fuzip.jobs.storage;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash table mapping a UUID, split into its two longs, to a record slot. Keys and
+ * values live in primitive arrays, so lookups neither box nor allocate. Deletions use backward
+ * shifting, so no tombstones accumulate.
+ */
+final class UuidSlotIndex {
+
+  private static final int EMPTY = -1;
+
+  private long[] mostSignificant;
+  private long[] leastSignificant;
+  private int[] slots;
+  private int mask;
+  private int size;
+
+  UuidSlotIndex(int expectedSize) {
+    int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2) - 1) << 1;
+    this.allocate(capacity);
+  }
+
+  int size() {
+    return this.size;
+  }
+
+  /**
+   * Returns the slot stored for the given UUID.
+   *
+   * @param msb the most significant bits of the UUID
+   * @param lsb the least significant bits of the UUID
+   * @return the slot, or {@code -1} if the UUID is not indexed
+   */
+  int get(long msb, long lsb) {
+    int i = this.hash(msb, lsb);
+
+    while (this.slots[i] != EMPTY) {
+      if (this.mostSignificant[i] == msb && this.leastSignificant[i] == lsb) {
+        return this.slots[i];
+      }
+      i = (i + 1) & this.mask;
+    }
+
+    return EMPTY;
+  }
+
+  /**
+   * Associates the given UUID with a slot, replacing any previous slot.
+   *
+   * @param msb the most significant bits of the UUID
+   * @param lsb the least significant bits of the UUID
+   * @param slot the record slot, must not be negative
+   * @return the previous slot, or {@code -1} if the UUID was not indexed
+   */
+  int put(long msb, long lsb, int slot) {
+    if ((this.size + 1) * 2 > this.slots.length) {
+      this.resize();
+    }
+
+    int i = this.hash(msb, lsb);
+
+    while (this.slots[i] != EMPTY) {
+      if (this.mostSignificant[i] == msb && this.leastSignificant[i] == lsb) {
+        int previous = this.slots[i];
+        this.slots[i] = slot;
+        return previous;
+      }
+      i = (i + 1) & this.mask;
+    }
+
+    this.mostSignificant[i] = msb;
+    this.leastSignificant[i] = lsb;
+    this.slots[i] = slot;
+    this.size++;
+    return EMPTY;
+  }
+
+  /**
+   * Removes the given UUID from the index.
+   *
+   * @param msb the most significant bits of the UUID
+   * @param lsb the least significant bits of the UUID
+   * @return the removed slot, or {@code -1} if the UUID was not indexed
+   */
+  int remove(long msb, long lsb) {
+    int i = this.hash(msb, lsb);
+
+    while (this.slots[i] != EMPTY) {
+      if (this.mostSignificant[i] == msb && this.leastSignificant[i] == lsb) {
+        int removed = this.slots[i];
+        this.shiftBack(i);
+        this.size--;
+        return removed;
+      }
+      i = (i + 1) & this.mask;
+    }
+
+    return EMPTY;
+  }
+
+  /**
+   * Empties the bucket at {@code gap} and moves back the following entries of the probe sequence
+   * that would no longer be reachable.
+   *
+   * @param gap the bucket to empty
+   */
+  private void shiftBack(int gap) {
+    int i = gap;
+
+    while (true) {
+      i = (i + 1) & this.mask;
+      if (this.slots[i] == EMPTY) {
+        break;
+      }
+
+      int home = this.hash(this.mostSignificant[i], this.leastSignificant[i]);
+      boolean reachable = gap <= i ? gap < home && home <= i : gap < home || home <= i;
+      if (!reachable) {
+        this.mostSignificant[gap] = this.mostSignificant[i];
+        this.leastSignificant[gap] = this.leastSignificant[i];
+        this.slots[gap] = this.slots[i];
+        gap = i;
+      }
+    }
+
+    this.slots[gap] = EMPTY;
+  }
+
+  private void resize() {
+    long[] oldMostSignificant = this.mostSignificant;
+    long[] oldLeastSignificant = this.leastSignificant;
+    int[] oldSlots = this.slots;
+
+    this.allocate(oldSlots.length * 2);
+    this.size = 0;
+
+    for (int i = 0; i < oldSlots.length; i++) {
+      if (oldSlots[i] != EMPTY) {
+        this.put(oldMostSignificant[i], oldLeastSignificant[i], oldSlots[i]);
+      }
+    }
+  }
+
+  private void allocate(int capacity) {
+    this.mostSignificant = new long[capacity];
+    this.leastSignificant = new long[capacity];
+    this.slots = new int[capacity];
+    this.mask = capacity - 1;
+    Arrays.fill(this.slots, EMPTY);
+  }
+
+  private int hash(long msb, long lsb) {
+    long h = msb ^ Long.rotateLeft(lsb, 32);
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    return (int) h & this.mask;
+  }
+}
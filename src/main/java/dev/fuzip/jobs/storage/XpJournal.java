@@ -0,0 +1,461 @@
+package dev.fuzip.jobs.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of XP gains, written between two saves of the player store so that a crash
+ * loses no progress. Each gain is a fixed-size binary record holding the player's UUID, the job
+ * ordinal, the XP gained, the job's total XP after the gain, the time of the gain and a checksum.
+ *
+ * <p>Records are appended to a memory buffer from any thread and written by a dedicated thread.
+ * Records appended while a write is in progress are written together by the next one, so a tick
+ * of gains costs one write, and one disk sync when {@code fsync} is enabled.
+ *
+ * <p>The journal is split into numbered segment files. Each segment starts with a header holding
+ * a magic number, the format version and the job IDs in ordinal order, so records are matched to
+ * jobs by ID even if config.yml is reordered between a crash and the restart. When the current
+ * segment is full, {@link #rotateIfFull()} starts a new one; segments are deleted with {@link
+ * #deleteThrough(long)} once the store holds everything they record.
+ *
+ * <p>Replay is idempotent: total XP only grows, so a gain whose total is not above the stored
+ * total is already in the store and is skipped. Segments therefore never need to be deleted in the
+ * same step as the store is written.
+ */
+public class XpJournal {
+
+  /** Version of the segment layout written by this class. */
+  public static final int FORMAT_VERSION = 1;
+
+  private static final int MAGIC = 0x4A584A4C; // "JXJL"
+  private static final int RECORD_SIZE = 40;
+  private static final int CHECKED_SIZE = RECORD_SIZE - 4;
+  private static final int INITIAL_BUFFER_SIZE = 64 * RECORD_SIZE;
+  private static final String SEGMENT_SUFFIX = ".log";
+
+  private final Path folder;
+  private final List<String> jobIds;
+  private final boolean fsync;
+  private final long segmentSize;
+  private final Consumer<IOException> errorHandler;
+  private final ExecutorService writer;
+  private final AtomicBoolean writeScheduled = new AtomicBoolean();
+
+  private final Queue<Chunk> sealedChunks = new ArrayDeque<>();
+  private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+  private long segment;
+  private long segmentBytes;
+
+  private FileChannel channel;
+  private long channelSegment = -1;
+  private long deletedThrough;
+  private boolean closed;
+
+  /**
+   * Opens the journal in the given folder. Existing segments are kept for {@link
+   * #readLatestTotals()}, and new records go to a new segment.
+   *
+   * @param folder the folder holding the segment files, created if needed
+   * @param jobIds the IDs of the configured jobs, in ordinal order
+   * @param fsync whether each write is forced to disk before the next one
+   * @param segmentSize the size in bytes after which a new segment is started
+   * @param errorHandler receives the errors of the writer thread
+   * @throws IOException if the folder could not be created or listed
+   */
+  public XpJournal(
+      Path folder,
+      List<String> jobIds,
+      boolean fsync,
+      long segmentSize,
+      Consumer<IOException> errorHandler)
+      throws IOException {
+    this.folder = folder;
+    this.jobIds = List.copyOf(jobIds);
+    this.fsync = fsync;
+    this.segmentSize = Math.max(RECORD_SIZE, segmentSize);
+    this.errorHandler = errorHandler;
+    this.writer = Executors.newSingleThreadExecutor(r -> new Thread(r, "Jobs-Journal"));
+
+    Files.createDirectories(folder);
+    long[] existing = this.listSegments();
+    this.segment = existing.length == 0 ? 1 : existing[existing.length - 1] + 1;
+    this.deletedThrough = existing.length == 0 ? 0 : existing[0] - 1;
+  }
+
+  /**
+   * Records an XP gain. Safe to call from any thread; the record is written asynchronously.
+   *
+   * @param uuid the UUID of the player
+   * @param job the ordinal of the job
+   * @param xp the XP gained
+   * @param totalXp the total XP of the player in the job, after the gain
+   */
+  public void append(UUID uuid, int job, int xp, int totalXp) {
+    synchronized (this) {
+      if (this.closed) {
+        return;
+      }
+
+      if (this.buffer.remaining() < RECORD_SIZE) {
+        ByteBuffer larger = ByteBuffer.allocate(this.buffer.capacity() * 2);
+        this.buffer.flip();
+        this.buffer = larger.put(this.buffer);
+      }
+
+      int start = this.buffer.position();
+      this.buffer.putLong(uuid.getMostSignificantBits());
+      this.buffer.putLong(uuid.getLeastSignificantBits());
+      this.buffer.putInt(job);
+      this.buffer.putInt(xp);
+      this.buffer.putInt(totalXp);
+      this.buffer.putLong(System.currentTimeMillis());
+      this.buffer.putInt(checksum(this.buffer, start + CHECKED_SIZE));
+      this.segmentBytes += RECORD_SIZE;
+    }
+
+    if (this.writeScheduled.compareAndSet(false, true)) {
+      this.writer.execute(this::writeSealed);
+    }
+  }
+
+  /**
+   * Starts a new segment if the current one reached the configured size. Records appended before
+   * this call stay in the returned segment or an older one; records appended after it go to a
+   * newer one.
+   *
+   * @return the number of the newest segment that no longer receives records
+   */
+  public synchronized long rotateIfFull() {
+    return this.segmentBytes >= this.segmentSize ? this.rotate() : this.segment - 1;
+  }
+
+  /**
+   * Starts a new segment whatever the size of the current one, so that every record appended so
+   * far can be deleted with {@link #deleteThrough(long)}.
+   *
+   * @return the number of the segment that was just ended
+   */
+  public synchronized long rotate() {
+    this.seal();
+    this.segment++;
+    this.segmentBytes = 0;
+
+    if (this.writeScheduled.compareAndSet(false, true)) {
+      this.writer.execute(this::writeSealed);
+    }
+    return this.segment - 1;
+  }
+
+  /**
+   * Deletes the segments up to the given one, once the store holds every gain they record. Runs on
+   * the writer thread, after the records already appended are written.
+   *
+   * @param lastSegment the number of the newest segment to delete
+   */
+  public void deleteThrough(long lastSegment) {
+    this.writer.execute(
+        () -> {
+          if (lastSegment <= this.deletedThrough) {
+            return;
+          }
+
+          try {
+            if (this.channel != null && this.channelSegment <= lastSegment) {
+              this.channel.close();
+              this.channel = null;
+            }
+            for (long number : this.listSegments()) {
+              if (number <= lastSegment) {
+                Files.deleteIfExists(this.segmentFile(number));
+              }
+            }
+            this.deletedThrough = lastSegment;
+          } catch (IOException e) {
+            this.errorHandler.accept(e);
+          }
+        });
+  }
+
+  /**
+   * Reads the segments left by the previous run, typically after a crash, and returns the highest
+   * total XP recorded for each player and job. Records cut short or corrupted by the crash end the
+   * replay of their segment. Must be called before any record is appended.
+   *
+   * @return for each player, the highest recorded total XP per job ordinal, 0 where none was
+   *     recorded
+   * @throws IOException if a segment could not be read or has an unknown format
+   */
+  public Map<UUID, int[]> readLatestTotals() throws IOException {
+    Map<UUID, int[]> totals = new HashMap<>();
+
+    for (long number : this.listSegments()) {
+      if (number < this.segment) {
+        this.readSegment(this.segmentFile(number), totals);
+      }
+    }
+
+    return totals;
+  }
+
+  /**
+   * Writes the pending records, stops the writer thread and closes the current segment.
+   *
+   * @param discard whether every segment is deleted, because the store holds all the gains
+   * @throws IOException if the pending records could not be written
+   */
+  public void close(boolean discard) throws IOException {
+    synchronized (this) {
+      this.closed = true;
+    }
+    if (discard) {
+      this.deleteThrough(Long.MAX_VALUE);
+    } else {
+      this.writer.execute(this::writeSealed);
+    }
+
+    this.writer.shutdown();
+    try {
+      if (!this.writer.awaitTermination(10, TimeUnit.SECONDS)) {
+        throw new IOException("Timed out while writing the XP journal");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    if (this.channel != null) {
+      this.channel.close();
+    }
+  }
+
+  /** Moves the records of the current buffer to the queue of chunks waiting to be written. */
+  private void seal() {
+    if (this.buffer.position() == 0) {
+      return;
+    }
+
+    this.buffer.flip();
+    this.sealedChunks.add(new Chunk(this.segment, this.buffer));
+    this.buffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+  }
+
+  /**
+   * Writes every sealed chunk and the records appended so far to their segments. Runs on the
+   * writer thread.
+   */
+  private void writeSealed() {
+    this.writeScheduled.set(false);
+
+    List<Chunk> chunks;
+    synchronized (this) {
+      this.seal();
+      chunks = new ArrayList<>(this.sealedChunks);
+      this.sealedChunks.clear();
+    }
+
+    try {
+      for (Chunk chunk : chunks) {
+        if (chunk.segment <= this.deletedThrough) {
+          continue;
+        }
+
+        FileChannel out = this.openSegment(chunk.segment);
+        while (chunk.records.hasRemaining()) {
+          out.write(chunk.records);
+        }
+      }
+
+      if (this.fsync && this.channel != null && !chunks.isEmpty()) {
+        this.channel.force(false);
+      }
+    } catch (IOException e) {
+      this.errorHandler.accept(e);
+    }
+  }
+
+  /**
+   * Returns the channel of the given segment, closing the previous one and writing the header of
+   * the segment if it is empty.
+   *
+   * @param number the segment number
+   * @return the channel, positioned at the end of the segment
+   * @throws IOException if the segment could not be opened
+   */
+  private FileChannel openSegment(long number) throws IOException {
+    if (this.channel != null && this.channelSegment == number) {
+      return this.channel;
+    }
+
+    if (this.channel != null) {
+      if (this.fsync) {
+        this.channel.force(false);
+      }
+      this.channel.close();
+    }
+
+    this.channel =
+        FileChannel.open(
+            this.segmentFile(number),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.APPEND);
+    this.channelSegment = number;
+
+    // A segment left empty by a crash right after its creation still needs its header
+    if (this.channel.size() == 0) {
+      ByteBuffer header = this.createHeader();
+      while (header.hasRemaining()) {
+        this.channel.write(header);
+      }
+      if (this.fsync) {
+        this.channel.force(false);
+      }
+    }
+
+    return this.channel;
+  }
+
+  private ByteBuffer createHeader() {
+    List<byte[]> ids = new ArrayList<>(this.jobIds.size());
+    int size = 12;
+    for (String jobId : this.jobIds) {
+      byte[] bytes = jobId.getBytes(StandardCharsets.UTF_8);
+      ids.add(bytes);
+      size += 2 + bytes.length;
+    }
+
+    ByteBuffer header = ByteBuffer.allocate(size);
+    header.putInt(MAGIC);
+    header.putInt(FORMAT_VERSION);
+    header.putInt(ids.size());
+    for (byte[] bytes : ids) {
+      header.putShort((short) bytes.length);
+      header.put(bytes);
+    }
+    return header.flip();
+  }
+
+  /**
+   * Reads one segment into the totals, mapping its job columns to the current job ordinals. A
+   * header cut short by a crash ends the replay of the segment, like a cut record.
+   *
+   * @param file the segment file
+   * @param totals the totals receiving the records
+   * @throws IOException if the segment could not be read or has an unknown format
+   */
+  private void readSegment(Path file, Map<UUID, int[]> totals) throws IOException {
+    ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file));
+    if (data.remaining() < 12) {
+      return;
+    }
+
+    if (data.getInt() != MAGIC) {
+      throw new IOException(file + " is not a Jobs XP journal");
+    }
+    int version = data.getInt();
+    if (version != FORMAT_VERSION) {
+      throw new IOException("Unsupported journal version " + version + " in " + file);
+    }
+
+    int columns = data.getInt();
+    if (columns < 0 || columns > data.remaining() / 2) {
+      return;
+    }
+    int[] ordinals = new int[columns];
+    for (int column = 0; column < ordinals.length; column++) {
+      if (data.remaining() < 2) {
+        return;
+      }
+      int length = Short.toUnsignedInt(data.getShort());
+      if (length > data.remaining()) {
+        return;
+      }
+      byte[] bytes = new byte[length];
+      data.get(bytes);
+      ordinals[column] = this.jobIds.indexOf(new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    while (data.remaining() >= RECORD_SIZE) {
+      int start = data.position();
+      if (checksum(data, start + CHECKED_SIZE) != data.getInt(start + CHECKED_SIZE)) {
+        return;
+      }
+
+      UUID uuid = new UUID(data.getLong(), data.getLong());
+      int column = data.getInt();
+      data.getInt();
+      int totalXp = data.getInt();
+      data.getLong();
+      data.getInt();
+
+      if (column >= 0 && column < ordinals.length && ordinals[column] >= 0) {
+        int[] playerTotals = totals.computeIfAbsent(uuid, k -> new int[this.jobIds.size()]);
+        playerTotals[ordinals[column]] = Math.max(playerTotals[ordinals[column]], totalXp);
+      }
+    }
+  }
+
+  private long[] listSegments() throws IOException {
+    List<Long> numbers = new ArrayList<>();
+
+    try (DirectoryStream<Path> files =
+        Files.newDirectoryStream(this.folder, "*" + SEGMENT_SUFFIX)) {
+      for (Path file : files) {
+        String name = file.getFileName().toString();
+        try {
+          numbers.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+        } catch (NumberFormatException e) {
+          // Not a segment
+        }
+      }
+    }
+
+    return numbers.stream().mapToLong(Long::longValue).sorted().toArray();
+  }
+
+  private Path segmentFile(long number) {
+    return this.folder.resolve(String.format("%010d%s", number, SEGMENT_SUFFIX));
+  }
+
+  /**
+   * Computes the checksum of the record ending at the given position of the buffer.
+   *
+   * @param buffer the buffer holding the record
+   * @param end the position right after the checked part of the record
+   * @return the CRC32C of the checked part
+   */
+  private static int checksum(ByteBuffer buffer, int end) {
+    CRC32C crc = new CRC32C();
+    crc.update(buffer.slice(end - CHECKED_SIZE, CHECKED_SIZE));
+    return (int) crc.getValue();
+  }
+
+  /** Records of one segment waiting to be written. */
+  private static final class Chunk {
+    private final long segment;
+    private final ByteBuffer records;
+
+    private Chunk(long segment, ByteBuffer records) {
+      this.segment = segment;
+      this.records = records;
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package dev.fuzip.jobs.storage;
+
+import dev.fuzip.jobs.entities.PlayerEntity;
+
+/**
+ * Text form of the XP window of a job (see {@link PlayerEntity#getXpWindow(int)}), used by the
+ * stores that keep progress as text: its {@link PlayerEntity#XP_WINDOW_SIZE} ints separated by
+ * commas.
+ */
+final class XpWindowFormat {
+
+  private XpWindowFormat() {}
+
+  static String format(int[] window) {
+    StringBuilder text = new StringBuilder(window.length * 4);
+    for (int i = 0; i < window.length; i++) {
+      if (i > 0) {
+        text.append(',');
+      }
+      text.append(window[i]);
+    }
+    return text.toString();
+  }
+
+  /**
+   * Parses the text form of an XP window.
+   *
+   * @param text the stored text, may be null
+   * @return the window, or {@code null} if the text is missing or malformed, in which case the
+   *     player's recent XP simply starts over
+   */
+  static int[] parse(String text) {
+    if (text == null) {
+      return null;
+    }
+
+    String[] values = text.split(",");
+    if (values.length != PlayerEntity.XP_WINDOW_SIZE) {
+      return null;
+    }
+
+    int[] window = new int[values.length];
+    try {
+      for (int i = 0; i < values.length; i++) {
+        window[i] = Integer.parseInt(values[i].trim());
+      }
+    } catch (NumberFormatException e) {
+      return null;
+    }
+    return window;
+  }
+}
@@ -0,0 +1,784 @@
+package dev.fuzip.jobs.storage;
+
+import dev.fuzip.jobs.entities.JobEntity;
+import dev.fuzip.jobs.entities.PlayerEntity;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+/**
+ * Stores every player in a single {@code data.yml} document under the {@code players} section.
+ *
+ * <p>The document is never parsed as a whole. When the store opens, one sequential scan of the
+ * file records where the entry of each player starts and how long it is, in primitive arrays
+ * indexed by a {@link UuidSlotIndex}. A player's entry is only read and parsed when the player is
+ * loaded. Saving rewrites the file next to the old one: entries of unchanged players are copied
+ * byte for byte, in runs, and only the saved players are written out. Content outside the {@code
+ * players} section and entries whose key is not a UUID are kept as they are.
+ *
+ * <p>Every save still writes the whole file, so its I/O grows with the number of stored players
+ * rather than with the number of saved ones. Copied runs are transferred without passing through
+ * the JVM, which keeps this cheap for a few thousand players; larger servers should use the
+ * binary, sharded or SQL storage, which only write the saved players.
+ */
+public class YamlPlayerDataStore implements PlayerDataStore {
+
+  private static final int INITIAL_CAPACITY = 1024;
+  private static final int PAGE_SIZE = 500;
+  private static final byte[] PLAYERS_KEY = "players:".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] NEWLINE = {'\n'};
+
+  private final File dataFile;
+  private final Map<String, JobEntity> jobs;
+
+  private UuidSlotIndex index;
+  private long[] mostSignificant;
+  private long[] leastSignificant;
+  private long[] offsets;
+  private int[] lengths;
+  private int slotCount;
+  private int indent;
+  private final List<long[]> otherRanges = new ArrayList<>();
+  private final List<long[]> unknownEntries = new ArrayList<>();
+  private FileChannel reader;
+
+  public YamlPlayerDataStore(File dataFile, Map<String, JobEntity> jobs) throws IOException {
+    this.dataFile = dataFile;
+    this.jobs = jobs;
+    this.indexFile();
+  }
+
+  @Override
+  public synchronized PlayerEntity load(UUID uuid) throws IOException {
+    int slot = this.index.get(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+
+    if (slot < 0) {
+      PlayerEntity playerData = new PlayerEntity(uuid, this.jobs.size());
+      playerData.setNew(true);
+      return playerData;
+    }
+
+    return this.readEntry(slot);
+  }
+
+  @Override
+  public void save(PlayerEntity playerData) throws IOException {
+    this.saveAll(List.of(playerData));
+  }
+
+  @Override
+  public synchronized void saveAll(Collection<PlayerEntity> players) throws IOException {
+    Map<UUID, PlayerEntity> saved = new LinkedHashMap<>();
+    for (PlayerEntity playerData : players) {
+      saved.put(playerData.getUuid(), playerData);
+    }
+
+    this.rewrite(saved);
+  }
+
+  @Override
+  public synchronized void delete(UUID uuid) throws IOException {
+    int slot = this.index.remove(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    if (slot < 0) {
+      return;
+    }
+
+    this.lengths[slot] = -1;
+    this.rewrite(new LinkedHashMap<>());
+  }
+
+  /**
+   * Streams the stored players in file order, {@value #PAGE_SIZE} entries per lock. Saves keep the
+   * order of the entries and add new players at the end, so each page resumes right after the last
+   * player streamed. The iteration ends early if that player is deleted in the meantime.
+   */
+  @Override
+  public void forEach(Consumer<PlayerEntity> consumer) throws IOException {
+    List<PlayerEntity> page = new ArrayList<>(PAGE_SIZE);
+    UUID last = null;
+
+    while (true) {
+      synchronized (this) {
+        this.readPage(last, page);
+      }
+
+      if (page.isEmpty()) {
+        return;
+      }
+      page.forEach(consumer);
+      last = page.get(page.size() - 1).getUuid();
+      page.clear();
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (this.reader != null) {
+      this.reader.close();
+    }
+  }
+
+  /**
+   * Reads the entries that follow a player, up to {@value #PAGE_SIZE}. The caller must hold the
+   * store's monitor.
+   *
+   * @param after the last player streamed, or {@code null} to start with the first entry
+   * @param page the list receiving the players read, left empty at the end of the file
+   * @throws IOException if the file could not be read
+   */
+  private void readPage(UUID after, List<PlayerEntity> page) throws IOException {
+    int slot = 0;
+    if (after != null) {
+      slot = this.index.get(after.getMostSignificantBits(), after.getLeastSignificantBits()) + 1;
+      if (slot == 0) {
+        return;
+      }
+    }
+
+    for (; slot < this.slotCount && page.size() < PAGE_SIZE; slot++) {
+      if (this.lengths[slot] >= 0) {
+        page.add(this.readEntry(slot));
+      }
+    }
+  }
+
+  /**
+   * Reads and parses the entry of a slot.
+   *
+   * @param slot the slot of a stored player
+   * @return the progress of the player
+   * @throws IOException if the file could not be read
+   */
+  private PlayerEntity readEntry(int slot) throws IOException {
+    ByteBuffer entry = ByteBuffer.allocate(this.lengths[slot]);
+    while (entry.hasRemaining()) {
+      if (this.reader.read(entry, this.offsets[slot] + entry.position()) < 0) {
+        throw new IOException("Unexpected end of " + this.dataFile);
+      }
+    }
+
+    UUID uuid = new UUID(this.mostSignificant[slot], this.leastSignificant[slot]);
+    return this.parseEntry(uuid, new String(entry.array(), StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Scans the file once and records the position of every player entry, without parsing them.
+   * An entry starts at a line indented one level under {@code players:} and runs until the next
+   * line at that level or above.
+   *
+   * @throws IOException if the file could not be read
+   */
+  private void indexFile() throws IOException {
+    this.allocate(INITIAL_CAPACITY);
+    this.index = new UuidSlotIndex(INITIAL_CAPACITY);
+    this.indent = 2;
+
+    if (!this.dataFile.exists()) {
+      return;
+    }
+
+    try (LineScanner lines = new LineScanner(Files.newInputStream(this.dataFile.toPath()))) {
+      boolean inPlayers = false;
+      int childIndent = -1;
+      long entryStart = -1;
+      UUID entryUuid = null;
+      long otherStart = -1;
+
+      while (lines.next()) {
+        int lineIndent = lines.indent();
+        boolean content = !lines.isBlank() && !lines.isComment();
+
+        if (content && lineIndent == 0) {
+          this.closeEntry(entryStart, entryUuid, lines.start());
+          entryStart = -1;
+          if (otherStart >= 0) {
+            this.otherRanges.add(new long[] {otherStart, lines.start() - otherStart});
+          }
+
+          inPlayers = lines.startsWith(PLAYERS_KEY);
+          otherStart = inPlayers ? -1 : lines.start();
+          continue;
+        }
+
+        if (!inPlayers || !content) {
+          continue;
+        }
+        if (childIndent < 0) {
+          childIndent = lineIndent;
+          this.indent = lineIndent;
+        }
+        if (lineIndent <= childIndent) {
+          this.closeEntry(entryStart, entryUuid, lines.start());
+          entryStart = lines.start();
+          entryUuid = parseKey(lines.text().trim());
+        }
+      }
+
+      this.closeEntry(entryStart, entryUuid, lines.start());
+      if (otherStart >= 0) {
+        this.otherRanges.add(new long[] {otherStart, lines.start() - otherStart});
+      }
+    }
+
+    this.reader = FileChannel.open(this.dataFile.toPath(), StandardOpenOption.READ);
+  }
+
+  /**
+   * Records a player entry found by the scan. Entries whose key is not a UUID are kept aside and
+   * written back unchanged.
+   *
+   * @param start the offset of the entry, or -1 if there is none
+   * @param uuid the UUID of the entry, or {@code null} if its key is not a UUID
+   * @param end the offset right after the entry
+   */
+  private void closeEntry(long start, UUID uuid, long end) {
+    if (start < 0) {
+      return;
+    }
+
+    if (uuid == null) {
+      this.unknownEntries.add(new long[] {start, end - start});
+      return;
+    }
+
+    int previous = this.index.get(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    if (previous >= 0) {
+      // Same behaviour as a YAML parser: the last entry wins
+      this.lengths[previous] = -1;
+    }
+    this.addSlot(uuid, start, (int) (end - start));
+  }
+
+  private void addSlot(UUID uuid, long offset, int length) {
+    if (this.slotCount == this.offsets.length) {
+      int capacity = this.offsets.length * 2;
+      this.mostSignificant = Arrays.copyOf(this.mostSignificant, capacity);
+      this.leastSignificant = Arrays.copyOf(this.leastSignificant, capacity);
+      this.offsets = Arrays.copyOf(this.offsets, capacity);
+      this.lengths = Arrays.copyOf(this.lengths, capacity);
+    }
+
+    int slot = this.slotCount++;
+    this.mostSignificant[slot] = uuid.getMostSignificantBits();
+    this.leastSignificant[slot] = uuid.getLeastSignificantBits();
+    this.offsets[slot] = offset;
+    this.lengths[slot] = length;
+    this.index.put(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), slot);
+  }
+
+  private void allocate(int capacity) {
+    this.mostSignificant = new long[capacity];
+    this.leastSignificant = new long[capacity];
+    this.offsets = new long[capacity];
+    this.lengths = new int[capacity];
+    this.slotCount = 0;
+  }
+
+  /**
+   * Writes a new file holding the stored players with the given ones replaced or added, then moves
+   * it over the old one and indexes the new positions. Unchanged entries are copied from the old
+   * file without being parsed.
+   *
+   * @param saved the players to write, by UUID; consumed by this method
+   * @throws IOException if the file could not be written
+   */
+  private void rewrite(Map<UUID, PlayerEntity> saved) throws IOException {
+    Path file = this.dataFile.toPath();
+    Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+
+    UuidSlotIndex oldIndex = this.index;
+    long[] oldMsb = this.mostSignificant;
+    long[] oldLsb = this.leastSignificant;
+    long[] oldOffsets = this.offsets;
+    int[] oldLengths = this.lengths;
+    int oldCount = this.slotCount;
+    List<long[]> oldOther = new ArrayList<>(this.otherRanges);
+    List<long[]> oldUnknown = new ArrayList<>(this.unknownEntries);
+
+    this.allocate(Math.max(INITIAL_CAPACITY, oldCount + saved.size()));
+    this.index = new UuidSlotIndex(oldCount + saved.size());
+    this.otherRanges.clear();
+    this.unknownEntries.clear();
+
+    try {
+      try (Rewriter out = new Rewriter(this.reader, temp)) {
+        for (long[] range : oldOther) {
+          this.otherRanges.add(new long[] {out.copy(range[0], range[1]), range[1]});
+        }
+        out.write("players:\n".getBytes(StandardCharsets.UTF_8));
+
+        for (int slot = 0; slot < oldCount; slot++) {
+          if (oldLengths[slot] < 0) {
+            continue;
+          }
+
+          UUID uuid = new UUID(oldMsb[slot], oldLsb[slot]);
+          PlayerEntity playerData = saved.remove(uuid);
+          if (playerData != null) {
+            byte[] entry = this.formatEntry(playerData);
+            this.addSlot(uuid, out.write(entry), entry.length);
+          } else {
+            this.addSlot(uuid, out.copy(oldOffsets[slot], oldLengths[slot]), oldLengths[slot]);
+          }
+        }
+
+        for (PlayerEntity playerData : saved.values()) {
+          byte[] entry = this.formatEntry(playerData);
+          this.addSlot(playerData.getUuid(), out.write(entry), entry.length);
+        }
+
+        for (long[] range : oldUnknown) {
+          this.unknownEntries.add(new long[] {out.copy(range[0], range[1]), range[1]});
+        }
+      }
+
+      try {
+        Files.move(
+            temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException e) {
+      // The old file is untouched, keep reading it
+      this.index = oldIndex;
+      this.mostSignificant = oldMsb;
+      this.leastSignificant = oldLsb;
+      this.offsets = oldOffsets;
+      this.lengths = oldLengths;
+      this.slotCount = oldCount;
+      this.otherRanges.clear();
+      this.otherRanges.addAll(oldOther);
+      this.unknownEntries.clear();
+      this.unknownEntries.addAll(oldUnknown);
+      Files.deleteIfExists(temp);
+      throw e;
+    }
+
+    if (this.reader != null) {
+      this.reader.close();
+    }
+    this.reader = FileChannel.open(file, StandardOpenOption.READ);
+  }
+
+  /**
+   * Formats the entry of a player as it sits under {@code players:}, with the indentation of the
+   * file.
+   *
+   * @param playerData the player to format
+   * @return the UTF-8 bytes of the entry
+   */
+  private byte[] formatEntry(PlayerEntity playerData) {
+    String level1 = " ".repeat(this.indent);
+    String level2 = level1 + level1;
+    String level3 = level2 + level1;
+    StringBuilder entry = new StringBuilder(64 + this.jobs.size() * 64);
+
+    entry.append(level1).append(playerData.getUuid()).append(":\n");
+    for (JobEntity jobEntity : this.jobs.values()) {
+      int job = jobEntity.getOrdinal();
+      entry.append(level2).append(jobEntity.getId()).append(":\n");
+      entry.append(level3).append("xp: ").append(playerData.getJobXp(job)).append('\n');
+      entry.append(level3).append("totalXp: ").append(playerData.getJobTotalXp(job)).append('\n');
+      entry.append(level3).append("level: ").append(playerData.getJobLevel(job)).append('\n');
+
+      int[] window = playerData.getXpWindow(job);
+      if (window != null) {
+        entry.append(level3).append("window: '");
+        entry.append(XpWindowFormat.format(window)).append("'\n");
+      }
+    }
+
+    return entry.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Reads the entry of a player. Entries in the exact block layout written by this store, a key
+   * line with no value, job lines with no value and indented scalar lines under each job, are read
+   * line by line; any other shape, such as a hand-edited entry in flow style, goes through the
+   * YAML parser.
+   *
+   * @param uuid the UUID of the player
+   * @param entry the text of the entry, starting with its key line
+   * @return the player's progress
+   * @throws IOException if the entry is not valid YAML
+   */
+  private PlayerEntity parseEntry(UUID uuid, String entry) throws IOException {
+    int lineStart = entry.indexOf('\n') + 1;
+    String keyLine = (lineStart > 0 ? entry.substring(0, lineStart - 1) : entry).trim();
+    if (!keyLine.endsWith(":")) {
+      return this.parseEntryAsYaml(uuid, entry);
+    }
+
+    PlayerEntity playerData = new PlayerEntity(uuid, this.jobs.size());
+    JobEntity jobEntity = null;
+    int jobIndent = -1;
+
+    while (lineStart > 0 && lineStart < entry.length()) {
+      int lineEnd = entry.indexOf('\n', lineStart);
+      if (lineEnd < 0) {
+        lineEnd = entry.length();
+      }
+      String rawLine = entry.substring(lineStart, lineEnd);
+      String line = rawLine.trim();
+      lineStart = lineEnd + 1;
+
+      if (line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+
+      int indent = indentOf(rawLine);
+      int colon = line.indexOf(':');
+      if (indent < 0 || colon < 0) {
+        return this.parseEntryAsYaml(uuid, entry);
+      }
+
+      String key = unquote(line.substring(0, colon).trim());
+      String value = line.substring(colon + 1).trim();
+
+      if (value.isEmpty()) {
+        if (jobIndent < 0) {
+          jobIndent = indent;
+        } else if (indent != jobIndent) {
+          return this.parseEntryAsYaml(uuid, entry);
+        }
+        jobEntity = this.jobs.get(key);
+        continue;
+      }
+      if (jobIndent < 0 || indent <= jobIndent || value.startsWith("{")
+          || value.startsWith("[")) {
+        return this.parseEntryAsYaml(uuid, entry);
+      }
+      if (jobEntity == null) {
+        continue;
+      }
+      if (key.equals("window")) {
+        this.readXpWindow(playerData, jobEntity, unquote(value));
+        continue;
+      }
+
+      int number;
+      try {
+        number = Integer.parseInt(value);
+      } catch (NumberFormatException e) {
+        return this.parseEntryAsYaml(uuid, entry);
+      }
+
+      switch (key) {
+        case "xp" -> playerData.setJobXp(jobEntity.getOrdinal(), number);
+        case "totalXp" -> playerData.setJobTotalXp(jobEntity.getOrdinal(), number);
+        case "level" -> playerData.setJobLevel(jobEntity.getOrdinal(), number);
+        default -> {}
+      }
+    }
+
+    return playerData;
+  }
+
+  private PlayerEntity parseEntryAsYaml(UUID uuid, String entry) throws IOException {
+    YamlConfiguration config = new YamlConfiguration();
+    try {
+      config.loadFromString("players:\n" + entry);
+    } catch (InvalidConfigurationException e) {
+      throw new IOException("Invalid entry for " + uuid + " in " + this.dataFile, e);
+    }
+
+    PlayerEntity playerData = new PlayerEntity(uuid, this.jobs.size());
+    ConfigurationSection playerSection = config.getConfigurationSection("players." + uuid);
+    if (playerSection == null) {
+      return playerData;
+    }
+
+    for (JobEntity jobEntity : this.jobs.values()) {
+      ConfigurationSection jobSection = playerSection.getConfigurationSection(jobEntity.getId());
+      if (jobSection != null) {
+        playerData.setJobXp(jobEntity.getOrdinal(), jobSection.getInt("xp", 0));
+        playerData.setJobTotalXp(jobEntity.getOrdinal(), jobSection.getInt("totalXp", 0));
+        playerData.setJobLevel(jobEntity.getOrdinal(), jobSection.getInt("level", 1));
+        this.readXpWindow(playerData, jobEntity, jobSection.getString("window"));
+      }
+    }
+
+    return playerData;
+  }
+
+  private void readXpWindow(PlayerEntity playerData, JobEntity jobEntity, String text) {
+    int[] window = XpWindowFormat.parse(text);
+    if (window != null) {
+      playerData.setXpWindow(jobEntity.getOrdinal(), window);
+    }
+  }
+
+  /**
+   * Counts the leading spaces of a line.
+   *
+   * @param line the raw line
+   * @return the number of leading spaces, or {@code -1} if the indentation contains a tab
+   */
+  private static int indentOf(String line) {
+    int indent = 0;
+    while (indent < line.length() && line.charAt(indent) == ' ') {
+      indent++;
+    }
+    return indent < line.length() && line.charAt(indent) == '\t' ? -1 : indent;
+  }
+
+  /**
+   * Reads the UUID from the key line of an entry, such as {@code 'uuid':}.
+   *
+   * @param line the trimmed key line
+   * @return the UUID, or {@code null} if the key is not a UUID
+   */
+  private static UUID parseKey(String line) {
+    int colon = line.indexOf(':');
+    if (colon < 0) {
+      return null;
+    }
+
+    try {
+      return UUID.fromString(unquote(line.substring(0, colon).trim()));
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  private static String unquote(String key) {
+    if (key.length() >= 2
+        && (key.charAt(0) == '\'' || key.charAt(0) == '"')
+        && key.charAt(key.length() - 1) == key.charAt(0)) {
+      return key.substring(1, key.length() - 1);
+    }
+    return key;
+  }
+
+  /** Reads a file line by line as raw bytes, keeping track of the offset of each line. */
+  private static final class LineScanner implements AutoCloseable {
+    private final InputStream in;
+    private final byte[] chunk = new byte[1 << 16];
+    private int chunkPosition;
+    private int chunkLimit;
+    private byte[] line = new byte[256];
+    private int length;
+    private long start;
+    private long next;
+
+    private LineScanner(InputStream in) {
+      this.in = in;
+    }
+
+    /**
+     * Reads the next line.
+     *
+     * @return {@code false} at the end of the file
+     * @throws IOException if the file could not be read
+     */
+    private boolean next() throws IOException {
+      this.start = this.next;
+      this.length = 0;
+
+      while (true) {
+        if (this.chunkPosition == this.chunkLimit) {
+          this.chunkLimit = this.in.read(this.chunk);
+          this.chunkPosition = 0;
+          if (this.chunkLimit <= 0) {
+            this.chunkLimit = 0;
+            return this.length > 0;
+          }
+        }
+
+        byte b = this.chunk[this.chunkPosition++];
+        this.next++;
+        if (b == '\n') {
+          return true;
+        }
+        if (this.length == this.line.length) {
+          this.line = Arrays.copyOf(this.line, this.length * 2);
+        }
+        this.line[this.length++] = b;
+      }
+    }
+
+    /** Returns the offset of the current line, or the file size once the end is reached. */
+    private long start() {
+      return this.start;
+    }
+
+    private int indent() {
+      int indent = 0;
+      while (indent < this.length && this.line[indent] == ' ') {
+        indent++;
+      }
+      return indent;
+    }
+
+    private boolean isBlank() {
+      for (int i = 0; i < this.length; i++) {
+        if (this.line[i] != ' ' && this.line[i] != '\r' && this.line[i] != '\t') {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private boolean isComment() {
+      int indent = this.indent();
+      return indent < this.length && this.line[indent] == '#';
+    }
+
+    private boolean startsWith(byte[] prefix) {
+      return this.length >= prefix.length
+          && Arrays.equals(this.line, 0, prefix.length, prefix, 0, prefix.length);
+    }
+
+    private String text() {
+      return new String(this.line, 0, this.length, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+      this.in.close();
+    }
+  }
+
+  /**
+   * Writes the new file. Ranges copied from the old file are merged while they are contiguous and
+   * transferred in one call; formatted entries are buffered.
+   */
+  private static final class Rewriter implements AutoCloseable {
+    private final FileChannel source;
+    private final FileChannel out;
+    private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+    private final ByteBuffer lastByte = ByteBuffer.allocate(1);
+    private long position;
+    private long runStart = -1;
+    private long runEnd;
+
+    private Rewriter(FileChannel source, Path target) throws IOException {
+      this.source = source;
+      this.out =
+          FileChannel.open(
+              target,
+              StandardOpenOption.CREATE,
+              StandardOpenOption.TRUNCATE_EXISTING,
+              StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Copies a range of the old file. A range that does not end with a line break, such as the
+     * last line of a file saved by hand, is followed by one so that the next entry starts on its
+     * own line.
+     *
+     * @param offset the offset of the range in the old file
+     * @param length the length of the range
+     * @return the offset of the range in the new file
+     * @throws IOException if the range could not be copied
+     */
+    private long copy(long offset, long length) throws IOException {
+      this.flushBuffer();
+      if (this.runStart < 0 || this.runEnd != offset) {
+        this.flushRun();
+        this.runStart = offset;
+        this.runEnd = offset;
+      }
+      this.runEnd += length;
+
+      long written = this.position;
+      this.position += length;
+
+      if (length > 0 && !this.endsWithLineBreak(offset + length)) {
+        this.write(NEWLINE);
+      }
+      return written;
+    }
+
+    /**
+     * Writes new bytes.
+     *
+     * @param bytes the bytes to write
+     * @return the offset of the bytes in the new file
+     * @throws IOException if the bytes could not be written
+     */
+    private long write(byte[] bytes) throws IOException {
+      this.flushRun();
+      if (this.buffer.remaining() < bytes.length) {
+        this.flushBuffer();
+      }
+      if (bytes.length > this.buffer.capacity()) {
+        this.writeFully(ByteBuffer.wrap(bytes));
+      } else {
+        this.buffer.put(bytes);
+      }
+
+      long written = this.position;
+      this.position += bytes.length;
+      return written;
+    }
+
+    private boolean endsWithLineBreak(long end) throws IOException {
+      this.lastByte.clear();
+      if (this.source.read(this.lastByte, end - 1) != 1) {
+        throw new IOException("Unexpected end of the data file");
+      }
+      return this.lastByte.get(0) == '\n';
+    }
+
+    private void flushRun() throws IOException {
+      if (this.runStart < 0) {
+        return;
+      }
+
+      long copied = 0;
+      long length = this.runEnd - this.runStart;
+      while (copied < length) {
+        long transferred =
+            this.source.transferTo(this.runStart + copied, length - copied, this.out);
+        if (transferred <= 0) {
+          throw new IOException("Unexpected end of the data file");
+        }
+        copied += transferred;
+      }
+      this.runStart = -1;
+    }
+
+    private void flushBuffer() throws IOException {
+      this.buffer.flip();
+      this.writeFully(this.buffer);
+      this.buffer.clear();
+    }
+
+    private void writeFully(ByteBuffer bytes) throws IOException {
+      while (bytes.hasRemaining()) {
+        this.out.write(bytes);
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        this.flushRun();
+        this.flushBuffer();
+        this.out.force(true);
+      } finally {
+        this.out.close();
+      }
+    }
+  }
+}
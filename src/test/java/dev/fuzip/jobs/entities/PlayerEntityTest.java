@@ -0,0 +1,33 @@
+package dev.fuzip.jobs.entities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class PlayerEntityTest {
+
+  @Test
+  void xpSaturatesInsteadOfOverflowing() {
+    PlayerEntity playerData = new PlayerEntity(UUID.randomUUID(), 1);
+    playerData.setJobTotalXp(0, Integer.MAX_VALUE - 10);
+    playerData.setJobXp(0, Integer.MAX_VALUE - 10);
+
+    playerData.addJobTotalXp(0, 100);
+    playerData.addJobXp(0, 100);
+
+    assertEquals(Integer.MAX_VALUE, playerData.getJobTotalXp(0));
+    assertEquals(Integer.MAX_VALUE, playerData.getJobXp(0));
+  }
+
+  @Test
+  void jobsAddedLaterStartAtLevelOne() {
+    PlayerEntity playerData = new PlayerEntity(UUID.randomUUID(), 1);
+
+    playerData.addJobTotalXp(3, 25);
+
+    assertEquals(25, playerData.getJobTotalXp(3));
+    assertEquals(1, playerData.getJobLevel(3));
+    assertEquals(0, playerData.getJobXp(2));
+  }
+}
@@ -0,0 +1,47 @@
+package dev.fuzip.jobs.entities;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** Job definitions for tests, without actions or rewards. */
+public final class TestJobs {
+
+  private TestJobs() {}
+
+  /**
+   * Creates jobs with the default XP curve, in ordinal order.
+   *
+   * @param caps the XP caps of every job
+   * @param ids the IDs of the jobs
+   * @return the jobs by ID, in ordinal order
+   */
+  public static Map<String, JobEntity> create(XpCaps caps, String... ids) {
+    Map<String, JobEntity> jobs = new LinkedHashMap<>();
+
+    for (int ordinal = 0; ordinal < ids.length; ordinal++) {
+      jobs.put(
+          ids[ordinal],
+          new JobEntity(
+              ids[ordinal],
+              ordinal,
+              ids[ordinal],
+              "BLUE",
+              XpCurve.DEFAULT,
+              caps,
+              Map.of(),
+              new RewardSchedule.Builder(XpCurve.DEFAULT_MAX_LEVEL).build()));
+    }
+
+    return jobs;
+  }
+
+  /**
+   * Creates jobs without XP caps.
+   *
+   * @param ids the IDs of the jobs
+   * @return the jobs by ID, in ordinal order
+   */
+  public static Map<String, JobEntity> create(String... ids) {
+    return create(XpCaps.NONE, ids);
+  }
+}
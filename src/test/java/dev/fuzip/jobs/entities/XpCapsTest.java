@@ -0,0 +1,84 @@
+package dev.fuzip.jobs.entities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class XpCapsTest {
+
+  private static final long START = 1_760_000_000_000L;
+  private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+
+  @Test
+  void limitAppliesDiminishingReturnsThenCaps() {
+    XpCaps caps = new XpCaps(1000, 3000, 500, 0.5);
+
+    assertEquals(20, caps.limit(20, 0, 0));
+    assertEquals(10, caps.limit(20, 500, 0));
+    assertEquals(10, caps.limit(20, 990, 0));
+    assertEquals(4, caps.limit(20, 996, 0));
+    assertEquals(0, caps.limit(20, 1000, 0));
+    assertEquals(5, new XpCaps(0, 0, 500, 0.5).limit(20, 1000, 0));
+    assertEquals(0, caps.limit(20, 100, 3000));
+    assertTrue(caps.isReached(1000, 0));
+    assertFalse(caps.isReached(999, 2999));
+  }
+
+  @Test
+  void noneIsDisabled() {
+    assertFalse(XpCaps.NONE.isEnabled());
+    assertEquals(Integer.MAX_VALUE, XpCaps.NONE.limit(Integer.MAX_VALUE, 0, Integer.MAX_VALUE));
+    assertTrue(new XpCaps(0, 0, 100, 0.9).isEnabled());
+    assertFalse(new XpCaps(0, 0, 100, 1).isEnabled());
+  }
+
+  @Test
+  void rejectsInvalidLimits() {
+    assertThrows(IllegalArgumentException.class, () -> new XpCaps(-1, 0, 0, 1));
+    assertThrows(IllegalArgumentException.class, () -> new XpCaps(0, 0, 0, 0));
+    assertThrows(IllegalArgumentException.class, () -> new XpCaps(0, 0, 0, 1.5));
+  }
+
+  @Test
+  void hourlyCapHoldsOverASlidingHour() {
+    XpCaps caps = new XpCaps(1000, 3000, 0, 1);
+    PlayerEntity playerData = new PlayerEntity(UUID.randomUUID(), 1);
+    long now = START;
+    int granted = 0;
+
+    // 20 XP a minute for 200 minutes: the hourly cap allows about 1000 XP per hour
+    for (int minute = 0; minute < 200; minute++) {
+      int xp =
+          caps.limit(20, playerData.getHourlyXp(0, now), playerData.getDailyXp(0, now));
+      playerData.addWindowXp(0, now, xp);
+      granted += xp;
+      now += MINUTE;
+    }
+
+    assertTrue(playerData.getHourlyXp(0, now) <= 1000);
+    assertTrue(granted <= 3000 && granted >= 3000 - 1000, "granted " + granted);
+    assertEquals(granted, playerData.getDailyXp(0, now));
+    assertEquals(0, playerData.getDailyXp(0, now + TimeUnit.HOURS.toMillis(25)));
+  }
+
+  @Test
+  void windowIsOnlyStoredWhileRecent() {
+    PlayerEntity playerData = new PlayerEntity(UUID.randomUUID(), 2);
+    long now = System.currentTimeMillis();
+
+    assertNull(playerData.getXpWindow(0));
+    playerData.addWindowXp(1, now, 42);
+
+    PlayerEntity restored = new PlayerEntity(playerData.getUuid(), 2);
+    restored.setXpWindow(1, playerData.getXpWindow(1));
+    assertEquals(42, restored.getHourlyXp(1, now));
+    assertEquals(42, restored.getDailyXp(1, now));
+    assertNull(restored.getXpWindow(0));
+  }
+}
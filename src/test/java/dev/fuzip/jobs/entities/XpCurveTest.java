@@ -0,0 +1,54 @@
+package dev.fuzip.jobs.entities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Test;
+
+class XpCurveTest {
+
+  @Test
+  void defaultCurveAddsTheXpOfEachLevel() {
+    XpCurve curve = XpCurve.DEFAULT;
+
+    assertEquals(0, curve.getXpForLevel(1));
+    assertEquals(7, curve.getXpToNextLevel(1));
+    assertEquals(7 + 16, curve.getXpForLevel(3));
+    assertEquals(17 * 17 * 2.5 - 40.5 * 17 + 360, curve.getXpToNextLevel(17), 0);
+    assertEquals(0, curve.getXpToNextLevel(XpCurve.DEFAULT_MAX_LEVEL));
+    assertTrue(curve.getXpForLevel(XpCurve.DEFAULT_MAX_LEVEL) <= Integer.MAX_VALUE);
+  }
+
+  @Test
+  void levelIsTheHighestReachedWithTheXp() {
+    XpCurve curve = XpCurve.DEFAULT;
+
+    assertEquals(1, curve.getLevel(0));
+    assertEquals(1, curve.getLevel(6));
+    assertEquals(2, curve.getLevel(7));
+    assertEquals(2, curve.getLevel(22));
+    assertEquals(3, curve.getLevel(23));
+    assertEquals(XpCurve.DEFAULT_MAX_LEVEL, curve.getLevel(Long.MAX_VALUE));
+  }
+
+  @Test
+  void everyLevelCostsAtLeastOneXp() {
+    XpCurve curve = new XpCurve(10, new TreeMap<>(Map.of(1, new double[] {0, 0, -5})));
+
+    assertEquals(9, curve.getXpForLevel(10));
+    assertEquals(5, curve.getLevel(4));
+  }
+
+  @Test
+  void rejectsCurvesBeyondTheStoredXpLimit() {
+    TreeMap<Integer, double[]> segments = new TreeMap<>(Map.of(1, new double[] {0, 0, 1 << 20}));
+
+    assertEquals(2047L << 20, new XpCurve(2048, segments).getXpForLevel(2048));
+    assertThrows(IllegalArgumentException.class, () -> new XpCurve(2049, segments));
+    assertThrows(IllegalArgumentException.class, () -> new XpCurve(0, segments));
+    assertThrows(IllegalArgumentException.class, () -> new XpCurve(10, new TreeMap<>()));
+  }
+}
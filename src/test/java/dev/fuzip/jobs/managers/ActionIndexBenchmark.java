@@ -0,0 +1,170 @@
+package dev.fuzip.jobs.managers;
+
+import dev.fuzip.jobs.entities.ActionType;
+import dev.fuzip.jobs.entities.JobEntity;
+import dev.fuzip.jobs.entities.JobXpEntity;
+import dev.fuzip.jobs.entities.JobXpGrant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.logging.Logger;
+import org.bukkit.Material;
+import org.bukkit.configuration.MemoryConfiguration;
+
+/**
+ * Compares the cost of resolving the XP of a block break with the action index of {@link
+ * JobCatalog} and with the lookup it replaced, which scanned the actions and then the targets of
+ * every job, for 5, 20 and 50 configured jobs.
+ *
+ * <p>Each job rewards 20 materials for three actions, and the broken blocks are drawn from all
+ * materials, so most breaks give no XP as on a real server. Run it with {@code ./gradlew benchmark
+ * -Pbenchmark=dev.fuzip.jobs.managers.ActionIndexBenchmark}.
+ */
+public final class ActionIndexBenchmark {
+
+  private static final int[] JOB_COUNTS = {5, 20, 50};
+  private static final int TARGETS_PER_ACTION = 20;
+  private static final int BREAK_COUNT = 1 << 12;
+  private static final int WARMUP_ROUNDS = 5;
+  private static final int MEASURED_ROUNDS = 10;
+  private static final int BREAKS_PER_ROUND = 500_000;
+
+  private static long sink;
+
+  private ActionIndexBenchmark() {}
+
+  public static void main(String[] args) throws Exception {
+    Material[] materials =
+        Arrays.stream(Material.values())
+            .filter(material -> !material.isLegacy() && !material.isAir())
+            .toArray(Material[]::new);
+
+    System.out.printf("%-6s %14s %14s%n", "jobs", "index ns/op", "linear ns/op");
+    for (int jobCount : JOB_COUNTS) {
+      Random random = new Random(jobCount);
+      JobCatalog catalog = compileCatalog(jobCount, materials, random);
+      List<Map<String, List<JobXpEntity>>> legacyJobs = toLegacyJobs(catalog);
+
+      Material[] breaks = new Material[BREAK_COUNT];
+      for (int i = 0; i < breaks.length; i++) {
+        breaks[i] = materials[random.nextInt(materials.length)];
+      }
+
+      for (int round = 0; round < WARMUP_ROUNDS; round++) {
+        measureIndex(catalog, breaks);
+        measureLinear(legacyJobs, breaks);
+      }
+
+      double index = 0;
+      double linear = 0;
+      for (int round = 0; round < MEASURED_ROUNDS; round++) {
+        index += measureIndex(catalog, breaks);
+        linear += measureLinear(legacyJobs, breaks);
+      }
+
+      System.out.printf(
+          "%-6d %14.1f %14.1f%n", jobCount, index / MEASURED_ROUNDS, linear / MEASURED_ROUNDS);
+    }
+
+    System.out.println("(checksum " + sink + ")");
+  }
+
+  /**
+   * Resolves the breaks with the action index, as {@link ActionManager} does.
+   *
+   * @return the average time of one break, in nanoseconds
+   */
+  private static double measureIndex(JobCatalog catalog, Material[] breaks) {
+    long xp = 0;
+    long start = System.nanoTime();
+
+    for (int i = 0; i < BREAKS_PER_ROUND; i++) {
+      for (JobXpGrant grant : catalog.getXpGrants(ActionType.BREAK, breaks[i & BREAK_COUNT - 1])) {
+        xp += grant.getXp();
+      }
+    }
+
+    long elapsed = System.nanoTime() - start;
+    sink += xp;
+    return (double) elapsed / BREAKS_PER_ROUND;
+  }
+
+  /**
+   * Resolves the breaks by asking every job for its XP, with the string keyed scan of the former
+   * {@code JobManager.getXpForAction}.
+   *
+   * @return the average time of one break, in nanoseconds
+   */
+  private static double measureLinear(
+      List<Map<String, List<JobXpEntity>>> legacyJobs, Material[] breaks) {
+    long xp = 0;
+    long start = System.nanoTime();
+
+    for (int i = 0; i < BREAKS_PER_ROUND; i++) {
+      Material material = breaks[i & BREAK_COUNT - 1];
+      for (Map<String, List<JobXpEntity>> actions : legacyJobs) {
+        xp += getLegacyXp(actions, "break", material);
+      }
+    }
+
+    long elapsed = System.nanoTime() - start;
+    sink += xp;
+    return (double) elapsed / BREAKS_PER_ROUND;
+  }
+
+  private static int getLegacyXp(
+      Map<String, List<JobXpEntity>> actions, String action, Material material) {
+    for (Map.Entry<String, List<JobXpEntity>> entry : actions.entrySet()) {
+      if (!Objects.equals(entry.getKey(), action)) {
+        continue;
+      }
+
+      for (JobXpEntity jobXpEntity : entry.getValue()) {
+        if (jobXpEntity.getTarget() == material) {
+          return jobXpEntity.getXp();
+        }
+      }
+    }
+
+    return 0;
+  }
+
+  private static JobCatalog compileCatalog(int jobCount, Material[] materials, Random random)
+      throws Exception {
+    MemoryConfiguration config = new MemoryConfiguration();
+
+    for (int job = 0; job < jobCount; job++) {
+      String path = "jobs.job" + job;
+      config.set(path + ".name", "Job " + job);
+      config.set(path + ".color", "BLUE");
+
+      for (String action : List.of("break", "place", "craft")) {
+        for (int i = 0; i < TARGETS_PER_ACTION; i++) {
+          Material material = materials[random.nextInt(materials.length)];
+          config.set(path + ".xp." + action + "." + material.name(), 1 + random.nextInt(50));
+        }
+      }
+    }
+
+    return JobCatalog.compile(config, Logger.getLogger("ActionIndexBenchmark"), null);
+  }
+
+  /** Rebuilds the action maps of the former job definitions, keyed by the action name. */
+  private static List<Map<String, List<JobXpEntity>>> toLegacyJobs(JobCatalog catalog) {
+    List<Map<String, List<JobXpEntity>>> legacyJobs = new ArrayList<>();
+
+    for (JobEntity jobEntity : catalog.getJobs().values()) {
+      Map<String, List<JobXpEntity>> actions = new LinkedHashMap<>();
+      jobEntity
+          .getActionsXpMap()
+          .forEach((action, xpEntities) -> actions.put(action.getKey(), xpEntities));
+      legacyJobs.add(actions);
+    }
+
+    return legacyJobs;
+  }
+}
@@ -0,0 +1,69 @@
+package dev.fuzip.jobs.managers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class ChunkTableTest {
+
+  @Test
+  void packKeepsNegativeCoordinatesApart() {
+    long[] keys = {
+      ChunkTable.pack(-1, 0), ChunkTable.pack(0, -1), ChunkTable.pack(-1, -1), ChunkTable.pack(0, 0)
+    };
+
+    assertEquals(keys.length, Arrays.stream(keys).distinct().count());
+  }
+
+  @Test
+  void putReplacesTheBlocksOfAChunk() {
+    ChunkTable chunks = new ChunkTable();
+    long key = ChunkTable.pack(-30, 12);
+    PackedBlockSet first = new PackedBlockSet(8);
+    PackedBlockSet second = new PackedBlockSet(8);
+
+    chunks.put(key, first);
+    chunks.put(key, second);
+
+    assertSame(second, chunks.get(key));
+    assertSame(second, chunks.remove(key));
+    assertNull(chunks.get(key));
+    assertNull(chunks.remove(key));
+  }
+
+  @Test
+  void matchesAHashMapUnderRandomChanges() {
+    ChunkTable chunks = new ChunkTable();
+    Map<Long, PackedBlockSet> expected = new HashMap<>();
+    Random random = new Random(11);
+
+    for (int i = 0; i < 100_000; i++) {
+      long key = ChunkTable.pack(random.nextInt(40) - 20, random.nextInt(40) - 20);
+
+      if (random.nextInt(3) == 0) {
+        assertSame(expected.remove(key), chunks.remove(key));
+      } else {
+        PackedBlockSet blocks = new PackedBlockSet(8);
+        expected.put(key, blocks);
+        chunks.put(key, blocks);
+      }
+    }
+
+    for (int x = -20; x < 20; x++) {
+      for (int z = -20; z < 20; z++) {
+        long key = ChunkTable.pack(x, z);
+        assertSame(expected.get(key), chunks.get(key));
+      }
+    }
+
+    Map<Long, PackedBlockSet> visited = new HashMap<>();
+    chunks.forEach(visited::put);
+    assertEquals(expected, visited);
+  }
+}
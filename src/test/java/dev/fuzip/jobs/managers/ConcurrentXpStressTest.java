@@ -0,0 +1,144 @@
+package dev.fuzip.jobs.managers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import dev.fuzip.jobs.entities.JobEntity;
+import dev.fuzip.jobs.entities.PlayerEntity;
+import dev.fuzip.jobs.entities.RewardSchedule;
+import dev.fuzip.jobs.entities.XpCaps;
+import dev.fuzip.jobs.entities.XpCurve;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Grants XP to a few shared players from many threads, as actions handled on region threads do,
+ * while another thread keeps taking the snapshots that saves write.
+ */
+class ConcurrentXpStressTest {
+
+  private static final int THREADS = 16;
+  private static final int GRANTS_PER_THREAD = 100_000;
+  private static final int PLAYERS = 8;
+  private static final int JOBS = 3;
+
+  @Test
+  void concurrentGrantsAddUpExactly() throws Exception {
+    List<JobEntity> jobs = new ArrayList<>();
+    for (int job = 0; job < JOBS; job++) {
+      jobs.add(
+          new JobEntity(
+              "job" + job,
+              job,
+              "Job " + job,
+              "BLUE",
+              XpCurve.DEFAULT,
+              XpCaps.NONE,
+              Map.of(),
+              new RewardSchedule.Builder(XpCurve.DEFAULT_MAX_LEVEL).build()));
+    }
+
+    PlayerEntity[] players = new PlayerEntity[PLAYERS];
+    for (int i = 0; i < PLAYERS; i++) {
+      players[i] = new PlayerEntity(UUID.randomUUID(), JOBS);
+    }
+
+    AtomicLongArray granted = new AtomicLongArray(PLAYERS * JOBS);
+    AtomicBoolean running = new AtomicBoolean(true);
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+
+    try {
+      Future<Integer> snapshots =
+          executor.submit(
+              () -> {
+                start.await();
+                int count = 0;
+                while (running.get()) {
+                  for (PlayerEntity playerData : players) {
+                    checkSnapshot(playerData.copy(), jobs);
+                    count++;
+                  }
+                }
+                return count;
+              });
+
+      List<Future<?>> grants = new ArrayList<>();
+      for (int thread = 0; thread < THREADS; thread++) {
+        grants.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  ThreadLocalRandom random = ThreadLocalRandom.current();
+
+                  for (int i = 0; i < GRANTS_PER_THREAD; i++) {
+                    int player = random.nextInt(PLAYERS);
+                    JobEntity jobEntity = jobs.get(random.nextInt(JOBS));
+                    int xp = 1 + random.nextInt(20);
+
+                    grant(jobEntity, xp, players[player]);
+                    granted.addAndGet(player * JOBS + jobEntity.getOrdinal(), xp);
+                  }
+                  return null;
+                }));
+      }
+
+      start.countDown();
+      for (Future<?> future : grants) {
+        future.get(2, TimeUnit.MINUTES);
+      }
+      running.set(false);
+      assertTrue(snapshots.get(1, TimeUnit.MINUTES) > 0);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    for (int player = 0; player < PLAYERS; player++) {
+      for (JobEntity jobEntity : jobs) {
+        int job = jobEntity.getOrdinal();
+        long total = granted.get(player * JOBS + job);
+        XpCurve curve = jobEntity.getXpCurve();
+        int level = curve.getLevel(total);
+
+        assertEquals(total, players[player].getJobTotalXp(job));
+        assertEquals(level, players[player].getJobLevel(job));
+        assertEquals(total - curve.getXpForLevel(level), players[player].getJobXp(job));
+      }
+    }
+  }
+
+  /** Applies a gain the way {@code LevelManager.addXpToPlayer} does, without boosts or caps. */
+  private static void grant(JobEntity jobEntity, int xp, PlayerEntity playerData) {
+    playerData.addJobTotalXp(jobEntity.getOrdinal(), xp);
+    synchronized (playerData) {
+      LevelManager.addProgress(jobEntity, xp, playerData, Integer.MAX_VALUE);
+    }
+  }
+
+  /**
+   * Checks that a snapshot never holds a level and XP from different gains. The total is added
+   * before the progress, so a snapshot may hold more total XP than progress, never less.
+   */
+  private static void checkSnapshot(PlayerEntity snapshot, List<JobEntity> jobs) {
+    for (JobEntity jobEntity : jobs) {
+      int job = jobEntity.getOrdinal();
+      XpCurve curve = jobEntity.getXpCurve();
+      int level = snapshot.getJobLevel(job);
+      long progress = curve.getXpForLevel(level) + snapshot.getJobXp(job);
+
+      assertTrue(snapshot.getJobXp(job) < curve.getXpToNextLevel(level));
+      assertTrue(progress <= snapshot.getJobTotalXp(job));
+    }
+  }
+}
@@ -0,0 +1,107 @@
+package dev.fuzip.jobs.managers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class LeaderboardTest {
+
+  @Test
+  void ranksByDescendingXpThenUuid() {
+    Leaderboard leaderboard = new Leaderboard();
+    UUID first = new UUID(0, 1);
+    UUID second = new UUID(0, 2);
+    UUID third = new UUID(0, 3);
+
+    leaderboard.update(third, 50);
+    leaderboard.update(second, 100);
+    leaderboard.update(first, 100);
+
+    assertEquals(1, leaderboard.rank(first));
+    assertEquals(2, leaderboard.rank(second));
+    assertEquals(3, leaderboard.rank(third));
+
+    leaderboard.update(third, 150);
+    assertEquals(1, leaderboard.rank(third));
+    assertEquals(3, leaderboard.rank(second));
+  }
+
+  @Test
+  void playersWithoutXpAreNotRanked() {
+    Leaderboard leaderboard = new Leaderboard();
+    UUID uuid = UUID.randomUUID();
+
+    leaderboard.update(uuid, 0);
+    assertEquals(0, leaderboard.rank(uuid));
+
+    leaderboard.update(uuid, 10);
+    leaderboard.update(uuid, 0);
+    assertEquals(0, leaderboard.rank(uuid));
+    assertEquals(0, leaderboard.size());
+  }
+
+  @Test
+  void rangeStopsAtTheLastRank() {
+    Leaderboard leaderboard = new Leaderboard();
+    for (int i = 1; i <= 5; i++) {
+      leaderboard.update(new UUID(0, i), i);
+    }
+
+    assertEquals(2, leaderboard.range(4, 10).size());
+    assertEquals(new UUID(0, 2), leaderboard.range(4, 10).get(0).getUuid());
+    assertTrue(leaderboard.range(6, 10).isEmpty());
+    assertTrue(leaderboard.range(0, 10).isEmpty());
+  }
+
+  @Test
+  void matchesASortedListUnderRandomUpdates() {
+    Leaderboard leaderboard = new Leaderboard();
+    Map<UUID, Long> scores = new HashMap<>();
+    List<UUID> players = new ArrayList<>();
+    Random random = new Random(15);
+
+    for (int i = 0; i < 2000; i++) {
+      players.add(new UUID(random.nextLong(), random.nextLong()));
+    }
+
+    for (int i = 0; i < 50_000; i++) {
+      UUID uuid = players.get(random.nextInt(players.size()));
+      // Few distinct scores, so that many players tie and are ordered by UUID
+      long score = random.nextInt(10) == 0 ? 0 : random.nextInt(500);
+
+      leaderboard.update(uuid, score);
+      if (score > 0) {
+        scores.put(uuid, score);
+      } else {
+        scores.remove(uuid);
+      }
+    }
+
+    List<UUID> expected = new ArrayList<>(scores.keySet());
+    expected.sort(
+        Comparator.<UUID>comparingLong(uuid -> -scores.get(uuid))
+            .thenComparing(Comparator.naturalOrder()));
+
+    assertEquals(expected.size(), leaderboard.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(i + 1, leaderboard.rank(expected.get(i)));
+    }
+
+    for (int fromRank = 1; fromRank <= expected.size(); fromRank += 97) {
+      List<Leaderboard.Entry> page = leaderboard.range(fromRank, 10);
+      for (int i = 0; i < page.size(); i++) {
+        UUID uuid = expected.get(fromRank - 1 + i);
+        assertEquals(uuid, page.get(i).getUuid());
+        assertEquals((long) scores.get(uuid), page.get(i).getScore());
+      }
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package dev.fuzip.jobs.managers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import dev.fuzip.jobs.entities.JobEntity;
+import dev.fuzip.jobs.entities.PlayerEntity;
+import dev.fuzip.jobs.entities.TestJobs;
+import dev.fuzip.jobs.entities.XpCurve;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks how {@link LevelManager#addProgress} turns XP into levels, including the cap it applies
+ * when a {@link dev.fuzip.jobs.api.JobLevelUpEvent} listener cancels a level-up.
+ */
+class LevelProgressTest {
+
+  private final JobEntity job = TestJobs.create("miner").get("miner");
+  private final XpCurve curve = this.job.getXpCurve();
+
+  @Test
+  void singleGainCanPassSeveralLevels() {
+    PlayerEntity playerData = new PlayerEntity(UUID.randomUUID(), 1);
+    long xp = this.curve.getXpForLevel(5) + 3;
+
+    assertEquals(5, LevelManager.addProgress(this.job, xp, playerData, Integer.MAX_VALUE));
+    assertEquals(5, playerData.getJobLevel(0));
+    assertEquals(3, playerData.getJobXp(0));
+    assertEquals(0, playerData.getJobTotalXp(0));
+  }
+
+  @Test
+  void cancelledLevelUpKeepsTheXpAsProgress() {
+    PlayerEntity playerData = new PlayerEntity(UUID.randomUUID(), 1);
+    long toLevelThree = this.curve.getXpForLevel(3) - this.curve.getXpForLevel(1);
+
+    assertEquals(1, LevelManager.addProgress(this.job, toLevelThree, playerData, 1));
+    assertEquals(1, playerData.getJobLevel(0));
+    assertEquals(toLevelThree, playerData.getJobXp(0));
+
+    // The next gain that is not cancelled reaches the level the kept XP was worth
+    assertEquals(3, LevelManager.addProgress(this.job, 1, playerData, Integer.MAX_VALUE));
+    assertEquals(1, playerData.getJobXp(0));
+  }
+
+  @Test
+  void progressStopsAtTheLastLevel() {
+    PlayerEntity playerData = new PlayerEntity(UUID.randomUUID(), 1);
+    int maxLevel = this.curve.getMaxLevel();
+    long beyond = this.curve.getXpForLevel(maxLevel) + 100;
+
+    assertEquals(maxLevel, LevelManager.addProgress(this.job, beyond, playerData, maxLevel + 5));
+    assertEquals(maxLevel, playerData.getJobLevel(0));
+    assertEquals(100, playerData.getJobXp(0));
+    assertEquals(0, this.curve.getXpToNextLevel(maxLevel));
+  }
+
+  @Test
+  void levelNeverGoesDown() {
+    PlayerEntity playerData = new PlayerEntity(UUID.randomUUID(), 1);
+    playerData.setJobLevel(0, 10);
+
+    assertEquals(10, LevelManager.addProgress(this.job, 5, playerData, 2));
+    assertEquals(10, playerData.getJobLevel(0));
+    assertEquals(5, playerData.getJobXp(0));
+  }
+}
@@ -0,0 +1,82 @@
+package dev.fuzip.jobs.managers;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class PackedBlockSetTest {
+
+  @Test
+  void packKeepsBlocksOfOneChunkApart() {
+    Set<Integer> keys = new HashSet<>();
+
+    for (int y = -64; y < 320; y++) {
+      for (int x = -16; x < 0; x++) {
+        for (int z = 32; z < 48; z++) {
+          assertTrue(keys.add(PackedBlockSet.pack(x, y, z)));
+        }
+      }
+    }
+
+    assertNotEquals(PackedBlockSet.pack(0, -1, 0), PackedBlockSet.pack(0, 255, 0));
+  }
+
+  @Test
+  void addAndRemoveReportChanges() {
+    PackedBlockSet blocks = new PackedBlockSet(8);
+    int key = PackedBlockSet.pack(3, 70, -5);
+
+    assertTrue(blocks.add(key));
+    assertFalse(blocks.add(key));
+    assertTrue(blocks.contains(key));
+    assertTrue(blocks.isDirty());
+
+    blocks.setDirty(false);
+    assertFalse(blocks.remove(PackedBlockSet.pack(3, 71, -5)));
+    assertFalse(blocks.isDirty());
+    assertTrue(blocks.remove(key));
+    assertFalse(blocks.contains(key));
+    assertEquals(0, blocks.size());
+  }
+
+  @Test
+  void matchesAHashSetUnderRandomChanges() {
+    PackedBlockSet blocks = new PackedBlockSet(1);
+    Set<Integer> expected = new HashSet<>();
+    Random random = new Random(11);
+
+    for (int i = 0; i < 200_000; i++) {
+      // A narrow range of keys keeps the table dense, so removals shift long probe sequences
+      int y = random.nextInt(24) - 8;
+      int key = PackedBlockSet.pack(random.nextInt(16), y, random.nextInt(16));
+
+      if (random.nextInt(3) == 0) {
+        assertEquals(expected.remove(key), blocks.remove(key));
+      } else {
+        assertEquals(expected.add(key), blocks.add(key));
+      }
+      assertEquals(expected.size(), blocks.size());
+    }
+
+    for (int y = -8; y < 16; y++) {
+      for (int x = 0; x < 16; x++) {
+        for (int z = 0; z < 16; z++) {
+          int key = PackedBlockSet.pack(x, y, z);
+          assertEquals(expected.contains(key), blocks.contains(key));
+        }
+      }
+    }
+
+    int[] values = blocks.toArray();
+    Arrays.sort(values);
+    assertArrayEquals(expected.stream().mapToInt(Integer::intValue).sorted().toArray(), values);
+  }
+}
@@ -0,0 +1,137 @@
+package dev.fuzip.jobs.managers;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Measures the cost of checking whether a broken block was placed by a player, as {@link
+ * PlacedBlockTracker} does on every break, and compares it with boxed {@link HashMap} and {@link
+ * HashSet} collections holding the same blocks.
+ *
+ * <p>The world holds 32 by 32 loaded chunks, each with a few dozen to a few thousand placed blocks,
+ * and breaks hit random blocks of these chunks, so most of them miss. Run it with {@code ./gradlew
+ * benchmark -Pbenchmark=dev.fuzip.jobs.managers.PlacedBlockLookupBenchmark}.
+ */
+public final class PlacedBlockLookupBenchmark {
+
+  private static final int CHUNK_RADIUS = 16;
+  private static final int[] BLOCKS_PER_CHUNK = {32, 512, 4096};
+  private static final int BREAK_COUNT = 1 << 16;
+  private static final int WARMUP_ROUNDS = 5;
+  private static final int MEASURED_ROUNDS = 10;
+  private static final int BREAKS_PER_ROUND = 2_000_000;
+
+  private static long sink;
+
+  private PlacedBlockLookupBenchmark() {}
+
+  public static void main(String[] args) {
+    System.out.printf("%-8s %14s %14s%n", "blocks", "packed ns/op", "boxed ns/op");
+
+    for (int blocksPerChunk : BLOCKS_PER_CHUNK) {
+      Random random = new Random(blocksPerChunk);
+      ChunkTable chunks = new ChunkTable();
+      Map<Long, Set<Integer>> boxedChunks = new HashMap<>();
+
+      for (int chunkX = -CHUNK_RADIUS; chunkX < CHUNK_RADIUS; chunkX++) {
+        for (int chunkZ = -CHUNK_RADIUS; chunkZ < CHUNK_RADIUS; chunkZ++) {
+          PackedBlockSet blocks = new PackedBlockSet(blocksPerChunk);
+          Set<Integer> boxedBlocks = new HashSet<>();
+
+          for (int i = 0; i < blocksPerChunk; i++) {
+            int key =
+                PackedBlockSet.pack(random.nextInt(16), random.nextInt(128), random.nextInt(16));
+            blocks.add(key);
+            boxedBlocks.add(key);
+          }
+
+          chunks.put(ChunkTable.pack(chunkX, chunkZ), blocks);
+          boxedChunks.put(ChunkTable.pack(chunkX, chunkZ), boxedBlocks);
+        }
+      }
+
+      int[] breaks = new int[BREAK_COUNT * 3];
+      int range = CHUNK_RADIUS * 16;
+      for (int i = 0; i < breaks.length; i += 3) {
+        breaks[i] = random.nextInt(2 * range) - range;
+        breaks[i + 1] = random.nextInt(128);
+        breaks[i + 2] = random.nextInt(2 * range) - range;
+      }
+
+      for (int round = 0; round < WARMUP_ROUNDS; round++) {
+        measurePacked(chunks, breaks);
+        measureBoxed(boxedChunks, breaks);
+      }
+
+      double packed = 0;
+      double boxed = 0;
+      for (int round = 0; round < MEASURED_ROUNDS; round++) {
+        packed += measurePacked(chunks, breaks);
+        boxed += measureBoxed(boxedChunks, breaks);
+      }
+
+      System.out.printf(
+          "%-8d %14.1f %14.1f%n",
+          blocksPerChunk,
+          packed / MEASURED_ROUNDS,
+          boxed / MEASURED_ROUNDS);
+    }
+
+    System.out.println("(checksum " + sink + ")");
+  }
+
+  /**
+   * Looks the breaks up in the tables of the tracker.
+   *
+   * @return the average time of one lookup, in nanoseconds
+   */
+  private static double measurePacked(ChunkTable chunks, int[] breaks) {
+    long placed = 0;
+    long start = System.nanoTime();
+
+    for (int i = 0; i < BREAKS_PER_ROUND; i++) {
+      int index = (i & BREAK_COUNT - 1) * 3;
+      int x = breaks[index];
+      int y = breaks[index + 1];
+      int z = breaks[index + 2];
+
+      PackedBlockSet blocks = chunks.get(ChunkTable.pack(x >> 4, z >> 4));
+      if (blocks != null && blocks.contains(PackedBlockSet.pack(x, y, z))) {
+        placed++;
+      }
+    }
+
+    long elapsed = System.nanoTime() - start;
+    sink += placed;
+    return (double) elapsed / BREAKS_PER_ROUND;
+  }
+
+  /**
+   * Looks the breaks up in boxed collections.
+   *
+   * @return the average time of one lookup, in nanoseconds
+   */
+  private static double measureBoxed(Map<Long, Set<Integer>> chunks, int[] breaks) {
+    long placed = 0;
+    long start = System.nanoTime();
+
+    for (int i = 0; i < BREAKS_PER_ROUND; i++) {
+      int index = (i & BREAK_COUNT - 1) * 3;
+      int x = breaks[index];
+      int y = breaks[index + 1];
+      int z = breaks[index + 2];
+
+      Set<Integer> blocks = chunks.get(ChunkTable.pack(x >> 4, z >> 4));
+      if (blocks != null && blocks.contains(PackedBlockSet.pack(x, y, z))) {
+        placed++;
+      }
+    }
+
+    long elapsed = System.nanoTime() - start;
+    sink += placed;
+    return (double) elapsed / BREAKS_PER_ROUND;
+  }
+}
@@ -0,0 +1,93 @@
+package dev.fuzip.jobs.managers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class TimingWheelTest {
+
+  @Test
+  void itemsExpireOnTheirStepAcrossTurns() {
+    TimingWheel<Long> wheel = new TimingWheel<>(64);
+    Random random = new Random(21);
+    List<Long> dueSteps = new ArrayList<>();
+    long step = 0;
+    int expired = 0;
+
+    // Delays from a fraction of a turn to many turns, the exact turn length included
+    for (long delay : new long[] {1, 63, 64, 65, 128, 129}) {
+      wheel.schedule(delay, delay);
+      dueSteps.add(delay);
+    }
+
+    while (step < 2000) {
+      if (step % 100 == 0) {
+        for (int i = 0; i < 50; i++) {
+          long delay = 1 + random.nextInt(500);
+          wheel.schedule(step + delay, delay);
+          dueSteps.add(step + delay);
+        }
+      }
+
+      step++;
+      List<Long> due = new ArrayList<>();
+      wheel.advance(due::add);
+      for (long dueStep : due) {
+        assertEquals(step, dueStep);
+      }
+      expired += due.size();
+    }
+
+    assertEquals(dueSteps.stream().filter(dueStep -> dueStep <= 2000).count(), expired);
+  }
+
+  @Test
+  void delaysBelowOneExpireOnTheNextStep() {
+    TimingWheel<String> wheel = new TimingWheel<>(8);
+    List<String> due = new ArrayList<>();
+
+    wheel.schedule("zero", 0);
+    wheel.schedule("negative", -5);
+    wheel.advance(due::add);
+
+    assertEquals(List.of("zero", "negative"), due);
+  }
+
+  @Test
+  void itemsCanBeScheduledWhileExpiring() {
+    TimingWheel<Integer> wheel = new TimingWheel<>(4);
+    List<Integer> due = new ArrayList<>();
+
+    wheel.schedule(1, 4);
+    for (int i = 0; i < 12; i++) {
+      wheel.advance(
+          item -> {
+            due.add(item);
+            if (item < 3) {
+              wheel.schedule(item + 1, 4);
+            }
+          });
+    }
+
+    assertEquals(List.of(1, 2, 3), due);
+  }
+
+  @Test
+  void clearDropsEveryItem() {
+    TimingWheel<String> wheel = new TimingWheel<>(8);
+    List<String> due = new ArrayList<>();
+
+    wheel.schedule("soon", 1);
+    wheel.schedule("later", 100);
+    wheel.clear();
+    for (int i = 0; i < 200; i++) {
+      wheel.advance(due::add);
+    }
+
+    assertTrue(due.isEmpty());
+  }
+}
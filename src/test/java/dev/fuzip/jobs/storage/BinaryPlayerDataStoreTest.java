@@ -0,0 +1,218 @@
+package dev.fuzip.jobs.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import dev.fuzip.jobs.entities.JobEntity;
+import dev.fuzip.jobs.entities.PlayerEntity;
+import dev.fuzip.jobs.entities.TestJobs;
+import dev.fuzip.jobs.entities.XpCaps;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BinaryPlayerDataStoreTest {
+
+  private static final UUID ALICE = new UUID(1, 1);
+  private static final UUID BOB = new UUID(2, 2);
+  private static final XpCaps CAPS = new XpCaps(1000, 0, 0, 1);
+
+  @TempDir Path folder;
+
+  @Test
+  void recordsWithoutCapsHoldOnlyProgress() throws IOException {
+    Path file = this.folder.resolve("progress.dat");
+    BinaryPlayerDataStore store =
+        new BinaryPlayerDataStore(file, TestJobs.create("miner", "farmer"));
+    store.save(player(ALICE, 2, 0));
+    store.close();
+
+    // 64 bytes of header, then 1024 mapped slots of a UUID and two 12-byte jobs
+    assertEquals(64 + 1024 * (16 + 2 * 12), Files.size(file));
+  }
+
+  @Test
+  void windowsFollowTheCapsOfEachJob() throws IOException {
+    Path file = this.folder.resolve("progress.dat");
+    long now = System.currentTimeMillis();
+    Map<String, JobEntity> uncapped = TestJobs.create("miner", "farmer");
+    Map<String, JobEntity> capped = TestJobs.create(CAPS, "miner", "farmer");
+
+    BinaryPlayerDataStore store = new BinaryPlayerDataStore(file, uncapped);
+    PlayerEntity alice = player(ALICE, 2, 0);
+    alice.addWindowXp(0, now, 30);
+    store.save(alice);
+    store.close();
+
+    store = new BinaryPlayerDataStore(file, capped);
+    alice = store.load(ALICE);
+    assertProgress(alice, 0);
+    assertNull(alice.getXpWindow(0));
+    alice.addWindowXp(0, now, 30);
+    store.save(alice);
+    store.close();
+
+    store = new BinaryPlayerDataStore(file, capped);
+    assertEquals(30, store.load(ALICE).getHourlyXp(0, now));
+    store.close();
+
+    store = new BinaryPlayerDataStore(file, uncapped);
+    alice = store.load(ALICE);
+    assertProgress(alice, 0);
+    assertNull(alice.getXpWindow(0));
+    assertTrue(store.checkIntegrity().isEmpty());
+    store.close();
+  }
+
+  @Test
+  void upgradesSchemaVersionTwo() throws IOException {
+    Path file = this.folder.resolve("progress.dat");
+    long now = System.currentTimeMillis();
+    PlayerEntity alice = player(ALICE, 2, 0);
+    alice.addWindowXp(1, now, 25);
+    writeVersionTwo(file, List.of("miner", "farmer"), alice, player(BOB, 2, 100));
+
+    Map<String, JobEntity> jobs = TestJobs.create(CAPS, "farmer", "miner", "hunter");
+    BinaryPlayerDataStore store = new BinaryPlayerDataStore(file, jobs);
+
+    PlayerEntity loaded = store.load(ALICE);
+    assertEquals(10, loaded.getJobTotalXp(1));
+    assertEquals(20, loaded.getJobTotalXp(0));
+    assertEquals(1, loaded.getJobLevel(2));
+    assertEquals(25, loaded.getHourlyXp(0, now));
+    assertNotNull(loaded.getXpWindow(0));
+    assertEquals(110, store.load(BOB).getJobTotalXp(1));
+    assertTrue(store.checkIntegrity().isEmpty());
+    store.close();
+  }
+
+  @Test
+  void keepsTheColumnsOfRemovedJobs() throws IOException {
+    Path file = this.folder.resolve("progress.dat");
+    BinaryPlayerDataStore store =
+        new BinaryPlayerDataStore(file, TestJobs.create(CAPS, "miner", "farmer"));
+    store.save(player(ALICE, 2, 0));
+    store.close();
+
+    store = new BinaryPlayerDataStore(file, TestJobs.create("farmer"));
+    assertEquals(20, store.load(ALICE).getJobTotalXp(0));
+    store.save(player(BOB, 1, 0));
+    store.close();
+
+    store = new BinaryPlayerDataStore(file, TestJobs.create(CAPS, "miner", "farmer"));
+    assertProgress(store.load(ALICE), 0);
+    assertEquals(0, store.load(BOB).getJobTotalXp(0));
+    assertEquals(1, store.load(BOB).getJobLevel(0));
+    store.close();
+  }
+
+  @Test
+  void streamsEveryPlayerOnceWhileSaving() throws IOException {
+    Map<String, JobEntity> jobs = TestJobs.create("miner", "farmer");
+    BinaryPlayerDataStore store = new BinaryPlayerDataStore(this.folder.resolve("p.dat"), jobs);
+    List<PlayerEntity> players = new ArrayList<>();
+    for (int i = 0; i < 1_200; i++) {
+      PlayerEntity playerData = new PlayerEntity(new UUID(9, i), jobs.size());
+      playerData.setJobTotalXp(0, i);
+      players.add(playerData);
+    }
+    store.saveAll(players);
+
+    // Another thread saves between two pages, updating streamed players and adding one at the end
+    PlayerEntity late = new PlayerEntity(new UUID(10, 0), jobs.size());
+    Set<UUID> streamed = new HashSet<>();
+    store.forEach(
+        playerData -> {
+          assertTrue(streamed.add(playerData.getUuid()), "streamed twice");
+          if (streamed.size() == 600) {
+            try {
+              CompletableFuture.runAsync(
+                      () -> {
+                        try {
+                          store.saveAll(List.of(players.get(0), players.get(599), late));
+                        } catch (IOException e) {
+                          throw new UncheckedIOException(e);
+                        }
+                      })
+                  .get(10, TimeUnit.SECONDS);
+            } catch (Exception e) {
+              throw new AssertionError("the save waited for the iteration", e);
+            }
+          }
+        });
+    store.close();
+
+    assertEquals(players.size() + 1, streamed.size());
+    assertTrue(streamed.contains(late.getUuid()));
+  }
+
+  /** Creates a player with progress 10 in the first job and 20 in the others, plus an offset. */
+  private static PlayerEntity player(UUID uuid, int jobCount, int offset) {
+    PlayerEntity playerData = new PlayerEntity(uuid, jobCount);
+    for (int job = 0; job < jobCount; job++) {
+      int totalXp = (job == 0 ? 10 : 20) + offset;
+      playerData.setJobTotalXp(job, totalXp);
+      playerData.setJobXp(job, totalXp / 2);
+      playerData.setJobLevel(job, 2);
+    }
+    return playerData;
+  }
+
+  private static void assertProgress(PlayerEntity playerData, int offset) {
+    assertEquals(10 + offset, playerData.getJobTotalXp(0));
+    assertEquals((10 + offset) / 2, playerData.getJobXp(0));
+    assertEquals(2, playerData.getJobLevel(0));
+    assertEquals(20 + offset, playerData.getJobTotalXp(1));
+  }
+
+  /** Writes a file in the second schema version, which held an XP window in every job column. */
+  private static void writeVersionTwo(Path file, List<String> jobIds, PlayerEntity... players)
+      throws IOException {
+    int headerSize = 20;
+    for (String jobId : jobIds) {
+      headerSize += 2 + jobId.length();
+    }
+    headerSize = (headerSize + 63) & ~63;
+    int jobBytes = 12 + PlayerEntity.XP_WINDOW_SIZE * 4;
+
+    ByteBuffer buffer =
+        ByteBuffer.allocate(headerSize + players.length * (16 + jobIds.size() * jobBytes));
+    buffer.putInt(0x4A4F4253).putInt(2).putInt(jobIds.size()).putInt(players.length);
+    buffer.putInt(headerSize);
+    for (String jobId : jobIds) {
+      buffer.putShort((short) jobId.length()).put(jobId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    buffer.position(headerSize);
+    for (PlayerEntity playerData : players) {
+      buffer.putLong(playerData.getUuid().getMostSignificantBits());
+      buffer.putLong(playerData.getUuid().getLeastSignificantBits());
+      for (int job = 0; job < jobIds.size(); job++) {
+        buffer.putInt(playerData.getJobXp(job));
+        buffer.putInt(playerData.getJobTotalXp(job));
+        buffer.putInt(playerData.getJobLevel(job));
+        int[] window = playerData.getXpWindow(job);
+        for (int i = 0; i < PlayerEntity.XP_WINDOW_SIZE; i++) {
+          buffer.putInt(window == null ? 0 : window[i]);
+        }
+      }
+    }
+
+    Files.write(file, buffer.array());
+  }
+}
@@ -0,0 +1,191 @@
+package dev.fuzip.jobs.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import dev.fuzip.jobs.entities.JobEntity;
+import dev.fuzip.jobs.entities.PlayerEntity;
+import dev.fuzip.jobs.entities.TestJobs;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Exports players with {@link ProgressWriter} and imports them back with {@link ProgressReader}.
+ */
+class ProgressTransferTest {
+
+  private static final UUID ALICE = UUID.fromString("00000000-0000-0000-0000-00000000000a");
+  private static final UUID BOB = UUID.fromString("00000000-0000-0000-0000-00000000000b");
+
+  private final Map<String, JobEntity> jobs = TestJobs.create("miner", "farmer", "hunter");
+
+  @TempDir Path folder;
+
+  @Test
+  void roundTripsThroughBothFormats() throws IOException {
+    for (TransferFormat format : TransferFormat.values()) {
+      Path file = this.folder.resolve("export." + format.getExtension());
+      List<PlayerEntity> players = new ArrayList<>();
+      for (int i = 0; i < 1_200; i++) {
+        players.add(player(new UUID(7, i), 1 + i % 40, i % 9, 1 + i * 31));
+      }
+
+      BinaryPlayerDataStore source = this.openStore("source-" + format.getExtension());
+      source.saveAll(players);
+      try (ProgressWriter writer = new ProgressWriter(file, format, this.jobs.values())) {
+        source.forEach(
+            playerData -> {
+              try {
+                writer.write(playerData, "Joueur, \"" + playerData.getUuid() + "\"");
+              } catch (IOException e) {
+                throw new AssertionError(e);
+              }
+            });
+      }
+      source.close();
+
+      BinaryPlayerDataStore target = this.openStore("target-" + format.getExtension());
+      int imported = this.importInto(target, file, format);
+
+      assertEquals(players.size(), imported);
+      for (PlayerEntity expected : players) {
+        assertSameProgress(expected, target.load(expected.getUuid()));
+      }
+      target.close();
+    }
+  }
+
+  @Test
+  void jobsMissingFromTheFileKeepTheirProgress() throws IOException {
+    BinaryPlayerDataStore store = this.openStore("progress.dat");
+    store.save(player(ALICE, 5, 10, 500));
+
+    Path file =
+        this.write(
+            ProgressWriter.CSV_HEADER, "00000000-0000-0000-0000-00000000000a,Alice,farmer,3,7,70");
+    this.importInto(store, file, TransferFormat.CSV);
+
+    PlayerEntity alice = store.load(ALICE);
+    assertEquals(5, alice.getJobLevel(0));
+    assertEquals(500, alice.getJobTotalXp(0));
+    assertEquals(3, alice.getJobLevel(1));
+    assertEquals(70, alice.getJobTotalXp(1));
+    assertEquals(500, alice.getJobTotalXp(2));
+    store.close();
+  }
+
+  @Test
+  void linesOfAPlayerSpreadOverTheFileAddUp() throws IOException {
+    BinaryPlayerDataStore store = this.openStore("progress.dat");
+    Path file =
+        this.write(
+            json(ALICE, "miner", 4, 1, 40),
+            json(BOB, "miner", 2, 2, 20),
+            json(ALICE, "hunter", 6, 3, 60));
+
+    assertEquals(3, this.importInto(store, file, TransferFormat.JSONL));
+
+    PlayerEntity alice = store.load(ALICE);
+    assertEquals(40, alice.getJobTotalXp(0));
+    assertEquals(4, alice.getJobLevel(0));
+    assertEquals(60, alice.getJobTotalXp(2));
+    assertEquals(6, alice.getJobLevel(2));
+    assertEquals(20, store.load(BOB).getJobTotalXp(0));
+    store.close();
+  }
+
+  @Test
+  void skipsAndReportsInvalidLines() throws IOException {
+    Path file =
+        this.write(
+            ProgressWriter.CSV_HEADER,
+            "00000000-0000-0000-0000-00000000000a,Alice,miner,2,5,25",
+            "not-a-uuid,Bob,miner,2,5,25",
+            "00000000-0000-0000-0000-00000000000b,Bob,fisher,2,5,25",
+            "00000000-0000-0000-0000-00000000000b,Bob,miner,0,5,25",
+            "",
+            "00000000-0000-0000-0000-00000000000b,Bob,farmer,2,5,25");
+
+    try (ProgressReader reader = new ProgressReader(file, TransferFormat.CSV, this.jobs)) {
+      assertEquals(ALICE, reader.next(this::newPlayer).getUuid());
+      PlayerEntity bob = reader.next(this::newPlayer);
+      assertEquals(25, bob.getJobTotalXp(1));
+      assertEquals(0, bob.getJobTotalXp(0));
+      assertNull(reader.next(this::newPlayer));
+
+      assertEquals(3, reader.getSkipped());
+      assertTrue(reader.getProblems().get(0).startsWith("Line 3: invalid line"));
+      assertEquals("Line 4: unknown job fisher", reader.getProblems().get(1));
+    }
+  }
+
+  @Test
+  void rejectsACsvFileWithoutHeader() throws IOException {
+    Path file = this.write("00000000-0000-0000-0000-00000000000a,Alice,miner,2,5,25");
+
+    assertThrows(
+        IOException.class, () -> new ProgressReader(file, TransferFormat.CSV, this.jobs).close());
+  }
+
+  private BinaryPlayerDataStore openStore(String fileName) throws IOException {
+    return new BinaryPlayerDataStore(this.folder.resolve(fileName), this.jobs);
+  }
+
+  /** Imports a file into a store the way {@code PlayerDataManager.importFrom} does. */
+  private int importInto(PlayerDataStore store, Path file, TransferFormat format)
+      throws IOException {
+    int imported = 0;
+
+    try (ProgressReader reader = new ProgressReader(file, format, this.jobs)) {
+      PlayerEntity playerData;
+      while ((playerData = reader.next(store::load)) != null) {
+        store.save(playerData);
+        imported++;
+      }
+      assertEquals(0, reader.getSkipped(), reader.getProblems().toString());
+    }
+
+    return imported;
+  }
+
+  private PlayerEntity newPlayer(UUID uuid) {
+    return new PlayerEntity(uuid, this.jobs.size());
+  }
+
+  private Path write(String... lines) throws IOException {
+    return Files.write(this.folder.resolve("import-" + lines.length + ".txt"), List.of(lines));
+  }
+
+  private static String json(UUID uuid, String job, int level, int xp, int totalXp) {
+    return String.format(
+        "{\"uuid\":\"%s\",\"job\":\"%s\",\"level\":%d,\"xp\":%d,\"total_xp\":%d}",
+        uuid, job, level, xp, totalXp);
+  }
+
+  private static PlayerEntity player(UUID uuid, int level, int xp, int totalXp) {
+    PlayerEntity playerData = new PlayerEntity(uuid, 3);
+    for (int job = 0; job < 3; job++) {
+      playerData.setJobLevel(job, level);
+      playerData.setJobXp(job, xp);
+      playerData.setJobTotalXp(job, totalXp);
+    }
+    return playerData;
+  }
+
+  private static void assertSameProgress(PlayerEntity expected, PlayerEntity actual) {
+    for (int job = 0; job < 3; job++) {
+      assertEquals(expected.getJobLevel(job), actual.getJobLevel(job));
+      assertEquals(expected.getJobXp(job), actual.getJobXp(job));
+      assertEquals(expected.getJobTotalXp(job), actual.getJobTotalXp(job));
+    }
+  }
+}
@@ -0,0 +1,172 @@
+package dev.fuzip.jobs.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import dev.fuzip.jobs.entities.JobEntity;
+import dev.fuzip.jobs.entities.PlayerEntity;
+import dev.fuzip.jobs.entities.TestJobs;
+import dev.fuzip.jobs.entities.XpCurve;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.h2.tools.Server;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs two stores against an H2 database in server mode, as two servers behind a proxy sharing a
+ * database, and checks that the gains of both are kept when they write the same rows.
+ */
+class SharedSqlPlayerDataStoreTest {
+
+  private static final UUID PLAYER = new UUID(1, 1);
+
+  private final Map<String, JobEntity> jobs = TestJobs.create("miner", "farmer");
+  private Server server;
+  private SharedSqlPlayerDataStore first;
+  private SharedSqlPlayerDataStore second;
+
+  @BeforeEach
+  void start() throws Exception {
+    this.server = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+    String url =
+        "jdbc:h2:tcp://localhost:" + this.server.getPort() + "/mem:jobs;DB_CLOSE_DELAY=-1";
+    this.first = new SharedSqlPlayerDataStore(url, "", "", this.jobs);
+    this.second = new SharedSqlPlayerDataStore(url, "", "", this.jobs);
+  }
+
+  @AfterEach
+  void stop() throws IOException {
+    this.first.close();
+    this.second.close();
+    this.server.stop();
+  }
+
+  @Test
+  void concurrentFirstSavesAreMerged() throws IOException {
+    PlayerEntity onFirst = this.first.loadSession(PLAYER);
+    PlayerEntity onSecond = this.second.loadSession(PLAYER);
+    assertTrue(onFirst.isNew());
+
+    this.gain(onFirst, 0, 10);
+    this.first.save(onFirst.copy());
+    this.gain(onSecond, 0, 20);
+    this.gain(onSecond, 1, 5);
+    this.second.save(onSecond.copy());
+
+    PlayerEntity stored = this.first.load(PLAYER);
+    assertFalse(stored.isNew());
+    this.assertTotal(stored, 0, 30);
+    this.assertTotal(stored, 1, 5);
+  }
+
+  @Test
+  void conflictingUpdatesAddTheGainsOfBothServers() throws IOException {
+    PlayerEntity onFirst = this.first.loadSession(PLAYER);
+    this.gain(onFirst, 0, 1_000);
+    this.first.save(onFirst.copy());
+
+    PlayerEntity onSecond = this.second.loadSession(PLAYER);
+    for (int round = 0; round < 5; round++) {
+      this.gain(onFirst, 0, 100);
+      this.first.save(onFirst.copy());
+      this.gain(onSecond, 0, 40);
+      this.second.save(onSecond.copy());
+    }
+
+    this.assertTotal(this.second.load(PLAYER), 0, 1_000 + 5 * 100 + 5 * 40);
+  }
+
+  @Test
+  void offlineLookupsDoNotResetTheSession() throws IOException {
+    PlayerEntity onFirst = this.first.loadSession(PLAYER);
+    this.gain(onFirst, 0, 100);
+    this.first.save(onFirst.copy());
+    this.gain(onFirst, 0, 10);
+
+    PlayerEntity onSecond = this.second.loadSession(PLAYER);
+    this.gain(onSecond, 0, 5);
+    this.second.save(onSecond.copy());
+
+    // A lookup of the player, as /jobs info or another plugin does, reads the rows the second
+    // server wrote. It must not become the base of the next save of the first server.
+    this.assertTotal(this.first.load(PLAYER), 0, 105);
+    this.first.save(onFirst.copy());
+
+    this.assertTotal(this.second.load(PLAYER), 0, 115);
+  }
+
+  @Test
+  void sessionsAreForgottenOnceReleased() throws IOException {
+    PlayerEntity onFirst = this.first.loadSession(PLAYER);
+    this.gain(onFirst, 1, 50);
+    this.first.saveAll(List.of(onFirst.copy()));
+    this.first.release(PLAYER);
+
+    PlayerEntity onSecond = this.second.loadSession(PLAYER);
+    this.gain(onSecond, 1, 25);
+    this.second.save(onSecond.copy());
+    this.second.release(PLAYER);
+
+    // Joining the first server again starts from the rows the second one wrote
+    PlayerEntity rejoined = this.first.loadSession(PLAYER);
+    this.assertTotal(rejoined, 1, 75);
+    this.gain(rejoined, 1, 5);
+    this.first.save(rejoined.copy());
+    this.assertTotal(this.second.load(PLAYER), 1, 80);
+  }
+
+  @Test
+  void streamsEveryPlayerAcrossPages() throws IOException {
+    List<PlayerEntity> players = new ArrayList<>();
+    for (int i = 0; i < 1_100; i++) {
+      PlayerEntity playerData = new PlayerEntity(new UUID(3, i), this.jobs.size());
+      this.gain(playerData, i % 2, 1 + i);
+      players.add(playerData);
+    }
+    this.first.saveAll(players);
+
+    Map<UUID, Integer> streamed = new HashMap<>();
+    this.second.forEach(
+        playerData ->
+            assertNull(
+                streamed.put(
+                    playerData.getUuid(),
+                    playerData.getJobTotalXp(0) + playerData.getJobTotalXp(1))));
+
+    assertEquals(players.size(), streamed.size());
+    for (int i = 0; i < players.size(); i++) {
+      assertEquals(1 + i, (int) streamed.get(new UUID(3, i)));
+    }
+  }
+
+  /** Applies a gain the way {@code LevelManager} does. */
+  private void gain(PlayerEntity playerData, int job, int xp) {
+    JobEntity jobEntity = this.jobs.values().stream().skip(job).findFirst().orElseThrow();
+    XpCurve curve = jobEntity.getXpCurve();
+    long progress =
+        curve.getXpForLevel(playerData.getJobLevel(job)) + playerData.getJobXp(job) + xp;
+    int level = curve.getLevel(progress);
+
+    playerData.addJobTotalXp(job, xp);
+    playerData.setJobLevel(job, level);
+    playerData.setJobXp(job, (int) (progress - curve.getXpForLevel(level)));
+  }
+
+  private void assertTotal(PlayerEntity playerData, int job, int totalXp) {
+    JobEntity jobEntity = this.jobs.values().stream().skip(job).findFirst().orElseThrow();
+    XpCurve curve = jobEntity.getXpCurve();
+    int level = curve.getLevel(totalXp);
+
+    assertEquals(totalXp, playerData.getJobTotalXp(job));
+    assertEquals(level, playerData.getJobLevel(job));
+    assertEquals(totalXp - curve.getXpForLevel(level), playerData.getJobXp(job));
+  }
+}
@@ -0,0 +1,178 @@
+package dev.fuzip.jobs.storage;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class XpJournalTest {
+
+  private static final UUID ALICE = new UUID(1, 1);
+  private static final UUID BOB = new UUID(2, 2);
+  private static final int RECORD_SIZE = 40;
+  private static final int TOTAL_XP_OFFSET = 24;
+
+  @TempDir Path folder;
+
+  @Test
+  void replaysTheHighestTotalOfEachJob() throws IOException {
+    XpJournal journal = this.open(List.of("miner", "farmer"), 1 << 20);
+    journal.append(ALICE, 0, 5, 105);
+    journal.append(ALICE, 0, 5, 110);
+    journal.append(ALICE, 1, 3, 3);
+    journal.append(BOB, 1, 7, 70);
+    journal.close(false);
+
+    Map<UUID, int[]> totals = this.readTotals(List.of("miner", "farmer"));
+
+    assertEquals(2, totals.size());
+    assertArrayEquals(new int[] {110, 3}, totals.get(ALICE));
+    assertArrayEquals(new int[] {0, 70}, totals.get(BOB));
+  }
+
+  @Test
+  void matchesJobsByIdAfterAReorder() throws IOException {
+    XpJournal journal = this.open(List.of("miner", "farmer", "hunter"), 1 << 20);
+    journal.append(ALICE, 0, 1, 10);
+    journal.append(ALICE, 1, 1, 20);
+    journal.append(ALICE, 2, 1, 30);
+    journal.close(false);
+
+    Map<UUID, int[]> totals = this.readTotals(List.of("fisher", "farmer", "miner"));
+
+    assertArrayEquals(new int[] {0, 20, 10}, totals.get(ALICE));
+  }
+
+  @Test
+  void stopsAtACorruptedOrTruncatedRecord() throws IOException {
+    XpJournal journal = this.open(List.of("miner"), 1 << 20);
+    journal.append(ALICE, 0, 1, 10);
+    journal.append(ALICE, 0, 1, 11);
+    journal.append(BOB, 0, 1, 50);
+    journal.close(false);
+
+    // Cut the last record short, as a crash during a write would
+    Path segment = this.segments().get(0);
+    long size = Files.size(segment);
+    try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+      channel.truncate(size - 10);
+    }
+    assertArrayEquals(new int[] {11}, this.readTotals(List.of("miner")).get(ALICE));
+
+    // Flip a bit in the total XP of the second record, now the last complete one
+    byte[] bytes = Files.readAllBytes(segment);
+    int secondRecord = bytes.length - (RECORD_SIZE - 10) - RECORD_SIZE;
+    bytes[secondRecord + TOTAL_XP_OFFSET] ^= 1;
+    Files.write(segment, bytes);
+    Map<UUID, int[]> totals = this.readTotals(List.of("miner"));
+
+    assertArrayEquals(new int[] {10}, totals.get(ALICE));
+    assertEquals(1, totals.size());
+  }
+
+  @Test
+  void skipsASegmentCutMidHeader() throws IOException {
+    XpJournal journal = this.open(List.of("miner", "farmer"), 1 << 20);
+    journal.append(ALICE, 0, 1, 10);
+    journal.close(false);
+    Path segment = this.segments().get(0);
+    byte[] written = Files.readAllBytes(segment);
+    int headerSize = written.length - RECORD_SIZE;
+
+    // Cut the header at every position past the fixed fields, as a crash during its write would
+    for (int size = 12; size < headerSize; size++) {
+      Files.write(segment, Arrays.copyOf(written, size));
+      assertTrue(this.readTotals(List.of("miner", "farmer")).isEmpty(), "cut at " + size);
+    }
+
+    // A job count or an ID length that does not fit the rest of the segment
+    byte[] bytes = Arrays.copyOf(written, headerSize);
+    ByteBuffer.wrap(bytes).putInt(8, -1);
+    Files.write(segment, bytes);
+    assertTrue(this.readTotals(List.of("miner", "farmer")).isEmpty());
+    ByteBuffer.wrap(bytes).putInt(8, 2).putShort(12, (short) 0xFFFF);
+    Files.write(segment, bytes);
+    assertTrue(this.readTotals(List.of("miner", "farmer")).isEmpty());
+  }
+
+  @Test
+  void deletesTheSegmentsHeldByTheStore() throws IOException {
+    XpJournal journal = this.open(List.of("miner"), RECORD_SIZE);
+    journal.append(ALICE, 0, 1, 10);
+    long saved = journal.rotateIfFull();
+    journal.append(BOB, 0, 1, 20);
+    journal.deleteThrough(saved);
+    journal.close(false);
+
+    assertEquals(1, this.segments().size());
+    Map<UUID, int[]> totals = this.readTotals(List.of("miner"));
+    assertEquals(1, totals.size());
+    assertArrayEquals(new int[] {20}, totals.get(BOB));
+  }
+
+  @Test
+  void rotatesBeforeTheSegmentIsFull() throws IOException {
+    XpJournal journal = this.open(List.of("miner"), 1 << 20);
+    journal.append(ALICE, 0, 1, 10);
+    assertEquals(0, journal.rotateIfFull());
+    long sealed = journal.rotate();
+    journal.append(BOB, 0, 1, 20);
+    journal.deleteThrough(sealed);
+    journal.close(false);
+
+    Map<UUID, int[]> totals = this.readTotals(List.of("miner"));
+    assertEquals(1, totals.size());
+    assertArrayEquals(new int[] {20}, totals.get(BOB));
+  }
+
+  @Test
+  void discardsEverySegmentOnACleanClose() throws IOException {
+    XpJournal journal = this.open(List.of("miner"), RECORD_SIZE);
+    journal.append(ALICE, 0, 1, 10);
+    journal.rotateIfFull();
+    journal.append(ALICE, 0, 1, 11);
+    journal.close(true);
+
+    assertTrue(this.segments().isEmpty());
+    assertTrue(this.readTotals(List.of("miner")).isEmpty());
+  }
+
+  private XpJournal open(List<String> jobIds, long segmentSize) throws IOException {
+    return new XpJournal(
+        this.folder,
+        jobIds,
+        false,
+        segmentSize,
+        e -> {
+          throw new AssertionError(e);
+        });
+  }
+
+  private Map<UUID, int[]> readTotals(List<String> jobIds) throws IOException {
+    XpJournal journal = this.open(jobIds, 1 << 20);
+    try {
+      return journal.readLatestTotals();
+    } finally {
+      journal.close(false);
+    }
+  }
+
+  private List<Path> segments() throws IOException {
+    try (Stream<Path> files = Files.list(this.folder)) {
+      return files.sorted().toList();
+    }
+  }
+}
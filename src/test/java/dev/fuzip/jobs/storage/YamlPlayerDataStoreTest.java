@@ -0,0 +1,158 @@
+package dev.fuzip.jobs.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import dev.fuzip.jobs.entities.JobEntity;
+import dev.fuzip.jobs.entities.PlayerEntity;
+import dev.fuzip.jobs.entities.TestJobs;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class YamlPlayerDataStoreTest {
+
+  private static final UUID ALICE = UUID.fromString("00000000-0000-0000-0000-00000000000a");
+  private static final UUID BOB = UUID.fromString("00000000-0000-0000-0000-00000000000b");
+  private static final String ALICE_ENTRY =
+      "  " + ALICE + ":\n    miner:\n      xp: 5\n      totalXp: 50\n      level: 3";
+
+  private final Map<String, JobEntity> jobs = TestJobs.create("miner", "farmer");
+
+  @TempDir Path folder;
+
+  @Test
+  void savesNextToALastEntryWithoutLineBreak() throws IOException {
+    File file = this.write("players:\n" + ALICE_ENTRY);
+
+    this.saveBob(file);
+
+    this.checkPlayers(file);
+    assertTrue(Files.readString(file.toPath()).endsWith("\n"));
+  }
+
+  @Test
+  void savesNextToOtherContentWithoutLineBreak() throws IOException {
+    File file = this.write("players:\n" + ALICE_ENTRY + "\nversion: 2");
+
+    this.saveBob(file);
+
+    this.checkPlayers(file);
+    String saved = Files.readString(file.toPath());
+    assertTrue(saved.startsWith("version: 2\nplayers:\n"), saved);
+  }
+
+  @Test
+  void keepsUnchangedEntriesByteForByte() throws IOException {
+    String alice = "  " + ALICE + ":\n    miner: {xp: 5, totalXp: 50, level: 3}\n";
+    File file = this.write("version: 2\nplayers:\n" + alice);
+
+    this.saveBob(file);
+
+    String saved = Files.readString(file.toPath());
+    assertTrue(saved.startsWith("version: 2\nplayers:\n" + alice), saved);
+    assertFalse(saved.contains("\n\n"));
+    this.checkPlayers(file);
+  }
+
+  @Test
+  void readsAFlowEntryOnItsKeyLine() throws IOException {
+    File file = this.write("players:\n  " + ALICE + ": {miner: {xp: 5, totalXp: 50, level: 3}}\n");
+
+    this.saveBob(file);
+
+    this.checkPlayers(file);
+  }
+
+  @Test
+  void streamsEveryPlayerOnceWhileSaving() throws IOException {
+    YamlPlayerDataStore store =
+        new YamlPlayerDataStore(this.folder.resolve("data.yml").toFile(), this.jobs);
+    List<PlayerEntity> players = new ArrayList<>();
+    for (int i = 0; i < 1_200; i++) {
+      PlayerEntity playerData = new PlayerEntity(new UUID(9, i), this.jobs.size());
+      playerData.setJobTotalXp(0, i);
+      players.add(playerData);
+    }
+    store.saveAll(players);
+
+    // Another thread saves between two pages, updating streamed players and adding one at the end
+    PlayerEntity late = new PlayerEntity(new UUID(10, 0), this.jobs.size());
+    Set<UUID> streamed = new HashSet<>();
+    store.forEach(
+        playerData -> {
+          assertTrue(streamed.add(playerData.getUuid()), "streamed twice");
+          if (streamed.size() == 600) {
+            try {
+              CompletableFuture.runAsync(
+                      () -> {
+                        try {
+                          store.saveAll(List.of(players.get(0), players.get(599), late));
+                        } catch (IOException e) {
+                          throw new UncheckedIOException(e);
+                        }
+                      })
+                  .get(10, TimeUnit.SECONDS);
+            } catch (Exception e) {
+              throw new AssertionError("the save waited for the iteration", e);
+            }
+          }
+        });
+    store.close();
+
+    assertEquals(players.size() + 1, streamed.size());
+    assertTrue(streamed.contains(late.getUuid()));
+  }
+
+  private File write(String content) throws IOException {
+    Path file = this.folder.resolve("data.yml");
+    Files.writeString(file, content, StandardCharsets.UTF_8);
+    return file.toFile();
+  }
+
+  private void saveBob(File file) throws IOException {
+    YamlPlayerDataStore store = new YamlPlayerDataStore(file, this.jobs);
+    try {
+      PlayerEntity bob = new PlayerEntity(BOB, this.jobs.size());
+      bob.setJobTotalXp(1, 70);
+      bob.setJobXp(1, 12);
+      bob.setJobLevel(1, 4);
+      store.saveAll(List.of(bob));
+    } finally {
+      store.close();
+    }
+  }
+
+  /** Reopens the file, so that the players are read from a fresh scan. */
+  private void checkPlayers(File file) throws IOException {
+    YamlPlayerDataStore store = new YamlPlayerDataStore(file, this.jobs);
+    try {
+      PlayerEntity alice = store.load(ALICE);
+      assertFalse(alice.isNew());
+      assertEquals(50, alice.getJobTotalXp(0));
+      assertEquals(5, alice.getJobXp(0));
+      assertEquals(3, alice.getJobLevel(0));
+
+      PlayerEntity bob = store.load(BOB);
+      assertFalse(bob.isNew());
+      assertEquals(70, bob.getJobTotalXp(1));
+      assertEquals(4, bob.getJobLevel(1));
+    } finally {
+      store.close();
+    }
+  }
+}